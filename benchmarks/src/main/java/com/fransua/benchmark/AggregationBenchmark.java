@@ -0,0 +1,129 @@
+package com.fransua.benchmark;
+
+import com.fransua.config.StatisticEngine;
+import com.fransua.config.StatisticOptions;
+import com.fransua.service.ApproximateStatisticService;
+import com.fransua.service.ExternalStatisticService;
+import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.ValuePartialStatistic;
+import com.fransua.service.ValueStatisticService;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Increments from several threads into one statistic service, either through the shared
+// incrementAttributeCount path or through per-thread partials merged at the end. The chars
+// variant counts values given as characters, as the streaming extractor does, and should
+// allocate nothing per increment (run with -prof gc).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class AggregationBenchmark {
+
+  private static final int VALUES_PER_THREAD = 1 << 16;
+
+  @Param({"EXACT", "APPROXIMATE", "EXTERNAL"})
+  public StatisticEngine engine;
+
+  @Param({"100", "100000"})
+  public int distinctValues;
+
+  private ValueStatisticService statisticService;
+
+  @State(Scope.Thread)
+  public static class ThreadValues {
+
+    private String[] values;
+    private char[][] valueChars;
+    private int index;
+    private ValuePartialStatistic partial;
+
+    @Setup(Level.Trial)
+    public void createValues(AggregationBenchmark benchmark) {
+      SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+      values = new String[VALUES_PER_THREAD];
+      for (int i = 0; i < values.length; ++i) {
+        // Squaring a uniform sample skews the values towards the first ones.
+        double sample = random.nextDouble();
+        values[i] = "Value " + (int) (sample * sample * benchmark.distinctValues);
+      }
+      valueChars = new char[VALUES_PER_THREAD][];
+      for (int i = 0; i < values.length; ++i) {
+        valueChars[i] = values[i].toCharArray();
+      }
+    }
+
+    @Setup(Level.Iteration)
+    public void createPartial(AggregationBenchmark benchmark) {
+      partial = benchmark.statisticService.createPartial();
+    }
+
+    @TearDown(Level.Iteration)
+    public void mergePartial(AggregationBenchmark benchmark) {
+      benchmark.statisticService.mergePartial(partial);
+    }
+
+    private String nextValue() {
+      index = (index + 1) & (VALUES_PER_THREAD - 1);
+      return values[index];
+    }
+
+    private char[] nextValueChars() {
+      index = (index + 1) & (VALUES_PER_THREAD - 1);
+      return valueChars[index];
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void createService() {
+    statisticService = switch (engine) {
+      case EXACT -> new StatisticCalculatorService();
+      case APPROXIMATE -> new ApproximateStatisticService(StatisticOptions.approximate(
+          1000, StatisticOptions.defaults().epsilon(), StatisticOptions.defaults().delta()));
+      case EXTERNAL -> new ExternalStatisticService(StatisticOptions.defaults().memoryBudget(),
+          4, StatisticOptions.defaults().spillDirectory());
+    };
+  }
+
+  @TearDown(Level.Iteration)
+  public void closeService() throws IOException {
+    if (statisticService instanceof Closeable closeable) {
+      closeable.close();
+    }
+  }
+
+  @Benchmark
+  public void incrementShared(ThreadValues threadValues) {
+    statisticService.incrementAttributeCount(threadValues.nextValue());
+  }
+
+  @Benchmark
+  public void incrementPartial(ThreadValues threadValues) {
+    threadValues.partial.increment(threadValues.nextValue());
+  }
+
+  @Benchmark
+  public void incrementPartialChars(ThreadValues threadValues) {
+    char[] value = threadValues.nextValueChars();
+    threadValues.partial.increment(value, 0, value.length);
+  }
+}
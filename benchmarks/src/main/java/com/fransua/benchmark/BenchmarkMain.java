@@ -0,0 +1,18 @@
+package com.fransua.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.Main;
+
+// Runs the JMH benchmarks and, unless a result format is given, writes the results to
+// jmh-result.json so runs of different commits can be compared.
+public class BenchmarkMain {
+
+  public static void main(String[] args) throws Exception {
+    List<String> arguments = new ArrayList<>(List.of(args));
+    if (!arguments.contains("-rf")) {
+      arguments.addAll(0, List.of("-rf", "json", "-rff", "jmh-result.json"));
+    }
+    Main.main(arguments.toArray(String[]::new));
+  }
+}
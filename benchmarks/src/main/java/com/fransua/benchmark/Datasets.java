@@ -0,0 +1,39 @@
+package com.fransua.benchmark;
+
+import com.fransua.generator.DatasetFormat;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+final class Datasets {
+
+  private Datasets() {
+  }
+
+  static Path generate(int orderCount, int fileCount) throws IOException {
+    return generate(orderCount, fileCount, DatasetFormat.JSON);
+  }
+
+  static Path generate(int orderCount, int fileCount, DatasetFormat format) throws IOException {
+    Path directory = Files.createTempDirectory("benchmark_dataset");
+    DatasetOptions options = DatasetOptions.defaults()
+        .withOrderCount(orderCount)
+        .withFileCount(fileCount)
+        .withFormat(format);
+    new OrderDatasetGenerator(options).generate(directory);
+    return directory;
+  }
+
+  static void delete(Path directory) throws IOException {
+    try (Stream<Path> pathStream = Files.walk(directory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.fransua.benchmark;
+
+import com.fransua.ApplicationRunner;
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.SchedulerOptions;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// A whole run over a generated directory: walk, parse, aggregate and write all reports.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EndToEndBenchmark {
+
+  @Param({"100000"})
+  public int orderCount;
+
+  @Param({"8"})
+  public int fileCount;
+
+  @Param({"1", "4"})
+  public int parallelism;
+
+  private Path datasetDirectory;
+  private Path outputDirectory;
+  private ApplicationConfig config;
+
+  @Setup(Level.Trial)
+  public void generateDataset() throws IOException {
+    datasetDirectory = Datasets.generate(orderCount, fileCount);
+    outputDirectory = Files.createTempDirectory("benchmark_statistic");
+    config = new ApplicationConfig(datasetDirectory.toFile(),
+        ApplicationConfig.availableAttributeNames(), ParsingMode.STREAMING)
+        .withOutputDirectory(outputDirectory.toFile())
+        .withSchedulerOptions(new SchedulerOptions(parallelism, false, false));
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteDataset() throws IOException {
+    Datasets.delete(datasetDirectory);
+    Datasets.delete(outputDirectory);
+  }
+
+  @Benchmark
+  public void run() throws Exception {
+    new ApplicationRunner(config).run();
+  }
+}
@@ -0,0 +1,93 @@
+package com.fransua.benchmark;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.generator.DatasetFormat;
+import com.fransua.processor.JsonFileProcessor;
+import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.StatisticService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Parse throughput of a single file for all attributes. Besides files/s, the bytes and orders
+// counters report bytes/s (of the file on disk, so compressed formats read fewer bytes) and
+// orders/s, which compares compressed and uncompressed input.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+  @Param({"STREAMING", "DATABIND"})
+  public ParsingMode parsingMode;
+
+  @Param({"json", "json.gz", "json.zst", "ndjson"})
+  public String format;
+
+  @Param({"20000"})
+  public int orderCount;
+
+  private Path datasetDirectory;
+  private File file;
+  private ApplicationConfig config;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Throughput {
+
+    public long bytes;
+    public long orders;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytes = 0;
+      orders = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void generateDataset() throws IOException {
+    DatasetFormat datasetFormat = DatasetFormat.fromOptionValue(format);
+    datasetDirectory = Datasets.generate(orderCount, 1, datasetFormat);
+    file = datasetDirectory.resolve("orders_part_1." + datasetFormat.extension()).toFile();
+    config = new ApplicationConfig(datasetDirectory.toFile(),
+        ApplicationConfig.availableAttributeNames(), parsingMode);
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteDataset() throws IOException {
+    Datasets.delete(datasetDirectory);
+  }
+
+  @Benchmark
+  public int parseFile(Throughput throughput) throws Exception {
+    Map<String, StatisticService> services = new LinkedHashMap<>();
+    for (String attributeName : config.attributeNames()) {
+      services.put(attributeName, new StatisticCalculatorService());
+    }
+    int orders = new JsonFileProcessor(config, file, services).call();
+    throughput.bytes += file.length();
+    throughput.orders += orders;
+    return orders;
+  }
+}
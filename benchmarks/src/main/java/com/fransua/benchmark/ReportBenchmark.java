@@ -0,0 +1,68 @@
+package com.fransua.benchmark;
+
+import com.fransua.config.ReportOptions;
+import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.ValuePartialStatistic;
+import com.fransua.service.XmlReporterService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Sorting the statistic and writing it as an XML report.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+  @Param({"1000", "100000"})
+  public int distinctValues;
+
+  private StatisticCalculatorService statisticService;
+  private Path reportDirectory;
+  private Path reportFile;
+
+  @Setup(Level.Trial)
+  public void createStatistic() throws IOException {
+    statisticService = new StatisticCalculatorService();
+    ValuePartialStatistic partial = statisticService.createPartial();
+    SplittableRandom random = new SplittableRandom(42);
+    for (int i = 0; i < distinctValues; ++i) {
+      String value = "Ingredient & <" + i + ">";
+      for (int j = random.nextInt(10); j >= 0; --j) {
+        partial.increment(value);
+      }
+    }
+    statisticService.mergePartial(partial);
+    reportDirectory = Files.createTempDirectory("benchmark_report");
+    reportFile = reportDirectory.resolve("statistic_by_ingredient-name.xml");
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteReport() throws IOException {
+    Datasets.delete(reportDirectory);
+  }
+
+  @Benchmark
+  public void writeReport() {
+    XmlReporterService.createReport(statisticService, "ingredient-name",
+        ReportOptions.unlimited(), reportFile);
+  }
+}
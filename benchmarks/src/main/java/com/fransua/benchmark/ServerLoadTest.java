@@ -0,0 +1,167 @@
+package com.fransua.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fransua.ApplicationRunner;
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.ServerOptions;
+import com.fransua.metrics.LatencyHistogram;
+import com.fransua.server.StatisticServer;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Load test of the query server: concurrent clients send a mix of top-N, lookup and full report
+// requests over keep-alive connections and the client-side latency is reported per request
+// kind. Without --url, a dataset is generated, ingested and served in-process first.
+//
+//   java -cp benchmarks/target/benchmarks.jar com.fransua.benchmark.ServerLoadTest
+//       [--url=http://localhost:8080] [--clients=16] [--seconds=10] [--warmup-seconds=3]
+//       [--orders=200000] [--files=8]
+public class ServerLoadTest {
+
+  private static final List<String> KINDS = List.of("top", "count", "report");
+
+  private final HttpClient client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .build();
+  private final String baseUrl;
+  private final Map<String, List<String>> paths = new LinkedHashMap<>();
+
+  private ServerLoadTest(String baseUrl) {
+    this.baseUrl = baseUrl;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new HashMap<>();
+    for (String argument : args) {
+      int separatorIndex = argument.indexOf('=');
+      if (!argument.startsWith("--") || separatorIndex < 0) {
+        throw new IllegalArgumentException("Expected --<option>=<value>, got " + argument);
+      }
+      options.put(argument.substring(2, separatorIndex), argument.substring(separatorIndex + 1));
+    }
+    int clients = Integer.parseInt(options.getOrDefault("clients", "16"));
+    long seconds = Long.parseLong(options.getOrDefault("seconds", "10"));
+    long warmupSeconds = Long.parseLong(options.getOrDefault("warmup-seconds", "3"));
+
+    if (options.containsKey("url")) {
+      new ServerLoadTest(options.get("url")).run(clients, warmupSeconds, seconds);
+      return;
+    }
+    Path dataset = Datasets.generate(Integer.parseInt(options.getOrDefault("orders", "200000")),
+        Integer.parseInt(options.getOrDefault("files", "8")));
+    Path output = Files.createTempDirectory("benchmark_statistic");
+    List<String> attributeNames = new ArrayList<>(ApplicationConfig.availableAttributeNames());
+    attributeNames.addAll(ApplicationConfig.revenueAttributeNames());
+    ApplicationConfig config = new ApplicationConfig(dataset.toFile(), attributeNames,
+        ParsingMode.STREAMING).withOutputDirectory(output.toFile())
+        .withServerOptions(new ServerOptions(true, 0));
+    try (StatisticServer server = new StatisticServer(config)) {
+      ApplicationRunner runner = new ApplicationRunner(config);
+      runner.run();
+      server.publish(runner.statisticServices());
+      server.start();
+      new ServerLoadTest("http://localhost:" + server.port()).run(clients, warmupSeconds,
+          seconds);
+    } finally {
+      Datasets.delete(dataset);
+      Datasets.delete(output);
+    }
+  }
+
+  private void run(int clients, long warmupSeconds, long seconds) throws Exception {
+    collectPaths();
+    System.out.println("Warming up for " + warmupSeconds + " s");
+    measure(clients, warmupSeconds);
+    System.out.println("Measuring " + clients + " clients for " + seconds + " s");
+    Map<String, LatencyHistogram> latencies = measure(clients, seconds);
+
+    long requests = latencies.values().stream().mapToLong(LatencyHistogram::count).sum();
+    System.out.printf(Locale.ROOT, "%.0f requests/s%n", (double) requests / seconds);
+    System.out.printf(Locale.ROOT, "%-8s %10s %10s %10s %10s %10s %10s%n", "request",
+        "count", "mean us", "p50 us", "p99 us", "p99.9 us", "max us");
+    for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+      LatencyHistogram histogram = entry.getValue();
+      System.out.printf(Locale.ROOT, "%-8s %10d %10d %10d %10d %10d %10d%n", entry.getKey(),
+          histogram.count(), micros(histogram.meanNanos()),
+          micros(histogram.percentileNanos(50)), micros(histogram.percentileNanos(99)),
+          micros(histogram.percentileNanos(99.9)), micros(histogram.maxNanos()));
+    }
+  }
+
+  // Top-N and full reports of every attribute, and lookups of its 100 most frequent values.
+  private void collectPaths() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    KINDS.forEach(kind -> paths.put(kind, new ArrayList<>()));
+    for (JsonNode attribute : mapper.readTree(get("/attributes").body()).get("attributes")) {
+      String attributeName = attribute.get("attribute").asText();
+      paths.get("top").add("/top/" + attributeName + "?n=10");
+      paths.get("report").add("/report/" + attributeName);
+      for (JsonNode item : mapper.readTree(get("/top/" + attributeName + "?n=100").body())
+          .get("items")) {
+        paths.get("count").add("/count/" + attributeName + "?name="
+            + URLEncoder.encode(item.get("name").asText(), StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  private Map<String, LatencyHistogram> measure(int clients, long seconds)
+      throws InterruptedException {
+    Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    KINDS.forEach(kind -> latencies.put(kind, new LatencyHistogram()));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < clients; ++i) {
+      Thread thread = new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+          // Mostly small queries, like a dashboard refreshing its widgets.
+          int choice = random.nextInt(100);
+          String kind = choice < 45 ? "top" : choice < 95 ? "count" : "report";
+          List<String> kindPaths = paths.get(kind);
+          String path = kindPaths.get(random.nextInt(kindPaths.size()));
+          long startNanos = System.nanoTime();
+          HttpResponse<byte[]> response = get(path);
+          latencies.get(kind).record(System.nanoTime() - startNanos);
+          if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " answered " + response.statusCode());
+          }
+        }
+      }, "load-client-" + i);
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    return latencies;
+  }
+
+  private HttpResponse<byte[]> get(String path) {
+    try {
+      return client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(),
+          HttpResponse.BodyHandlers.ofByteArray());
+    } catch (Exception e) {
+      throw new IllegalStateException("Request " + path + " failed", e);
+    }
+  }
+
+  private static long micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+}
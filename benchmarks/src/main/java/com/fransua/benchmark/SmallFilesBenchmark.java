@@ -0,0 +1,90 @@
+package com.fransua.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fransua.ApplicationRunner;
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.SchedulerOptions;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// A whole run over a directory of many tiny files, with and without the parallel walk. The
+// firstTaskMillis counter is the time to the first record: from the start of the run until the
+// first file task begins.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SmallFilesBenchmark {
+
+  @Param({"200000"})
+  public int orderCount;
+
+  @Param({"100000"})
+  public int fileCount;
+
+  @Param({"false", "true"})
+  public boolean parallelWalk;
+
+  @Param({"STREAMING", "DATABIND"})
+  public ParsingMode parsingMode;
+
+  private Path datasetDirectory;
+  private Path outputDirectory;
+  private ApplicationConfig config;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class TimeToFirstTask {
+
+    public long firstTaskMillis;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      firstTaskMillis = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void generateDataset() throws IOException {
+    datasetDirectory = Datasets.generate(orderCount, fileCount);
+    outputDirectory = Files.createTempDirectory("benchmark_statistic");
+    config = new ApplicationConfig(datasetDirectory.toFile(),
+        ApplicationConfig.availableAttributeNames(), parsingMode)
+        .withOutputDirectory(outputDirectory.toFile())
+        .withSchedulerOptions(new SchedulerOptions(
+            Runtime.getRuntime().availableProcessors(), false, parallelWalk));
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteDataset() throws IOException {
+    Datasets.delete(datasetDirectory);
+    Datasets.delete(outputDirectory);
+  }
+
+  @Benchmark
+  public void run(TimeToFirstTask timeToFirstTask) throws Exception {
+    new ApplicationRunner(config).run();
+    JsonNode summary = new ObjectMapper().readTree(config.summaryFile().toFile());
+    timeToFirstTask.firstTaskMillis += summary.get("firstTaskMillis").asLong();
+  }
+}
@@ -1,44 +1,416 @@
 package com.fransua;
 
 import com.fransua.config.ApplicationConfig;
+import com.fransua.config.CacheOptions;
+import com.fransua.config.CountMode;
+import com.fransua.config.CountOptions;
+import com.fransua.config.DedupMode;
+import com.fransua.config.DedupOptions;
+import com.fransua.config.IncrementalOptions;
+import com.fransua.config.OrderFilter;
+import com.fransua.config.OutputFormat;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.ReportOptions;
+import com.fransua.config.RunFeature;
+import com.fransua.config.SchedulerOptions;
+import com.fransua.config.ServerOptions;
+import com.fransua.config.StatisticEngine;
+import com.fransua.config.StatisticOptions;
+import com.fransua.config.TimeBucketOptions;
+import com.fransua.config.WatchOptions;
+import com.fransua.processor.AttributeExtractors;
 import java.io.File;
 import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class App {
 
+  private static final String MERGE_COMMAND = "merge";
+  private static final List<String> OPTION_NAMES = List.of("parsing-mode", "top", "min-count",
+      "statistic-engine", "approximate-capacity", "approximate-epsilon", "approximate-delta",
+      "incremental", "content-hash", "watch", "watch-debounce-ms", "watch-quiet-ms",
+      "parallelism", "virtual-threads", "time-bucket", "time-zone", "filter", "dedup",
+      "dedup-expected-orders", "dedup-fpp", "dedup-off-heap", "output-format",
+      "columnar-cache", "memory-budget", "spill-directory", "parallel-walk", "serve",
+      "serve-port", "count-mode", "hll-precision");
+  private static final List<String> MERGE_OPTION_NAMES = List.of("top", "min-count",
+      "output-format");
+
   public static void main(String[] args) {
     long startTime = System.currentTimeMillis();
     try {
+      if (args.length > 0 && MERGE_COMMAND.equals(args[0])) {
+        parseMergeArguments(args).run();
+        return;
+      }
       ApplicationConfig config = parseArguments(args);
-      ApplicationRunner runner = new ApplicationRunner(config);
-      runner.run();
+      if (config.serverOptions().enabled()) {
+        new ServerModeRunner(config).run();
+      } else if (config.watchOptions().enabled()) {
+        new WatchModeRunner(config).run();
+      } else {
+        ApplicationRunner runner = new ApplicationRunner(config);
+        runner.run();
+      }
     } catch (IllegalArgumentException e) {
       System.err.println("Arguments Error: " + e.getMessage());
       System.err.println(
-          "Usage: java -jar ... <path/to/json-data/inputDirectory> <attribute-name>");
+          "Usage: java -jar ... <path/to/json-data/inputDirectory> <attribute-name|all>..."
+              + " [--parsing-mode=<mode>] [--top=<N>] [--min-count=<count>]"
+              + " [--statistic-engine=<engine>] [--approximate-capacity=<counters>]"
+              + " [--approximate-epsilon=<epsilon>] [--approximate-delta=<delta>]"
+              + " [--memory-budget=<bytes>[k|m|g]] [--spill-directory=<directory>]"
+              + " [--incremental [--content-hash]]"
+              + " [--watch [--watch-debounce-ms=<millis>] [--watch-quiet-ms=<millis>]]"
+              + " [--parallelism=<threads>] [--virtual-threads] [--parallel-walk]"
+              + " [--time-bucket=<minute|hour|day|week|ISO-8601 duration> [--time-zone=<zone>]]"
+              + " [--filter=<clause>[;<clause>...]]"
+              + " [--dedup[=<mode>] [--dedup-expected-orders=<count>] [--dedup-fpp=<rate>]"
+              + " [--dedup-off-heap]] [--output-format=<format>] [--columnar-cache]"
+              + " [--serve [--serve-port=<port>]]"
+              + " [--count-mode=<mode> [--hll-precision=<4..18>]]");
+      System.err.println(
+          "       java -jar ... " + MERGE_COMMAND + " <partial-file|directory>..."
+              + " [--top=<N>] [--min-count=<count>] [--output-format=<format>]");
+      System.err.println("Filter clauses: createdAt>=|>|<=|<<date-time>,"
+          + " burger=<name>[|<name>...], ingredient=<name>[|<name>...]");
+      System.err.println(
+          "Available attribute names: " + AttributeExtractors.names()
+              + ", " + ApplicationConfig.revenueAttributeNames() + ", "
+              + ApplicationConfig.pairAttributeNames());
+      System.err.println("Composite attributes: <attribute-name>,<attribute-name>"
+          + "[,<attribute-name>], e.g. burger-name,ingredient-name");
+      System.err.println(
+          "Available parsing modes: " + ParsingMode.optionValues());
+      System.err.println(
+          "Available statistic engines: " + StatisticEngine.optionValues());
       System.err.println(
-          "Available attribute names: " + ApplicationConfig.availableAttributeNames());
+          "Available dedup modes: " + DedupMode.optionValues());
+      System.err.println(
+          "Available count modes: " + CountMode.optionValues());
+      System.err.println(
+          "Available output formats: " + OutputFormat.optionValues());
     } catch (Exception e) {
       System.err.println("Error: " + e);
     } finally {
       long endTime = System.currentTimeMillis();
       long durationTime = endTime - startTime;
       System.out.println(
-          "Execution with '" + args[1] + "' attribute is completed in " + durationTime
-              + " ms");
+          "Execution with '" + describeAttributes(args) + "' attribute is completed in "
+              + durationTime + " ms");
+    }
+  }
+
+  private static String describeAttributes(String[] args) {
+    if (args.length > 0 && MERGE_COMMAND.equals(args[0])) {
+      return MERGE_COMMAND;
+    }
+    return Arrays.stream(args)
+        .filter(argument -> !argument.startsWith("--"))
+        .skip(1)
+        .collect(Collectors.joining(", "));
+  }
+
+  private static Map<String, String> parseOptions(List<String> arguments,
+      List<String> optionNames, List<String> positionalArguments) {
+    Map<String, String> options = new HashMap<>();
+    for (String argument : arguments) {
+      if (argument.startsWith("--")) {
+        int separatorIndex = argument.indexOf('=');
+        if (separatorIndex < 0) {
+          options.put(argument.substring(2), "");
+        } else {
+          options.put(argument.substring(2, separatorIndex),
+              argument.substring(separatorIndex + 1));
+        }
+      } else {
+        positionalArguments.add(argument);
+      }
+    }
+    for (String optionName : options.keySet()) {
+      if (!optionNames.contains(optionName)) {
+        throw new IllegalArgumentException("Option '--" + optionName + "' is not supported");
+      }
+    }
+    return options;
+  }
+
+  private static MergeRunner parseMergeArguments(String[] args) {
+    List<String> positionalArguments = new ArrayList<>();
+    Map<String, String> options = parseOptions(Arrays.asList(args).subList(1, args.length),
+        MERGE_OPTION_NAMES, positionalArguments);
+    if (positionalArguments.isEmpty()) {
+      throw new IllegalArgumentException("Merge requires partial files or directories");
     }
+    ReportOptions reportOptions = parseReportOptions(options);
+    return new MergeRunner(positionalArguments.stream().map(Path::of).toList(),
+        Path.of(ApplicationConfig.statisticDirectoryName()), reportOptions);
+  }
+
+  private static ReportOptions parseReportOptions(Map<String, String> options) {
+    return new ReportOptions(
+        parseLongOption(options, "top", Long.MAX_VALUE),
+        parseLongOption(options, "min-count", 0),
+        OutputFormat.fromOptionValue(
+            options.getOrDefault("output-format", OutputFormat.XML.optionValue())));
   }
 
   private static ApplicationConfig parseArguments(String[] args) {
-    if (args.length < 2) {
+    List<String> positionalArguments = new ArrayList<>();
+    Map<String, String> options = parseOptions(Arrays.asList(args), OPTION_NAMES,
+        positionalArguments);
+
+    if (positionalArguments.size() < 2) {
       throw new IllegalArgumentException("Required 2 arguments");
     }
-    File inputDirectory = Path.of(args[0]).toFile();
-    String attributeName = args[1];
-    if (ApplicationConfig.availableAttributeNames().stream()
-        .noneMatch(attributeName::equals)) {
-      throw new IllegalArgumentException("Attribute '" + attributeName + "' is not supported");
+    File inputDirectory = Path.of(positionalArguments.get(0)).toFile();
+    List<String> attributeNames = parseAttributeNames(
+        positionalArguments.subList(1, positionalArguments.size()));
+    ParsingMode parsingMode = ParsingMode.fromOptionValue(
+        options.getOrDefault("parsing-mode", ParsingMode.STREAMING.optionValue()));
+    ReportOptions reportOptions = parseReportOptions(options);
+    StatisticOptions defaultStatisticOptions = StatisticOptions.defaults();
+    StatisticOptions statisticOptions = new StatisticOptions(
+        StatisticEngine.fromOptionValue(options.getOrDefault("statistic-engine",
+            defaultStatisticOptions.engine().optionValue())),
+        parseIntOption(options, "approximate-capacity", defaultStatisticOptions.capacity()),
+        parseDoubleOption(options, "approximate-epsilon", defaultStatisticOptions.epsilon()),
+        parseDoubleOption(options, "approximate-delta", defaultStatisticOptions.delta()),
+        parseByteSizeOption(options, "memory-budget", defaultStatisticOptions.memoryBudget()),
+        options.containsKey("spill-directory") ? new File(options.get("spill-directory"))
+            : defaultStatisticOptions.spillDirectory());
+    if ((options.containsKey("memory-budget") || options.containsKey("spill-directory"))
+        && statisticOptions.engine() != StatisticEngine.EXTERNAL) {
+      throw new IllegalArgumentException(
+          "Options '--memory-budget' and '--spill-directory' require the external engine");
+    }
+    IncrementalOptions incrementalOptions = new IncrementalOptions(
+        options.containsKey("incremental"), options.containsKey("content-hash"));
+    WatchOptions defaultWatchOptions = WatchOptions.disabled();
+    WatchOptions watchOptions = new WatchOptions(options.containsKey("watch"),
+        parseLongOption(options, "watch-debounce-ms", defaultWatchOptions.debounceMillis()),
+        parseLongOption(options, "watch-quiet-ms", defaultWatchOptions.quietMillis()));
+    SchedulerOptions schedulerOptions = new SchedulerOptions(
+        parseIntOption(options, "parallelism", SchedulerOptions.defaults().parallelism()),
+        options.containsKey("virtual-threads"), options.containsKey("parallel-walk"));
+    TimeBucketOptions timeBucketOptions = parseTimeBucketOptions(options);
+    OrderFilter orderFilter = options.containsKey("filter")
+        ? OrderFilter.parse(options.get("filter")) : OrderFilter.none();
+    // Partials hold complete exact counts per attribute value; cut-offs apply when merging.
+    if (reportOptions.format() == OutputFormat.PARTIAL
+        && (options.containsKey("top") || options.containsKey("min-count"))) {
+      throw new IllegalArgumentException(
+          "Options '--top' and '--min-count' apply when merging partials");
+    }
+    ApplicationConfig config = new ApplicationConfig(inputDirectory, attributeNames,
+        parsingMode, new File(ApplicationConfig.statisticDirectoryName()), reportOptions,
+        statisticOptions, incrementalOptions, watchOptions, schedulerOptions, timeBucketOptions,
+        orderFilter, parseDedupOptions(options),
+        new CacheOptions(options.containsKey("columnar-cache")), parseServerOptions(options),
+        parseCountOptions(options));
+    RunFeature.validate(runFeatures(config));
+    return config;
+  }
+
+  private static Set<RunFeature> runFeatures(ApplicationConfig config) {
+    Set<RunFeature> features = EnumSet.noneOf(RunFeature.class);
+    for (String attributeName : config.attributeNames()) {
+      if (ApplicationConfig.revenueAttributeNames().contains(attributeName)) {
+        features.add(RunFeature.REVENUE_ATTRIBUTES);
+      } else if (ApplicationConfig.pairAttributeNames().contains(attributeName)) {
+        features.add(RunFeature.PAIR_ATTRIBUTES);
+      } else if (AttributeExtractors.isComposite(attributeName)) {
+        features.add(RunFeature.COMPOSITE_ATTRIBUTES);
+      }
+    }
+    switch (config.statisticOptions().engine()) {
+      case APPROXIMATE -> features.add(RunFeature.APPROXIMATE_ENGINE);
+      case EXTERNAL -> features.add(RunFeature.EXTERNAL_ENGINE);
+      default -> {
+      }
+    }
+    addIf(features, RunFeature.TIME_BUCKETS, config.timeBucketOptions().enabled());
+    addIf(features, RunFeature.INCREMENTAL, config.incrementalOptions().enabled());
+    addIf(features, RunFeature.WATCH, config.watchOptions().enabled());
+    addIf(features, RunFeature.PARALLEL_WALK, config.schedulerOptions().parallelWalk());
+    addIf(features, RunFeature.FILTER, config.orderFilter().enabled());
+    addIf(features, RunFeature.DEDUP, config.dedupOptions().enabled());
+    addIf(features, RunFeature.COLUMNAR_CACHE, config.cacheOptions().enabled());
+    addIf(features, RunFeature.PARTIAL_OUTPUT,
+        config.reportOptions().format() == OutputFormat.PARTIAL);
+    addIf(features, RunFeature.SERVER, config.serverOptions().enabled());
+    addIf(features, RunFeature.PER_ORDER_COUNTS, config.countOptions().perOrder());
+    addIf(features, RunFeature.DISTINCT_ORDER_COUNTS,
+        config.countOptions().mode() == CountMode.DISTINCT_ORDERS);
+    return features;
+  }
+
+  private static void addIf(Set<RunFeature> features, RunFeature feature, boolean enabled) {
+    if (enabled) {
+      features.add(feature);
+    }
+  }
+
+  private static TimeBucketOptions parseTimeBucketOptions(Map<String, String> options) {
+    String width = options.get("time-bucket");
+    String zone = options.get("time-zone");
+    if (width == null) {
+      if (zone != null) {
+        throw new IllegalArgumentException("Option '--time-zone' requires '--time-bucket'");
+      }
+      return TimeBucketOptions.disabled();
+    }
+    try {
+      return new TimeBucketOptions(TimeBucketOptions.parseWidth(width),
+          zone == null ? ZoneOffset.UTC : ZoneId.of(zone));
+    } catch (DateTimeException e) {
+      throw new IllegalArgumentException("Time zone '" + zone + "' is not supported");
+    }
+  }
+
+  private static CountOptions parseCountOptions(Map<String, String> options) {
+    CountOptions defaults = CountOptions.occurrences();
+    CountMode mode = CountMode.fromOptionValue(
+        options.getOrDefault("count-mode", defaults.mode().optionValue()));
+    if (options.containsKey("hll-precision") && mode != CountMode.DISTINCT_ORDERS) {
+      throw new IllegalArgumentException(
+          "Option '--hll-precision' requires '--count-mode=distinct-orders'");
+    }
+    long precision = parseLongOption(options, "hll-precision", defaults.precision());
+    if (precision < CountOptions.MIN_PRECISION || precision > CountOptions.MAX_PRECISION) {
+      throw new IllegalArgumentException("Option '--hll-precision' requires a precision from "
+          + CountOptions.MIN_PRECISION + " to " + CountOptions.MAX_PRECISION);
+    }
+    return new CountOptions(mode, (int) precision);
+  }
+
+  private static ServerOptions parseServerOptions(Map<String, String> options) {
+    if (!options.containsKey("serve")) {
+      if (options.containsKey("serve-port")) {
+        throw new IllegalArgumentException("Option '--serve-port' requires '--serve'");
+      }
+      return ServerOptions.disabled();
+    }
+    long port = parseLongOption(options, "serve-port", ServerOptions.disabled().port());
+    if (port < 0 || port > 65535) {
+      throw new IllegalArgumentException("Option '--serve-port' requires a port up to 65535");
+    }
+    return new ServerOptions(true, (int) port);
+  }
+
+  // A bare --dedup means exact dedup.
+  private static DedupOptions parseDedupOptions(Map<String, String> options) {
+    DedupOptions defaults = DedupOptions.disabled();
+    String mode = options.get("dedup");
+    if (mode == null) {
+      if (options.containsKey("dedup-expected-orders") || options.containsKey("dedup-fpp")
+          || options.containsKey("dedup-off-heap")) {
+        throw new IllegalArgumentException("Dedup options require '--dedup'");
+      }
+      return defaults;
+    }
+    return new DedupOptions(
+        mode.isEmpty() ? DedupMode.EXACT : DedupMode.fromOptionValue(mode),
+        parseLongOption(options, "dedup-expected-orders", defaults.expectedOrders()),
+        parseDoubleOption(options, "dedup-fpp", defaults.falsePositiveRate()),
+        options.containsKey("dedup-off-heap"));
+  }
+
+  private static double parseDoubleOption(Map<String, String> options, String optionName,
+      double defaultValue) {
+    String value = options.get(optionName);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Option '--" + optionName + "' requires a number");
+    }
+  }
+
+  // Accepts a number of bytes with an optional k, m or g suffix (powers of 1024).
+  private static long parseByteSizeOption(Map<String, String> options, String optionName,
+      long defaultValue) {
+    String value = options.get(optionName);
+    if (value == null) {
+      return defaultValue;
+    }
+    String lowerCaseValue = value.toLowerCase(Locale.ROOT);
+    int shift = switch (lowerCaseValue.isEmpty() ? ' '
+        : lowerCaseValue.charAt(lowerCaseValue.length() - 1)) {
+      case 'k' -> 10;
+      case 'm' -> 20;
+      case 'g' -> 30;
+      default -> 0;
+    };
+    String number = shift == 0 ? value : value.substring(0, value.length() - 1);
+    try {
+      long bytes = Long.parseLong(number);
+      if (bytes > Long.MAX_VALUE >> shift) {
+        throw new NumberFormatException();
+      }
+      return bytes << shift;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Option '--" + optionName + "' requires a size");
+    }
+  }
+
+  private static long parseLongOption(Map<String, String> options, String optionName,
+      long defaultValue) {
+    String value = options.get(optionName);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Option '--" + optionName + "' requires a number");
+    }
+  }
+
+  private static int parseIntOption(Map<String, String> options, String optionName,
+      int defaultValue) {
+    String value = options.get(optionName);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+          "Option '--" + optionName + "' requires a number up to " + Integer.MAX_VALUE);
+    }
+  }
+
+  private static List<String> parseAttributeNames(List<String> arguments) {
+    Set<String> attributeNames = new LinkedHashSet<>();
+    for (String attributeName : arguments) {
+      if (ApplicationConfig.allAttributesName().equals(attributeName)) {
+        attributeNames.addAll(ApplicationConfig.availableAttributeNames());
+      } else if (AttributeExtractors.names().contains(attributeName)
+          || ApplicationConfig.revenueAttributeNames().contains(attributeName)
+          || ApplicationConfig.pairAttributeNames().contains(attributeName)) {
+        attributeNames.add(attributeName);
+      } else if (AttributeExtractors.isComposite(attributeName)) {
+        AttributeExtractors.resolve(attributeName);
+        attributeNames.add(attributeName);
+      } else {
+        throw new IllegalArgumentException("Attribute '" + attributeName + "' is not supported");
+      }
     }
-    return new ApplicationConfig(inputDirectory, attributeName);
+    return List.copyOf(attributeNames);
   }
 }
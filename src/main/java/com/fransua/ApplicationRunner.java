@@ -1,75 +1,390 @@
 package com.fransua;
 
 import com.fransua.config.ApplicationConfig;
+import com.fransua.config.DedupOptions;
+import com.fransua.config.OutputFormat;
+import com.fransua.metrics.ReportWriteEvent;
+import com.fransua.metrics.RunMetrics;
+import com.fransua.processor.AttributeExtractor;
+import com.fransua.processor.AttributeExtractors;
+import com.fransua.processor.ByteRange;
+import com.fransua.processor.ColumnarOrderCache;
+import com.fransua.processor.FileTaskScheduler;
+import com.fransua.processor.InputFiles;
+import com.fransua.processor.JsonArraySplitter;
+import com.fransua.processor.JsonFileBatch;
 import com.fransua.processor.JsonFileProcessor;
+import com.fransua.processor.NewlineSplitter;
+import com.fransua.processor.ParallelFileWalker;
+import com.fransua.service.ApproximateStatisticService;
+import com.fransua.service.AttributeCounter;
+import com.fransua.service.CompositeStatisticService;
+import com.fransua.service.CooccurrenceStatisticService;
+import com.fransua.service.ExternalStatisticService;
+import com.fransua.service.FileIdentity;
+import com.fransua.service.FileState;
+import com.fransua.service.OrderCountStatisticService;
+import com.fransua.service.OrderDeduplicator;
+import com.fransua.service.OrderIdBloomFilter;
+import com.fransua.service.OrderIdSet;
+import com.fransua.service.PriceStatisticService;
 import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.StatisticPartialFile;
+import com.fransua.service.StatisticService;
+import com.fransua.service.StatisticStateStore;
+import com.fransua.service.TimeBucketStatisticService;
 import com.fransua.service.XmlReporterService;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 public class ApplicationRunner {
 
   private final ApplicationConfig config;
-  private final StatisticCalculatorService statisticService;
+  private final Map<String, StatisticService> statisticServices;
+  private final RunMetrics metrics = new RunMetrics();
+  private final OrderDeduplicator deduplicator;
 
   public ApplicationRunner(ApplicationConfig config) {
     this.config = config;
-    this.statisticService = new StatisticCalculatorService();
+    this.deduplicator = createDeduplicator();
+    this.statisticServices = new LinkedHashMap<>();
+    for (String attributeName : config.attributeNames()) {
+      statisticServices.put(attributeName, createStatisticService(attributeName));
+    }
+  }
+
+  private StatisticService createStatisticService(String attributeName) {
+    if (ApplicationConfig.revenueAttributeNames().contains(attributeName)) {
+      return new PriceStatisticService(PriceStatisticService.dimensionOf(attributeName));
+    }
+    if (ApplicationConfig.pairAttributeNames().contains(attributeName)) {
+      return new CooccurrenceStatisticService(
+          CooccurrenceStatisticService.dimensionOf(attributeName), config.reportOptions());
+    }
+    if (AttributeExtractors.isComposite(attributeName)) {
+      return new CompositeStatisticService(AttributeExtractors.resolve(attributeName).stream()
+          .map(AttributeExtractor::name)
+          .toList());
+    }
+    if (config.countOptions().perOrder()) {
+      return new OrderCountStatisticService(config.countOptions());
+    }
+    if (config.timeBucketOptions().enabled()) {
+      return new TimeBucketStatisticService(config.timeBucketOptions());
+    }
+    return switch (config.statisticOptions().engine()) {
+      case EXACT -> new StatisticCalculatorService();
+      case APPROXIMATE -> new ApproximateStatisticService(config.statisticOptions());
+      case EXTERNAL -> new ExternalStatisticService(
+          config.statisticOptions().memoryBudget() / config.attributeNames().size(),
+          config.schedulerOptions().parallelism(), config.statisticOptions().spillDirectory());
+    };
+  }
+
+  private OrderDeduplicator createDeduplicator() {
+    DedupOptions options = config.dedupOptions();
+    return switch (options.mode()) {
+      case NONE -> null;
+      case EXACT -> new OrderIdSet(options.expectedOrders(), options.offHeap());
+      case BLOOM -> new OrderIdSet(options.expectedOrders(), options.offHeap(),
+          new OrderIdBloomFilter(options.expectedOrders(), options.falsePositiveRate()));
+      case APPROXIMATE -> new OrderIdBloomFilter(options.expectedOrders(),
+          options.falsePositiveRate());
+    };
   }
 
   public void run() throws Exception {
-    List<File> jsonFiles = findJsonFiles(config.inputDirectory().toPath());
+    try {
+      processAndWriteReports();
+    } finally {
+      for (StatisticService service : statisticServices.values()) {
+        if (service instanceof Closeable closeable) {
+          closeable.close();
+        }
+      }
+    }
+  }
+
+  public Map<String, StatisticService> statisticServices() {
+    return Collections.unmodifiableMap(statisticServices);
+  }
+
+  private void processAndWriteReports() throws Exception {
+    List<File> jsonFiles;
+    if (config.schedulerOptions().parallelWalk()) {
+      jsonFiles = processWalkedFiles();
+    } else {
+      long walkStartNanos = System.nanoTime();
+      jsonFiles = findJsonFiles(config.inputDirectory().toPath());
+      metrics.recordStage(RunMetrics.Stage.WALK, System.nanoTime() - walkStartNanos);
+
+      if (jsonFiles.isEmpty()) {
+        throw new IllegalArgumentException("Json files in directory are required");
+      }
+
+      if (config.incrementalOptions().enabled()) {
+        processJsonFilesIncrementally(jsonFiles);
+      } else {
+        processJsonFiles(jsonFiles, file -> statisticServices, true);
+      }
+    }
+    if (config.cacheOptions().enabled()) {
+      pruneColumnarCache(jsonFiles);
+      System.out.println("Files read from columnar cache: " + metrics.cacheHits()
+          + ", cached now: " + metrics.cacheBuilds());
+    }
+    if (deduplicator != null) {
+      metrics.recordDuplicates(config.dedupOptions().mode().optionValue(),
+          deduplicator.duplicates(), deduplicator.expectedFalseDuplicates());
+      System.out.println("Duplicate orders skipped: " + deduplicator.duplicates());
+    }
+    if (config.orderFilter().enabled()) {
+      long orders = metrics.orders();
+      long matchedOrders = orders - metrics.rejectedOrders() - metrics.duplicateOrders();
+      System.out.printf(Locale.ROOT,
+          "Orders matching filter: %d of %d (%.1f%%), bytes skipped: %d%n", matchedOrders,
+          orders, orders == 0 ? 0.0 : 100.0 * matchedOrders / orders, metrics.skippedBytes());
+    }
+    statisticServices.forEach((attributeName, service) -> {
+      if (service instanceof PriceStatisticService priceService
+          && priceService.getRejectedPrices() > 0) {
+        System.err.println("Rejected " + priceService.getRejectedPrices() + " prices of "
+            + attributeName + " with fractions of a cent; they are left out of the revenue");
+      }
+    });
+    writeReports();
+  }
+
+  void writeReports() throws IOException {
+    Files.createDirectories(config.outputDirectory().toPath());
+    for (Map.Entry<String, StatisticService> entry : statisticServices.entrySet()) {
+      ReportWriteEvent event = new ReportWriteEvent();
+      event.begin();
+      long startNanos = System.nanoTime();
+      Path statisticFile;
+      if (config.reportOptions().format() == OutputFormat.PARTIAL) {
+        statisticFile = config.partialFile(entry.getKey());
+        StatisticPartialFile.write(statisticFile, entry.getKey(),
+            ((StatisticCalculatorService) entry.getValue()).getAttributeCounter());
+      } else {
+        statisticFile = config.statisticFile(entry.getKey());
+        XmlReporterService.createReport(entry.getValue(), entry.getKey(),
+            config.reportOptions(), statisticFile);
+      }
+      event.end();
+      long bytes = Files.size(statisticFile);
+      metrics.recordReport(entry.getKey(), bytes, System.nanoTime() - startNanos);
+      if (event.shouldCommit()) {
+        event.attributeName = entry.getKey();
+        event.bytes = bytes;
+        event.commit();
+      }
+    }
+    metrics.writeSummary(config.summaryFile());
+  }
+
+  // Files whose identity matches the state of a previous run are not parsed again; their stored
+  // partials are merged instead. Files that disappeared simply have no state to merge, so the
+  // result always equals a full recompute.
+  private void processJsonFilesIncrementally(List<File> jsonFiles) throws IOException {
+    Path stateFile = config.stateFile();
+    Map<String, FileState> previousStates = StatisticStateStore.load(stateFile);
+    boolean contentHash = config.incrementalOptions().contentHash();
 
-    if (jsonFiles.isEmpty()) {
-      throw new IllegalArgumentException("Json files in directory are required");
+    List<FileState> currentStates = new ArrayList<>();
+    Map<File, FileIdentity> changedFiles = new LinkedHashMap<>();
+    for (File file : jsonFiles) {
+      FileIdentity identity = FileIdentity.of(file, contentHash);
+      FileState state = previousStates.get(identity.path());
+      if (state != null && state.covers(identity, config.attributeNames())) {
+        currentStates.add(state);
+      } else {
+        changedFiles.put(file, identity);
+      }
+    }
+    int reusedFiles = currentStates.size();
+
+    List<FileState> parsedStates = processJsonFileStates(changedFiles, true);
+    currentStates.addAll(parsedStates);
+    for (FileState state : currentStates) {
+      applyFileState(null, state);
+    }
+    StatisticStateStore.save(stateFile, currentStates);
+    System.out.println("Files reused from state: " + reusedFiles + ", parsed: "
+        + parsedStates.size());
+  }
+
+  // Parses the files into their own exact counters, so their contribution can later be
+  // replaced or removed. Without failFast, files that failed to parse simply have no state.
+  List<FileState> processJsonFileStates(Map<File, FileIdentity> files, boolean failFast)
+      throws IOException {
+    Map<File, Map<String, StatisticService>> fileServices = new HashMap<>();
+    for (File file : files.keySet()) {
+      Map<String, StatisticService> services = new LinkedHashMap<>();
+      for (String attributeName : config.attributeNames()) {
+        services.put(attributeName, new StatisticCalculatorService());
+      }
+      fileServices.put(file, services);
     }
 
-    processJsonFiles(jsonFiles);
-    XmlReporterService.createReport(statisticService.getStatisticSortedByCountThenByName(),
-        config.attributeName());
+    Map<File, Integer> processedOrders =
+        processJsonFiles(new ArrayList<>(files.keySet()), fileServices::get, failFast);
+    List<FileState> states = new ArrayList<>();
+    for (Map.Entry<File, Integer> entry : processedOrders.entrySet()) {
+      Map<String, AttributeCounter> counters = new LinkedHashMap<>();
+      fileServices.get(entry.getKey()).forEach((attributeName, service) -> counters.put(
+          attributeName, ((StatisticCalculatorService) service).getAttributeCounter()));
+      states.add(new FileState(files.get(entry.getKey()), entry.getValue(), counters));
+    }
+    return states;
+  }
+
+  void applyFileState(FileState previousState, FileState currentState) {
+    for (Map.Entry<String, StatisticService> entry : statisticServices.entrySet()) {
+      StatisticCalculatorService service = (StatisticCalculatorService) entry.getValue();
+      if (previousState != null) {
+        service.subtractPartial(previousState.counters().get(entry.getKey()));
+      }
+      if (currentState != null) {
+        service.mergePartial(currentState.counters().get(entry.getKey()));
+      }
+    }
   }
 
-  private void processJsonFiles(List<File> jsonFiles) {
-    ExecutorService executorService = ApplicationConfig.executorService();
+  private void pruneColumnarCache(List<File> jsonFiles) throws IOException {
+    Set<Path> cacheFiles = new HashSet<>();
+    for (File file : jsonFiles) {
+      cacheFiles.add(ColumnarOrderCache.cacheFile(config.cacheDirectory(),
+          FileIdentity.of(file, false)));
+    }
+    ColumnarOrderCache.prune(config.cacheDirectory(), cacheFiles);
+  }
 
-    List<Future<Integer>> futures = new ArrayList<>();
+  // Largest files are submitted first so they don't start last and hold up the whole run. Cached
+  // files are scanned whole, the columns are cheap enough to read on one thread. Every length is
+  // read once, the comparator would otherwise stat each file on every comparison.
+  private Map<File, Integer> processJsonFiles(List<File> jsonFiles,
+      Function<File, Map<String, StatisticService>> fileServices, boolean failFast)
+      throws IOException {
+    Map<File, Long> fileLengths = new HashMap<>();
     for (File file : jsonFiles) {
-      JsonFileProcessor processor = new JsonFileProcessor(config, file, statisticService);
-      futures.add(executorService.submit(processor));
+      fileLengths.put(file, file.length());
     }
+    List<File> orderedFiles = jsonFiles.stream()
+        .sorted(Comparator.comparing(fileLengths::get, Comparator.reverseOrder()))
+        .toList();
 
-    printProcessedOrdersSum(futures);
-    executorService.shutdown();
+    Map<File, Integer> processedOrders;
+    try (FileTaskScheduler scheduler = new FileTaskScheduler(config.executorService(), metrics)) {
+      for (File file : orderedFiles) {
+        submitFile(scheduler, file, fileServices.apply(file));
+      }
+      processedOrders = scheduler.awaitAll(failFast);
+    }
+    printProcessedOrders(processedOrders);
+    return processedOrders;
   }
 
-  private void printProcessedOrdersSum(List<Future<Integer>> futures) {
-    int sum = 0;
-    for (Future<Integer> future : futures) {
-      try {
-        sum += future.get();
-      } catch (InterruptedException | ExecutionException e) {
-        System.err.println("Error summing processed orders: " + e);
+  // Files are submitted while the tree is still being walked, in the order they are found. Small
+  // files are grouped into batch tasks, so a tree of many tiny files doesn't pay for a task and a
+  // merge of the partials per file. Returns the files that were found.
+  private List<File> processWalkedFiles() throws IOException {
+    long walkStartNanos = System.nanoTime();
+    List<File> jsonFiles = new ArrayList<>();
+    Map<File, Integer> processedOrders;
+    try (ParallelFileWalker walker = new ParallelFileWalker(config.inputDirectory().toPath(),
+        config.schedulerOptions().parallelism());
+        FileTaskScheduler scheduler = new FileTaskScheduler(config.executorService(), metrics)) {
+      List<File> batch = new ArrayList<>();
+      long batchBytes = 0;
+      File file;
+      while ((file = walker.next()) != null) {
+        jsonFiles.add(file);
+        long length = file.length();
+        if (length >= ApplicationConfig.smallFileBatchBytes()) {
+          submitFile(scheduler, file, statisticServices);
+          continue;
+        }
+        batch.add(file);
+        batchBytes += length;
+        if (batchBytes >= ApplicationConfig.smallFileBatchBytes()) {
+          submitBatch(scheduler, batch);
+          batch = new ArrayList<>();
+          batchBytes = 0;
+        }
+      }
+      metrics.recordStage(RunMetrics.Stage.WALK, System.nanoTime() - walkStartNanos);
+      if (jsonFiles.isEmpty()) {
+        throw new IllegalArgumentException("Json files in directory are required");
       }
+      if (!batch.isEmpty()) {
+        submitBatch(scheduler, batch);
+      }
+      processedOrders = scheduler.awaitAll(true);
+    }
+    printProcessedOrders(processedOrders);
+    return jsonFiles;
+  }
+
+  private void submitBatch(FileTaskScheduler scheduler, List<File> batch) {
+    scheduler.submitBatch(batch, new JsonFileBatch(config, batch, statisticServices, metrics,
+        deduplicator));
+  }
+
+  private void submitFile(FileTaskScheduler scheduler, File file,
+      Map<String, StatisticService> services) throws IOException {
+    if (file.length() < ApplicationConfig.fileSplitThresholdBytes()
+        || config.cacheOptions().enabled() || !submitFileRanges(scheduler, file, services)) {
+      scheduler.submit(file, new JsonFileProcessor(config, file, null, services, metrics,
+          deduplicator));
     }
+  }
+
+  private static void printProcessedOrders(Map<File, Integer> processedOrders) {
+    int sum = processedOrders.values().stream().mapToInt(Integer::intValue).sum();
     if (sum != 0) {
       System.out.println("Orders processed: " + sum);
     }
   }
 
+  // Compressed files can't be cut into ranges and are always parsed sequentially.
+  private boolean submitFileRanges(FileTaskScheduler scheduler, File file,
+      Map<String, StatisticService> services) throws IOException {
+    if (InputFiles.compression(file) != InputFiles.Compression.NONE) {
+      return false;
+    }
+    long chunkBytes = config.fileChunkBytes(file.length());
+    Consumer<ByteRange> rangeConsumer = range ->
+        scheduler.submit(file, new JsonFileProcessor(config, file, range, services, metrics,
+            deduplicator));
+    if (InputFiles.isNewlineDelimited(file)) {
+      NewlineSplitter.split(file, chunkBytes, rangeConsumer);
+      return true;
+    }
+    return JsonArraySplitter.split(file, chunkBytes, rangeConsumer);
+  }
+
   public static List<File> findJsonFiles(Path directory) {
     try (Stream<Path> pathStream = Files.walk(directory)) {
       return pathStream
           .filter(Files::isRegularFile)
-          .filter(path -> path.toString().toLowerCase(Locale.ROOT).endsWith(".json"))
+          .filter(InputFiles::isInputFile)
           .map(Path::toFile)
           .toList();
     } catch (IOException e) {
@@ -0,0 +1,101 @@
+package com.fransua;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.OutputFormat;
+import com.fransua.config.ReportOptions;
+import com.fransua.service.AttributeCounter;
+import com.fransua.service.PartialStatisticMerger;
+import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.StatisticPartialFile;
+import com.fransua.service.XmlReporterService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+// Combines the partials written by sharded runs (--output-format=partial) into the reports a
+// single run over all shards would have written, or into one partial again, so merges can be
+// nested.
+public class MergeRunner {
+
+  private static final String PARTIAL_EXTENSION = ".partial";
+
+  private final List<Path> inputs;
+  private final Path outputDirectory;
+  private final ReportOptions reportOptions;
+
+  public MergeRunner(List<Path> inputs, Path outputDirectory, ReportOptions reportOptions) {
+    this.inputs = inputs;
+    this.outputDirectory = outputDirectory;
+    this.reportOptions = reportOptions;
+  }
+
+  public void run() throws IOException {
+    Map<String, List<Path>> partialsByAttribute = findPartialFiles();
+    if (partialsByAttribute.isEmpty()) {
+      throw new IllegalArgumentException("Partial files are required");
+    }
+
+    Files.createDirectories(outputDirectory);
+    int partialCount = 0;
+    for (Map.Entry<String, List<Path>> entry : partialsByAttribute.entrySet()) {
+      merge(entry.getKey(), entry.getValue());
+      partialCount += entry.getValue().size();
+    }
+    System.out.println("Merged " + partialCount + " partials of "
+        + partialsByAttribute.size() + " attributes");
+  }
+
+  private void merge(String attributeName, List<Path> partialFiles) throws IOException {
+    if (reportOptions.format() == OutputFormat.PARTIAL) {
+      Path partialFile = outputDirectory.resolve(
+          ApplicationConfig.getPartialFileNameFor(attributeName));
+      try (StatisticPartialFile.Writer writer =
+          new StatisticPartialFile.Writer(partialFile, attributeName)) {
+        PartialStatisticMerger.merge(partialFiles, attributeName, writer::write);
+        writer.commit();
+      }
+      return;
+    }
+
+    AttributeCounter counter = new AttributeCounter();
+    PartialStatisticMerger.merge(partialFiles, attributeName, counter::add);
+    StatisticCalculatorService service = new StatisticCalculatorService();
+    service.mergePartial(counter);
+    XmlReporterService.createReport(service, attributeName, reportOptions,
+        outputDirectory.resolve(ApplicationConfig.getStatisticFileNameFor(attributeName)));
+  }
+
+  // Inputs are partial files or directories searched recursively for them.
+  private Map<String, List<Path>> findPartialFiles() throws IOException {
+    Map<String, List<Path>> partialsByAttribute = new TreeMap<>();
+    for (Path input : inputs) {
+      List<Path> partialFiles;
+      if (Files.isDirectory(input)) {
+        try (Stream<Path> pathStream = Files.walk(input)) {
+          partialFiles = pathStream
+              .filter(Files::isRegularFile)
+              .filter(path -> path.getFileName().toString().endsWith(PARTIAL_EXTENSION))
+              .sorted()
+              .toList();
+        }
+      } else if (Files.isRegularFile(input)) {
+        partialFiles = List.of(input);
+      } else {
+        throw new IllegalArgumentException("Partial input '" + input + "' doesn't exist");
+      }
+
+      for (Path partialFile : partialFiles) {
+        try (StatisticPartialFile.Reader reader = new StatisticPartialFile.Reader(partialFile)) {
+          partialsByAttribute.computeIfAbsent(reader.attributeName(), a -> new ArrayList<>())
+              .add(partialFile);
+        }
+      }
+    }
+    return partialsByAttribute;
+  }
+}
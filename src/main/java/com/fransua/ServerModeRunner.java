@@ -0,0 +1,32 @@
+package com.fransua;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.server.StatisticServer;
+import java.util.concurrent.CountDownLatch;
+
+// Ingests the input directory once (or keeps following it in watch mode), writes the reports as
+// usual and then keeps answering queries from the resident aggregates until interrupted.
+public class ServerModeRunner {
+
+  private final ApplicationConfig config;
+
+  public ServerModeRunner(ApplicationConfig config) {
+    this.config = config;
+  }
+
+  public void run() throws Exception {
+    try (StatisticServer server = new StatisticServer(config)) {
+      server.start();
+      System.out.println("Serving statistics on http://localhost:" + server.port());
+      if (config.watchOptions().enabled()) {
+        new WatchModeRunner(config, server::publish).run();
+        return;
+      }
+      ApplicationRunner runner = new ApplicationRunner(config);
+      runner.run();
+      server.publish(runner.statisticServices());
+      System.out.println("Statistics are ingested, stop the server with Ctrl+C");
+      new CountDownLatch(1).await();
+    }
+  }
+}
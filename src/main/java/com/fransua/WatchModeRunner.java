@@ -0,0 +1,261 @@
+package com.fransua;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.processor.InputFiles;
+import com.fransua.service.FileIdentity;
+import com.fransua.service.FileState;
+import com.fransua.service.StatisticService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Keeps the aggregates resident and follows the input directory tree: new or rewritten
+// .json files are parsed once their size and modification time have been stable for the quiet
+// period, deleted files have their contribution removed, and the reports are rewritten at most
+// once per debounce interval. The report listener sees the services after every report write.
+public class WatchModeRunner {
+
+  private static final long POLL_MILLIS = 50;
+
+  private static final class PendingFile {
+
+    private final long arrivalNanos;
+    private long size = -1;
+    private long lastModified = -1;
+    private long stableSinceNanos;
+    private boolean failed;
+
+    private PendingFile(long arrivalNanos) {
+      this.arrivalNanos = arrivalNanos;
+    }
+  }
+
+  private final ApplicationConfig config;
+  private final ApplicationRunner runner;
+  private final Path rootDirectory;
+  private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+  private final Map<Path, FileState> fileStates = new HashMap<>();
+  private final Map<Path, PendingFile> pendingFiles = new LinkedHashMap<>();
+  private final List<Long> unreportedArrivals = new ArrayList<>();
+  private final Consumer<Map<String, StatisticService>> reportListener;
+  private boolean reportsOutdated;
+  private long lastReportNanos;
+
+  public WatchModeRunner(ApplicationConfig config) {
+    this(config, statisticServices -> {
+    });
+  }
+
+  public WatchModeRunner(ApplicationConfig config,
+      Consumer<Map<String, StatisticService>> reportListener) {
+    this.config = config;
+    this.reportListener = reportListener;
+    this.runner = new ApplicationRunner(config);
+    this.rootDirectory = config.inputDirectory().toPath().toAbsolutePath().normalize();
+  }
+
+  public void run() throws IOException, InterruptedException {
+    try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+      registerTree(watchService, rootDirectory);
+      long startNanos = System.nanoTime();
+      for (Path path : findJsonPaths(rootDirectory)) {
+        PendingFile pendingFile = new PendingFile(startNanos);
+        pendingFile.stableSinceNanos = Long.MIN_VALUE / 2;
+        pendingFiles.put(path, pendingFile);
+      }
+      processStableFiles(startNanos, true);
+      writeReports(System.nanoTime());
+      System.out.println("Watching " + rootDirectory + " for new json files");
+
+      while (!Thread.currentThread().isInterrupted()) {
+        WatchKey key = watchService.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        while (key != null) {
+          handleEvents(watchService, key);
+          key = watchService.poll();
+        }
+        long now = System.nanoTime();
+        processStableFiles(now, false);
+        if (reportsOutdated && now - lastReportNanos
+            >= TimeUnit.MILLISECONDS.toNanos(config.watchOptions().debounceMillis())) {
+          writeReports(now);
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void handleEvents(WatchService watchService, WatchKey key) throws IOException {
+    Path directory = watchedDirectories.get(key);
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        rescan(watchService);
+        continue;
+      }
+      if (directory == null) {
+        continue;
+      }
+
+      Path path = directory.resolve((Path) event.context());
+      if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+        removeFiles(path);
+      } else if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+          registerTree(watchService, path);
+          findJsonPaths(path).forEach(this::markPending);
+        }
+      } else if (isJsonFile(path)) {
+        markPending(path);
+      }
+    }
+    if (!key.reset()) {
+      watchedDirectories.remove(key);
+    }
+  }
+
+  private void rescan(WatchService watchService) throws IOException {
+    registerTree(watchService, rootDirectory);
+    List<Path> jsonPaths = findJsonPaths(rootDirectory);
+    for (Path path : new ArrayList<>(fileStates.keySet())) {
+      if (!jsonPaths.contains(path)) {
+        removeFiles(path);
+      }
+    }
+    for (Path path : jsonPaths) {
+      FileState state = fileStates.get(path);
+      if (state == null || !state.identity().equals(FileIdentity.of(path.toFile(), false))) {
+        markPending(path);
+      }
+    }
+  }
+
+  private void markPending(Path path) {
+    PendingFile pendingFile = pendingFiles.computeIfAbsent(path,
+        p -> new PendingFile(System.nanoTime()));
+    pendingFile.size = -1;
+  }
+
+  private void removeFiles(Path deletedPath) {
+    pendingFiles.keySet().removeIf(path -> path.startsWith(deletedPath));
+    Iterator<Map.Entry<Path, FileState>> iterator = fileStates.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Path, FileState> entry = iterator.next();
+      if (entry.getKey().startsWith(deletedPath)) {
+        runner.applyFileState(entry.getValue(), null);
+        iterator.remove();
+        unreportedArrivals.add(System.nanoTime());
+        reportsOutdated = true;
+      }
+    }
+  }
+
+  private void processStableFiles(long now, boolean initialScan) throws IOException {
+    long quietNanos = TimeUnit.MILLISECONDS.toNanos(config.watchOptions().quietMillis());
+    Map<File, FileIdentity> readyFiles = new LinkedHashMap<>();
+    Iterator<Map.Entry<Path, PendingFile>> iterator = pendingFiles.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Path, PendingFile> entry = iterator.next();
+      Path path = entry.getKey();
+      PendingFile pendingFile = entry.getValue();
+      if (!Files.isRegularFile(path)) {
+        iterator.remove();
+        continue;
+      }
+
+      FileIdentity identity = FileIdentity.of(path.toFile(), false);
+      if (identity.size() != pendingFile.size
+          || identity.lastModified() != pendingFile.lastModified) {
+        pendingFile.size = identity.size();
+        pendingFile.lastModified = identity.lastModified();
+        pendingFile.stableSinceNanos = now;
+        pendingFile.failed = false;
+        if (!initialScan) {
+          continue;
+        }
+      }
+      if (!pendingFile.failed
+          && (initialScan || now - pendingFile.stableSinceNanos >= quietNanos)) {
+        readyFiles.put(path.toFile(), identity);
+      }
+    }
+    if (readyFiles.isEmpty()) {
+      return;
+    }
+
+    for (FileState state : runner.processJsonFileStates(readyFiles, false)) {
+      Path path = Path.of(state.identity().path());
+      runner.applyFileState(fileStates.put(path, state), state);
+      unreportedArrivals.add(pendingFiles.remove(path).arrivalNanos);
+      reportsOutdated = true;
+    }
+    // Whatever is still pending failed to parse, most likely because it is still being
+    // written; it is retried as soon as its size or modification time changes.
+    for (File file : readyFiles.keySet()) {
+      PendingFile pendingFile = pendingFiles.get(file.toPath());
+      if (pendingFile != null) {
+        pendingFile.failed = true;
+      }
+    }
+  }
+
+  private void writeReports(long now) throws IOException {
+    runner.writeReports();
+    reportListener.accept(runner.statisticServices());
+    long reportedNanos = System.nanoTime();
+    if (!unreportedArrivals.isEmpty()) {
+      long maxLatency = 0;
+      long totalLatency = 0;
+      for (long arrivalNanos : unreportedArrivals) {
+        long latency = reportedNanos - arrivalNanos;
+        maxLatency = Math.max(maxLatency, latency);
+        totalLatency += latency;
+      }
+      System.out.println("Reports updated for " + unreportedArrivals.size()
+          + " file change(s), arrival to report latency avg "
+          + TimeUnit.NANOSECONDS.toMillis(totalLatency / unreportedArrivals.size())
+          + " ms, max " + TimeUnit.NANOSECONDS.toMillis(maxLatency) + " ms");
+      unreportedArrivals.clear();
+    }
+    reportsOutdated = false;
+    lastReportNanos = now;
+  }
+
+  private void registerTree(WatchService watchService, Path directory) throws IOException {
+    try (Stream<Path> pathStream = Files.walk(directory)) {
+      for (Path path : pathStream.filter(Files::isDirectory).toList()) {
+        if (!watchedDirectories.containsValue(path)) {
+          WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+              StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+          watchedDirectories.put(key, path);
+        }
+      }
+    }
+  }
+
+  private static List<Path> findJsonPaths(Path directory) {
+    return ApplicationRunner.findJsonFiles(directory).stream()
+        .map(file -> file.toPath().toAbsolutePath().normalize())
+        .toList();
+  }
+
+  private static boolean isJsonFile(Path path) {
+    return InputFiles.isInputFile(path) && Files.isRegularFile(path);
+  }
+}
@@ -1,23 +1,200 @@
 package com.fransua.config;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fransua.model.Order;
 import java.io.File;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
-public record ApplicationConfig(File inputDirectory, String attributeName) {
+public record ApplicationConfig(File inputDirectory, List<String> attributeNames,
+                                ParsingMode parsingMode, File outputDirectory,
+                                ReportOptions reportOptions, StatisticOptions statisticOptions,
+                                IncrementalOptions incrementalOptions,
+                                WatchOptions watchOptions, SchedulerOptions schedulerOptions,
+                                TimeBucketOptions timeBucketOptions, OrderFilter orderFilter,
+                                DedupOptions dedupOptions, CacheOptions cacheOptions,
+                                ServerOptions serverOptions, CountOptions countOptions) {
 
-  public static ExecutorService executorService() {
-    return Executors.newCachedThreadPool();
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  // Readers are immutable and thread-safe, and the Order deserializer is resolved when the reader
+  // is created, so every file reuses it instead of building its own mapper.
+  private static final ObjectReader ORDER_READER = createOrderReader();
+
+  public ApplicationConfig(File inputDirectory, String attributeName) {
+    this(inputDirectory, List.of(attributeName), ParsingMode.STREAMING);
+  }
+
+  public ApplicationConfig(File inputDirectory, List<String> attributeNames,
+      ParsingMode parsingMode) {
+    this(inputDirectory, attributeNames, parsingMode, new File(statisticDirectoryName()),
+        ReportOptions.unlimited(), StatisticOptions.defaults(), IncrementalOptions.disabled(),
+        WatchOptions.disabled(), SchedulerOptions.defaults(), TimeBucketOptions.disabled(),
+        OrderFilter.none(), DedupOptions.disabled(), CacheOptions.disabled(),
+        ServerOptions.disabled(), CountOptions.occurrences());
+  }
+
+  public ApplicationConfig withOutputDirectory(File outputDirectory) {
+    return new ApplicationConfig(inputDirectory, attributeNames, parsingMode, outputDirectory,
+        reportOptions, statisticOptions, incrementalOptions, watchOptions, schedulerOptions,
+        timeBucketOptions, orderFilter, dedupOptions, cacheOptions, serverOptions,
+        countOptions);
+  }
+
+  public ApplicationConfig withReportOptions(ReportOptions reportOptions) {
+    return new ApplicationConfig(inputDirectory, attributeNames, parsingMode, outputDirectory,
+        reportOptions, statisticOptions, incrementalOptions, watchOptions, schedulerOptions,
+        timeBucketOptions, orderFilter, dedupOptions, cacheOptions, serverOptions,
+        countOptions);
+  }
+
+  public ApplicationConfig withStatisticOptions(StatisticOptions statisticOptions) {
+    return new ApplicationConfig(inputDirectory, attributeNames, parsingMode, outputDirectory,
+        reportOptions, statisticOptions, incrementalOptions, watchOptions, schedulerOptions,
+        timeBucketOptions, orderFilter, dedupOptions, cacheOptions, serverOptions,
+        countOptions);
+  }
+
+  public ApplicationConfig withIncrementalOptions(IncrementalOptions incrementalOptions) {
+    return new ApplicationConfig(inputDirectory, attributeNames, parsingMode, outputDirectory,
+        reportOptions, statisticOptions, incrementalOptions, watchOptions, schedulerOptions,
+        timeBucketOptions, orderFilter, dedupOptions, cacheOptions, serverOptions,
+        countOptions);
+  }
+
+  public ApplicationConfig withWatchOptions(WatchOptions watchOptions) {
+    return new ApplicationConfig(inputDirectory, attributeNames, parsingMode, outputDirectory,
+        reportOptions, statisticOptions, incrementalOptions, watchOptions, schedulerOptions,
+        timeBucketOptions, orderFilter, dedupOptions, cacheOptions, serverOptions,
+        countOptions);
+  }
+
+  public ApplicationConfig withSchedulerOptions(SchedulerOptions schedulerOptions) {
+    return new ApplicationConfig(inputDirectory, attributeNames, parsingMode, outputDirectory,
+        reportOptions, statisticOptions, incrementalOptions, watchOptions, schedulerOptions,
+        timeBucketOptions, orderFilter, dedupOptions, cacheOptions, serverOptions,
+        countOptions);
+  }
+
+  public ApplicationConfig withTimeBucketOptions(TimeBucketOptions timeBucketOptions) {
+    return new ApplicationConfig(inputDirectory, attributeNames, parsingMode, outputDirectory,
+        reportOptions, statisticOptions, incrementalOptions, watchOptions, schedulerOptions,
+        timeBucketOptions, orderFilter, dedupOptions, cacheOptions, serverOptions,
+        countOptions);
+  }
+
+  public ApplicationConfig withOrderFilter(OrderFilter orderFilter) {
+    return new ApplicationConfig(inputDirectory, attributeNames, parsingMode, outputDirectory,
+        reportOptions, statisticOptions, incrementalOptions, watchOptions, schedulerOptions,
+        timeBucketOptions, orderFilter, dedupOptions, cacheOptions, serverOptions,
+        countOptions);
+  }
+
+  public ApplicationConfig withDedupOptions(DedupOptions dedupOptions) {
+    return new ApplicationConfig(inputDirectory, attributeNames, parsingMode, outputDirectory,
+        reportOptions, statisticOptions, incrementalOptions, watchOptions, schedulerOptions,
+        timeBucketOptions, orderFilter, dedupOptions, cacheOptions, serverOptions,
+        countOptions);
+  }
+
+  public ApplicationConfig withCacheOptions(CacheOptions cacheOptions) {
+    return new ApplicationConfig(inputDirectory, attributeNames, parsingMode, outputDirectory,
+        reportOptions, statisticOptions, incrementalOptions, watchOptions, schedulerOptions,
+        timeBucketOptions, orderFilter, dedupOptions, cacheOptions, serverOptions,
+        countOptions);
+  }
+
+  public ApplicationConfig withServerOptions(ServerOptions serverOptions) {
+    return new ApplicationConfig(inputDirectory, attributeNames, parsingMode, outputDirectory,
+        reportOptions, statisticOptions, incrementalOptions, watchOptions, schedulerOptions,
+        timeBucketOptions, orderFilter, dedupOptions, cacheOptions, serverOptions,
+        countOptions);
+  }
+
+  public ApplicationConfig withCountOptions(CountOptions countOptions) {
+    return new ApplicationConfig(inputDirectory, attributeNames, parsingMode, outputDirectory,
+        reportOptions, statisticOptions, incrementalOptions, watchOptions, schedulerOptions,
+        timeBucketOptions, orderFilter, dedupOptions, cacheOptions, serverOptions,
+        countOptions);
+  }
+
+  public Path statisticFile(String attributeName) {
+    return outputDirectory.toPath().resolve(getStatisticFileNameFor(attributeName));
+  }
+
+  public Path partialFile(String attributeName) {
+    return outputDirectory.toPath().resolve(getPartialFileNameFor(attributeName));
+  }
+
+  public Path summaryFile() {
+    return outputDirectory.toPath().resolve("run_summary.json");
+  }
+
+  public Path stateFile() {
+    Path outputPath = outputDirectory.getAbsoluteFile().toPath().normalize();
+    return outputPath.resolveSibling(outputPath.getFileName() + "_state").resolve("state.bin");
+  }
+
+  public Path cacheDirectory() {
+    Path outputPath = outputDirectory.getAbsoluteFile().toPath().normalize();
+    return outputPath.resolveSibling(outputPath.getFileName() + "_cache");
+  }
+
+  // Virtual threads are not pooled: every task gets its own, and the JVM runs them on as many
+  // carrier threads as there are processors.
+  public ExecutorService executorService() {
+    if (schedulerOptions.virtualThreads()) {
+      return virtualThreadPerTaskExecutor();
+    }
+    return Executors.newFixedThreadPool(schedulerOptions.parallelism());
+  }
+
+  // The build targets Java 17, so virtual threads are looked up reflectively and only
+  // available when running on Java 21 or newer.
+  private static ExecutorService virtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Virtual threads require Java 21 or newer", e);
+    }
+  }
+
+  public static long fileSplitThresholdBytes() {
+    return 64L * 1024 * 1024;
+  }
+
+  // With a parallel walk, files below this size are grouped into batches of about this size.
+  public static long smallFileBatchBytes() {
+    return 1024L * 1024;
+  }
+
+  public long fileChunkBytes(long fileSize) {
+    long chunkBytes = fileSize / schedulerOptions.parallelism();
+    return Math.max(16L * 1024 * 1024, Math.min(chunkBytes, 1024L * 1024 * 1024));
   }
 
   public static List<String> availableAttributeNames() {
     return List.of("burger-name", "ingredient-name", "ingredient-price");
   }
 
+  // Numeric attributes aggregated from unit prices; they are not part of "all".
+  public static List<String> revenueAttributeNames() {
+    return List.of("ingredient-revenue", "burger-revenue");
+  }
+
+  // Basket analysis of names that appear together in a burger or an order; not part of "all".
+  public static List<String> pairAttributeNames() {
+    return List.of("ingredient-pair", "burger-pair");
+  }
+
+  public static String allAttributesName() {
+    return "all";
+  }
+
   public static String statisticDirectoryName() {
     return "statistic";
   }
@@ -26,10 +203,22 @@ public record ApplicationConfig(File inputDirectory, String attributeName) {
     return "statistic_by_" + attributeName + ".xml";
   }
 
+  public static String getPartialFileNameFor(String attributeName) {
+    return "statistic_by_" + attributeName + ".partial";
+  }
+
   public static ObjectReader objectReader() {
-    ObjectMapper mapper = new ObjectMapper();
+    return ORDER_READER;
+  }
+
+  private static ObjectReader createOrderReader() {
+    ObjectMapper mapper = new ObjectMapper(JSON_FACTORY);
     mapper.findAndRegisterModules();
     return mapper.readerFor(Order.class);
   }
 
+  public static JsonFactory jsonFactory() {
+    return JSON_FACTORY;
+  }
+
 }
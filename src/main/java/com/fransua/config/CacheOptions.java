@@ -0,0 +1,8 @@
+package com.fransua.config;
+
+public record CacheOptions(boolean enabled) {
+
+  public static CacheOptions disabled() {
+    return new CacheOptions(false);
+  }
+}
@@ -0,0 +1,30 @@
+package com.fransua.config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// What a frequency attribute counts: every occurrence of a value, the orders that contain it,
+// or an estimate of the distinct order ids that contain it.
+public enum CountMode {
+  OCCURRENCES,
+  ORDERS,
+  DISTINCT_ORDERS;
+
+  public String optionValue() {
+    return name().toLowerCase(Locale.ROOT).replace('_', '-');
+  }
+
+  public static CountMode fromOptionValue(String value) {
+    for (CountMode mode : values()) {
+      if (mode.optionValue().equals(value)) {
+        return mode;
+      }
+    }
+    throw new IllegalArgumentException("Count mode '" + value + "' is not supported");
+  }
+
+  public static List<String> optionValues() {
+    return Arrays.stream(values()).map(CountMode::optionValue).toList();
+  }
+}
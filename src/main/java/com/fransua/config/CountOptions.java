@@ -0,0 +1,23 @@
+package com.fransua.config;
+
+// The distinct-orders mode keeps a HyperLogLog sketch of 2^precision registers per value.
+public record CountOptions(CountMode mode, int precision) {
+
+  public static final int MIN_PRECISION = 4;
+  public static final int MAX_PRECISION = 18;
+
+  public CountOptions {
+    if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException("HyperLogLog precision must be from " + MIN_PRECISION
+          + " to " + MAX_PRECISION);
+    }
+  }
+
+  public static CountOptions occurrences() {
+    return new CountOptions(CountMode.OCCURRENCES, 12);
+  }
+
+  public boolean perOrder() {
+    return mode != CountMode.OCCURRENCES;
+  }
+}
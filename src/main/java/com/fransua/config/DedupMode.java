@@ -0,0 +1,31 @@
+package com.fransua.config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public enum DedupMode {
+  NONE,
+  EXACT,
+  // Exact, with a Bloom filter in front of the exact set.
+  BLOOM,
+  // The Bloom filter alone: fixed memory, but unique orders may be dropped.
+  APPROXIMATE;
+
+  public String optionValue() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  public static DedupMode fromOptionValue(String value) {
+    for (DedupMode mode : values()) {
+      if (mode.optionValue().equals(value)) {
+        return mode;
+      }
+    }
+    throw new IllegalArgumentException("Dedup mode '" + value + "' is not supported");
+  }
+
+  public static List<String> optionValues() {
+    return Arrays.stream(values()).map(DedupMode::optionValue).toList();
+  }
+}
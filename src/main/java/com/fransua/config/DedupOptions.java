@@ -0,0 +1,26 @@
+package com.fransua.config;
+
+// expectedOrders sizes the exact set up front (it still grows past it) and the Bloom filter,
+// whose false-positive rate only holds up to that many distinct orders. The rate decides how
+// often the exact set is searched in bloom mode and how many orders are lost in approximate
+// mode.
+public record DedupOptions(DedupMode mode, long expectedOrders, double falsePositiveRate,
+                           boolean offHeap) {
+
+  public DedupOptions {
+    if (expectedOrders <= 0) {
+      throw new IllegalArgumentException("Expected number of orders must be positive");
+    }
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("Dedup false-positive rate must be in (0, 1)");
+    }
+  }
+
+  public static DedupOptions disabled() {
+    return new DedupOptions(DedupMode.NONE, 1_000_000, 0.001, false);
+  }
+
+  public boolean enabled() {
+    return mode != DedupMode.NONE;
+  }
+}
@@ -0,0 +1,8 @@
+package com.fransua.config;
+
+public record IncrementalOptions(boolean enabled, boolean contentHash) {
+
+  public static IncrementalOptions disabled() {
+    return new IncrementalOptions(false, false);
+  }
+}
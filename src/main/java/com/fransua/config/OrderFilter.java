@@ -0,0 +1,156 @@
+package com.fransua.config;
+
+import com.fransua.model.Burger;
+import com.fransua.model.Ingredient;
+import com.fransua.model.Order;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Orders that don't match are not counted at all. A filter is a ';'-separated list of clauses
+// that must all match: createdAt>=, >, <= or < an ISO-8601 date-time (or date, meaning midnight
+// UTC), burger=<name>[|<name>...] and ingredient=<name>[|<name>...]. A name clause matches
+// when any burger (ingredient) of the order has one of the names.
+public record OrderFilter(Instant createdFrom, Instant createdTo, List<NameClause> nameClauses) {
+
+  public enum Target {
+    BURGER, INGREDIENT
+  }
+
+  public record NameClause(Target target, Set<String> names) {
+
+  }
+
+  private static final int MAX_NAME_CLAUSES = Long.SIZE;
+
+  public OrderFilter {
+    if (nameClauses.size() > MAX_NAME_CLAUSES) {
+      throw new IllegalArgumentException(
+          "Filter supports at most " + MAX_NAME_CLAUSES + " name clauses");
+    }
+    nameClauses = List.copyOf(nameClauses);
+  }
+
+  public static OrderFilter none() {
+    return new OrderFilter(null, null, List.of());
+  }
+
+  public static OrderFilter parse(String expression) {
+    Instant createdFrom = null;
+    Instant createdTo = null;
+    List<NameClause> nameClauses = new ArrayList<>();
+    for (String clause : expression.split(";")) {
+      clause = clause.trim();
+      if (clause.isEmpty()) {
+        continue;
+      }
+      if (clause.startsWith("createdAt")) {
+        String condition = clause.substring("createdAt".length()).trim();
+        String operator = condition.startsWith(">=") || condition.startsWith("<=")
+            ? condition.substring(0, 2) : condition.substring(0, Math.min(1, condition.length()));
+        Instant instant = parseInstant(condition.substring(operator.length()).trim());
+        switch (operator) {
+          case ">=" -> createdFrom = later(createdFrom, instant);
+          case ">" -> createdFrom = later(createdFrom, instant.plusNanos(1));
+          case "<" -> createdTo = earlier(createdTo, instant);
+          case "<=" -> createdTo = earlier(createdTo, instant.plusNanos(1));
+          default -> throw new IllegalArgumentException(
+              "Filter clause '" + clause + "' is not supported");
+        }
+      } else if (clause.startsWith("burger=")) {
+        nameClauses.add(new NameClause(Target.BURGER, parseNames(clause, "burger=")));
+      } else if (clause.startsWith("ingredient=")) {
+        nameClauses.add(new NameClause(Target.INGREDIENT, parseNames(clause, "ingredient=")));
+      } else {
+        throw new IllegalArgumentException("Filter clause '" + clause + "' is not supported");
+      }
+    }
+    return new OrderFilter(createdFrom, createdTo, nameClauses);
+  }
+
+  private static Instant parseInstant(String text) {
+    try {
+      if (text.length() == "yyyy-MM-dd".length()) {
+        return LocalDate.parse(text).atStartOfDay(ZoneOffset.UTC).toInstant();
+      }
+      return DateTimeFormatter.ISO_OFFSET_DATE_TIME.parse(text, Instant::from);
+    } catch (DateTimeException e) {
+      throw new IllegalArgumentException("Filter date-time '" + text + "' is not supported");
+    }
+  }
+
+  private static Set<String> parseNames(String clause, String prefix) {
+    Set<String> names = new LinkedHashSet<>();
+    Arrays.stream(clause.substring(prefix.length()).split("\\|"))
+        .map(String::trim)
+        .filter(name -> !name.isEmpty())
+        .forEach(names::add);
+    if (names.isEmpty()) {
+      throw new IllegalArgumentException("Filter clause '" + clause + "' requires a name");
+    }
+    return names;
+  }
+
+  private static Instant later(Instant current, Instant instant) {
+    return current == null || instant.isAfter(current) ? instant : current;
+  }
+
+  private static Instant earlier(Instant current, Instant instant) {
+    return current == null || instant.isBefore(current) ? instant : current;
+  }
+
+  public boolean enabled() {
+    return hasTimeRange() || !nameClauses.isEmpty();
+  }
+
+  public boolean hasTimeRange() {
+    return createdFrom != null || createdTo != null;
+  }
+
+  // Orders without createdAt never match a time range.
+  public boolean acceptsTime(Instant createdAt) {
+    if (!hasTimeRange()) {
+      return true;
+    }
+    return createdAt != null && (createdFrom == null || !createdAt.isBefore(createdFrom))
+        && (createdTo == null || createdAt.isBefore(createdTo));
+  }
+
+  // Bit i is set when name clause i is satisfied by a burger (ingredient) with this name.
+  public long matchingClauses(Target target, String name) {
+    long matches = 0;
+    for (int i = 0; i < nameClauses.size(); ++i) {
+      NameClause clause = nameClauses.get(i);
+      if (clause.target() == target && clause.names().contains(name)) {
+        matches |= 1L << i;
+      }
+    }
+    return matches;
+  }
+
+  public boolean acceptsNames(long matchingClauses) {
+    long allClauses = nameClauses.size() == Long.SIZE ? -1L : (1L << nameClauses.size()) - 1;
+    return matchingClauses == allClauses;
+  }
+
+  public boolean accepts(Order order) {
+    if (!acceptsTime(order.createdAt())) {
+      return false;
+    }
+    long matches = 0;
+    for (Burger burger : order.burgers()) {
+      matches |= matchingClauses(Target.BURGER, burger.name());
+      for (Ingredient ingredient : burger.ingredients()) {
+        matches |= matchingClauses(Target.INGREDIENT, ingredient.name());
+      }
+    }
+    return acceptsNames(matches);
+  }
+}
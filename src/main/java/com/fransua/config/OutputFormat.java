@@ -0,0 +1,27 @@
+package com.fransua.config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public enum OutputFormat {
+  XML,
+  PARTIAL;
+
+  public String optionValue() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  public static OutputFormat fromOptionValue(String value) {
+    for (OutputFormat format : values()) {
+      if (format.optionValue().equals(value)) {
+        return format;
+      }
+    }
+    throw new IllegalArgumentException("Output format '" + value + "' is not supported");
+  }
+
+  public static List<String> optionValues() {
+    return Arrays.stream(values()).map(OutputFormat::optionValue).toList();
+  }
+}
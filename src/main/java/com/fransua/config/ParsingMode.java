@@ -0,0 +1,27 @@
+package com.fransua.config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public enum ParsingMode {
+  STREAMING,
+  DATABIND;
+
+  public String optionValue() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  public static ParsingMode fromOptionValue(String value) {
+    for (ParsingMode mode : values()) {
+      if (mode.optionValue().equals(value)) {
+        return mode;
+      }
+    }
+    throw new IllegalArgumentException("Parsing mode '" + value + "' is not supported");
+  }
+
+  public static List<String> optionValues() {
+    return Arrays.stream(values()).map(ParsingMode::optionValue).toList();
+  }
+}
@@ -0,0 +1,26 @@
+package com.fransua.config;
+
+// Partial output is never cut off: --top and --min-count apply when the partials are merged.
+public record ReportOptions(long topN, long minCount, OutputFormat format) {
+
+  public ReportOptions(long topN, long minCount) {
+    this(topN, minCount, OutputFormat.XML);
+  }
+
+  public ReportOptions {
+    if (topN < 0) {
+      throw new IllegalArgumentException("Report top N can't be negative");
+    }
+    if (minCount < 0) {
+      throw new IllegalArgumentException("Report minimum count can't be negative");
+    }
+  }
+
+  public static ReportOptions unlimited() {
+    return new ReportOptions(Long.MAX_VALUE, 0);
+  }
+
+  public boolean accepts(long itemIndex, long count) {
+    return itemIndex < topN && count >= minCount;
+  }
+}
@@ -0,0 +1,107 @@
+package com.fransua.config;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The kinds of attributes and the options of a run that change how it is processed. Every
+// combination that can't work together is listed once in one table, so a new option or
+// attribute kind declares what it refuses instead of adding checks to the argument parser.
+public enum RunFeature {
+  REVENUE_ATTRIBUTES("revenue attributes"),
+  PAIR_ATTRIBUTES("pair attributes"),
+  COMPOSITE_ATTRIBUTES("composite attributes"),
+  APPROXIMATE_ENGINE("the approximate engine"),
+  EXTERNAL_ENGINE("the external engine"),
+  TIME_BUCKETS("time buckets"),
+  INCREMENTAL("incremental runs"),
+  WATCH("watch mode"),
+  PARALLEL_WALK("a parallel walk"),
+  FILTER("filters"),
+  DEDUP("dedup"),
+  COLUMNAR_CACHE("the columnar cache"),
+  PARTIAL_OUTPUT("partial output"),
+  SERVER("the query server"),
+  PER_ORDER_COUNTS("per-order count modes"),
+  DISTINCT_ORDER_COUNTS("the distinct-orders count mode");
+
+  private static final Map<RunFeature, Set<RunFeature>> CONFLICTS = new EnumMap<>(
+      RunFeature.class);
+
+  static {
+    // Revenue, pairs and composite keys are exact aggregates of whole orders with their own
+    // counters, without buckets, partials or per-order counts.
+    for (RunFeature attributes : List.of(REVENUE_ATTRIBUTES, PAIR_ATTRIBUTES,
+        COMPOSITE_ATTRIBUTES)) {
+      conflict(attributes, APPROXIMATE_ENGINE, EXTERNAL_ENGINE, TIME_BUCKETS, INCREMENTAL, WATCH,
+          PARTIAL_OUTPUT, PER_ORDER_COUNTS);
+    }
+    // Stored partials, buckets, partial files, snapshots and per-order counts are exact.
+    for (RunFeature engine : List.of(APPROXIMATE_ENGINE, EXTERNAL_ENGINE)) {
+      conflict(engine, TIME_BUCKETS, INCREMENTAL, WATCH, PARTIAL_OUTPUT, SERVER,
+          PER_ORDER_COUNTS);
+    }
+    conflict(TIME_BUCKETS, INCREMENTAL, WATCH, PARTIAL_OUTPUT, SERVER, PER_ORDER_COUNTS);
+    // Incremental runs and watch mode keep results per file, which must not depend on the
+    // other files, and need the complete file list before they start.
+    conflict(INCREMENTAL, PARALLEL_WALK, FILTER, DEDUP, COLUMNAR_CACHE, PER_ORDER_COUNTS);
+    conflict(WATCH, PARALLEL_WALK, DEDUP, COLUMNAR_CACHE, PER_ORDER_COUNTS);
+    conflict(COLUMNAR_CACHE, FILTER, DEDUP, DISTINCT_ORDER_COUNTS);
+    conflict(PARTIAL_OUTPUT, PER_ORDER_COUNTS);
+  }
+
+  private final String description;
+
+  RunFeature(String description) {
+    this.description = description;
+  }
+
+  public String description() {
+    return description;
+  }
+
+  public Set<RunFeature> conflicts() {
+    return CONFLICTS.getOrDefault(this, EnumSet.noneOf(RunFeature.class));
+  }
+
+  // Rejects the first feature, in declaration order, that can't be combined with the others.
+  public static void validate(Set<RunFeature> features) {
+    for (RunFeature feature : values()) {
+      if (!features.contains(feature)) {
+        continue;
+      }
+      List<String> conflicting = new ArrayList<>();
+      for (RunFeature other : feature.conflicts()) {
+        if (features.contains(other)) {
+          conflicting.add(other.description);
+        }
+      }
+      if (!conflicting.isEmpty()) {
+        throw new IllegalArgumentException(capitalize(feature.description)
+            + " can't be combined with " + join(conflicting));
+      }
+    }
+  }
+
+  private static void conflict(RunFeature feature, RunFeature... others) {
+    for (RunFeature other : others) {
+      CONFLICTS.computeIfAbsent(feature, key -> EnumSet.noneOf(RunFeature.class)).add(other);
+      CONFLICTS.computeIfAbsent(other, key -> EnumSet.noneOf(RunFeature.class)).add(feature);
+    }
+  }
+
+  private static String join(List<String> descriptions) {
+    if (descriptions.size() == 1) {
+      return descriptions.get(0);
+    }
+    return String.join(", ", descriptions.subList(0, descriptions.size() - 1)) + " or "
+        + descriptions.get(descriptions.size() - 1);
+  }
+
+  private static String capitalize(String description) {
+    return Character.toUpperCase(description.charAt(0)) + description.substring(1);
+  }
+}
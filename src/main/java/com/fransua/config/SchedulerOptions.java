@@ -0,0 +1,16 @@
+package com.fransua.config;
+
+// With parallelWalk the input tree is walked concurrently and files are processed while the
+// walk is still running; small files are then grouped into batch tasks.
+public record SchedulerOptions(int parallelism, boolean virtualThreads, boolean parallelWalk) {
+
+  public SchedulerOptions {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+  }
+
+  public static SchedulerOptions defaults() {
+    return new SchedulerOptions(Runtime.getRuntime().availableProcessors(), false, false);
+  }
+}
@@ -0,0 +1,15 @@
+package com.fransua.config;
+
+// Port 0 binds any free port.
+public record ServerOptions(boolean enabled, int port) {
+
+  public ServerOptions {
+    if (port < 0 || port > 65535) {
+      throw new IllegalArgumentException("Server port must be between 0 and 65535");
+    }
+  }
+
+  public static ServerOptions disabled() {
+    return new ServerOptions(false, 8080);
+  }
+}
@@ -0,0 +1,28 @@
+package com.fransua.config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public enum StatisticEngine {
+  EXACT,
+  APPROXIMATE,
+  EXTERNAL;
+
+  public String optionValue() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  public static StatisticEngine fromOptionValue(String value) {
+    for (StatisticEngine engine : values()) {
+      if (engine.optionValue().equals(value)) {
+        return engine;
+      }
+    }
+    throw new IllegalArgumentException("Statistic engine '" + value + "' is not supported");
+  }
+
+  public static List<String> optionValues() {
+    return Arrays.stream(values()).map(StatisticEngine::optionValue).toList();
+  }
+}
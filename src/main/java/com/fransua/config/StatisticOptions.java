@@ -0,0 +1,38 @@
+package com.fransua.config;
+
+import java.io.File;
+
+// The approximate engine is sized by capacity, epsilon and delta; the external engine keeps
+// about memoryBudget bytes per attribute in memory and spills the rest to spillDirectory.
+public record StatisticOptions(StatisticEngine engine, int capacity, double epsilon,
+                               double delta, long memoryBudget, File spillDirectory) {
+
+  public StatisticOptions {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Approximate capacity must be positive");
+    }
+    if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+      throw new IllegalArgumentException("Approximate epsilon and delta must be in (0, 1)");
+    }
+    if (memoryBudget <= 0) {
+      throw new IllegalArgumentException("Memory budget must be positive");
+    }
+  }
+
+  public static StatisticOptions defaults() {
+    return new StatisticOptions(StatisticEngine.EXACT, 1000, 0.0001, 0.01,
+        256L * 1024 * 1024, new File(System.getProperty("java.io.tmpdir")));
+  }
+
+  public static StatisticOptions approximate(int capacity, double epsilon, double delta) {
+    StatisticOptions defaults = defaults();
+    return new StatisticOptions(StatisticEngine.APPROXIMATE, capacity, epsilon, delta,
+        defaults.memoryBudget(), defaults.spillDirectory());
+  }
+
+  public static StatisticOptions external(long memoryBudget, File spillDirectory) {
+    StatisticOptions defaults = defaults();
+    return new StatisticOptions(StatisticEngine.EXTERNAL, defaults.capacity(),
+        defaults.epsilon(), defaults.delta(), memoryBudget, spillDirectory);
+  }
+}
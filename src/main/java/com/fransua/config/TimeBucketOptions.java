@@ -0,0 +1,67 @@
+package com.fransua.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.zone.ZoneRules;
+import java.util.Locale;
+
+// Buckets are aligned to the local time of the zone, so with a width of a day every bucket is
+// a calendar day there, whatever the offset of the individual orders. Widths of whole weeks
+// start on Monday like ISO weeks; the epoch itself was a Thursday.
+public record TimeBucketOptions(Duration width, ZoneId zone) {
+
+  private static final long WEEK_SECONDS = Duration.ofDays(7).getSeconds();
+  // 1970-01-05, the first Monday after the epoch.
+  private static final long MONDAY_SECONDS = Duration.ofDays(4).getSeconds();
+
+  public TimeBucketOptions {
+    if (width != null && (width.isNegative() || width.isZero() || width.getNano() != 0)) {
+      throw new IllegalArgumentException("Time bucket width must be a positive number of seconds");
+    }
+  }
+
+  public static TimeBucketOptions disabled() {
+    return new TimeBucketOptions(null, ZoneOffset.UTC);
+  }
+
+  // Accepts "minute", "hour", "day", "week" or an ISO-8601 duration such as PT15M.
+  public static Duration parseWidth(String value) {
+    return switch (value.toLowerCase(Locale.ROOT)) {
+      case "minute" -> Duration.ofMinutes(1);
+      case "hour" -> Duration.ofHours(1);
+      case "day" -> Duration.ofDays(1);
+      case "week" -> Duration.ofDays(7);
+      default -> {
+        try {
+          yield Duration.parse(value);
+        } catch (DateTimeParseException e) {
+          throw new IllegalArgumentException("Time bucket '" + value + "' is not supported");
+        }
+      }
+    };
+  }
+
+  public boolean enabled() {
+    return width != null;
+  }
+
+  public long bucketOf(Instant instant) {
+    ZoneRules rules = zone.getRules();
+    long localSeconds = instant.getEpochSecond() + rules.getOffset(instant).getTotalSeconds();
+    return Math.floorDiv(localSeconds - originSeconds(), width.getSeconds());
+  }
+
+  public String bucketLabel(long bucket) {
+    LocalDateTime start = LocalDateTime.ofEpochSecond(
+        originSeconds() + bucket * width.getSeconds(), 0, ZoneOffset.UTC);
+    return start.atZone(zone).toOffsetDateTime().toString();
+  }
+
+  private long originSeconds() {
+    return width.getSeconds() % WEEK_SECONDS == 0 ? MONDAY_SECONDS : 0;
+  }
+}
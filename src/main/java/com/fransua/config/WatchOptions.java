@@ -0,0 +1,14 @@
+package com.fransua.config;
+
+public record WatchOptions(boolean enabled, long debounceMillis, long quietMillis) {
+
+  public WatchOptions {
+    if (debounceMillis < 0 || quietMillis < 0) {
+      throw new IllegalArgumentException("Watch intervals can't be negative");
+    }
+  }
+
+  public static WatchOptions disabled() {
+    return new WatchOptions(false, 1000, 500);
+  }
+}
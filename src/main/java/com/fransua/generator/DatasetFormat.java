@@ -0,0 +1,53 @@
+package com.fransua.generator;
+
+import com.fransua.processor.InputFiles.Compression;
+import java.util.Arrays;
+import java.util.List;
+
+public enum DatasetFormat {
+  JSON("json", false, Compression.NONE),
+  JSON_GZ("json.gz", false, Compression.GZIP),
+  JSON_ZST("json.zst", false, Compression.ZSTD),
+  NDJSON("ndjson", true, Compression.NONE),
+  NDJSON_GZ("ndjson.gz", true, Compression.GZIP),
+  NDJSON_ZST("ndjson.zst", true, Compression.ZSTD);
+
+  private final String extension;
+  private final boolean newlineDelimited;
+  private final Compression compression;
+
+  DatasetFormat(String extension, boolean newlineDelimited, Compression compression) {
+    this.extension = extension;
+    this.newlineDelimited = newlineDelimited;
+    this.compression = compression;
+  }
+
+  public String extension() {
+    return extension;
+  }
+
+  public boolean newlineDelimited() {
+    return newlineDelimited;
+  }
+
+  public Compression compression() {
+    return compression;
+  }
+
+  public String optionValue() {
+    return extension;
+  }
+
+  public static DatasetFormat fromOptionValue(String value) {
+    for (DatasetFormat format : values()) {
+      if (format.optionValue().equals(value)) {
+        return format;
+      }
+    }
+    throw new IllegalArgumentException("Dataset format '" + value + "' is not supported");
+  }
+
+  public static List<String> optionValues() {
+    return Arrays.stream(values()).map(DatasetFormat::optionValue).toList();
+  }
+}
@@ -0,0 +1,35 @@
+package com.fransua.generator;
+
+public record DatasetOptions(long seed, int fileCount, int orderCount, int maxBurgersPerOrder,
+                             int burgerCardinality, int ingredientCardinality,
+                             int maxIngredientsPerBurger, double skew, DatasetFormat format) {
+
+  public DatasetOptions {
+    if (fileCount <= 0 || orderCount < 0 || maxBurgersPerOrder <= 0 || burgerCardinality <= 0
+        || ingredientCardinality <= 0 || maxIngredientsPerBurger <= 0) {
+      throw new IllegalArgumentException("Dataset sizes must be positive");
+    }
+    if (skew < 0) {
+      throw new IllegalArgumentException("Skew can't be negative");
+    }
+  }
+
+  public static DatasetOptions defaults() {
+    return new DatasetOptions(42, 4, 10_000, 4, 50, 200, 8, 1.0, DatasetFormat.JSON);
+  }
+
+  public DatasetOptions withOrderCount(int orderCount) {
+    return new DatasetOptions(seed, fileCount, orderCount, maxBurgersPerOrder, burgerCardinality,
+        ingredientCardinality, maxIngredientsPerBurger, skew, format);
+  }
+
+  public DatasetOptions withFileCount(int fileCount) {
+    return new DatasetOptions(seed, fileCount, orderCount, maxBurgersPerOrder, burgerCardinality,
+        ingredientCardinality, maxIngredientsPerBurger, skew, format);
+  }
+
+  public DatasetOptions withFormat(DatasetFormat format) {
+    return new DatasetOptions(seed, fileCount, orderCount, maxBurgersPerOrder, burgerCardinality,
+        ingredientCardinality, maxIngredientsPerBurger, skew, format);
+  }
+}
@@ -0,0 +1,207 @@
+package com.fransua.generator;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.core.util.Separators;
+import com.fransua.config.ApplicationConfig;
+import com.github.luben.zstd.ZstdOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+// Writes synthetic order files in the test_dataset schema. The same options always produce
+// byte-identical files. Burgers and ingredients are drawn from fixed catalogs with a Zipf
+// distribution (skew 0 is uniform), so a few values dominate like in real order streams.
+public class OrderDatasetGenerator {
+
+  private static final int OUTPUT_BUFFER_BYTES = 256 * 1024;
+  private static final Instant FIRST_ORDER_TIME = Instant.parse("2025-01-01T00:00:00Z");
+
+  private record CatalogIngredient(UUID id, String name, BigDecimal unitPrice) {
+
+  }
+
+  private record CatalogBurger(UUID id, String name, List<CatalogIngredient> ingredients) {
+
+  }
+
+  private final DatasetOptions options;
+  private final SplittableRandom random;
+  private final List<CatalogBurger> burgers;
+  private final double[] burgerDistribution;
+
+  public OrderDatasetGenerator(DatasetOptions options) {
+    this.options = options;
+    this.random = new SplittableRandom(options.seed());
+
+    List<CatalogIngredient> ingredients = new ArrayList<>();
+    for (int i = 0; i < options.ingredientCardinality(); ++i) {
+      ingredients.add(new CatalogIngredient(randomUuid(), "Ingredient " + (i + 1),
+          BigDecimal.valueOf(10 + random.nextInt(990), 2)));
+    }
+    double[] ingredientDistribution = zipfDistribution(ingredients.size(), options.skew());
+
+    this.burgers = new ArrayList<>();
+    for (int i = 0; i < options.burgerCardinality(); ++i) {
+      int ingredientCount = 1 + random.nextInt(options.maxIngredientsPerBurger());
+      List<CatalogIngredient> burgerIngredients = new ArrayList<>(ingredientCount);
+      for (int j = 0; j < ingredientCount; ++j) {
+        burgerIngredients.add(ingredients.get(sample(ingredientDistribution)));
+      }
+      burgers.add(new CatalogBurger(randomUuid(), "Burger " + (i + 1), burgerIngredients));
+    }
+    this.burgerDistribution = zipfDistribution(burgers.size(), options.skew());
+  }
+
+  public List<Path> generate(Path outputDirectory) throws IOException {
+    Files.createDirectories(outputDirectory);
+    List<Path> files = new ArrayList<>();
+    long createdAtMillis = FIRST_ORDER_TIME.toEpochMilli();
+    for (int fileIndex = 0; fileIndex < options.fileCount(); ++fileIndex) {
+      int fileOrders = options.orderCount() / options.fileCount()
+          + (fileIndex < options.orderCount() % options.fileCount() ? 1 : 0);
+      Path file = outputDirectory.resolve(
+          "orders_part_" + (fileIndex + 1) + "." + options.format().extension());
+      try (JsonGenerator generator = ApplicationConfig.jsonFactory()
+          .createGenerator(openOutput(file))) {
+        boolean newlineDelimited = options.format().newlineDelimited();
+        generator.setPrettyPrinter(newlineDelimited ? new MinimalPrettyPrinter("\n")
+            : prettyPrinter());
+        if (!newlineDelimited) {
+          generator.writeStartArray();
+        }
+        for (int i = 0; i < fileOrders; ++i) {
+          createdAtMillis += random.nextInt(60_000);
+          writeOrder(generator, Instant.ofEpochMilli(createdAtMillis));
+        }
+        if (newlineDelimited) {
+          generator.writeRaw('\n');
+        } else {
+          generator.writeEndArray();
+        }
+      }
+      files.add(file);
+    }
+    return files;
+  }
+
+  private OutputStream openOutput(Path file) throws IOException {
+    OutputStream output = Files.newOutputStream(file);
+    return switch (options.format().compression()) {
+      case NONE -> output;
+      case GZIP -> new GZIPOutputStream(output, OUTPUT_BUFFER_BYTES);
+      case ZSTD -> new ZstdOutputStream(new BufferedOutputStream(output, OUTPUT_BUFFER_BYTES));
+    };
+  }
+
+  private void writeOrder(JsonGenerator generator, Instant createdAt) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("id", randomUuid().toString());
+    generator.writeStringField("createdAt", createdAt.toString());
+    generator.writeArrayFieldStart("burgers");
+    int burgerCount = 1 + random.nextInt(options.maxBurgersPerOrder());
+    for (int i = 0; i < burgerCount; ++i) {
+      CatalogBurger burger = burgers.get(sample(burgerDistribution));
+      generator.writeStartObject();
+      generator.writeStringField("id", burger.id().toString());
+      generator.writeStringField("name", burger.name());
+      generator.writeArrayFieldStart("ingredients");
+      for (CatalogIngredient ingredient : burger.ingredients()) {
+        generator.writeStartObject();
+        generator.writeStringField("id", ingredient.id().toString());
+        generator.writeStringField("name", ingredient.name());
+        generator.writeNumberField("unitPrice", ingredient.unitPrice());
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    }
+    generator.writeEndArray();
+    generator.writeEndObject();
+  }
+
+  private static DefaultPrettyPrinter prettyPrinter() {
+    DefaultPrettyPrinter prettyPrinter = new DefaultPrettyPrinter(Separators.createDefaultInstance()
+        .withObjectFieldValueSpacing(Separators.Spacing.AFTER));
+    prettyPrinter.indentArraysWith(DefaultIndenter.SYSTEM_LINEFEED_INSTANCE);
+    return prettyPrinter;
+  }
+
+  private UUID randomUuid() {
+    long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+    long leastSigBits = (random.nextLong() & ~(0x3L << 62)) | (0x2L << 62);
+    return new UUID(mostSigBits, leastSigBits);
+  }
+
+  private int sample(double[] distribution) {
+    int index = Arrays.binarySearch(distribution, random.nextDouble());
+    return Math.min(index < 0 ? -index - 1 : index, distribution.length - 1);
+  }
+
+  private static double[] zipfDistribution(int size, double skew) {
+    double[] distribution = new double[size];
+    double total = 0;
+    for (int i = 0; i < size; ++i) {
+      total += 1 / Math.pow(i + 1, skew);
+      distribution[i] = total;
+    }
+    for (int i = 0; i < size; ++i) {
+      distribution[i] /= total;
+    }
+    return distribution;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: java -cp ... com.fransua.generator.OrderDatasetGenerator"
+          + " <output-directory> [--seed=<seed>] [--files=<count>] [--orders=<count>]"
+          + " [--burgers-per-order=<max>] [--burgers=<count>] [--ingredients=<count>]"
+          + " [--ingredients-per-burger=<max>] [--skew=<exponent>] [--format=<format>]");
+      System.err.println("Available formats: " + DatasetFormat.optionValues());
+      return;
+    }
+
+    Map<String, String> arguments = new HashMap<>();
+    for (int i = 1; i < args.length; ++i) {
+      int separatorIndex = args[i].indexOf('=');
+      if (!args[i].startsWith("--") || separatorIndex < 0) {
+        throw new IllegalArgumentException("Unexpected argument '" + args[i] + "'");
+      }
+      arguments.put(args[i].substring(2, separatorIndex), args[i].substring(separatorIndex + 1));
+    }
+    DatasetOptions defaults = DatasetOptions.defaults();
+    DatasetOptions options = new DatasetOptions(
+        Long.parseLong(arguments.getOrDefault("seed", String.valueOf(defaults.seed()))),
+        intArgument(arguments, "files", defaults.fileCount()),
+        intArgument(arguments, "orders", defaults.orderCount()),
+        intArgument(arguments, "burgers-per-order", defaults.maxBurgersPerOrder()),
+        intArgument(arguments, "burgers", defaults.burgerCardinality()),
+        intArgument(arguments, "ingredients", defaults.ingredientCardinality()),
+        intArgument(arguments, "ingredients-per-burger", defaults.maxIngredientsPerBurger()),
+        Double.parseDouble(arguments.getOrDefault("skew", String.valueOf(defaults.skew()))),
+        DatasetFormat.fromOptionValue(
+            arguments.getOrDefault("format", defaults.format().optionValue())));
+
+    List<Path> files = new OrderDatasetGenerator(options).generate(Path.of(args[0]));
+    System.out.println("Generated " + options.orderCount() + " orders in " + files.size()
+        + " files");
+  }
+
+  private static int intArgument(Map<String, String> arguments, String name, int defaultValue) {
+    return Integer.parseInt(arguments.getOrDefault(name, String.valueOf(defaultValue)));
+  }
+}
@@ -0,0 +1,29 @@
+package com.fransua.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Recorded only while a flight recording is running, e.g. with
+// -XX:StartFlightRecording=filename=run.jfr.
+@Name("com.fransua.FileParse")
+@Label("File Parse")
+@Category("Json Statistics Processor")
+public class FileParseEvent extends Event {
+
+  @Label("Path")
+  public String path;
+
+  @Label("Offset")
+  @DataAmount
+  public long offset;
+
+  @Label("Bytes")
+  @DataAmount
+  public long bytes;
+
+  @Label("Orders")
+  public int orders;
+}
@@ -0,0 +1,57 @@
+package com.fransua.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free latency histogram with power-of-two nanosecond buckets, so percentiles are exact
+// to within a factor of two.
+public class LatencyHistogram {
+
+  private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    buckets.incrementAndGet(Long.SIZE - 1 - Long.numberOfLeadingZeros(value | 1));
+    count.incrementAndGet();
+    totalNanos.addAndGet(value);
+    maxNanos.accumulateAndGet(value, Math::max);
+  }
+
+  public long count() {
+    return count.get();
+  }
+
+  public long totalNanos() {
+    return totalNanos.get();
+  }
+
+  public long maxNanos() {
+    return maxNanos.get();
+  }
+
+  public long meanNanos() {
+    long samples = count.get();
+    return samples == 0 ? 0 : totalNanos.get() / samples;
+  }
+
+  // Upper bound of the bucket holding the given percentile, capped by the maximum.
+  public long percentileNanos(double percentile) {
+    long samples = count.get();
+    if (samples == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(samples * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < Long.SIZE; ++i) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        long upperBound = i == Long.SIZE - 2 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+        return Math.min(upperBound, maxNanos.get());
+      }
+    }
+    return maxNanos.get();
+  }
+}
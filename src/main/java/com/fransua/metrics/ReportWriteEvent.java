@@ -0,0 +1,20 @@
+package com.fransua.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.fransua.ReportWrite")
+@Label("Report Write")
+@Category("Json Statistics Processor")
+public class ReportWriteEvent extends Event {
+
+  @Label("Attribute")
+  public String attributeName;
+
+  @Label("Bytes")
+  @DataAmount
+  public long bytes;
+}
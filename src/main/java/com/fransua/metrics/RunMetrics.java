@@ -0,0 +1,287 @@
+package com.fransua.metrics;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fransua.config.ApplicationConfig;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Timings and throughput of one ApplicationRunner, written as a JSON summary next to the
+// reports. All record methods are safe to call from the worker threads.
+public class RunMetrics {
+
+  public enum Stage {
+    WALK, QUEUE_WAIT, PARSE, MERGE, REPORT
+  }
+
+  private record FileMetrics(long bytes, long orders, long parseNanos, int tasks) {
+
+    private FileMetrics plus(FileMetrics other) {
+      return new FileMetrics(bytes + other.bytes, orders + other.orders,
+          parseNanos + other.parseNanos, tasks + other.tasks);
+    }
+  }
+
+  private record ReportMetrics(long bytes, long nanos) {
+
+  }
+
+  private record ThreadAllocation(String threadName, LongAdder bytes) {
+
+  }
+
+  private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = threadMXBean();
+
+  private final Instant startedAt = Instant.now();
+  private final long startedNanos = System.nanoTime();
+  private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+  private final Map<File, FileMetrics> files = new ConcurrentHashMap<>();
+  // Keyed by thread id: virtual threads are all named "".
+  private final Map<Long, ThreadAllocation> allocatedBytes = new ConcurrentHashMap<>();
+  private final Map<String, ReportMetrics> reports = new ConcurrentHashMap<>();
+  private final LongAdder rejectedOrders = new LongAdder();
+  private final LongAdder skippedBytes = new LongAdder();
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder cacheBuilds = new LongAdder();
+  private final AtomicLong firstTaskNanos = new AtomicLong(-1);
+  private volatile boolean filtered;
+  private volatile String dedupMode;
+  private volatile long duplicateOrders;
+  private volatile double expectedFalseDuplicates;
+
+  public RunMetrics() {
+    for (Stage stage : Stage.values()) {
+      histograms.put(stage, new LatencyHistogram());
+    }
+  }
+
+  public void recordStage(Stage stage, long nanos) {
+    histograms.get(stage).record(nanos);
+  }
+
+  // Time to the first parsed record: from the start of the run until the first task begins.
+  public void recordTaskStart() {
+    if (firstTaskNanos.get() < 0) {
+      firstTaskNanos.compareAndSet(-1, System.nanoTime() - startedNanos);
+    }
+  }
+
+  public void recordFileTask(File file, long bytes, int orders, long parseNanos) {
+    recordStage(Stage.PARSE, parseNanos);
+    files.merge(file, new FileMetrics(bytes, orders, parseNanos, 1), FileMetrics::plus);
+  }
+
+  public void recordFilter(long rejectedOrders) {
+    this.rejectedOrders.add(rejectedOrders);
+    filtered = true;
+  }
+
+  // Bytes of dropped orders that were skipped without being parsed.
+  public void recordSkippedBytes(long skippedBytes) {
+    this.skippedBytes.add(skippedBytes);
+  }
+
+  public void recordDuplicates(String dedupMode, long duplicateOrders,
+      double expectedFalseDuplicates) {
+    this.dedupMode = dedupMode;
+    this.duplicateOrders = duplicateOrders;
+    this.expectedFalseDuplicates = expectedFalseDuplicates;
+  }
+
+  // Files read from the columnar cache, either as it was or after building it.
+  public void recordCache(boolean hit) {
+    (hit ? cacheHits : cacheBuilds).increment();
+  }
+
+  public long cacheHits() {
+    return cacheHits.sum();
+  }
+
+  public long cacheBuilds() {
+    return cacheBuilds.sum();
+  }
+
+  public long duplicateOrders() {
+    return duplicateOrders;
+  }
+
+  public long rejectedOrders() {
+    return rejectedOrders.sum();
+  }
+
+  public long skippedBytes() {
+    return skippedBytes.sum();
+  }
+
+  public long orders() {
+    return files.values().stream().mapToLong(FileMetrics::orders).sum();
+  }
+
+  public void recordAllocation(long bytes) {
+    if (bytes > 0) {
+      Thread thread = Thread.currentThread();
+      allocatedBytes.computeIfAbsent(thread.getId(),
+          id -> new ThreadAllocation(thread.getName(), new LongAdder())).bytes().add(bytes);
+    }
+  }
+
+  public void recordReport(String attributeName, long bytes, long nanos) {
+    recordStage(Stage.REPORT, nanos);
+    reports.put(attributeName, new ReportMetrics(bytes, nanos));
+  }
+
+  // Bytes allocated by the current thread so far, or -1 when the JVM can't tell.
+  public static long currentThreadAllocatedBytes() {
+    if (THREAD_MX_BEAN == null) {
+      return -1;
+    }
+    return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  public void writeSummary(Path summaryFile) throws IOException {
+    long totalNanos = System.nanoTime() - startedNanos;
+    long totalBytes = 0;
+    long totalOrders = 0;
+    for (FileMetrics fileMetrics : files.values()) {
+      totalBytes += fileMetrics.bytes();
+      totalOrders += fileMetrics.orders();
+    }
+
+    Files.createDirectories(summaryFile.toAbsolutePath().getParent());
+    try (JsonGenerator generator = ApplicationConfig.jsonFactory()
+        .createGenerator(Files.newOutputStream(summaryFile))) {
+      generator.useDefaultPrettyPrinter();
+      generator.writeStartObject();
+      generator.writeStringField("startedAt", startedAt.toString());
+      generator.writeNumberField("totalMillis", TimeUnit.NANOSECONDS.toMillis(totalNanos));
+      if (firstTaskNanos.get() >= 0) {
+        generator.writeNumberField("firstTaskMillis",
+            TimeUnit.NANOSECONDS.toMillis(firstTaskNanos.get()));
+      }
+      generator.writeNumberField("files", files.size());
+      generator.writeNumberField("bytes", totalBytes);
+      generator.writeNumberField("orders", totalOrders);
+      generator.writeNumberField("bytesPerSecond", perSecond(totalBytes, totalNanos));
+      generator.writeNumberField("ordersPerSecond", perSecond(totalOrders, totalNanos));
+
+      generator.writeNumberField("skippedBytes", skippedBytes.sum());
+      if (filtered) {
+        long rejected = rejectedOrders.sum();
+        long matched = totalOrders - rejected - duplicateOrders;
+        generator.writeObjectFieldStart("filter");
+        generator.writeNumberField("matchedOrders", matched);
+        generator.writeNumberField("rejectedOrders", rejected);
+        generator.writeNumberField("selectivity",
+            totalOrders == 0 ? 0 : (double) matched / totalOrders);
+        generator.writeEndObject();
+      }
+      if (dedupMode != null) {
+        generator.writeObjectFieldStart("dedup");
+        generator.writeStringField("mode", dedupMode);
+        generator.writeNumberField("duplicateOrders", duplicateOrders);
+        // Of the duplicates above, how many are expected to be unique orders.
+        generator.writeNumberField("expectedWronglyDroppedOrders",
+            Math.round(expectedFalseDuplicates));
+        generator.writeEndObject();
+      }
+      if (cacheHits.sum() + cacheBuilds.sum() != 0) {
+        generator.writeObjectFieldStart("columnarCache");
+        generator.writeNumberField("hits", cacheHits.sum());
+        generator.writeNumberField("builds", cacheBuilds.sum());
+        generator.writeEndObject();
+      }
+
+      generator.writeObjectFieldStart("stages");
+      for (Map.Entry<Stage, LatencyHistogram> entry : histograms.entrySet()) {
+        writeHistogram(generator, entry.getKey().name().toLowerCase(Locale.ROOT), entry.getValue());
+      }
+      generator.writeEndObject();
+
+      generator.writeArrayFieldStart("fileMetrics");
+      files.entrySet().stream()
+          .sorted(Map.Entry.comparingByKey(Comparator.comparing(File::getPath)))
+          .forEach(entry -> writeFileMetrics(generator, entry.getKey(), entry.getValue()));
+      generator.writeEndArray();
+
+      generator.writeObjectFieldStart("reports");
+      for (Map.Entry<String, ReportMetrics> entry : new TreeMap<>(reports).entrySet()) {
+        generator.writeObjectFieldStart(entry.getKey());
+        generator.writeNumberField("bytes", entry.getValue().bytes());
+        generator.writeNumberField("millis",
+            TimeUnit.NANOSECONDS.toMillis(entry.getValue().nanos()));
+        generator.writeEndObject();
+      }
+      generator.writeEndObject();
+
+      generator.writeObjectFieldStart("allocatedBytesByThread");
+      for (Map.Entry<Long, ThreadAllocation> entry : new TreeMap<>(allocatedBytes).entrySet()) {
+        generator.writeNumberField(entry.getValue().threadName() + "#" + entry.getKey(),
+            entry.getValue().bytes().sum());
+      }
+      generator.writeEndObject();
+      generator.writeEndObject();
+    }
+  }
+
+  private static void writeHistogram(JsonGenerator generator, String name,
+      LatencyHistogram histogram) throws IOException {
+    generator.writeObjectFieldStart(name);
+    generator.writeNumberField("count", histogram.count());
+    generator.writeNumberField("totalMillis",
+        TimeUnit.NANOSECONDS.toMillis(histogram.totalNanos()));
+    generator.writeNumberField("meanMicros", TimeUnit.NANOSECONDS.toMicros(histogram.meanNanos()));
+    generator.writeNumberField("p50Micros",
+        TimeUnit.NANOSECONDS.toMicros(histogram.percentileNanos(50)));
+    generator.writeNumberField("p90Micros",
+        TimeUnit.NANOSECONDS.toMicros(histogram.percentileNanos(90)));
+    generator.writeNumberField("p99Micros",
+        TimeUnit.NANOSECONDS.toMicros(histogram.percentileNanos(99)));
+    generator.writeNumberField("maxMicros", TimeUnit.NANOSECONDS.toMicros(histogram.maxNanos()));
+    generator.writeEndObject();
+  }
+
+  private static void writeFileMetrics(JsonGenerator generator, File file,
+      FileMetrics fileMetrics) {
+    try {
+      generator.writeStartObject();
+      generator.writeStringField("path", file.getPath());
+      generator.writeNumberField("bytes", fileMetrics.bytes());
+      generator.writeNumberField("orders", fileMetrics.orders());
+      generator.writeNumberField("tasks", fileMetrics.tasks());
+      generator.writeNumberField("parseMillis",
+          TimeUnit.NANOSECONDS.toMillis(fileMetrics.parseNanos()));
+      generator.writeNumberField("ordersPerSecond",
+          perSecond(fileMetrics.orders(), fileMetrics.parseNanos()));
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static long perSecond(long amount, long nanos) {
+    return nanos == 0 ? 0 : (long) (amount * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+  }
+
+  private static com.sun.management.ThreadMXBean threadMXBean() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+        && bean.isThreadAllocatedMemorySupported()) {
+      if (!bean.isThreadAllocatedMemoryEnabled()) {
+        bean.setThreadAllocatedMemoryEnabled(true);
+      }
+      return bean;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,30 @@
+package com.fransua.processor;
+
+import java.util.function.UnaryOperator;
+
+// How a frequency attribute gets its value: the record field it is derived from and a function
+// of that field. Every reader already has the source fields at hand (tokens, bound objects or
+// dictionary entries), so a new dimension is just another registered extractor.
+public record AttributeExtractor(String name, Source source, UnaryOperator<String> value) {
+
+  // The value of attributes that count the source field itself.
+  public static final UnaryOperator<String> SOURCE_VALUE = UnaryOperator.identity();
+
+  public enum Source {
+    BURGER_NAME, INGREDIENT_NAME, INGREDIENT_PRICE
+  }
+
+  // Burger-level values are counted once per burger, the others once per ingredient.
+  public boolean burgerLevel() {
+    return source == Source.BURGER_NAME;
+  }
+
+  // Such attributes can be counted from the characters of the field without creating a String.
+  public boolean countsSourceValue() {
+    return value == SOURCE_VALUE;
+  }
+
+  public String apply(String sourceValue) {
+    return value.apply(sourceValue);
+  }
+}
@@ -0,0 +1,137 @@
+package com.fransua.processor;
+
+import com.fransua.processor.AttributeExtractor.Source;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The registry of frequency attributes. An attribute name is either a registered extractor or a
+// composite group-by key of 2 or 3 of them separated by commas, e.g. burger-name,price-band.
+// Names are resolved once and the result is cached, so readers only bind it to their counters.
+public final class AttributeExtractors {
+
+  public static final String COMPOSITE_SEPARATOR = ",";
+  public static final int MAX_COMPONENTS = 3;
+
+  private static final Map<String, AttributeExtractor> EXTRACTORS = new LinkedHashMap<>();
+  private static final Map<String, List<AttributeExtractor>> RESOLVED =
+      new ConcurrentHashMap<>();
+  private static final String[] BAND_LABELS = new String[256];
+
+  static {
+    for (int units = 0; units < BAND_LABELS.length; ++units) {
+      BAND_LABELS[units] = bandLabel(units);
+    }
+    register(new AttributeExtractor("burger-name", Source.BURGER_NAME,
+        AttributeExtractor.SOURCE_VALUE));
+    register(new AttributeExtractor("ingredient-name", Source.INGREDIENT_NAME,
+        AttributeExtractor.SOURCE_VALUE));
+    register(new AttributeExtractor("ingredient-price", Source.INGREDIENT_PRICE,
+        AttributeExtractor.SOURCE_VALUE));
+    register(new AttributeExtractor("price-band", Source.INGREDIENT_PRICE,
+        AttributeExtractors::priceBand));
+  }
+
+  private AttributeExtractors() {
+  }
+
+  public static synchronized void register(AttributeExtractor extractor) {
+    if (extractor.name().contains(COMPOSITE_SEPARATOR)) {
+      throw new IllegalArgumentException(
+          "Attribute '" + extractor.name() + "' can't contain '" + COMPOSITE_SEPARATOR + "'");
+    }
+    if (EXTRACTORS.putIfAbsent(extractor.name(), extractor) != null) {
+      throw new IllegalArgumentException(
+          "Attribute '" + extractor.name() + "' is already registered");
+    }
+  }
+
+  public static synchronized List<String> names() {
+    return List.copyOf(EXTRACTORS.keySet());
+  }
+
+  public static boolean isComposite(String attributeName) {
+    return attributeName.contains(COMPOSITE_SEPARATOR);
+  }
+
+  public static boolean isSupported(String attributeName) {
+    try {
+      resolve(attributeName);
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  // The extractor of a plain attribute, or the extractors of the components of a composite key.
+  public static List<AttributeExtractor> resolve(String attributeName) {
+    List<AttributeExtractor> extractors = RESOLVED.get(attributeName);
+    if (extractors == null) {
+      extractors = lookUp(attributeName);
+      RESOLVED.put(attributeName, extractors);
+    }
+    return extractors;
+  }
+
+  private static synchronized List<AttributeExtractor> lookUp(String attributeName) {
+    String[] componentNames = attributeName.split(COMPOSITE_SEPARATOR, -1);
+    if (componentNames.length > MAX_COMPONENTS) {
+      throw new IllegalArgumentException("Composite attribute '" + attributeName
+          + "' has more than " + MAX_COMPONENTS + " components");
+    }
+    List<AttributeExtractor> extractors = new ArrayList<>(componentNames.length);
+    Set<String> seenNames = new HashSet<>();
+    for (String componentName : componentNames) {
+      AttributeExtractor extractor = EXTRACTORS.get(componentName);
+      if (extractor == null) {
+        throw new IllegalArgumentException("Attribute '" + attributeName + "' is not supported");
+      }
+      if (!seenNames.add(componentName)) {
+        throw new IllegalArgumentException("Composite attribute '" + attributeName
+            + "' repeats '" + componentName + "'");
+      }
+      extractors.add(extractor);
+    }
+    return List.copyOf(extractors);
+  }
+
+  // Whole currency units, e.g. "[5, 6)" for every price from 5.00 to 5.99.
+  static String priceBand(String priceText) {
+    if (priceText == null) {
+      return null;
+    }
+    long units = wholeUnits(priceText);
+    return units >= 0 && units < BAND_LABELS.length ? BAND_LABELS[(int) units] : bandLabel(units);
+  }
+
+  // Plain non-negative decimals are cut at the point; anything else goes through BigDecimal.
+  private static long wholeUnits(String priceText) {
+    long units = 0;
+    int i = 0;
+    for (; i < priceText.length() && i < 15; ++i) {
+      char c = priceText.charAt(i);
+      if (c < '0' || c > '9') {
+        break;
+      }
+      units = units * 10 + (c - '0');
+    }
+    boolean plain = i > 0 && (i == priceText.length() || priceText.charAt(i) == '.');
+    for (int j = i + 1; plain && j < priceText.length(); ++j) {
+      plain = priceText.charAt(j) >= '0' && priceText.charAt(j) <= '9';
+    }
+    if (plain) {
+      return units;
+    }
+    return new BigDecimal(priceText).setScale(0, RoundingMode.FLOOR).longValueExact();
+  }
+
+  private static String bandLabel(long units) {
+    return "[" + units + ", " + (units + 1) + ")";
+  }
+}
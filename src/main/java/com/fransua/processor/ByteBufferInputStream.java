@@ -0,0 +1,36 @@
+package com.fransua.processor;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+public class ByteBufferInputStream extends InputStream {
+
+  private final ByteBuffer buffer;
+
+  public ByteBufferInputStream(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  @Override
+  public int read() {
+    return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) {
+    if (length == 0) {
+      return 0;
+    }
+    if (!buffer.hasRemaining()) {
+      return -1;
+    }
+    int readLength = Math.min(length, buffer.remaining());
+    buffer.get(bytes, offset, readLength);
+    return readLength;
+  }
+
+  @Override
+  public int available() {
+    return buffer.remaining();
+  }
+}
@@ -0,0 +1,8 @@
+package com.fransua.processor;
+
+public record ByteRange(long offset, long length) {
+
+  public long end() {
+    return offset + length;
+  }
+}
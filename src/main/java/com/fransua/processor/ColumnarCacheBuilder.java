@@ -0,0 +1,267 @@
+package com.fransua.processor;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reads the orders of a file into dictionary-encoded columns. Input the columns couldn't
+// reproduce exactly (names that aren't strings, repeated fields, null or huge prices, createdAt
+// that doesn't parse) makes the whole file uncacheable; such files are parsed on every run.
+class ColumnarCacheBuilder {
+
+  static final long NO_TIME = Long.MIN_VALUE;
+  static final int NO_VALUE = -1;
+
+  private static final int MAX_ROWS = 1 << 25;
+
+  private static class UncacheableInputException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+  }
+
+  private final Dictionary<String> burgerNames = new Dictionary<>();
+  private final Dictionary<String> ingredientNames = new Dictionary<>();
+  private final Dictionary<BigDecimal> prices = new Dictionary<>();
+  private long[] orderTimes = new long[1024];
+  private int[] orderBurgerEnds = new int[1024];
+  private int orderCount;
+  private int[] burgerNameIds = new int[1024];
+  private int[] burgerIngredientEnds = new int[1024];
+  private int burgerCount;
+  private int[] ingredientNameIds = new int[1024];
+  private int[] ingredientPriceIds = new int[1024];
+  private int ingredientCount;
+
+  private static class Dictionary<T> {
+
+    private final Map<T, Integer> ids = new HashMap<>();
+    private final List<T> values = new ArrayList<>();
+
+    private int idOf(T value) {
+      return ids.computeIfAbsent(value, key -> {
+        values.add(key);
+        return values.size() - 1;
+      });
+    }
+  }
+
+  // False when the file can't be cached; the builder must not be used then.
+  boolean read(JsonParser parser) throws IOException {
+    try {
+      JsonToken token = parser.nextToken();
+      boolean rootArray = token == JsonToken.START_ARRAY;
+      if (rootArray) {
+        token = parser.nextToken();
+      }
+      while (token != null && !(rootArray && token == JsonToken.END_ARRAY)) {
+        if (token == JsonToken.START_OBJECT) {
+          readOrder(parser);
+        } else {
+          parser.skipChildren();
+        }
+        token = parser.nextToken();
+      }
+      return true;
+    } catch (UncacheableInputException e) {
+      return false;
+    }
+  }
+
+  int orderCount() {
+    return orderCount;
+  }
+
+  private void readOrder(JsonParser parser) throws IOException, UncacheableInputException {
+    long createdAt = NO_TIME;
+    boolean createdAtRead = false;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if (!createdAtRead && "createdAt".equals(fieldName)) {
+        createdAtRead = true;
+        createdAt = value == JsonToken.VALUE_STRING ? parseMicros(parser.getText()) : NO_TIME;
+      } else if (value == JsonToken.START_ARRAY && "burgers".equals(fieldName)) {
+        readBurgers(parser);
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    checkRows(orderCount);
+    if (orderCount == orderTimes.length) {
+      orderTimes = Arrays.copyOf(orderTimes, orderCount * 2);
+      orderBurgerEnds = Arrays.copyOf(orderBurgerEnds, orderCount * 2);
+    }
+    orderTimes[orderCount] = createdAt;
+    orderBurgerEnds[orderCount++] = burgerCount;
+  }
+
+  private static long parseMicros(String text) throws UncacheableInputException {
+    try {
+      Instant instant = DateTimeFormatter.ISO_OFFSET_DATE_TIME.parse(text, Instant::from);
+      long micros = Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L),
+          instant.getNano() / 1000);
+      if (micros == NO_TIME) {
+        throw new UncacheableInputException();
+      }
+      return micros;
+    } catch (DateTimeException | ArithmeticException e) {
+      throw new UncacheableInputException();
+    }
+  }
+
+  private void readBurgers(JsonParser parser) throws IOException, UncacheableInputException {
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token == JsonToken.START_OBJECT) {
+        readBurger(parser);
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  private void readBurger(JsonParser parser) throws IOException, UncacheableInputException {
+    int nameId = NO_VALUE;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if ("name".equals(fieldName)) {
+        nameId = readNameId(parser, value, nameId, burgerNames);
+      } else if (value == JsonToken.START_ARRAY && "ingredients".equals(fieldName)) {
+        readIngredients(parser);
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    checkRows(burgerCount);
+    if (burgerCount == burgerNameIds.length) {
+      burgerNameIds = Arrays.copyOf(burgerNameIds, burgerCount * 2);
+      burgerIngredientEnds = Arrays.copyOf(burgerIngredientEnds, burgerCount * 2);
+    }
+    burgerNameIds[burgerCount] = nameId;
+    burgerIngredientEnds[burgerCount++] = ingredientCount;
+  }
+
+  private void readIngredients(JsonParser parser) throws IOException, UncacheableInputException {
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token == JsonToken.START_OBJECT) {
+        readIngredient(parser);
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  private void readIngredient(JsonParser parser) throws IOException, UncacheableInputException {
+    int nameId = NO_VALUE;
+    int priceId = NO_VALUE;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if ("name".equals(fieldName)) {
+        nameId = readNameId(parser, value, nameId, ingredientNames);
+      } else if ("unitPrice".equals(fieldName)) {
+        if (priceId != NO_VALUE) {
+          throw new UncacheableInputException();
+        }
+        priceId = prices.idOf(readPrice(parser, value));
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    checkRows(ingredientCount);
+    if (ingredientCount == ingredientNameIds.length) {
+      ingredientNameIds = Arrays.copyOf(ingredientNameIds, ingredientCount * 2);
+      ingredientPriceIds = Arrays.copyOf(ingredientPriceIds, ingredientCount * 2);
+    }
+    ingredientNameIds[ingredientCount] = nameId;
+    ingredientPriceIds[ingredientCount++] = priceId;
+  }
+
+  private static int readNameId(JsonParser parser, JsonToken value, int currentId,
+      Dictionary<String> names) throws IOException, UncacheableInputException {
+    if (value != JsonToken.VALUE_STRING || currentId != NO_VALUE) {
+      throw new UncacheableInputException();
+    }
+    return names.idOf(parser.getText());
+  }
+
+  // The same BigDecimal the parsing path gets, so its toString() is the ingredient-price value.
+  private static BigDecimal readPrice(JsonParser parser, JsonToken value)
+      throws IOException, UncacheableInputException {
+    BigDecimal price;
+    try {
+      if (value.isNumeric()) {
+        price = parser.getDecimalValue();
+      } else if (value == JsonToken.VALUE_STRING) {
+        price = new BigDecimal(parser.getText().trim());
+      } else {
+        throw new UncacheableInputException();
+      }
+    } catch (NumberFormatException e) {
+      throw new UncacheableInputException();
+    }
+    if (price.unscaledValue().bitLength() >= Long.SIZE || price.scale() != (byte) price.scale()) {
+      throw new UncacheableInputException();
+    }
+    return price;
+  }
+
+  private static void checkRows(int rows) throws UncacheableInputException {
+    if (rows >= MAX_ROWS) {
+      throw new UncacheableInputException();
+    }
+  }
+
+  // See ColumnarOrderCache for the layout.
+  void writeColumns(DataOutputStream output) throws IOException {
+    output.writeInt(orderCount);
+    output.writeInt(burgerCount);
+    output.writeInt(ingredientCount);
+    writeStrings(output, burgerNames.values);
+    writeStrings(output, ingredientNames.values);
+    output.writeInt(prices.values.size());
+    for (BigDecimal price : prices.values) {
+      output.writeLong(price.unscaledValue().longValue());
+      output.writeByte(price.scale());
+    }
+
+    for (int i = 0; i < orderCount; ++i) {
+      output.writeLong(orderTimes[i]);
+    }
+    writeInts(output, orderBurgerEnds, orderCount);
+    writeInts(output, burgerNameIds, burgerCount);
+    writeInts(output, burgerIngredientEnds, burgerCount);
+    writeInts(output, ingredientNameIds, ingredientCount);
+    writeInts(output, ingredientPriceIds, ingredientCount);
+  }
+
+  private static void writeStrings(DataOutputStream output, List<String> values)
+      throws IOException {
+    output.writeInt(values.size());
+    for (String value : values) {
+      ColumnarOrderCache.writeString(output, value);
+    }
+  }
+
+  private static void writeInts(DataOutputStream output, int[] values, int count)
+      throws IOException {
+    for (int i = 0; i < count; ++i) {
+      output.writeInt(values[i]);
+    }
+  }
+}
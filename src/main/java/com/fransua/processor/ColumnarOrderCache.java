@@ -0,0 +1,364 @@
+package com.fransua.processor;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fransua.processor.AttributeExtractor.Source;
+import com.fransua.service.CompositeKeyCounter;
+import com.fransua.service.FileIdentity;
+import com.fransua.service.OrderKeys;
+import com.fransua.service.PartialStatistic;
+import com.fransua.service.PartialStatistic.OrderInput;
+import com.fransua.service.PriceStatisticService;
+import com.fransua.service.ValuePartialStatistic;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Orders of one input file as memory-mapped, dictionary-encoded columns, so repeated runs count
+// attribute values by scanning int columns instead of parsing JSON. Layout: magic, version,
+// the identity (path, size, last modified) of the source file, the order, burger and
+// ingredient counts, the burger and ingredient name dictionaries, the price dictionary as
+// unscaled long + scale, then the columns: createdAt per order as epoch micros, the end of
+// every order's burgers, the burger name ids, the end of every burger's ingredients, the
+// ingredient name ids and the ingredient price ids. Missing values are -1 (Long.MIN_VALUE for
+// createdAt).
+public class ColumnarOrderCache {
+
+  private static final int MAGIC = 0x4A535043;
+  private static final int VERSION = 1;
+  private static final String FILE_SUFFIX = ".columns";
+
+  private final String[] burgerNames;
+  private final String[] ingredientNames;
+  private final BigDecimal[] prices;
+  private final int orderCount;
+  private final LongBuffer orderTimes;
+  private final IntBuffer orderBurgerEnds;
+  private final IntBuffer burgerNameIds;
+  private final IntBuffer burgerIngredientEnds;
+  private final IntBuffer ingredientNameIds;
+  private final IntBuffer ingredientPriceIds;
+
+  private ColumnarOrderCache(ByteBuffer buffer) {
+    orderCount = buffer.getInt();
+    int burgerCount = buffer.getInt();
+    int ingredientCount = buffer.getInt();
+    burgerNames = readStrings(buffer);
+    ingredientNames = readStrings(buffer);
+    prices = new BigDecimal[buffer.getInt()];
+    for (int i = 0; i < prices.length; ++i) {
+      prices[i] = new BigDecimal(BigInteger.valueOf(buffer.getLong()), buffer.get());
+    }
+    orderTimes = column(buffer, orderCount, Long.BYTES).asLongBuffer();
+    orderBurgerEnds = column(buffer, orderCount, Integer.BYTES).asIntBuffer();
+    burgerNameIds = column(buffer, burgerCount, Integer.BYTES).asIntBuffer();
+    burgerIngredientEnds = column(buffer, burgerCount, Integer.BYTES).asIntBuffer();
+    ingredientNameIds = column(buffer, ingredientCount, Integer.BYTES).asIntBuffer();
+    ingredientPriceIds = column(buffer, ingredientCount, Integer.BYTES).asIntBuffer();
+  }
+
+  public static Path cacheFile(Path cacheDirectory, FileIdentity identity) {
+    return cacheDirectory.resolve(
+        UUID.nameUUIDFromBytes(identity.path().getBytes(StandardCharsets.UTF_8)) + FILE_SUFFIX);
+  }
+
+  // Null when there is no cache for the file or it was written for a different version of it.
+  public static ColumnarOrderCache open(Path cacheFile, FileIdentity identity) {
+    try (FileChannel channel = FileChannel.open(cacheFile)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+          || !readString(buffer).equals(identity.path()) || buffer.getLong() != identity.size()
+          || buffer.getLong() != identity.lastModified()) {
+        return null;
+      }
+      return new ColumnarOrderCache(buffer);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Ignoring unreadable columnar cache " + cacheFile + ": " + e);
+      return null;
+    }
+  }
+
+  // Reads the file from the parser and caches it; null when the file can't be cached.
+  public static ColumnarOrderCache build(Path cacheFile, FileIdentity identity,
+      JsonParser parser) throws IOException {
+    ColumnarCacheBuilder builder = new ColumnarCacheBuilder();
+    if (!builder.read(parser)) {
+      Files.deleteIfExists(cacheFile);
+      return null;
+    }
+
+    Files.createDirectories(cacheFile.getParent());
+    Path tmpFile = Files.createTempFile(cacheFile.getParent(), "columns", ".tmp");
+    try {
+      try (DataOutputStream output = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(tmpFile), 64 * 1024))) {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        writeString(output, identity.path());
+        output.writeLong(identity.size());
+        output.writeLong(identity.lastModified());
+        builder.writeColumns(output);
+      }
+      Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+    return open(cacheFile, identity);
+  }
+
+  // Deletes the caches of files that are no longer part of the input.
+  public static void prune(Path cacheDirectory, Set<Path> cacheFiles) throws IOException {
+    if (!Files.isDirectory(cacheDirectory)) {
+      return;
+    }
+    try (Stream<Path> pathStream = Files.list(cacheDirectory)) {
+      for (Path path : pathStream.toList()) {
+        if (path.getFileName().toString().endsWith(FILE_SUFFIX) && !cacheFiles.contains(path)) {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+  }
+
+  public int orderCount() {
+    return orderCount;
+  }
+
+  // Feeds the counters exactly what OrderTokenExtractor would feed them for the source file.
+  // Every extractor reads one column, so it runs once per dictionary entry instead of once per
+  // record. Plain counters then get one add per distinct value; counters with order inputs need
+  // the values and the order callbacks order by order and composite keys are packed from the
+  // column ids burger by burger.
+  public int aggregate(Map<String, PartialStatistic> counters) throws IOException {
+    ExtractorPlan plan = ExtractorPlan.of(counters);
+    String[] priceTexts = new String[prices.length];
+    for (int i = 0; i < prices.length; ++i) {
+      priceTexts[i] = prices[i].toString();
+    }
+
+    List<LabeledColumn> orderColumns = new ArrayList<>();
+    for (ExtractorPlan.Binding binding : plan.bindings()) {
+      Source source = binding.extractor().source();
+      LabeledColumn column = new LabeledColumn(binding.counter(), idsOf(source),
+          labels(binding.extractor(), valuesOf(source, priceTexts)),
+          binding.extractor().burgerLevel());
+      if (!binding.counter().orderInputs().isEmpty()) {
+        orderColumns.add(column);
+      } else {
+        addCounts(column.ids(), column.labels(), column.counter());
+      }
+    }
+    List<CompositeColumns> compositeColumns = new ArrayList<>();
+    for (ExtractorPlan.CompositeBinding binding : plan.compositeBindings()) {
+      compositeColumns.add(compositeColumns(binding, priceTexts));
+    }
+
+    if (plan.ordersRequired() || !compositeColumns.isEmpty()) {
+      aggregateOrders(plan, orderColumns, compositeColumns);
+    }
+    return orderCount;
+  }
+
+  // A column with its dictionary run through the extractor of one counter.
+  private record LabeledColumn(ValuePartialStatistic counter, IntBuffer ids, String[] labels,
+      boolean burgerLevel) {
+  }
+
+  // The columns of the components of a composite key, with every dictionary id mapped to the
+  // value id of the extractor output in the counter.
+  private record CompositeColumns(CompositeKeyCounter counter, IntBuffer[] ids,
+      int[][] valueIds, boolean[] burgerLevel, boolean ingredientLevel) {
+  }
+
+  private CompositeColumns compositeColumns(ExtractorPlan.CompositeBinding binding,
+      String[] priceTexts) {
+    List<AttributeExtractor> components = binding.components();
+    CompositeKeyCounter counter = binding.counter();
+    IntBuffer[] ids = new IntBuffer[components.size()];
+    int[][] valueIds = new int[components.size()][];
+    boolean[] burgerLevel = new boolean[components.size()];
+    for (int component = 0; component < components.size(); ++component) {
+      AttributeExtractor extractor = components.get(component);
+      String[] labels = labels(extractor, valuesOf(extractor.source(), priceTexts));
+      ids[component] = idsOf(extractor.source());
+      valueIds[component] = new int[labels.length];
+      for (int id = 0; id < labels.length; ++id) {
+        valueIds[component][id] = counter.valueId(component, labels[id]);
+      }
+      burgerLevel[component] = extractor.burgerLevel();
+    }
+    return new CompositeColumns(counter, ids, valueIds, burgerLevel,
+        binding.ingredientLevel());
+  }
+
+  private IntBuffer idsOf(Source source) {
+    return switch (source) {
+      case BURGER_NAME -> burgerNameIds;
+      case INGREDIENT_NAME -> ingredientNameIds;
+      case INGREDIENT_PRICE -> ingredientPriceIds;
+    };
+  }
+
+  private String[] valuesOf(Source source, String[] priceTexts) {
+    return switch (source) {
+      case BURGER_NAME -> burgerNames;
+      case INGREDIENT_NAME -> ingredientNames;
+      case INGREDIENT_PRICE -> priceTexts;
+    };
+  }
+
+  private static String[] labels(AttributeExtractor extractor, String[] values) {
+    String[] labels = new String[values.length];
+    for (int id = 0; id < values.length; ++id) {
+      labels[id] = extractor.apply(values[id]);
+    }
+    return labels;
+  }
+
+  private static void addCounts(IntBuffer ids, String[] labels,
+      ValuePartialStatistic counter) {
+    long[] counts = new long[labels.length];
+    for (int i = 0; i < ids.limit(); ++i) {
+      int id = ids.get(i);
+      if (id >= 0) {
+        ++counts[id];
+      }
+    }
+    for (int id = 0; id < labels.length; ++id) {
+      if (counts[id] != 0) {
+        counter.add(labels[id], counts[id]);
+      }
+    }
+  }
+
+  private void aggregateOrders(ExtractorPlan plan, List<LabeledColumn> orderColumns,
+      List<CompositeColumns> compositeColumns) {
+    boolean structureRequired = plan.requires(OrderInput.STRUCTURE);
+    long[] unitPrices = new long[plan.requires(OrderInput.PRICES) ? prices.length : 0];
+    for (int i = 0; i < unitPrices.length; ++i) {
+      unitPrices[i] = PriceStatisticService.unscaledPrice(prices[i]);
+    }
+
+    int burger = 0;
+    int ingredient = 0;
+    for (int order = 0; order < orderCount; ++order) {
+      long micros = orderTimes.get(order);
+      Instant createdAt = micros == ColumnarCacheBuilder.NO_TIME ? null : Instant.ofEpochSecond(
+          Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1000);
+      // The columns keep no order ids, so every order counts as a distinct one.
+      plan.startOrder(OrderKeys.random(), createdAt);
+      for (int burgerEnd = orderBurgerEnds.get(order); burger < burgerEnd; ++burger) {
+        for (int ingredientEnd = burgerIngredientEnds.get(burger); ingredient < ingredientEnd;
+            ++ingredient) {
+          for (LabeledColumn column : orderColumns) {
+            if (!column.burgerLevel()) {
+              addLabel(column, ingredient);
+            }
+          }
+          if (structureRequired) {
+            int priceId = ingredientPriceIds.get(ingredient);
+            plan.addOrderIngredient(
+                valueOf(ingredientNames, ingredientNameIds.get(ingredient)),
+                priceId < 0 || unitPrices.length == 0 ? PriceStatisticService.MISSING_PRICE
+                    : unitPrices[priceId]);
+          }
+          for (CompositeColumns columns : compositeColumns) {
+            if (columns.ingredientLevel()) {
+              addCompositeKey(columns, burger, ingredient);
+            }
+          }
+        }
+        for (LabeledColumn column : orderColumns) {
+          if (column.burgerLevel()) {
+            addLabel(column, burger);
+          }
+        }
+        if (structureRequired) {
+          plan.endOrderBurger(valueOf(burgerNames, burgerNameIds.get(burger)));
+        }
+        for (CompositeColumns columns : compositeColumns) {
+          if (!columns.ingredientLevel()) {
+            addCompositeKey(columns, burger, -1);
+          }
+        }
+      }
+      plan.endOrder();
+    }
+  }
+
+  private static void addLabel(LabeledColumn column, int record) {
+    int id = column.ids().get(record);
+    if (id >= 0) {
+      column.counter().increment(column.labels()[id]);
+    }
+  }
+
+  private static void addCompositeKey(CompositeColumns columns, int burger, int ingredient) {
+    long key = 0;
+    for (int component = 0; component < columns.ids().length; ++component) {
+      int id = columns.ids()[component].get(columns.burgerLevel()[component] ? burger
+          : ingredient);
+      if (id < 0) {
+        return;
+      }
+      key = columns.counter().pack(key, columns.valueIds()[component][id]);
+    }
+    columns.counter().add(key, 1);
+  }
+
+  private static String valueOf(String[] values, int id) {
+    return id < 0 ? null : values[id];
+  }
+
+  private static ByteBuffer column(ByteBuffer buffer, int count, int bytes) {
+    int length = Math.multiplyExact(count, bytes);
+    ByteBuffer column = buffer.slice(buffer.position(), length);
+    buffer.position(buffer.position() + length);
+    return column;
+  }
+
+  private static String[] readStrings(ByteBuffer buffer) {
+    String[] values = new String[buffer.getInt()];
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = readString(buffer);
+    }
+    return values;
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  static void writeString(DataOutputStream output, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+}
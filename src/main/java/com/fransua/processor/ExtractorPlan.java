@@ -0,0 +1,313 @@
+package com.fransua.processor;
+
+import com.fransua.processor.AttributeExtractor.Source;
+import com.fransua.service.CompositeKeyCounter;
+import com.fransua.service.PartialStatistic;
+import com.fransua.service.PartialStatistic.OrderInput;
+import com.fransua.service.ValuePartialStatistic;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The frequency counters of one task bound to their extractors once and grouped by the field
+// they read, so readers hand over source values as they meet them and never look at attribute
+// names per record. Counters with order inputs are collected once as well; readers extract
+// what requires(OrderInput) asks for and hand it to the order callbacks of the plan.
+final class ExtractorPlan {
+
+  record Binding(AttributeExtractor extractor, ValuePartialStatistic counter) {
+  }
+
+  private final List<Binding> bindings = new ArrayList<>();
+  private final List<CompositeBinding> compositeBindings = new ArrayList<>();
+  private final Binding[] burgerNameBindings;
+  private final Binding[] ingredientNameBindings;
+  private final Binding[] ingredientPriceBindings;
+  private final CompositeBinding[] composites;
+  private final boolean[] sourceRequired = new boolean[Source.values().length];
+  private final PartialStatistic[] orderCounters;
+  private final PartialStatistic[] structureCounters;
+  private final Set<OrderInput> orderInputs = EnumSet.noneOf(OrderInput.class);
+
+  private ExtractorPlan(Map<String, PartialStatistic> counters) {
+    List<PartialStatistic> orderCounters = new ArrayList<>();
+    List<PartialStatistic> structureCounters = new ArrayList<>();
+    for (Map.Entry<String, PartialStatistic> entry : counters.entrySet()) {
+      PartialStatistic counter = entry.getValue();
+      Set<OrderInput> inputs = counter.orderInputs();
+      if (!inputs.isEmpty()) {
+        orderCounters.add(counter);
+        orderInputs.addAll(inputs);
+      }
+      if (inputs.contains(OrderInput.STRUCTURE)) {
+        structureCounters.add(counter);
+      }
+      if (counter instanceof CompositeKeyCounter compositeCounter) {
+        List<AttributeExtractor> extractors = AttributeExtractors.resolve(entry.getKey());
+        compositeBindings.add(new CompositeBinding(extractors, compositeCounter));
+        extractors.forEach(extractor -> sourceRequired[extractor.source().ordinal()] = true);
+      } else if (counter instanceof ValuePartialStatistic valueCounter) {
+        AttributeExtractor extractor = AttributeExtractors.resolve(entry.getKey()).get(0);
+        bindings.add(new Binding(extractor, valueCounter));
+        sourceRequired[extractor.source().ordinal()] = true;
+      }
+    }
+    this.burgerNameBindings = bindingsOf(Source.BURGER_NAME);
+    this.ingredientNameBindings = bindingsOf(Source.INGREDIENT_NAME);
+    this.ingredientPriceBindings = bindingsOf(Source.INGREDIENT_PRICE);
+    this.composites = compositeBindings.toArray(CompositeBinding[]::new);
+    this.orderCounters = orderCounters.toArray(PartialStatistic[]::new);
+    this.structureCounters = structureCounters.toArray(PartialStatistic[]::new);
+  }
+
+  static ExtractorPlan of(Map<String, PartialStatistic> counters) {
+    return new ExtractorPlan(counters);
+  }
+
+  private Binding[] bindingsOf(Source source) {
+    return bindings.stream()
+        .filter(binding -> binding.extractor().source() == source)
+        .toArray(Binding[]::new);
+  }
+
+  // Plain attributes; composite keys are in compositeBindings.
+  List<Binding> bindings() {
+    return bindings;
+  }
+
+  List<CompositeBinding> compositeBindings() {
+    return compositeBindings;
+  }
+
+  boolean requires(Source source) {
+    return sourceRequired[source.ordinal()];
+  }
+
+  // Whether any counter needs this from every order.
+  boolean requires(OrderInput input) {
+    return orderInputs.contains(input);
+  }
+
+  // Whether any counter needs the order callbacks at all.
+  boolean ordersRequired() {
+    return orderCounters.length != 0;
+  }
+
+  boolean ingredientsRequired() {
+    return requires(Source.INGREDIENT_NAME) || requires(Source.INGREDIENT_PRICE);
+  }
+
+  void startOrder(long orderKey, Instant createdAt) {
+    for (PartialStatistic counter : orderCounters) {
+      counter.startOrder(orderKey, createdAt);
+    }
+  }
+
+  // The order structure, for counters that require OrderInput.STRUCTURE.
+  void addOrderIngredient(String ingredientName, long unitPrice) {
+    for (PartialStatistic counter : structureCounters) {
+      counter.addIngredient(ingredientName, unitPrice);
+    }
+  }
+
+  void endOrderBurger(String burgerName) {
+    for (PartialStatistic counter : structureCounters) {
+      counter.endBurger(burgerName);
+    }
+  }
+
+  void endOrder() {
+    for (PartialStatistic counter : orderCounters) {
+      counter.endOrder();
+    }
+  }
+
+  void burgerName(String burgerName) {
+    for (Binding binding : burgerNameBindings) {
+      binding.counter().increment(binding.extractor().apply(burgerName));
+    }
+    compositeValue(Source.BURGER_NAME, burgerName);
+  }
+
+  void ingredientName(String ingredientName) {
+    for (Binding binding : ingredientNameBindings) {
+      binding.counter().increment(binding.extractor().apply(ingredientName));
+    }
+    compositeValue(Source.INGREDIENT_NAME, ingredientName);
+  }
+
+  void ingredientPrice(String priceText) {
+    for (Binding binding : ingredientPriceBindings) {
+      binding.counter().increment(binding.extractor().apply(priceText));
+    }
+    compositeValue(Source.INGREDIENT_PRICE, priceText);
+  }
+
+  // The same fields as characters of the parser buffer. Attributes and composite components
+  // that count the field itself look the characters up directly; a String is only created for
+  // the other extractors and for values seen for the first time.
+  void burgerName(char[] text, int offset, int length) {
+    sourceChars(Source.BURGER_NAME, burgerNameBindings, text, offset, length);
+  }
+
+  void ingredientName(char[] text, int offset, int length) {
+    sourceChars(Source.INGREDIENT_NAME, ingredientNameBindings, text, offset, length);
+  }
+
+  void ingredientPrice(char[] text, int offset, int length) {
+    sourceChars(Source.INGREDIENT_PRICE, ingredientPriceBindings, text, offset, length);
+  }
+
+  private void sourceChars(Source source, Binding[] sourceBindings, char[] text, int offset,
+      int length) {
+    String value = null;
+    for (Binding binding : sourceBindings) {
+      if (binding.extractor().countsSourceValue()) {
+        binding.counter().increment(text, offset, length);
+      } else {
+        if (value == null) {
+          value = new String(text, offset, length);
+        }
+        binding.counter().increment(binding.extractor().apply(value));
+      }
+    }
+    for (CompositeBinding composite : composites) {
+      composite.setValue(source, text, offset, length);
+    }
+  }
+
+  private void compositeValue(Source source, String value) {
+    for (CompositeBinding composite : composites) {
+      composite.setValue(source, value);
+    }
+  }
+
+  void endIngredient() {
+    for (CompositeBinding composite : composites) {
+      composite.endIngredient();
+    }
+  }
+
+  void endBurger() {
+    for (CompositeBinding composite : composites) {
+      composite.endBurger();
+    }
+  }
+
+  // A composite key whose values are read from a stream. Every component value is resolved to
+  // its id as soon as its field is read. Ingredient components are collected when the
+  // ingredient ends and wait for the end of their burger, whose name may come after the
+  // ingredients. A record missing one of the source values is not counted.
+  static final class CompositeBinding {
+
+    private final AttributeExtractor[] components;
+    private final CompositeKeyCounter counter;
+    private final boolean ingredientLevel;
+    // The ids of the open burger and ingredient, and whether they were read.
+    private final int[] valueIds;
+    private final boolean[] valuesRead;
+    private int[] pendingIds;
+    private int pendingIngredients;
+
+    private CompositeBinding(List<AttributeExtractor> components, CompositeKeyCounter counter) {
+      this.components = components.toArray(AttributeExtractor[]::new);
+      this.counter = counter;
+      this.ingredientLevel = components.stream().anyMatch(component -> !component.burgerLevel());
+      this.valueIds = new int[this.components.length];
+      this.valuesRead = new boolean[this.components.length];
+      this.pendingIds = new int[this.components.length * 16];
+    }
+
+    List<AttributeExtractor> components() {
+      return List.of(components);
+    }
+
+    CompositeKeyCounter counter() {
+      return counter;
+    }
+
+    boolean ingredientLevel() {
+      return ingredientLevel;
+    }
+
+    private void setValue(Source source, String value) {
+      for (int component = 0; component < components.length; ++component) {
+        AttributeExtractor extractor = components[component];
+        if (extractor.source() == source) {
+          valuesRead[component] = value != null;
+          if (value != null) {
+            valueIds[component] = counter.valueId(component, extractor.apply(value));
+          }
+        }
+      }
+    }
+
+    private void setValue(Source source, char[] text, int offset, int length) {
+      String value = null;
+      for (int component = 0; component < components.length; ++component) {
+        AttributeExtractor extractor = components[component];
+        if (extractor.source() != source) {
+          continue;
+        }
+        if (extractor.countsSourceValue()) {
+          valueIds[component] = counter.valueId(component, text, offset, length);
+        } else {
+          if (value == null) {
+            value = new String(text, offset, length);
+          }
+          valueIds[component] = counter.valueId(component, extractor.apply(value));
+        }
+        valuesRead[component] = true;
+      }
+    }
+
+    private void endIngredient() {
+      if (!ingredientLevel) {
+        return;
+      }
+      boolean complete = true;
+      for (int component = 0; component < components.length; ++component) {
+        if (!components[component].burgerLevel()) {
+          complete &= valuesRead[component];
+          valuesRead[component] = false;
+        }
+      }
+      if (!complete) {
+        return;
+      }
+      int offset = pendingIngredients * components.length;
+      if (offset + components.length > pendingIds.length) {
+        pendingIds = Arrays.copyOf(pendingIds, pendingIds.length * 2);
+      }
+      System.arraycopy(valueIds, 0, pendingIds, offset, components.length);
+      ++pendingIngredients;
+    }
+
+    private void endBurger() {
+      int ingredients = ingredientLevel ? pendingIngredients : 1;
+      pendingIngredients = 0;
+      boolean complete = true;
+      for (int component = 0; component < components.length; ++component) {
+        if (components[component].burgerLevel()) {
+          complete &= valuesRead[component];
+          valuesRead[component] = false;
+        }
+      }
+      if (!complete) {
+        return;
+      }
+      for (int ingredient = 0; ingredient < ingredients; ++ingredient) {
+        long key = 0;
+        for (int component = 0; component < components.length; ++component) {
+          key = counter.pack(key, components[component].burgerLevel() ? valueIds[component]
+              : pendingIds[ingredient * components.length + component]);
+        }
+        counter.add(key, 1);
+      }
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.fransua.processor;
+
+import com.fransua.metrics.RunMetrics;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Runs the per-file (or per-range) tasks on a bounded executor. Tasks start in submission
+// order, so submitting the largest files first keeps one huge file from becoming the
+// straggler. A batch task processes several small files and reports the orders of each of
+// them. The executor is always shut down on close, whether the tasks succeeded or not.
+public class FileTaskScheduler implements AutoCloseable {
+
+  private final ExecutorService executorService;
+  private final ExecutorCompletionService<Map<File, Integer>> completionService;
+  private final Map<Future<Map<File, Integer>>, List<File>> taskFiles = new HashMap<>();
+  private final Map<File, Integer> processedOrders = new LinkedHashMap<>();
+  private final Map<Thread, List<File>> runningTasks = new ConcurrentHashMap<>();
+  private final RunMetrics metrics;
+  private final Duration shutdownTimeout;
+
+  public FileTaskScheduler(ExecutorService executorService) {
+    this(executorService, null);
+  }
+
+  public FileTaskScheduler(ExecutorService executorService, RunMetrics metrics) {
+    this(executorService, metrics, Duration.ofMinutes(1));
+  }
+
+  public FileTaskScheduler(ExecutorService executorService, RunMetrics metrics,
+      Duration shutdownTimeout) {
+    this.executorService = executorService;
+    this.completionService = new ExecutorCompletionService<>(executorService);
+    this.metrics = metrics;
+    this.shutdownTimeout = shutdownTimeout;
+  }
+
+  public void submit(File file, Callable<Integer> task) {
+    submitBatch(List.of(file), () -> Map.of(file, task.call()));
+  }
+
+  public void submitBatch(List<File> files, Callable<Map<File, Integer>> task) {
+    for (File file : files) {
+      processedOrders.putIfAbsent(file, 0);
+    }
+    Callable<Map<File, Integer>> trackedTask = () -> {
+      runningTasks.put(Thread.currentThread(), files);
+      try {
+        return task.call();
+      } finally {
+        runningTasks.remove(Thread.currentThread());
+      }
+    };
+    taskFiles.put(completionService.submit(metrics == null ? trackedTask
+        : measured(trackedTask)), files);
+  }
+
+  private Callable<Map<File, Integer>> measured(Callable<Map<File, Integer>> task) {
+    long submittedNanos = System.nanoTime();
+    return () -> {
+      metrics.recordTaskStart();
+      metrics.recordStage(RunMetrics.Stage.QUEUE_WAIT, System.nanoTime() - submittedNanos);
+      long allocatedBytes = RunMetrics.currentThreadAllocatedBytes();
+      try {
+        return task.call();
+      } finally {
+        if (allocatedBytes >= 0) {
+          metrics.recordAllocation(RunMetrics.currentThreadAllocatedBytes() - allocatedBytes);
+        }
+      }
+    };
+  }
+
+  // Returns the processed order count of every file whose tasks all succeeded. With failFast
+  // the first failure cancels the remaining tasks and is rethrown; otherwise failed files are
+  // reported and left out of the result.
+  public Map<File, Integer> awaitAll(boolean failFast) throws IOException {
+    Set<File> failedFiles = new HashSet<>();
+    int remainingTasks = taskFiles.size();
+    try {
+      while (remainingTasks > 0) {
+        Future<Map<File, Integer>> future = completionService.take();
+        --remainingTasks;
+        List<File> files = taskFiles.get(future);
+        try {
+          future.get().forEach((file, orders) -> processedOrders.merge(file, orders, Integer::sum));
+        } catch (ExecutionException e) {
+          String description = files.size() == 1 ? files.get(0).toString()
+              : "a batch of " + files.size() + " files";
+          if (failFast) {
+            cancelRemainingTasks();
+            throw new IOException("Processing of " + description + " failed", e.getCause());
+          }
+          System.err.println("Error processing " + description + ": " + e.getCause());
+          failedFiles.addAll(files);
+        }
+      }
+    } catch (InterruptedException e) {
+      cancelRemainingTasks();
+      Thread.currentThread().interrupt();
+      throw new IOException("Processing was interrupted", e);
+    }
+
+    processedOrders.keySet().removeAll(failedFiles);
+    return processedOrders;
+  }
+
+  private void cancelRemainingTasks() {
+    for (Future<Map<File, Integer>> future : taskFiles.keySet()) {
+      future.cancel(true);
+    }
+  }
+
+  // Tasks merge their partials when they finish, so nothing may still be running once the
+  // caller moves on. Tasks that ignore the interrupt past the timeout (or an interrupt of the
+  // waiting thread) fail the close instead of hanging it.
+  @Override
+  public void close() {
+    executorService.shutdownNow();
+    try {
+      if (executorService.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        return;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    List<File> runningFiles = new ArrayList<>();
+    runningTasks.values().forEach(runningFiles::addAll);
+    throw new IllegalStateException("Tasks still running after shutdown: " + runningFiles);
+  }
+}
@@ -0,0 +1,93 @@
+package com.fransua.processor;
+
+import com.github.luben.zstd.ZstdInputStream;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+// Recognizes the supported input files (.json arrays, .ndjson/.jsonl documents, optionally
+// gzip or zstd compressed) and opens them as decompressed streams.
+public class InputFiles {
+
+  public enum Compression {
+    NONE, GZIP, ZSTD
+  }
+
+  private static final List<String> JSON_EXTENSIONS = List.of(".json", ".ndjson", ".jsonl");
+  private static final List<String> NEWLINE_DELIMITED_EXTENSIONS = List.of(".ndjson", ".jsonl");
+  private static final List<String> COMPRESSION_EXTENSIONS = List.of(".gz", ".zst");
+  private static final int DECOMPRESSION_BUFFER_BYTES = 256 * 1024;
+  private static final int ZSTD_MAGIC = 0xFD2FB528;
+
+  private InputFiles() {
+  }
+
+  public static boolean isInputFile(Path path) {
+    String name = withoutCompressionExtension(path.getFileName().toString());
+    return JSON_EXTENSIONS.stream().anyMatch(name::endsWith);
+  }
+
+  public static boolean isNewlineDelimited(File file) {
+    String name = withoutCompressionExtension(file.getName());
+    return NEWLINE_DELIMITED_EXTENSIONS.stream().anyMatch(name::endsWith);
+  }
+
+  // Detected from the magic bytes, so a misnamed file is still read correctly.
+  public static Compression compression(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(4);
+      return compression(header, channel.read(header));
+    }
+  }
+
+  private static Compression compression(ByteBuffer header, int length) {
+    header.order(ByteOrder.LITTLE_ENDIAN);
+    if (length >= 2 && (header.get(0) & 0xFF) == 0x1F && (header.get(1) & 0xFF) == 0x8B) {
+      return Compression.GZIP;
+    }
+    if (length == 4 && header.getInt(0) == ZSTD_MAGIC) {
+      return Compression.ZSTD;
+    }
+    return Compression.NONE;
+  }
+
+  // The magic bytes are read from the stream and pushed back, so every file is opened only once;
+  // that open dominates the cost of small files.
+  public static InputStream open(File file) throws IOException {
+    PushbackInputStream input = new PushbackInputStream(new FileInputStream(file), 4);
+    try {
+      byte[] header = input.readNBytes(4);
+      input.unread(header);
+      return switch (compression(ByteBuffer.wrap(header), header.length)) {
+        case NONE -> input;
+        case GZIP -> new GZIPInputStream(input, DECOMPRESSION_BUFFER_BYTES);
+        case ZSTD -> new ZstdInputStream(
+            new BufferedInputStream(input, DECOMPRESSION_BUFFER_BYTES));
+      };
+    } catch (IOException e) {
+      input.close();
+      throw e;
+    }
+  }
+
+  private static String withoutCompressionExtension(String fileName) {
+    String name = fileName.toLowerCase(Locale.ROOT);
+    for (String extension : COMPRESSION_EXTENSIONS) {
+      if (name.endsWith(extension)) {
+        return name.substring(0, name.length() - extension.length());
+      }
+    }
+    return name;
+  }
+}
@@ -0,0 +1,179 @@
+package com.fransua.processor;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class JsonArraySplitter {
+
+  private static final int SCAN_WINDOW_BYTES = 64 * 1024 * 1024;
+  private static final long MAX_RANGE_BYTES = Integer.MAX_VALUE - 2;
+
+  private JsonArraySplitter() {
+  }
+
+  public static List<ByteRange> split(File file, long chunkBytes) throws IOException {
+    List<ByteRange> ranges = new ArrayList<>();
+    if (!split(file, chunkBytes, ranges::add)) {
+      return Collections.emptyList();
+    }
+    return ranges;
+  }
+
+  // Scans the root array once, tracking nesting, string and escape state, and hands every
+  // run of whole top-level elements of roughly chunkBytes to the consumer as soon as it is
+  // found. Elements that aren't objects stay in their range, where the extractor skips them
+  // like it does in a sequential parse. Returns false without emitting anything if the file is
+  // not a root array and has to be parsed sequentially. A root array that isn't closed, or is
+  // followed by more content, fails the file once ranges were emitted, like the sequential
+  // parser would; before that the file is left to the sequential parser to report.
+  public static boolean split(File file, long chunkBytes, Consumer<ByteRange> rangeConsumer)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      long position = 0;
+      int depth = 0;
+      boolean inString = false;
+      boolean escaped = false;
+      boolean rootFound = false;
+      boolean rootClosed = false;
+      boolean inElement = false;
+      long chunkStart = -1;
+      long lastElementEnd = -1;
+      boolean emitted = false;
+
+      while (position < size) {
+        int windowLength = (int) Math.min(SCAN_WINDOW_BYTES, size - position);
+        MappedByteBuffer window = channel.map(MapMode.READ_ONLY, position, windowLength);
+
+        for (int i = 0; i < windowLength; ++i) {
+          byte b = window.get(i);
+          if (inString) {
+            if (escaped) {
+              escaped = false;
+            } else if (b == '\\') {
+              escaped = true;
+            } else if (b == '"') {
+              inString = false;
+              if (depth == 1) {
+                lastElementEnd = position + i + 1;
+              }
+            }
+            continue;
+          }
+
+          if (rootClosed) {
+            if (!isWhitespace(b)) {
+              return unexpectedContent(emitted, "Unexpected content after the root array",
+                  position + i);
+            }
+            continue;
+          }
+
+          if (!rootFound) {
+            if (isWhitespace(b) || isByteOrderMark(b, position + i)) {
+              continue;
+            }
+            if (b != '[') {
+              return false;
+            }
+            rootFound = true;
+            depth = 1;
+            continue;
+          }
+
+          if (depth == 1 && !inElement && b != ',' && b != ']' && !isWhitespace(b)) {
+            inElement = true;
+            long elementStart = position + i;
+            if (chunkStart < 0) {
+              chunkStart = elementStart;
+            } else if (elementStart - chunkStart >= chunkBytes) {
+              rangeConsumer.accept(toRange(chunkStart, lastElementEnd));
+              emitted = true;
+              chunkStart = elementStart;
+            }
+          }
+
+          switch (b) {
+            case '"' -> inString = true;
+            case '{', '[' -> ++depth;
+            case '}', ']' -> {
+              --depth;
+              if (depth == 1) {
+                lastElementEnd = position + i + 1;
+              } else if (depth == 0) {
+                rootClosed = true;
+              }
+            }
+            case ',' -> {
+              if (depth == 1) {
+                inElement = false;
+              }
+            }
+            default -> {
+              // The bytes of a scalar element such as null or a number.
+              if (depth == 1 && !isWhitespace(b)) {
+                lastElementEnd = position + i + 1;
+              }
+            }
+          }
+        }
+        position += windowLength;
+      }
+
+      if (rootFound && !rootClosed) {
+        return unexpectedContent(emitted, "Unexpected end of the root array", size);
+      }
+      if (chunkStart >= 0 && lastElementEnd > chunkStart) {
+        rangeConsumer.accept(toRange(chunkStart, lastElementEnd));
+      }
+      return true;
+    }
+  }
+
+  private static boolean unexpectedContent(boolean emitted, String message, long offset)
+      throws IOException {
+    if (emitted) {
+      throw new IOException(message + " at offset " + offset);
+    }
+    return false;
+  }
+
+  // Exposes a range of whole objects as a standalone root array, so the regular parsing
+  // paths can read it without knowing that it is only a part of the file.
+  public static InputStream openRange(File file, ByteRange range) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, range.offset(), range.length());
+      List<InputStream> streams = List.of(
+          new ByteArrayInputStream(new byte[]{'['}),
+          new ByteBufferInputStream(buffer),
+          new ByteArrayInputStream(new byte[]{']'}));
+      return new SequenceInputStream(Collections.enumeration(streams));
+    }
+  }
+
+  private static ByteRange toRange(long start, long end) {
+    if (end - start > MAX_RANGE_BYTES) {
+      throw new IllegalStateException("Json range is too large to be mapped: " + (end - start));
+    }
+    return new ByteRange(start, end - start);
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+  }
+
+  private static boolean isByteOrderMark(byte b, long position) {
+    return position < 3 && (b == (byte) 0xEF || b == (byte) 0xBB || b == (byte) 0xBF);
+  }
+}
@@ -0,0 +1,43 @@
+package com.fransua.processor;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.metrics.RunMetrics;
+import com.fransua.service.OrderDeduplicator;
+import com.fransua.service.PartialStatistic;
+import com.fransua.service.StatisticService;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+// Parses several small files in one task. The files share one set of partials, which is merged
+// into the services once per batch instead of once per file.
+public record JsonFileBatch(
+    ApplicationConfig config,
+    List<File> files,
+    Map<String, StatisticService> statisticServices,
+    RunMetrics metrics,
+    OrderDeduplicator deduplicator) implements Callable<Map<File, Integer>> {
+
+  @Override
+  public Map<File, Integer> call() throws Exception {
+    Map<String, PartialStatistic> counters =
+        JsonFileProcessor.createPartials(statisticServices);
+    Map<File, Integer> processedOrders = new LinkedHashMap<>();
+    try {
+      for (File file : files) {
+        try {
+          processedOrders.put(file, new JsonFileProcessor(config, file, null, statisticServices,
+              metrics, deduplicator).parseInto(counters));
+        } catch (IOException | RuntimeException e) {
+          throw new IOException("Processing of " + file + " failed", e);
+        }
+      }
+      return processedOrders;
+    } finally {
+      JsonFileProcessor.mergePartials(statisticServices, counters, metrics);
+    }
+  }
+}
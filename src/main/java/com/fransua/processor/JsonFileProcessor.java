@@ -1,57 +1,223 @@
 package com.fransua.processor;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fransua.config.ApplicationConfig;
+import com.fransua.metrics.FileParseEvent;
+import com.fransua.metrics.RunMetrics;
+import com.fransua.model.Burger;
 import com.fransua.model.Ingredient;
 import com.fransua.model.Order;
-import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.FileIdentity;
+import com.fransua.service.OrderDeduplicator;
+import com.fransua.service.OrderKeys;
+import com.fransua.service.PartialStatistic;
+import com.fransua.service.PartialStatistic.OrderInput;
+import com.fransua.service.PriceStatisticService;
+import com.fransua.service.StatisticService;
 import java.io.File;
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 public record JsonFileProcessor(
     ApplicationConfig config,
     File file,
-    StatisticCalculatorService statisticService) implements Callable<Integer> {
+    ByteRange range,
+    Map<String, StatisticService> statisticServices,
+    RunMetrics metrics,
+    OrderDeduplicator deduplicator) implements Callable<Integer> {
+
+  public JsonFileProcessor(ApplicationConfig config, File file,
+      Map<String, StatisticService> statisticServices) {
+    this(config, file, null, statisticServices, null, null);
+  }
+
+  public JsonFileProcessor(ApplicationConfig config, File file, ByteRange range,
+      Map<String, StatisticService> statisticServices) {
+    this(config, file, range, statisticServices, null, null);
+  }
+
+  public JsonFileProcessor(ApplicationConfig config, File file, ByteRange range,
+      Map<String, StatisticService> statisticServices, RunMetrics metrics) {
+    this(config, file, range, statisticServices, metrics, null);
+  }
 
   @Override
   public Integer call() throws Exception {
+    Map<String, PartialStatistic> counters = createPartials(statisticServices);
+    try {
+      return parseInto(counters);
+    } finally {
+      mergePartials(statisticServices, counters, metrics);
+    }
+  }
+
+  static Map<String, PartialStatistic> createPartials(
+      Map<String, StatisticService> statisticServices) {
+    Map<String, PartialStatistic> counters = new LinkedHashMap<>();
+    for (Map.Entry<String, StatisticService> entry : statisticServices.entrySet()) {
+      counters.put(entry.getKey(), entry.getValue().createPartial());
+    }
+    return counters;
+  }
+
+  static void mergePartials(Map<String, StatisticService> statisticServices,
+      Map<String, PartialStatistic> counters, RunMetrics metrics) {
+    long mergeStartNanos = System.nanoTime();
+    for (Map.Entry<String, PartialStatistic> entry : counters.entrySet()) {
+      statisticServices.get(entry.getKey()).mergePartial(entry.getValue());
+    }
+    if (metrics != null) {
+      metrics.recordStage(RunMetrics.Stage.MERGE, System.nanoTime() - mergeStartNanos);
+    }
+  }
+
+  // Counts the file (or range) into the given partials, which a batch shares between its files.
+  int parseInto(Map<String, PartialStatistic> counters) throws IOException {
+    FileParseEvent event = new FileParseEvent();
+    event.begin();
+    long parseStartNanos = System.nanoTime();
+    int processedOrders = 0;
+    try {
+      if (config.cacheOptions().enabled() && range == null) {
+        processedOrders = readCachedOrders(counters);
+      } else {
+        processedOrders = switch (config.parsingMode()) {
+          case STREAMING -> extractOrders(counters);
+          case DATABIND -> bindOrders(counters);
+        };
+      }
+      return processedOrders;
+    } finally {
+      event.end();
+      long bytes = range == null ? file.length() : range.length();
+      if (metrics != null) {
+        metrics.recordFileTask(file, bytes, processedOrders, System.nanoTime() - parseStartNanos);
+      }
+      if (event.shouldCommit()) {
+        event.path = file.getPath();
+        event.offset = range == null ? 0 : range.offset();
+        event.bytes = bytes;
+        event.orders = processedOrders;
+        event.commit();
+      }
+    }
+  }
+
+  // A missing or stale cache is rebuilt from the file first, so the counts always come from the
+  // columns. Files the cache can't represent are parsed as usual.
+  private int readCachedOrders(Map<String, PartialStatistic> counters) throws IOException {
+    FileIdentity identity = FileIdentity.of(file, false);
+    Path cacheFile = ColumnarOrderCache.cacheFile(config.cacheDirectory(), identity);
+    ColumnarOrderCache cache = ColumnarOrderCache.open(cacheFile, identity);
+    boolean cacheHit = cache != null;
+    if (cache == null) {
+      try (JsonParser parser = ApplicationConfig.jsonFactory().createParser(openInput())) {
+        cache = ColumnarOrderCache.build(cacheFile, identity, parser);
+      }
+    }
+    if (cache == null) {
+      return extractOrders(counters);
+    }
+    if (metrics != null) {
+      metrics.recordCache(cacheHit);
+    }
+    return cache.aggregate(counters);
+  }
+
+  private int extractOrders(Map<String, PartialStatistic> counters) throws IOException {
+    OrderTokenExtractor extractor = new OrderTokenExtractor(counters, config.orderFilter(),
+        deduplicator);
+
+    try (JsonParser parser = ApplicationConfig.jsonFactory().createParser(openInput())) {
+      int processedOrders = extractor.extract(parser);
+      recordFilter(extractor.rejectedOrders(), extractor.skippedBytes());
+      return processedOrders;
+    }
+  }
+
+  private int bindOrders(Map<String, PartialStatistic> counters) throws IOException {
     int processedOrders = 0;
     ObjectReader reader = ApplicationConfig.objectReader();
+    ExtractorPlan plan = ExtractorPlan.of(counters);
 
-    try (MappingIterator<Order> iterator = reader.readValues(file)) {
+    long rejectedOrders = 0;
+    try (MappingIterator<Order> iterator = reader.readValues(openInput())) {
       while (iterator.hasNext()) {
         Order order = iterator.next();
         ++processedOrders;
-        processOrder(order);
+        if (deduplicator != null && order.id() != null && !deduplicator.firstSeen(
+            order.id().getMostSignificantBits(), order.id().getLeastSignificantBits())) {
+          continue;
+        }
+        if (config.orderFilter().accepts(order)) {
+          processOrder(order, plan);
+        } else {
+          ++rejectedOrders;
+        }
       }
     }
+    recordFilter(rejectedOrders, 0);
 
     return processedOrders;
   }
 
-  private void processOrder(Order order) {
-    switch (config.attributeName().toLowerCase()) {
-      case "burger-name" -> {
-        order.burgers().forEach(burger ->
-            statisticService.incrementAttributeCount(burger.name()));
-      }
+  private void recordFilter(long rejectedOrders, long skippedBytes) {
+    if (metrics == null) {
+      return;
+    }
+    if (config.orderFilter().enabled()) {
+      metrics.recordFilter(rejectedOrders);
+    }
+    metrics.recordSkippedBytes(skippedBytes);
+  }
 
-      case "ingredient-name" -> {
-        order.burgers().stream()
-            .flatMap(burger -> burger.ingredients().stream())
-            .map(Ingredient::name)
-            .forEach(statisticService::incrementAttributeCount);
+  private InputStream openInput() throws IOException {
+    if (range == null) {
+      return InputFiles.open(file);
+    }
+    if (InputFiles.isNewlineDelimited(file)) {
+      return NewlineSplitter.openRange(file, range);
+    }
+    return JsonArraySplitter.openRange(file, range);
+  }
+
+  private void processOrder(Order order, ExtractorPlan plan) {
+    plan.startOrder(OrderKeys.of(order.id()), order.createdAt());
+    if (plan.requires(OrderInput.STRUCTURE)) {
+      processStructure(order, plan);
+    }
+    for (Burger burger : order.burgers()) {
+      plan.burgerName(burger.name());
+      if (plan.ingredientsRequired()) {
+        for (Ingredient ingredient : burger.ingredients()) {
+          plan.ingredientName(ingredient.name());
+          // Like a missing unitPrice field in streaming mode.
+          if (ingredient.unitPrice() != null) {
+            plan.ingredientPrice(ingredient.unitPrice().toString());
+          }
+          plan.endIngredient();
+        }
       }
+      plan.endBurger();
+    }
+    plan.endOrder();
+  }
 
-      case "ingredient-price" -> {
-        order.burgers().stream()
-            .flatMap(burger -> burger.ingredients().stream())
-            .map(Ingredient::unitPrice)
-            .map(BigDecimal::toString)
-            .forEach(statisticService::incrementAttributeCount);
+  private void processStructure(Order order, ExtractorPlan plan) {
+    boolean pricesRead = plan.requires(OrderInput.PRICES);
+    for (Burger burger : order.burgers()) {
+      for (Ingredient ingredient : burger.ingredients()) {
+        plan.addOrderIngredient(ingredient.name(), pricesRead
+            ? PriceStatisticService.unscaledPrice(ingredient.unitPrice())
+            : PriceStatisticService.MISSING_PRICE);
       }
+      plan.endOrderBurger(burger.name());
     }
   }
 }
@@ -0,0 +1,72 @@
+package com.fransua.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Newline-delimited documents can be cut at any line break, so instead of scanning the whole
+// file only the bytes after every chunk boundary are read until the next '\n'.
+public class NewlineSplitter {
+
+  private static final int SEARCH_BUFFER_BYTES = 64 * 1024;
+  private static final long MAX_RANGE_BYTES = Integer.MAX_VALUE;
+
+  private NewlineSplitter() {
+  }
+
+  public static List<ByteRange> split(File file, long chunkBytes) throws IOException {
+    List<ByteRange> ranges = new ArrayList<>();
+    split(file, chunkBytes, ranges::add);
+    return ranges;
+  }
+
+  public static void split(File file, long chunkBytes, Consumer<ByteRange> rangeConsumer)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      ByteBuffer buffer = ByteBuffer.allocateDirect(SEARCH_BUFFER_BYTES);
+      long start = 0;
+      while (start < size) {
+        long end = start + chunkBytes >= size ? size : lineEnd(channel, start + chunkBytes, buffer);
+        if (end - start > MAX_RANGE_BYTES) {
+          throw new IllegalStateException("Json range is too large to be mapped: " + (end - start));
+        }
+        rangeConsumer.accept(new ByteRange(start, end - start));
+        start = end;
+      }
+    }
+  }
+
+  public static InputStream openRange(File file, ByteRange range) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return new ByteBufferInputStream(
+          channel.map(MapMode.READ_ONLY, range.offset(), range.length()));
+    }
+  }
+
+  // Position right after the first '\n' at or after position, or the file size.
+  private static long lineEnd(FileChannel channel, long position, ByteBuffer buffer)
+      throws IOException {
+    long readPosition = position;
+    while (true) {
+      buffer.clear();
+      int length = channel.read(buffer, readPosition);
+      if (length < 0) {
+        return channel.size();
+      }
+      for (int i = 0; i < length; ++i) {
+        if (buffer.get(i) == '\n') {
+          return readPosition + i + 1;
+        }
+      }
+      readPosition += length;
+    }
+  }
+}
@@ -0,0 +1,361 @@
+package com.fransua.processor;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fransua.config.OrderFilter;
+import com.fransua.processor.AttributeExtractor.Source;
+import com.fransua.service.OrderDeduplicator;
+import com.fransua.service.OrderKeys;
+import com.fransua.service.PartialStatistic;
+import com.fransua.service.PartialStatistic.OrderInput;
+import com.fransua.service.PriceStatisticService;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+public class OrderTokenExtractor {
+
+  private final ExtractorPlan plan;
+  private final boolean orderKeysRequired;
+  private final OrderFilter orderFilter;
+  private final OrderDeduplicator deduplicator;
+  private long rejectedOrders;
+  private long skippedBytes;
+
+  public OrderTokenExtractor(Map<String, PartialStatistic> counters) {
+    this(counters, OrderFilter.none(), null);
+  }
+
+  // A null deduplicator counts every order.
+  public OrderTokenExtractor(Map<String, PartialStatistic> counters, OrderFilter orderFilter,
+      OrderDeduplicator deduplicator) {
+    this.orderFilter = orderFilter;
+    this.deduplicator = deduplicator;
+    this.plan = ExtractorPlan.of(counters);
+    this.orderKeysRequired = plan.requires(OrderInput.KEY);
+  }
+
+  // Price and pair counters follow the structure of every order.
+  private boolean structureRequired() {
+    return plan.requires(OrderInput.STRUCTURE);
+  }
+
+  public int extract(JsonParser parser) throws IOException {
+    int processedOrders = 0;
+    JsonToken token = parser.nextToken();
+    boolean rootArray = token == JsonToken.START_ARRAY;
+    if (rootArray) {
+      token = parser.nextToken();
+    }
+
+    while (token != null && !(rootArray && token == JsonToken.END_ARRAY)) {
+      if (token == JsonToken.START_OBJECT) {
+        readOrder(parser);
+        ++processedOrders;
+      } else {
+        parser.skipChildren();
+      }
+      token = parser.nextToken();
+    }
+
+    return processedOrders;
+  }
+
+  // Orders read but not counted because they didn't match the filter.
+  public long rejectedOrders() {
+    return rejectedOrders;
+  }
+
+  // Bytes of rejected or duplicate orders skipped without being looked at.
+  public long skippedBytes() {
+    return skippedBytes;
+  }
+
+  // Timed counters and a createdAt range need createdAt before the burgers are counted, and
+  // dedup and distinct-order sketches need the id. If the burgers come first, or the filter has
+  // to see all their names, they are buffered until the end of the order. An order out of the
+  // createdAt range or with an id seen before is dropped as soon as that field is read, and the
+  // rest of it is skipped without looking at the burgers.
+  private void readOrder(JsonParser parser) throws IOException {
+    boolean timeRequired = plan.requires(OrderInput.TIME) || orderFilter.hasTimeRange();
+    boolean namesRequired = !orderFilter.nameClauses().isEmpty();
+    boolean orderTimeSet = !timeRequired;
+    boolean idChecked = deduplicator == null && !orderKeysRequired;
+    long orderKey = orderKeysRequired ? OrderKeys.random() : 0;
+    Instant createdAt = null;
+    TokenBuffer pendingBurgers = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if (!idChecked && value == JsonToken.VALUE_STRING && "id".equals(fieldName)) {
+        idChecked = true;
+        if (deduplicator != null && !deduplicator.firstSeen(parser.getTextCharacters(),
+            parser.getTextOffset(), parser.getTextLength())) {
+          skipRemainingFields(parser);
+          return;
+        }
+        if (orderKeysRequired) {
+          orderKey = OrderKeys.of(parser.getTextCharacters(), parser.getTextOffset(),
+              parser.getTextLength());
+        }
+      } else if (!orderTimeSet && "createdAt".equals(fieldName)) {
+        createdAt = value == JsonToken.VALUE_STRING ? parseInstant(parser.getText()) : null;
+        orderTimeSet = true;
+        if (!orderFilter.acceptsTime(createdAt)) {
+          skipRemainingFields(parser);
+          ++rejectedOrders;
+          return;
+        }
+      } else if (value == JsonToken.START_ARRAY && "burgers".equals(fieldName)) {
+        if (orderTimeSet && idChecked && !namesRequired) {
+          plan.startOrder(orderKey, createdAt);
+          readBurgers(parser);
+        } else {
+          pendingBurgers = new TokenBuffer(parser);
+          pendingBurgers.copyCurrentStructure(parser);
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    if (!orderFilter.acceptsTime(createdAt)
+        || (namesRequired && !acceptsNames(pendingBurgers))) {
+      ++rejectedOrders;
+      return;
+    }
+    plan.startOrder(orderKey, createdAt);
+    if (pendingBurgers != null) {
+      try (JsonParser burgersParser = pendingBurgers.asParser()) {
+        burgersParser.nextToken();
+        readBurgers(burgersParser);
+      }
+    }
+    plan.endOrder();
+  }
+
+  private void skipRemainingFields(JsonParser parser) throws IOException {
+    long startOffset = inputOffset(parser);
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      parser.nextToken();
+      parser.skipChildren();
+    }
+    long endOffset = inputOffset(parser);
+    if (startOffset >= 0 && endOffset >= startOffset) {
+      skippedBytes += endOffset - startOffset;
+    }
+  }
+
+  // Parsers over character input only know the char offset.
+  private static long inputOffset(JsonParser parser) {
+    JsonLocation location = parser.currentLocation();
+    return location.getByteOffset() >= 0 ? location.getByteOffset() : location.getCharOffset();
+  }
+
+  private boolean acceptsNames(TokenBuffer burgers) throws IOException {
+    if (burgers == null) {
+      return orderFilter.acceptsNames(0);
+    }
+    long matches = 0;
+    try (JsonParser parser = burgers.asParser()) {
+      // The burgers array is at depth 1, burgers at depth 2 and their ingredients at depth 4.
+      int depth = 0;
+      JsonToken token;
+      while ((token = parser.nextToken()) != null) {
+        if (token.isStructStart()) {
+          ++depth;
+        } else if (token.isStructEnd()) {
+          --depth;
+        } else if (token == JsonToken.VALUE_STRING && "name".equals(parser.currentName())
+            && (depth == 2 || depth == 4)) {
+          matches |= orderFilter.matchingClauses(depth == 2 ? OrderFilter.Target.BURGER
+              : OrderFilter.Target.INGREDIENT, parser.getText());
+        }
+      }
+    }
+    return orderFilter.acceptsNames(matches);
+  }
+
+  private static Instant parseInstant(String text) {
+    return DateTimeFormatter.ISO_OFFSET_DATE_TIME.parse(text, Instant::from);
+  }
+
+  private void readBurgers(JsonParser parser) throws IOException {
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token == JsonToken.START_OBJECT) {
+        readBurger(parser);
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  private void readBurger(JsonParser parser) throws IOException {
+    String burgerName = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if ("name".equals(fieldName)
+          && (plan.requires(Source.BURGER_NAME) || structureRequired())) {
+        if (value == JsonToken.VALUE_STRING && !structureRequired()) {
+          plan.burgerName(parser.getTextCharacters(), parser.getTextOffset(),
+              parser.getTextLength());
+        } else {
+          burgerName = parser.getValueAsString();
+          plan.burgerName(burgerName);
+        }
+      } else if (value == JsonToken.START_ARRAY && "ingredients".equals(fieldName)
+          && (plan.ingredientsRequired() || structureRequired())) {
+        readIngredients(parser);
+      } else {
+        parser.skipChildren();
+      }
+    }
+    plan.endOrderBurger(burgerName);
+    plan.endBurger();
+  }
+
+  private void readIngredients(JsonParser parser) throws IOException {
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token == JsonToken.START_OBJECT) {
+        readIngredient(parser);
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  private void readIngredient(JsonParser parser) throws IOException {
+    boolean pricesRead = plan.requires(OrderInput.PRICES);
+    boolean namesRead = plan.requires(Source.INGREDIENT_NAME) || structureRequired();
+    boolean priceTextsRead = plan.requires(Source.INGREDIENT_PRICE);
+    String ingredientName = null;
+    long unitPrice = PriceStatisticService.MISSING_PRICE;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if ("name".equals(fieldName) && namesRead) {
+        if (value == JsonToken.VALUE_STRING && !structureRequired()) {
+          plan.ingredientName(parser.getTextCharacters(), parser.getTextOffset(),
+              parser.getTextLength());
+        } else {
+          ingredientName = parser.getValueAsString();
+          plan.ingredientName(ingredientName);
+        }
+      } else if ("unitPrice".equals(fieldName) && (priceTextsRead || pricesRead)) {
+        if (priceTextsRead) {
+          countPriceText(parser);
+        }
+        if (pricesRead) {
+          unitPrice = readUnscaledPrice(parser);
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    plan.addOrderIngredient(ingredientName, unitPrice);
+    plan.endIngredient();
+  }
+
+  // Reads a price as unscaled cents straight from the token characters. Anything that is not a
+  // plain decimal with at most two fraction digits goes through BigDecimal; prices that can't
+  // be represented in cents exactly are REJECTED_PRICE.
+  static long readUnscaledPrice(JsonParser parser) throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_NULL) {
+      return PriceStatisticService.MISSING_PRICE;
+    }
+    if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+      long unscaledPrice = parseUnscaledPrice(parser.getTextCharacters(),
+          parser.getTextOffset(), parser.getTextLength());
+      if (unscaledPrice != Long.MIN_VALUE) {
+        return unscaledPrice;
+      }
+    }
+    return PriceStatisticService.unscaledPrice(token == JsonToken.VALUE_STRING
+        ? new BigDecimal(parser.getText().trim()) : parser.getDecimalValue());
+  }
+
+  // Long.MIN_VALUE when the text is not a short plain decimal.
+  private static long parseUnscaledPrice(char[] text, int offset, int length) {
+    int end = offset + length;
+    int i = offset;
+    boolean negative = i < end && text[i] == '-';
+    if (negative) {
+      ++i;
+    }
+    long value = 0;
+    int integerDigits = 0;
+    for (; i < end && text[i] >= '0' && text[i] <= '9'; ++i) {
+      value = value * 10 + (text[i] - '0');
+      if (++integerDigits > 15) {
+        return Long.MIN_VALUE;
+      }
+    }
+    int fractionDigits = 0;
+    if (i < end && text[i] == '.') {
+      for (++i; i < end && text[i] >= '0' && text[i] <= '9'; ++i) {
+        if (++fractionDigits > PriceStatisticService.SCALE) {
+          return Long.MIN_VALUE;
+        }
+        value = value * 10 + (text[i] - '0');
+      }
+    }
+    if (i != end || integerDigits == 0) {
+      return Long.MIN_VALUE;
+    }
+    for (; fractionDigits < PriceStatisticService.SCALE; ++fractionDigits) {
+      value *= 10;
+    }
+    return negative ? -value : value;
+  }
+
+  // Canonical numbers are counted straight from the parser buffer; anything else is
+  // normalized through BigDecimal first.
+  private void countPriceText(JsonParser parser) throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_NULL) {
+      plan.ingredientPrice((String) null);
+    } else if (token.isNumeric() && isCanonicalDecimal(parser.getTextCharacters(),
+        parser.getTextOffset(), parser.getTextLength())) {
+      plan.ingredientPrice(parser.getTextCharacters(), parser.getTextOffset(),
+          parser.getTextLength());
+    } else if (token == JsonToken.VALUE_STRING) {
+      plan.ingredientPrice(new BigDecimal(parser.getText().trim()).toString());
+    } else {
+      plan.ingredientPrice(parser.getDecimalValue().toString());
+    }
+  }
+
+  // Plain JSON decimals already match BigDecimal.toString(), except for exponents,
+  // negative zero and values small enough to be printed in scientific notation.
+  private static boolean isCanonicalDecimal(char[] text, int offset, int length) {
+    if (startsWith(text, offset, length, "-0") || startsWith(text, offset, length, "0.00000")) {
+      return false;
+    }
+    for (int i = offset; i < offset + length; ++i) {
+      if (text[i] == 'e' || text[i] == 'E') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean startsWith(char[] text, int offset, int length, String prefix) {
+    if (length < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); ++i) {
+      if (text[offset + i] != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
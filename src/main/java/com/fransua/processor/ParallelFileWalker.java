@@ -0,0 +1,115 @@
+package com.fransua.processor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Walks a directory tree on its own threads and hands out the input files as they are found, so
+// processing starts with the first file instead of after the whole walk. Every directory is
+// listed by a separate task. Like Files.walk, symbolic links to directories are not followed.
+public class ParallelFileWalker implements Closeable {
+
+  private static final File END = new File("");
+
+  private final ExecutorService executorService;
+  private final BlockingQueue<File> files = new LinkedBlockingQueue<>();
+  private final AtomicInteger pendingDirectories = new AtomicInteger();
+  private final AtomicReference<IOException> failure = new AtomicReference<>();
+  private boolean ended;
+
+  public ParallelFileWalker(Path root, int parallelism) {
+    AtomicInteger threads = new AtomicInteger();
+    this.executorService = Executors.newFixedThreadPool(parallelism, runnable -> {
+      Thread thread = new Thread(runnable, "file-walker-" + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (Files.isDirectory(root)) {
+      submitDirectory(root);
+    } else {
+      if (Files.isRegularFile(root) && InputFiles.isInputFile(root)) {
+        files.add(root.toFile());
+      }
+      files.add(END);
+    }
+  }
+
+  // Blocks until the next file is found; returns null once the whole tree has been walked.
+  public File next() throws IOException {
+    if (ended) {
+      return null;
+    }
+    File file;
+    try {
+      file = files.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Directory walk was interrupted", e);
+    }
+    if (file == END) {
+      ended = true;
+      if (failure.get() != null) {
+        throw failure.get();
+      }
+      return null;
+    }
+    return file;
+  }
+
+  private void submitDirectory(Path directory) {
+    pendingDirectories.incrementAndGet();
+    try {
+      executorService.execute(() -> listDirectory(directory));
+    } catch (RejectedExecutionException e) {
+      // The walker was closed, nobody waits for the remaining files.
+      pendingDirectories.decrementAndGet();
+    }
+  }
+
+  private void listDirectory(Path directory) {
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path path : stream) {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class,
+            LinkOption.NOFOLLOW_LINKS);
+        if (attributes.isDirectory()) {
+          submitDirectory(path);
+        } else if (InputFiles.isInputFile(path)
+            && (attributes.isRegularFile() || Files.isRegularFile(path))) {
+          files.add(path.toFile());
+        }
+      }
+    } catch (IOException e) {
+      fail(e);
+    } catch (DirectoryIteratorException e) {
+      fail(e.getCause());
+    } finally {
+      if (pendingDirectories.decrementAndGet() == 0 && failure.get() == null) {
+        files.add(END);
+      }
+    }
+  }
+
+  private void fail(IOException e) {
+    if (failure.compareAndSet(null, e)) {
+      files.add(END);
+    }
+  }
+
+  @Override
+  public void close() {
+    executorService.shutdownNow();
+  }
+}
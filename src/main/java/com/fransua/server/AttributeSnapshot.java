@@ -0,0 +1,193 @@
+package com.fransua.server;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ReportOptions;
+import com.fransua.service.ReportedStatistic;
+import com.fransua.service.StatisticService;
+import com.fransua.service.XmlReporterService;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// An immutable copy of one attribute statistic, sorted by count and then by name, with its full
+// XML and JSON reports already rendered. Top-N answers are cut from the sorted arrays and
+// lookups go through a name -> rank map, so no request touches the statistic service.
+public final class AttributeSnapshot {
+
+  private final String attributeName;
+  private final String[] names;
+  private final long[] counts;
+  private final List<Map<String, String>> itemElements;
+  private final Map<String, Integer> ranks;
+  private final Map<String, String> properties;
+  private final byte[] xmlReport;
+  private final byte[] jsonReport;
+
+  private AttributeSnapshot(String attributeName, Map<String, Long> statistic,
+      List<Map<String, String>> itemElements, Map<String, String> properties,
+      ReportOptions reportOptions) {
+    this.attributeName = attributeName;
+    this.names = new String[statistic.size()];
+    this.counts = new long[statistic.size()];
+    this.ranks = new HashMap<>(statistic.size() * 2);
+    int rank = 0;
+    for (Map.Entry<String, Long> entry : statistic.entrySet()) {
+      names[rank] = entry.getKey();
+      counts[rank] = entry.getValue();
+      ranks.put(entry.getKey(), rank);
+      ++rank;
+    }
+    this.itemElements = itemElements;
+    this.properties = properties;
+    this.xmlReport = renderXml(reportOptions);
+    this.jsonReport = renderJson(reportOptions);
+  }
+
+  // Must not run concurrently with ingestion into the service.
+  public static AttributeSnapshot of(String attributeName, StatisticService statisticService,
+      ReportOptions reportOptions) {
+    ReportedStatistic reportedStatistic = statisticService.getReportedStatistic();
+    Map<String, Long> statistic = reportedStatistic.statistic();
+    Map<String, String> properties = Collections.unmodifiableMap(
+        new LinkedHashMap<>(statisticService.getStatisticProperties()));
+    Function<String, Map<String, String>> elements = reportedStatistic.itemElements();
+    List<Map<String, String>> itemElements = null;
+    if (elements != null) {
+      itemElements = new ArrayList<>(statistic.size());
+      for (String name : statistic.keySet()) {
+        itemElements.add(elements.apply(name));
+      }
+    }
+    return new AttributeSnapshot(attributeName, statistic, itemElements, properties,
+        reportOptions);
+  }
+
+  public String attributeName() {
+    return attributeName;
+  }
+
+  public int size() {
+    return names.length;
+  }
+
+  public Map<String, String> properties() {
+    return properties;
+  }
+
+  // The zero-based rank of the name, or -1 when it has no count.
+  public int rankOf(String name) {
+    Integer rank = ranks.get(name);
+    return rank == null ? -1 : rank;
+  }
+
+  public String name(int rank) {
+    return names[rank];
+  }
+
+  public long count(int rank) {
+    return counts[rank];
+  }
+
+  public Map<String, String> itemElements(int rank) {
+    return itemElements == null ? Map.of() : itemElements.get(rank);
+  }
+
+  // Byte for byte the report file written with the same report options.
+  public byte[] xmlReport() {
+    return xmlReport;
+  }
+
+  public byte[] jsonReport() {
+    return jsonReport;
+  }
+
+  public byte[] renderXml(ReportOptions reportOptions) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+      XmlReporterService.writeReport(entries(), properties,
+          itemElements == null ? null : name -> itemElements.get(ranks.get(name)),
+          attributeName, reportOptions, writer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  // {"attribute": ..., "properties": {...}, "items": [{"name": ..., "count": ..., ...}]}
+  public byte[] renderJson(ReportOptions reportOptions) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (JsonGenerator generator = ApplicationConfig.jsonFactory().createGenerator(bytes)) {
+      generator.writeStartObject();
+      generator.writeStringField("attribute", attributeName);
+      writeProperties(generator);
+      generator.writeArrayFieldStart("items");
+      for (int rank = 0; rank < names.length && reportOptions.accepts(rank, counts[rank]);
+          ++rank) {
+        generator.writeStartObject();
+        writeItemFields(generator, rank);
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public byte[] renderJsonLookup(int rank) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (JsonGenerator generator = ApplicationConfig.jsonFactory().createGenerator(bytes)) {
+      generator.writeStartObject();
+      generator.writeStringField("attribute", attributeName);
+      writeItemFields(generator, rank);
+      generator.writeNumberField("rank", rank + 1);
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  void writeProperties(JsonGenerator generator) throws IOException {
+    generator.writeObjectFieldStart("properties");
+    for (Map.Entry<String, String> property : properties.entrySet()) {
+      generator.writeStringField(property.getKey(), property.getValue());
+    }
+    generator.writeEndObject();
+  }
+
+  private void writeItemFields(JsonGenerator generator, int rank) throws IOException {
+    generator.writeStringField("name", names[rank]);
+    generator.writeNumberField("count", counts[rank]);
+    for (Map.Entry<String, String> element : itemElements(rank).entrySet()) {
+      generator.writeStringField(element.getKey(), element.getValue());
+    }
+  }
+
+  private List<Map.Entry<String, Long>> entries() {
+    return new AbstractList<>() {
+      @Override
+      public Map.Entry<String, Long> get(int rank) {
+        return Map.entry(names[rank], counts[rank]);
+      }
+
+      @Override
+      public int size() {
+        return names.length;
+      }
+    };
+  }
+}
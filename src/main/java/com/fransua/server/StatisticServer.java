@@ -0,0 +1,217 @@
+package com.fransua.server;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ReportOptions;
+import com.fransua.service.StatisticService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Answers statistic queries on the loopback interface from the latest published snapshot:
+//   GET /attributes                                   the attributes, their sizes and properties
+//   GET /report/<attribute>[?format=json|xml]         the full report, as written to the files
+//   GET /top/<attribute>[?n=10][&min-count=0][&format=json|xml]
+//   GET /count/<attribute>?name=<value>               count, rank and item elements of a value
+// Requests only read the snapshot they got from one volatile read, so publishing never blocks
+// them and they never see a half-updated statistic.
+public class StatisticServer implements Closeable {
+
+  private static final int BACKLOG = 1024;
+  private static final long DEFAULT_TOP = 10;
+  private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+  private static final String XML_CONTENT_TYPE = "application/xml; charset=utf-8";
+
+  static {
+    // The JDK server flushes the headers before the body; with Nagle's algorithm on, the body of
+    // a small response then waits for the client's delayed ACK, about 40 ms per request.
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+  }
+
+  private final ApplicationConfig config;
+  private final HttpServer httpServer;
+  private final ExecutorService executorService;
+  private final AtomicReference<StatisticSnapshot> snapshot = new AtomicReference<>();
+  private final AtomicLong versions = new AtomicLong();
+
+  public StatisticServer(ApplicationConfig config) throws IOException {
+    this.config = config;
+    this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+        config.serverOptions().port()), BACKLOG);
+    this.executorService = config.executorService();
+    httpServer.setExecutor(executorService);
+    httpServer.createContext("/", this::handle);
+  }
+
+  public void start() {
+    httpServer.start();
+  }
+
+  public int port() {
+    return httpServer.getAddress().getPort();
+  }
+
+  // Builds the new snapshot while the previous one keeps serving, then swaps them. Must not run
+  // concurrently with ingestion into the services.
+  public void publish(Map<String, StatisticService> statisticServices) {
+    snapshot.set(StatisticSnapshot.of(versions.incrementAndGet(), statisticServices,
+        config.reportOptions()));
+  }
+
+  public StatisticSnapshot snapshot() {
+    return snapshot.get();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      StatisticSnapshot current = snapshot.get();
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        respondError(exchange, 405, "Only GET requests are supported");
+      } else if (current == null) {
+        respondError(exchange, 503, "The statistics are not ingested yet");
+      } else {
+        route(exchange, current);
+      }
+    } catch (IllegalArgumentException e) {
+      respondError(exchange, 400, e.getMessage());
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void route(HttpExchange exchange, StatisticSnapshot current) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    if ("/attributes".equals(path)) {
+      respond(exchange, current, JSON_CONTENT_TYPE, current.attributesJson());
+      return;
+    }
+    int separatorIndex = path.indexOf('/', 1);
+    String resource = separatorIndex < 0 ? path : path.substring(0, separatorIndex);
+    if (separatorIndex < 0 || !(resource.equals("/report") || resource.equals("/top")
+        || resource.equals("/count"))) {
+      respondError(exchange, 404, "Unknown resource '" + path + "'");
+      return;
+    }
+    AttributeSnapshot attribute = current.attributes().get(path.substring(separatorIndex + 1));
+    if (attribute == null) {
+      respondError(exchange, 404,
+          "Attribute '" + path.substring(separatorIndex + 1) + "' is not served");
+      return;
+    }
+
+    Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+    boolean xml = isXml(parameters);
+    switch (resource) {
+      case "/report" -> respond(exchange, current, xml ? XML_CONTENT_TYPE : JSON_CONTENT_TYPE,
+          xml ? attribute.xmlReport() : attribute.jsonReport());
+      case "/top" -> {
+        ReportOptions reportOptions = new ReportOptions(
+            parseLongParameter(parameters, "n", DEFAULT_TOP),
+            parseLongParameter(parameters, "min-count", 0));
+        respond(exchange, current, xml ? XML_CONTENT_TYPE : JSON_CONTENT_TYPE,
+            xml ? attribute.renderXml(reportOptions) : attribute.renderJson(reportOptions));
+      }
+      default -> {
+        String name = parameters.get("name");
+        if (name == null) {
+          throw new IllegalArgumentException("Parameter 'name' is required");
+        }
+        if (xml) {
+          throw new IllegalArgumentException("Lookups are only answered in json");
+        }
+        int rank = attribute.rankOf(name);
+        if (rank < 0) {
+          respondError(exchange, 404, "'" + name + "' has no count");
+        } else {
+          respond(exchange, current, JSON_CONTENT_TYPE, attribute.renderJsonLookup(rank));
+        }
+      }
+    }
+  }
+
+  private static boolean isXml(Map<String, String> parameters) {
+    String format = parameters.getOrDefault("format", "json");
+    return switch (format) {
+      case "json" -> false;
+      case "xml" -> true;
+      default -> throw new IllegalArgumentException("Format '" + format + "' is not supported");
+    };
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) {
+    Map<String, String> parameters = new HashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return parameters;
+    }
+    for (String parameter : rawQuery.split("&")) {
+      int separatorIndex = parameter.indexOf('=');
+      String key = separatorIndex < 0 ? parameter : parameter.substring(0, separatorIndex);
+      String value = separatorIndex < 0 ? "" : parameter.substring(separatorIndex + 1);
+      parameters.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+          URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return parameters;
+  }
+
+  private static long parseLongParameter(Map<String, String> parameters, String name,
+      long defaultValue) {
+    String value = parameters.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Parameter '" + name + "' requires a number");
+    }
+  }
+
+  private static void respond(HttpExchange exchange, StatisticSnapshot current,
+      String contentType, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("X-Snapshot-Version", String.valueOf(current.version()));
+    respond(exchange, 200, contentType, body);
+  }
+
+  private static void respondError(HttpExchange exchange, int status, String message)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (JsonGenerator generator = ApplicationConfig.jsonFactory().createGenerator(bytes)) {
+      generator.writeStartObject();
+      generator.writeStringField("error", message);
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    respond(exchange, status, JSON_CONTENT_TYPE, bytes.toByteArray());
+  }
+
+  private static void respond(HttpExchange exchange, int status, String contentType,
+      byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream responseBody = exchange.getResponseBody()) {
+      responseBody.write(body);
+    }
+  }
+
+  @Override
+  public void close() {
+    httpServer.stop(0);
+    executorService.shutdownNow();
+  }
+}
@@ -0,0 +1,79 @@
+package com.fransua.server;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ReportOptions;
+import com.fransua.service.StatisticService;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// The snapshots of every attribute taken after one ingestion. Snapshots are never modified, so
+// a new one is built aside and published with a single reference swap.
+public final class StatisticSnapshot {
+
+  private final long version;
+  private final Instant createdAt;
+  private final Map<String, AttributeSnapshot> attributes;
+  private final byte[] attributesJson;
+
+  private StatisticSnapshot(long version, Instant createdAt,
+      Map<String, AttributeSnapshot> attributes) {
+    this.version = version;
+    this.createdAt = createdAt;
+    this.attributes = Collections.unmodifiableMap(attributes);
+    this.attributesJson = renderAttributesJson();
+  }
+
+  public static StatisticSnapshot of(long version, Map<String, StatisticService> services,
+      ReportOptions reportOptions) {
+    Map<String, AttributeSnapshot> attributes = new LinkedHashMap<>();
+    services.forEach((attributeName, service) ->
+        attributes.put(attributeName, AttributeSnapshot.of(attributeName, service,
+            reportOptions)));
+    return new StatisticSnapshot(version, Instant.now(), attributes);
+  }
+
+  public long version() {
+    return version;
+  }
+
+  public Instant createdAt() {
+    return createdAt;
+  }
+
+  public Map<String, AttributeSnapshot> attributes() {
+    return attributes;
+  }
+
+  // {"version": ..., "createdAt": ..., "attributes": [{"attribute": ..., "items": ..., ...}]}
+  public byte[] attributesJson() {
+    return attributesJson;
+  }
+
+  private byte[] renderAttributesJson() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (JsonGenerator generator = ApplicationConfig.jsonFactory().createGenerator(bytes)) {
+      generator.writeStartObject();
+      generator.writeNumberField("version", version);
+      generator.writeStringField("createdAt", createdAt.toString());
+      generator.writeArrayFieldStart("attributes");
+      for (AttributeSnapshot attribute : attributes.values()) {
+        generator.writeStartObject();
+        generator.writeStringField("attribute", attribute.attributeName());
+        generator.writeNumberField("items", attribute.size());
+        attribute.writeProperties(generator);
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,106 @@
+package com.fransua.service;
+
+import com.fransua.config.StatisticOptions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+public class ApproximateStatisticService implements ValueStatisticService {
+
+  private final StatisticOptions options;
+  private final HeavyHitterSketch mergedSketch;
+  private final Queue<HeavyHitterSketch> threadSketches = new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<HeavyHitterSketch> threadSketch = ThreadLocal.withInitial(() -> {
+    HeavyHitterSketch sketch = createSketch();
+    threadSketches.add(sketch);
+    return sketch;
+  });
+  private volatile HeavyHitterSketch snapshot;
+
+  public ApproximateStatisticService(StatisticOptions options) {
+    this.options = options;
+    this.mergedSketch = createSketch();
+  }
+
+  @Override
+  public ValuePartialStatistic createPartial() {
+    return createSketch();
+  }
+
+  @Override
+  public synchronized void mergePartial(PartialStatistic partial) {
+    mergedSketch.mergeFrom((HeavyHitterSketch) partial);
+  }
+
+  @Override
+  public void incrementAttributeCount(String attributeName) {
+    threadSketch.get().increment(attributeName);
+  }
+
+  // Like the exact service, thread-local sketches must not be written concurrently.
+  // Properties and errors describe the snapshot taken by the last call of this method.
+  @Override
+  public Map<String, Long> getStatisticSortedByCountThenByName() {
+    HeavyHitterSketch currentSnapshot = createSketch();
+    synchronized (this) {
+      currentSnapshot.mergeFrom(mergedSketch);
+    }
+    threadSketches.forEach(currentSnapshot::mergeFrom);
+    snapshot = currentSnapshot;
+
+    List<Map.Entry<String, Long>> entries = new ArrayList<>();
+    currentSnapshot.summary().forEach(counter -> entries.add(
+        Map.entry(counter.item(), currentSnapshot.estimate(counter.item()))));
+    return entries.stream()
+        .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+            .thenComparing(Map.Entry.comparingByKey()))
+        .collect(Collectors.toMap(
+            Map.Entry::getKey,
+            Map.Entry::getValue,
+            (o1, o2) -> o1,
+            LinkedHashMap::new));
+  }
+
+  @Override
+  public Map<String, String> getStatisticProperties() {
+    HeavyHitterSketch currentSnapshot = currentSnapshot();
+    Map<String, String> properties = new LinkedHashMap<>();
+    properties.put("engine", options.engine().optionValue());
+    properties.put("capacity", String.valueOf(options.capacity()));
+    properties.put("epsilon", String.valueOf(options.epsilon()));
+    properties.put("delta", String.valueOf(options.delta()));
+    properties.put("totalCount", String.valueOf(currentSnapshot.sketch().totalCount()));
+    properties.put("maxSpaceSavingError",
+        String.valueOf(currentSnapshot.summary().minimumCount()));
+    properties.put("maxCountMinError", String.valueOf(currentSnapshot.sketch().errorBound()));
+    return properties;
+  }
+
+  @Override
+  public long getCountError(String attributeName) {
+    return currentSnapshot().error(attributeName);
+  }
+
+  @Override
+  public Map<String, String> getItemElements(String attributeName) {
+    return Map.of("error", String.valueOf(getCountError(attributeName)));
+  }
+
+  private HeavyHitterSketch currentSnapshot() {
+    HeavyHitterSketch currentSnapshot = snapshot;
+    if (currentSnapshot == null) {
+      getStatisticSortedByCountThenByName();
+      currentSnapshot = snapshot;
+    }
+    return currentSnapshot;
+  }
+
+  private HeavyHitterSketch createSketch() {
+    return new HeavyHitterSketch(options.capacity(), options.epsilon(), options.delta());
+  }
+}
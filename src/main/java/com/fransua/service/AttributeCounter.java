@@ -0,0 +1,153 @@
+package com.fransua.service;
+
+import java.util.function.ObjLongConsumer;
+
+// Open-addressed String -> long counter. It is not thread-safe: every worker counts into its
+// own instance and the instances are merged into StatisticCalculatorService afterwards.
+public class AttributeCounter implements ValuePartialStatistic {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private String[] keys;
+  private long[] counts;
+  private int size;
+
+  public AttributeCounter() {
+    this.keys = new String[INITIAL_CAPACITY];
+    this.counts = new long[INITIAL_CAPACITY];
+  }
+
+  @Override
+  public void increment(String attributeName) {
+    add(attributeName, 1);
+  }
+
+  @Override
+  public void add(String attributeName, long count) {
+    if (attributeName == null) {
+      throw new IllegalArgumentException("Attribute name can't be empty");
+    }
+    int mask = keys.length - 1;
+    int index = spread(attributeName.hashCode()) & mask;
+    while (true) {
+      String key = keys[index];
+      if (key == null) {
+        if (attributeName.isBlank()) {
+          throw new IllegalArgumentException("Attribute name can't be empty");
+        }
+        keys[index] = attributeName;
+        counts[index] = count;
+        if (++size * 2 > keys.length) {
+          resize();
+        }
+        return;
+      }
+      if (key.equals(attributeName)) {
+        counts[index] += count;
+        return;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  // Probes with the String hash of the characters, so a String is only created the first time
+  // a value is seen.
+  @Override
+  public void increment(char[] text, int offset, int length) {
+    int index = indexOf(text, offset, length);
+    if (index >= 0) {
+      ++counts[index];
+    } else {
+      add(new String(text, offset, length), 1);
+    }
+  }
+
+  public long get(char[] text, int offset, int length) {
+    int index = indexOf(text, offset, length);
+    return index >= 0 ? counts[index] : 0;
+  }
+
+  private int indexOf(char[] text, int offset, int length) {
+    int hash = 0;
+    for (int i = offset; i < offset + length; ++i) {
+      hash = 31 * hash + text[i];
+    }
+    int mask = keys.length - 1;
+    int index = spread(hash) & mask;
+    String key;
+    while ((key = keys[index]) != null) {
+      if (key.hashCode() == hash && contentEquals(key, text, offset, length)) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  private static boolean contentEquals(String key, char[] text, int offset, int length) {
+    if (key.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; ++i) {
+      if (key.charAt(i) != text[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public long get(String attributeName) {
+    int mask = keys.length - 1;
+    int index = spread(attributeName.hashCode()) & mask;
+    String key;
+    while ((key = keys[index]) != null) {
+      if (key.equals(attributeName)) {
+        return counts[index];
+      }
+      index = (index + 1) & mask;
+    }
+    return 0;
+  }
+
+  public void mergeFrom(AttributeCounter other) {
+    other.forEach(this::add);
+  }
+
+  public void forEach(ObjLongConsumer<String> action) {
+    for (int i = 0; i < keys.length; ++i) {
+      if (keys[i] != null) {
+        action.accept(keys[i], counts[i]);
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  private void resize() {
+    String[] oldKeys = keys;
+    long[] oldCounts = counts;
+    keys = new String[oldKeys.length * 2];
+    counts = new long[oldKeys.length * 2];
+    int mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; ++i) {
+      if (oldKeys[i] != null) {
+        int index = spread(oldKeys[i].hashCode()) & mask;
+        while (keys[index] != null) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = oldKeys[i];
+        counts[index] = oldCounts[i];
+      }
+    }
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
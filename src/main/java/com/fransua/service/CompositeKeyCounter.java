@@ -0,0 +1,107 @@
+package com.fransua.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Counts composite group-by keys such as burger-name,ingredient-name. Every component value gets
+// a dense int id from the dictionary of its component, and a key is the ids packed into one
+// long (63 / components bits each) in a LongCountTable, so no concatenated String is built per
+// record. Not thread-safe.
+public class CompositeKeyCounter implements PartialStatistic {
+
+  private final int components;
+  private final int bitsPerComponent;
+  private final AttributeCounter[] valueIds;
+  private final List<List<String>> values = new ArrayList<>();
+  private final LongCountTable keyCounts = new LongCountTable();
+
+  public CompositeKeyCounter(int components) {
+    if (components < 2 || components > 3) {
+      throw new IllegalArgumentException("Composite keys have 2 or 3 components");
+    }
+    this.components = components;
+    this.bitsPerComponent = (Long.SIZE - 1) / components;
+    this.valueIds = new AttributeCounter[components];
+    for (int component = 0; component < components; ++component) {
+      valueIds[component] = new AttributeCounter();
+      values.add(new ArrayList<>());
+    }
+  }
+
+  public int components() {
+    return components;
+  }
+
+  // The dictionary id of the value of a component; the value is registered on first use.
+  public int valueId(int component, String value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Attribute name can't be empty");
+    }
+    int id = (int) valueIds[component].get(value) - 1;
+    if (id >= 0) {
+      return id;
+    }
+    List<String> componentValues = values.get(component);
+    id = componentValues.size();
+    if (id >= 1L << bitsPerComponent) {
+      throw new IllegalStateException("A composite key component has more than "
+          + (1L << bitsPerComponent) + " distinct values");
+    }
+    valueIds[component].add(value, id + 1);
+    componentValues.add(value);
+    return id;
+  }
+
+  // The same for a value given as characters; a String is only created for a new value.
+  public int valueId(int component, char[] text, int offset, int length) {
+    int id = (int) valueIds[component].get(text, offset, length) - 1;
+    return id >= 0 ? id : valueId(component, new String(text, offset, length));
+  }
+
+  // Appends the id of the next component to a key; keys start at 0.
+  public long pack(long key, int id) {
+    return key << bitsPerComponent | id;
+  }
+
+  public void add(long key, long count) {
+    keyCounts.add(key, count);
+  }
+
+  public void mergeFrom(CompositeKeyCounter other) {
+    int[][] ids = new int[components][];
+    for (int component = 0; component < components; ++component) {
+      List<String> otherValues = other.values.get(component);
+      ids[component] = new int[otherValues.size()];
+      for (int otherId = 0; otherId < otherValues.size(); ++otherId) {
+        ids[component][otherId] = valueId(component, otherValues.get(otherId));
+      }
+    }
+    for (int slot = 0; slot < other.keyCounts.slots(); ++slot) {
+      if (!other.keyCounts.isEmpty(slot)) {
+        long key = 0;
+        for (int component = 0; component < components; ++component) {
+          key = pack(key, ids[component][other.idAt(slot, component)]);
+        }
+        add(key, other.keyCounts.count(slot));
+      }
+    }
+  }
+
+  // Every slot of the key table; empty slots have a count of 0.
+  public int slots() {
+    return keyCounts.slots();
+  }
+
+  public long count(int slot) {
+    return keyCounts.count(slot);
+  }
+
+  public String value(int slot, int component) {
+    return values.get(component).get(idAt(slot, component));
+  }
+
+  private int idAt(int slot, int component) {
+    int shift = (components - 1 - component) * bitsPerComponent;
+    return (int) (keyCounts.key(slot) >>> shift & ((1L << bitsPerComponent) - 1));
+  }
+}
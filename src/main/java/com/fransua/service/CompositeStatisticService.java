@@ -0,0 +1,92 @@
+package com.fransua.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Counts of composite group-by keys. A key is reported as its component values joined with
+// KEY_SEPARATOR, sorted by count and then by that name, and every item also gets one element
+// per component. The joined names are only built for the report, with the values escaped by
+// KeyNames.
+public class CompositeStatisticService implements StatisticService {
+
+  public static final String KEY_SEPARATOR = " | ";
+
+  private final CompositeKeyCounter mergedCounter;
+  private final List<String> componentNames;
+
+  public CompositeStatisticService(List<String> componentNames) {
+    this.componentNames = List.copyOf(componentNames);
+    this.mergedCounter = new CompositeKeyCounter(componentNames.size());
+  }
+
+  @Override
+  public PartialStatistic createPartial() {
+    return new CompositeKeyCounter(componentNames.size());
+  }
+
+  @Override
+  public synchronized void mergePartial(PartialStatistic partial) {
+    mergedCounter.mergeFrom((CompositeKeyCounter) partial);
+  }
+
+  @Override
+  public synchronized Map<String, Long> getStatisticSortedByCountThenByName() {
+    return getReportedStatistic().statistic();
+  }
+
+  // The keys with one element per component, taken with the statistic so they always match.
+  @Override
+  public synchronized ReportedStatistic getReportedStatistic() {
+    Map<String, Long> counts = new HashMap<>();
+    Map<String, String[]> componentValues = new HashMap<>();
+    for (int slot = 0; slot < mergedCounter.slots(); ++slot) {
+      long count = mergedCounter.count(slot);
+      if (count == 0) {
+        continue;
+      }
+      String[] values = new String[componentNames.size()];
+      for (int component = 0; component < values.length; ++component) {
+        values[component] = mergedCounter.value(slot, component);
+      }
+      String name = keyName(values);
+      componentValues.put(name, values);
+      counts.put(name, count);
+    }
+
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+    entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+        .thenComparing(Map.Entry.comparingByKey()));
+    Map<String, Long> statistic = new LinkedHashMap<>();
+    for (Map.Entry<String, Long> entry : entries) {
+      statistic.put(entry.getKey(), entry.getValue());
+    }
+    return new ReportedStatistic(statistic,
+        name -> itemElements(componentValues.get(name)));
+  }
+
+  public static String keyName(String... values) {
+    StringBuilder name = new StringBuilder();
+    for (int component = 0; component < values.length; ++component) {
+      if (component > 0) {
+        name.append(KEY_SEPARATOR);
+      }
+      KeyNames.appendEscaped(name, values[component], '|');
+    }
+    return name.toString();
+  }
+
+  // One element per component, named like the report element of that attribute.
+  private Map<String, String> itemElements(String[] values) {
+    Map<String, String> elements = new LinkedHashMap<>();
+    for (int component = 0; component < values.length; ++component) {
+      elements.put(componentNames.get(component).toLowerCase(Locale.ROOT).replace("-", ""),
+          values[component]);
+    }
+    return elements;
+  }
+}
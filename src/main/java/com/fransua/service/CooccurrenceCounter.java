@@ -0,0 +1,163 @@
+package com.fransua.service;
+
+import com.fransua.service.CooccurrenceStatisticService.Dimension;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// Counts the baskets (burgers for ingredient pairs, orders for burger pairs) every pair of
+// distinct names appears in. Names get dense int ids, and a pair is one long key (smaller id in
+// the high half) in a LongCountTable, so no String is built per pair. A name repeated within a
+// basket counts once. Not thread-safe.
+public class CooccurrenceCounter implements PartialStatistic {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final Dimension dimension;
+  private final AttributeCounter nameIds = new AttributeCounter();
+  private final List<String> names = new ArrayList<>();
+  private long[] itemBaskets = new long[INITIAL_CAPACITY];
+  private long baskets;
+
+  private final LongCountTable pairCounts = new LongCountTable();
+
+  // The ids of the open basket; basketStamps marks the ids already in it.
+  private int[] basketIds = new int[INITIAL_CAPACITY];
+  private int basketSize;
+  private int[] basketStamps = new int[INITIAL_CAPACITY];
+  private int basketStamp = 1;
+
+  public CooccurrenceCounter(Dimension dimension) {
+    this.dimension = dimension;
+  }
+
+  @Override
+  public Set<OrderInput> orderInputs() {
+    return EnumSet.of(OrderInput.STRUCTURE);
+  }
+
+  // Unit prices don't matter for pairs.
+  @Override
+  public void addIngredient(String ingredientName, long unitPrice) {
+    if (dimension == Dimension.INGREDIENT) {
+      addToBasket(ingredientName);
+    }
+  }
+
+  @Override
+  public void endBurger(String burgerName) {
+    if (dimension == Dimension.INGREDIENT) {
+      closeBasket();
+    } else {
+      addToBasket(burgerName);
+    }
+  }
+
+  @Override
+  public void endOrder() {
+    if (dimension == Dimension.BURGER) {
+      closeBasket();
+    }
+  }
+
+  public void mergeFrom(CooccurrenceCounter other) {
+    int[] ids = new int[other.names.size()];
+    for (int otherId = 0; otherId < ids.length; ++otherId) {
+      ids[otherId] = idOf(other.names.get(otherId));
+      itemBaskets[ids[otherId]] += other.itemBaskets[otherId];
+    }
+    for (int slot = 0; slot < other.pairCounts.slots(); ++slot) {
+      if (!other.pairCounts.isEmpty(slot)) {
+        addPair(ids[other.firstId(slot)], ids[other.secondId(slot)],
+            other.pairCounts.count(slot));
+      }
+    }
+    baskets += other.baskets;
+  }
+
+  public long baskets() {
+    return baskets;
+  }
+
+  public int pairs() {
+    return pairCounts.size();
+  }
+
+  public List<String> names() {
+    return names;
+  }
+
+  // Baskets the name appears in.
+  public long itemBaskets(int id) {
+    return itemBaskets[id];
+  }
+
+  // Every slot of the pair table; empty slots have a count of 0.
+  public int pairSlots() {
+    return pairCounts.slots();
+  }
+
+  public long pairCount(int slot) {
+    return pairCounts.count(slot);
+  }
+
+  public int firstId(int slot) {
+    return (int) (pairCounts.key(slot) >>> 32);
+  }
+
+  public int secondId(int slot) {
+    return (int) pairCounts.key(slot);
+  }
+
+  private void addToBasket(String name) {
+    if (name == null) {
+      return;
+    }
+    int id = idOf(name);
+    if (basketStamps[id] == basketStamp) {
+      return;
+    }
+    basketStamps[id] = basketStamp;
+    if (basketSize == basketIds.length) {
+      basketIds = Arrays.copyOf(basketIds, basketSize * 2);
+    }
+    basketIds[basketSize++] = id;
+  }
+
+  private void closeBasket() {
+    ++baskets;
+    for (int i = 0; i < basketSize; ++i) {
+      ++itemBaskets[basketIds[i]];
+      for (int j = i + 1; j < basketSize; ++j) {
+        addPair(basketIds[i], basketIds[j], 1);
+      }
+    }
+    basketSize = 0;
+    if (++basketStamp == 0) {
+      Arrays.fill(basketStamps, 0);
+      basketStamp = 1;
+    }
+  }
+
+  private int idOf(String name) {
+    int id = (int) nameIds.get(name) - 1;
+    if (id >= 0) {
+      return id;
+    }
+    id = names.size();
+    nameIds.add(name, id + 1);
+    names.add(name);
+    if (id == itemBaskets.length) {
+      itemBaskets = Arrays.copyOf(itemBaskets, id * 2);
+      basketStamps = Arrays.copyOf(basketStamps, id * 2);
+    }
+    return id;
+  }
+
+  private void addPair(int firstId, int secondId, long count) {
+    pairCounts.add(firstId < secondId
+        ? (long) firstId << 32 | secondId : (long) secondId << 32 | firstId, count);
+  }
+}
@@ -0,0 +1,187 @@
+package com.fransua.service;
+
+import com.fransua.config.ReportOptions;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Basket analysis: the number of burgers that contain both ingredients of a pair, or of orders
+// that contain both burgers of a pair, with the support and lift of every reported pair. Only
+// the pairs that pass --min-count and --top are turned into names; the top pairs are selected
+// with a bounded heap instead of sorting every pair, comparing the names in place. Names are
+// escaped by KeyNames, so a '+' inside a name can't make two pairs look the same.
+public class CooccurrenceStatisticService implements StatisticService {
+
+  public static final String PAIR_SEPARATOR = " + ";
+  private static final int RATIO_SCALE = 4;
+
+  public enum Dimension {
+    INGREDIENT, BURGER
+  }
+
+  private final CooccurrenceCounter mergedCounter;
+  private final Dimension dimension;
+  private final ReportOptions reportOptions;
+
+  public CooccurrenceStatisticService(Dimension dimension, ReportOptions reportOptions) {
+    this.dimension = dimension;
+    this.reportOptions = reportOptions;
+    this.mergedCounter = new CooccurrenceCounter(dimension);
+  }
+
+  public static Dimension dimensionOf(String attributeName) {
+    return switch (attributeName) {
+      case "ingredient-pair" -> Dimension.INGREDIENT;
+      case "burger-pair" -> Dimension.BURGER;
+      default -> throw new IllegalArgumentException(
+          "Attribute '" + attributeName + "' is not a pair attribute");
+    };
+  }
+
+  @Override
+  public PartialStatistic createPartial() {
+    return new CooccurrenceCounter(dimension);
+  }
+
+  @Override
+  public synchronized void mergePartial(PartialStatistic partial) {
+    mergedCounter.mergeFrom((CooccurrenceCounter) partial);
+  }
+
+  // Baskets per pair, by count and then by pair name; the names of a pair are in natural order.
+  @Override
+  public synchronized Map<String, Long> getStatisticSortedByCountThenByName() {
+    String[] names = escapedNames();
+    Map<String, Long> statistic = new LinkedHashMap<>();
+    for (int slot : reportedSlots(names)) {
+      statistic.put(pairName(names, slot), mergedCounter.pairCount(slot));
+    }
+    return statistic;
+  }
+
+  // The pairs with their support and lift, computed with the statistic so they always match.
+  @Override
+  public synchronized ReportedStatistic getReportedStatistic() {
+    Map<String, Long> statistic = new LinkedHashMap<>();
+    Map<String, Map<String, String>> itemElements = new HashMap<>();
+    String[] names = escapedNames();
+    for (int slot : reportedSlots(names)) {
+      String pairName = pairName(names, slot);
+      statistic.put(pairName, mergedCounter.pairCount(slot));
+      itemElements.put(pairName, itemElements(slot));
+    }
+    return new ReportedStatistic(statistic, itemElements::get);
+  }
+
+  // The slots of the pairs that pass --min-count and --top, in the order of the report.
+  private List<Integer> reportedSlots(String[] names) {
+    Comparator<Integer> order = Comparator.comparingLong(mergedCounter::pairCount).reversed()
+        .thenComparing((slot, otherSlot) -> comparePairNames(names, slot, otherSlot));
+    List<Integer> slots = new ArrayList<>();
+    PriorityQueue<Integer> topSlots = new PriorityQueue<>(order.reversed());
+    for (int slot = 0; slot < mergedCounter.pairSlots(); ++slot) {
+      long count = mergedCounter.pairCount(slot);
+      if (count == 0 || count < reportOptions.minCount()) {
+        continue;
+      }
+      if (reportOptions.topN() == Long.MAX_VALUE) {
+        slots.add(slot);
+      } else if (reportOptions.topN() > 0) {
+        topSlots.add(slot);
+        if (topSlots.size() > reportOptions.topN()) {
+          topSlots.poll();
+        }
+      }
+    }
+    slots.addAll(topSlots);
+    slots.sort(order);
+    return slots;
+  }
+
+  // Support is the share of all baskets that contain the pair; lift compares it with the share
+  // expected if both names were picked independently.
+  private Map<String, String> itemElements(int slot) {
+    BigDecimal count = BigDecimal.valueOf(mergedCounter.pairCount(slot));
+    BigDecimal baskets = BigDecimal.valueOf(mergedCounter.baskets());
+    BigDecimal expected = BigDecimal.valueOf(
+        mergedCounter.itemBaskets(mergedCounter.firstId(slot))).multiply(BigDecimal.valueOf(
+        mergedCounter.itemBaskets(mergedCounter.secondId(slot))));
+    Map<String, String> elements = new LinkedHashMap<>();
+    elements.put("support", count.divide(baskets, RATIO_SCALE, RoundingMode.HALF_EVEN)
+        .toPlainString());
+    elements.put("lift", count.multiply(baskets)
+        .divide(expected, RATIO_SCALE, RoundingMode.HALF_EVEN).toPlainString());
+    return elements;
+  }
+
+  @Override
+  public synchronized Map<String, String> getStatisticProperties() {
+    Map<String, String> properties = new LinkedHashMap<>();
+    properties.put("baskets", String.valueOf(mergedCounter.baskets()));
+    properties.put("pairs", String.valueOf(mergedCounter.pairs()));
+    return properties;
+  }
+
+  private String[] escapedNames() {
+    List<String> names = mergedCounter.names();
+    String[] escapedNames = new String[names.size()];
+    for (int id = 0; id < escapedNames.length; ++id) {
+      escapedNames[id] = KeyNames.escape(names.get(id), '+');
+    }
+    return escapedNames;
+  }
+
+  private String pairName(String[] names, int slot) {
+    return names[lowerId(slot)] + PAIR_SEPARATOR + names[higherId(slot)];
+  }
+
+  // Compares the names pairName would build without building them.
+  private int comparePairNames(String[] names, int slot, int otherSlot) {
+    String first = names[lowerId(slot)];
+    String second = names[higherId(slot)];
+    String otherFirst = names[lowerId(otherSlot)];
+    String otherSecond = names[higherId(otherSlot)];
+    int length = first.length() + PAIR_SEPARATOR.length() + second.length();
+    int otherLength = otherFirst.length() + PAIR_SEPARATOR.length() + otherSecond.length();
+    for (int i = 0; i < Math.min(length, otherLength); ++i) {
+      char c = charAt(first, second, i);
+      char otherC = charAt(otherFirst, otherSecond, i);
+      if (c != otherC) {
+        return c - otherC;
+      }
+    }
+    return length - otherLength;
+  }
+
+  private static char charAt(String first, String second, int index) {
+    if (index < first.length()) {
+      return first.charAt(index);
+    }
+    index -= first.length();
+    if (index < PAIR_SEPARATOR.length()) {
+      return PAIR_SEPARATOR.charAt(index);
+    }
+    return second.charAt(index - PAIR_SEPARATOR.length());
+  }
+
+  // The names of a pair are in their natural order.
+  private int lowerId(int slot) {
+    return firstIsLower(slot) ? mergedCounter.firstId(slot) : mergedCounter.secondId(slot);
+  }
+
+  private int higherId(int slot) {
+    return firstIsLower(slot) ? mergedCounter.secondId(slot) : mergedCounter.firstId(slot);
+  }
+
+  private boolean firstIsLower(int slot) {
+    List<String> names = mergedCounter.names();
+    return names.get(mergedCounter.firstId(slot))
+        .compareTo(names.get(mergedCounter.secondId(slot))) <= 0;
+  }
+}
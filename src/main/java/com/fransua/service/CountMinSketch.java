@@ -0,0 +1,87 @@
+package com.fransua.service;
+
+// Point-frequency estimates in fixed memory: every estimate overcounts by at most
+// epsilon * totalCount with probability 1 - delta.
+public class CountMinSketch {
+
+  private final double epsilon;
+  private final double delta;
+  private final int width;
+  private final int depth;
+  private final long[] table;
+  private long totalCount;
+
+  public CountMinSketch(double epsilon, double delta) {
+    if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+      throw new IllegalArgumentException("Epsilon and delta must be between 0 and 1");
+    }
+    this.epsilon = epsilon;
+    this.delta = delta;
+    this.width = (int) Math.ceil(Math.E / epsilon);
+    this.depth = (int) Math.ceil(Math.log(1 / delta));
+    this.table = new long[width * depth];
+  }
+
+  public void add(String item, long count) {
+    long hash = hash(item);
+    int hash1 = (int) hash;
+    int hash2 = (int) (hash >>> 32);
+    for (int row = 0; row < depth; ++row) {
+      table[row * width + bucket(hash1, hash2, row)] += count;
+    }
+    totalCount += count;
+  }
+
+  public long estimate(String item) {
+    long hash = hash(item);
+    int hash1 = (int) hash;
+    int hash2 = (int) (hash >>> 32);
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < depth; ++row) {
+      estimate = Math.min(estimate, table[row * width + bucket(hash1, hash2, row)]);
+    }
+    return estimate;
+  }
+
+  public void mergeFrom(CountMinSketch other) {
+    if (other.width != width || other.depth != depth) {
+      throw new IllegalArgumentException("Count-Min sketches have different dimensions");
+    }
+    for (int i = 0; i < table.length; ++i) {
+      table[i] += other.table[i];
+    }
+    totalCount += other.totalCount;
+  }
+
+  public long totalCount() {
+    return totalCount;
+  }
+
+  public long errorBound() {
+    return (long) Math.ceil(epsilon * totalCount);
+  }
+
+  public double epsilon() {
+    return epsilon;
+  }
+
+  public double delta() {
+    return delta;
+  }
+
+  private int bucket(int hash1, int hash2, int row) {
+    return ((hash1 + row * hash2) & Integer.MAX_VALUE) % width;
+  }
+
+  private static long hash(String item) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < item.length(); ++i) {
+      hash ^= item.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
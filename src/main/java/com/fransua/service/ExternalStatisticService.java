@@ -0,0 +1,431 @@
+package com.fransua.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Exact statistic for more distinct values than fit in memory. Values are counted in memory
+// until their estimated size reaches the share of the memory budget of their counter; the
+// counter is then written as a run sorted by value (a compressed StatisticPartialFile) to a
+// spill directory. Every MAX_RUNS runs of the same level are merged into one run of the next
+// level, so a value is rewritten a logarithmic number of times. Half of the budget is for the
+// merged counter and half is split between the partials of the workers. The report merges the
+// runs by value, sorts the totals by count in chunks of the budget and streams a k-way merge
+// of the chunks to the report writer. The budget covers the counted values, not the fixed I/O
+// buffers of open runs.
+public class ExternalStatisticService implements ValueStatisticService, Closeable {
+
+  // String header, value array header and the table slots of an AttributeCounter at its
+  // lowest load, on top of 2 bytes per char.
+  private static final long ENTRY_BYTES = 112;
+  private static final int MAX_RUNS = 16;
+  private static final String RUN_ATTRIBUTE_NAME = "spill";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final long memoryBudget;
+  private final long mergedBudget;
+  private final long partialBudget;
+  private final File spillRoot;
+  private final AtomicLong bufferedBytes = new AtomicLong();
+  private final AtomicLong peakBufferedBytes = new AtomicLong();
+  private AttributeCounter mergedCounter = new AttributeCounter();
+  private long mergedBytes;
+  private final List<List<Path>> runLevels = new ArrayList<>();
+  private long spilledRuns;
+  private Path spillDirectory;
+  private int nextFileId;
+
+  public ExternalStatisticService(long memoryBudget, int maxPartials, File spillRoot) {
+    this.memoryBudget = memoryBudget;
+    this.mergedBudget = memoryBudget / 2;
+    this.partialBudget = (memoryBudget - mergedBudget) / Math.max(1, maxPartials);
+    this.spillRoot = spillRoot;
+  }
+
+  private class SpillingCounter implements ValuePartialStatistic {
+
+    private AttributeCounter counter = new AttributeCounter();
+    private long bytes;
+
+    @Override
+    public void increment(String attributeName) {
+      add(attributeName, 1);
+    }
+
+    // Counts are always positive, so a count of 0 means the value is not in the counter yet.
+    @Override
+    public void add(String attributeName, long count) {
+      long entryBytes = entryBytes(attributeName);
+      if (bytes + entryBytes > partialBudget && !counter.isEmpty()
+          && counter.get(attributeName) == 0) {
+        spill(counter, bytes);
+        counter = new AttributeCounter();
+        bytes = 0;
+      }
+      int size = counter.size();
+      counter.add(attributeName, count);
+      if (counter.size() != size) {
+        bytes += entryBytes;
+        reserve(entryBytes);
+      }
+    }
+  }
+
+  private static long entryBytes(String attributeName) {
+    return ENTRY_BYTES + 2L * attributeName.length();
+  }
+
+  private void reserve(long bytes) {
+    long buffered = bufferedBytes.addAndGet(bytes);
+    peakBufferedBytes.accumulateAndGet(buffered, Math::max);
+  }
+
+  @Override
+  public ValuePartialStatistic createPartial() {
+    return new SpillingCounter();
+  }
+
+  @Override
+  public synchronized void mergePartial(PartialStatistic partial) {
+    SpillingCounter spillingCounter = (SpillingCounter) partial;
+    spillingCounter.counter.forEach(this::addMerged);
+    bufferedBytes.addAndGet(-spillingCounter.bytes);
+    spillingCounter.counter = new AttributeCounter();
+    spillingCounter.bytes = 0;
+  }
+
+  @Override
+  public synchronized void incrementAttributeCount(String attributeName) {
+    addMerged(attributeName, 1);
+  }
+
+  private void addMerged(String attributeName, long count) {
+    long entryBytes = entryBytes(attributeName);
+    if (mergedBytes + entryBytes > mergedBudget && !mergedCounter.isEmpty()
+        && mergedCounter.get(attributeName) == 0) {
+      spillMerged();
+    }
+    int size = mergedCounter.size();
+    mergedCounter.add(attributeName, count);
+    if (mergedCounter.size() != size) {
+      mergedBytes += entryBytes;
+      reserve(entryBytes);
+    }
+  }
+
+  private void spillMerged() {
+    spill(mergedCounter, mergedBytes);
+    mergedCounter = new AttributeCounter();
+    mergedBytes = 0;
+  }
+
+  // Writes the counter as a run and releases its bytes; the caller drops the counter.
+  private synchronized void spill(AttributeCounter counter, long bytes) {
+    try {
+      String[] attributeValues = new String[counter.size()];
+      int[] index = {0};
+      counter.forEach((attributeValue, count) -> attributeValues[index[0]++] = attributeValue);
+      Arrays.sort(attributeValues);
+      Path run = nextSpillFile();
+      try (StatisticPartialFile.Writer writer =
+          new StatisticPartialFile.Writer(run, RUN_ATTRIBUTE_NAME, true)) {
+        for (String attributeValue : attributeValues) {
+          writer.write(attributeValue, counter.get(attributeValue));
+        }
+        writer.commit();
+      }
+      ++spilledRuns;
+      addRun(0, run);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      bufferedBytes.addAndGet(-bytes);
+    }
+  }
+
+  private void addRun(int level, Path run) throws IOException {
+    if (runLevels.size() == level) {
+      runLevels.add(new ArrayList<>());
+    }
+    List<Path> runs = runLevels.get(level);
+    runs.add(run);
+    if (runs.size() < MAX_RUNS) {
+      return;
+    }
+    Path mergedRun = nextSpillFile();
+    try (StatisticPartialFile.Writer writer =
+        new StatisticPartialFile.Writer(mergedRun, RUN_ATTRIBUTE_NAME, true)) {
+      PartialStatisticMerger.merge(runs, RUN_ATTRIBUTE_NAME, writer::write);
+      writer.commit();
+    }
+    for (Path mergedFrom : runs) {
+      Files.delete(mergedFrom);
+    }
+    runs.clear();
+    addRun(level + 1, mergedRun);
+  }
+
+  private List<Path> runs() {
+    return runLevels.stream().flatMap(List::stream).toList();
+  }
+
+  private Path nextSpillFile() throws IOException {
+    if (spillDirectory == null) {
+      Files.createDirectories(spillRoot.toPath());
+      spillDirectory = Files.createTempDirectory(spillRoot.toPath(), "statistic_spill");
+    }
+    return spillDirectory.resolve("run_" + nextFileId++ + ".partial");
+  }
+
+  // Number of runs spilled from counters, not counting the ones written by merging runs.
+  public synchronized long spilledRuns() {
+    return spilledRuns;
+  }
+
+  // Highest estimated number of bytes held by the counters at any time.
+  public long peakBufferedBytes() {
+    return peakBufferedBytes.get();
+  }
+
+  // The statistic is collected into a map, so it has to fit in memory; reports stream it
+  // through sortedEntries() instead.
+  @Override
+  public Map<String, Long> getStatisticSortedByCountThenByName() {
+    Map<String, Long> statistic = new LinkedHashMap<>();
+    try (SortedEntries entries = sortedEntries()) {
+      entries.forEach(entry -> statistic.put(entry.getKey(), entry.getValue()));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return statistic;
+  }
+
+  // Streams the sorted entries, so the statistic never has to be in memory as a whole.
+  @Override
+  public ReportEntries getReportEntries() throws IOException {
+    SortedEntries entries = sortedEntries();
+    return new ReportEntries(Collections.singletonMap(null, entries), null, entries);
+  }
+
+  // The writers have to be finished before the entries are requested. Entries are ordered by
+  // count descending, then by value.
+  public synchronized SortedEntries sortedEntries() throws IOException {
+    if (runs().isEmpty()) {
+      List<Map.Entry<String, Long>> entries = new ArrayList<>(mergedCounter.size());
+      mergedCounter.forEach((attributeName, count) -> entries.add(Map.entry(attributeName,
+          count)));
+      entries.sort(countThenName());
+      return new SortedEntries(entries, 0, List.of());
+    }
+    if (!mergedCounter.isEmpty()) {
+      spillMerged();
+    }
+
+    List<Map.Entry<String, Long>> chunk = new ArrayList<>();
+    long[] chunkBytes = {0};
+    List<Path> sortedRuns = new ArrayList<>();
+    PartialStatisticMerger.merge(runs(), RUN_ATTRIBUTE_NAME, (attributeName, count) -> {
+      long entryBytes = entryBytes(attributeName);
+      if (chunkBytes[0] + entryBytes > memoryBudget && !chunk.isEmpty()) {
+        sortedRuns.add(writeSortedRun(chunk));
+        bufferedBytes.addAndGet(-chunkBytes[0]);
+        chunk.clear();
+        chunkBytes[0] = 0;
+      }
+      chunk.add(Map.entry(attributeName, count));
+      chunkBytes[0] += entryBytes;
+      reserve(entryBytes);
+    });
+    chunk.sort(countThenName());
+    return new SortedEntries(chunk, chunkBytes[0], sortedRuns);
+  }
+
+  private static Comparator<Map.Entry<String, Long>> countThenName() {
+    return Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+        .thenComparing(Map.Entry.comparingByKey());
+  }
+
+  // A chunk sorted by count as the varint number of entries, then a varint count and the
+  // value of every entry, gzipped.
+  private Path writeSortedRun(List<Map.Entry<String, Long>> chunk) throws IOException {
+    chunk.sort(countThenName());
+    Path run = nextSpillFile();
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+        new GZIPOutputStream(Files.newOutputStream(run), BUFFER_SIZE) {
+          {
+            def.setLevel(Deflater.BEST_SPEED);
+          }
+        }, BUFFER_SIZE))) {
+      PartialStatisticCodec.writeVarLong(output, chunk.size());
+      for (Map.Entry<String, Long> entry : chunk) {
+        PartialStatisticCodec.writeVarLong(output, entry.getValue());
+        PartialStatisticCodec.writeString(output, entry.getKey());
+      }
+    }
+    return run;
+  }
+
+  // Sorted entries of the statistic: a k-way merge of the runs sorted by count and the last
+  // chunk still in memory. Closing it releases the chunk and deletes the runs sorted by count.
+  public class SortedEntries implements Iterable<Map.Entry<String, Long>>, Closeable {
+
+    private final List<Map.Entry<String, Long>> chunk;
+    private final long chunkBytes;
+    private final List<Path> sortedRuns;
+    private final List<SortedRunReader> readers = new ArrayList<>();
+    private boolean iterated;
+
+    private SortedEntries(List<Map.Entry<String, Long>> chunk, long chunkBytes,
+        List<Path> sortedRuns) {
+      this.chunk = chunk;
+      this.chunkBytes = chunkBytes;
+      this.sortedRuns = sortedRuns;
+    }
+
+    // Can be iterated only once.
+    @Override
+    public Iterator<Map.Entry<String, Long>> iterator() {
+      if (iterated) {
+        throw new IllegalStateException("Sorted entries can be iterated only once");
+      }
+      iterated = true;
+      if (sortedRuns.isEmpty()) {
+        return chunk.iterator();
+      }
+
+      PriorityQueue<SortedRunReader> queue = new PriorityQueue<>(sortedRuns.size() + 1,
+          Comparator.comparing(SortedRunReader::current, countThenName()));
+      try {
+        for (Path sortedRun : sortedRuns) {
+          SortedRunReader reader = new SortedRunReader(sortedRun);
+          readers.add(reader);
+          if (reader.next()) {
+            queue.add(reader);
+          }
+        }
+        SortedRunReader chunkReader = new SortedRunReader(chunk.iterator());
+        if (chunkReader.next()) {
+          queue.add(chunkReader);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      return new Iterator<>() {
+        @Override
+        public boolean hasNext() {
+          return !queue.isEmpty();
+        }
+
+        @Override
+        public Map.Entry<String, Long> next() {
+          if (queue.isEmpty()) {
+            throw new NoSuchElementException();
+          }
+          SortedRunReader reader = queue.poll();
+          Map.Entry<String, Long> entry = reader.current();
+          try {
+            if (reader.next()) {
+              queue.add(reader);
+            }
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+          return entry;
+        }
+      };
+    }
+
+    @Override
+    public void close() throws IOException {
+      for (SortedRunReader reader : readers) {
+        reader.close();
+      }
+      for (Path sortedRun : sortedRuns) {
+        Files.deleteIfExists(sortedRun);
+      }
+      bufferedBytes.addAndGet(-chunkBytes);
+    }
+  }
+
+  private static class SortedRunReader implements Closeable {
+
+    private final DataInputStream input;
+    private final Iterator<Map.Entry<String, Long>> chunk;
+    private long remainingEntries;
+    private Map.Entry<String, Long> current;
+
+    private SortedRunReader(Path sortedRun) throws IOException {
+      this.input = new DataInputStream(new BufferedInputStream(
+          new GZIPInputStream(Files.newInputStream(sortedRun), BUFFER_SIZE), BUFFER_SIZE));
+      this.chunk = null;
+      this.remainingEntries = PartialStatisticCodec.readVarLong(input);
+    }
+
+    private SortedRunReader(Iterator<Map.Entry<String, Long>> chunk) {
+      this.input = null;
+      this.chunk = chunk;
+    }
+
+    private boolean next() throws IOException {
+      if (chunk != null) {
+        current = chunk.hasNext() ? chunk.next() : null;
+      } else if (remainingEntries > 0) {
+        --remainingEntries;
+        long count = PartialStatisticCodec.readVarLong(input);
+        current = Map.entry(PartialStatisticCodec.readString(input), count);
+      } else {
+        current = null;
+      }
+      return current != null;
+    }
+
+    private Map.Entry<String, Long> current() {
+      return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (input != null) {
+        input.close();
+      }
+    }
+  }
+
+  // Deletes the spill directory with all runs.
+  @Override
+  public synchronized void close() throws IOException {
+    runLevels.clear();
+    if (spillDirectory == null) {
+      return;
+    }
+    try (Stream<Path> pathStream = Files.walk(spillDirectory)) {
+      for (Path path : pathStream.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+    spillDirectory = null;
+  }
+}
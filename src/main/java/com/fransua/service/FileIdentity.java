@@ -0,0 +1,32 @@
+package com.fransua.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+public record FileIdentity(String path, long size, long lastModified, long contentHash) {
+
+  public static final long NO_CONTENT_HASH = -1;
+
+  public static FileIdentity of(File file, boolean contentHash) throws IOException {
+    Path path = file.toPath().toAbsolutePath().normalize();
+    return new FileIdentity(path.toString(), Files.size(path),
+        Files.getLastModifiedTime(path).toMillis(),
+        contentHash ? hashContent(path) : NO_CONTENT_HASH);
+  }
+
+  private static long hashContent(Path path) throws IOException {
+    CRC32C crc = new CRC32C();
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream input = Files.newInputStream(path)) {
+      int read;
+      while ((read = input.read(buffer)) > 0) {
+        crc.update(buffer, 0, read);
+      }
+    }
+    return crc.getValue();
+  }
+}
@@ -0,0 +1,19 @@
+package com.fransua.service;
+
+import java.util.Map;
+
+public record FileState(FileIdentity identity, int processedOrders,
+                        Map<String, AttributeCounter> counters) {
+
+  public boolean covers(FileIdentity currentIdentity, Iterable<String> attributeNames) {
+    if (!identity.equals(currentIdentity)) {
+      return false;
+    }
+    for (String attributeName : attributeNames) {
+      if (!counters.containsKey(attributeName)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
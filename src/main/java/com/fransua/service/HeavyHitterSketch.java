@@ -0,0 +1,54 @@
+package com.fransua.service;
+
+public class HeavyHitterSketch implements ValuePartialStatistic {
+
+  private final SpaceSavingSummary summary;
+  private final CountMinSketch sketch;
+
+  public HeavyHitterSketch(int capacity, double epsilon, double delta) {
+    this.summary = new SpaceSavingSummary(capacity);
+    this.sketch = new CountMinSketch(epsilon, delta);
+  }
+
+  @Override
+  public void increment(String attributeName) {
+    add(attributeName, 1);
+  }
+
+  @Override
+  public void add(String attributeName, long count) {
+    if (attributeName == null || attributeName.isBlank()) {
+      throw new IllegalArgumentException("Attribute name can't be empty");
+    }
+    summary.add(attributeName, count);
+    sketch.add(attributeName, count);
+  }
+
+  public void mergeFrom(HeavyHitterSketch other) {
+    summary.mergeFrom(other.summary);
+    sketch.mergeFrom(other.sketch);
+  }
+
+  // Both structures only overcount, so the smaller of the two is the tighter estimate.
+  public long estimate(String attributeName) {
+    SpaceSavingSummary.Counter counter = summary.find(attributeName);
+    long sketchEstimate = sketch.estimate(attributeName);
+    return counter == null ? sketchEstimate : Math.min(counter.count(), sketchEstimate);
+  }
+
+  public long error(String attributeName) {
+    SpaceSavingSummary.Counter counter = summary.find(attributeName);
+    if (counter == null) {
+      return sketch.errorBound();
+    }
+    return estimate(attributeName) - (counter.count() - counter.error());
+  }
+
+  public SpaceSavingSummary summary() {
+    return summary;
+  }
+
+  public CountMinSketch sketch() {
+    return sketch;
+  }
+}
@@ -0,0 +1,70 @@
+package com.fransua.service;
+
+// Estimates the number of distinct 64-bit keys in 2^precision byte registers, with a relative
+// standard error of about 1.04 / sqrt(2^precision). Sketches of the same precision are merged
+// by taking the maximum of every register. Keys must already be well mixed. Not thread-safe.
+public class HyperLogLog {
+
+  private final int precision;
+  private final byte[] registers;
+
+  public HyperLogLog(int precision) {
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  public int precision() {
+    return precision;
+  }
+
+  public void add(long key) {
+    int index = (int) (key >>> (Long.SIZE - precision));
+    // The marker bit bounds the rank when the remaining bits are all zero.
+    int rank = Long.numberOfLeadingZeros(key << precision | 1L << (precision - 1)) + 1;
+    if (rank > registers[index]) {
+      registers[index] = (byte) rank;
+    }
+  }
+
+  public void mergeFrom(HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException("Sketches of different precision can't be merged");
+    }
+    for (int i = 0; i < registers.length; ++i) {
+      if (other.registers[i] > registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  public long estimate() {
+    int m = registers.length;
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        ++zeros;
+      }
+    }
+    double estimate = alpha(m) * m * m / sum;
+    // Linear counting is more accurate for small cardinalities.
+    if (estimate <= 2.5 * m && zeros != 0) {
+      estimate = m * Math.log((double) m / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  public static double relativeError(int precision) {
+    return 1.04 / Math.sqrt(1 << precision);
+  }
+
+  private static double alpha(int m) {
+    return switch (m) {
+      case 16 -> 0.673;
+      case 32 -> 0.697;
+      case 64 -> 0.709;
+      default -> 0.7213 / (1 + 1.079 / m);
+    };
+  }
+}
@@ -0,0 +1,26 @@
+package com.fransua.service;
+
+// Report names of keys made of several values joined with a separator. Backslashes and the
+// separator character are escaped with a backslash inside the values, so distinct keys never
+// get the same name.
+final class KeyNames {
+
+  private KeyNames() {
+  }
+
+  static String escape(String value, char separator) {
+    StringBuilder name = new StringBuilder(value.length());
+    appendEscaped(name, value, separator);
+    return name.toString();
+  }
+
+  static void appendEscaped(StringBuilder name, String value, char separator) {
+    for (int i = 0; i < value.length(); ++i) {
+      char c = value.charAt(i);
+      if (c == '\\' || c == separator) {
+        name.append('\\');
+      }
+      name.append(c);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.fransua.service;
+
+import java.util.Arrays;
+
+// Open-addressed long -> count table for keys packed from dictionary ids. Keys must not be
+// negative. Not thread-safe.
+public class LongCountTable {
+
+  private static final long EMPTY = -1;
+  private static final int INITIAL_CAPACITY = 64;
+
+  private long[] keys;
+  private long[] counts;
+  private int size;
+
+  public LongCountTable() {
+    this.keys = new long[INITIAL_CAPACITY];
+    this.counts = new long[INITIAL_CAPACITY];
+    Arrays.fill(keys, EMPTY);
+  }
+
+  public void add(long key, long count) {
+    int mask = keys.length - 1;
+    int index = spread(key) & mask;
+    while (keys[index] != EMPTY && keys[index] != key) {
+      index = (index + 1) & mask;
+    }
+    if (keys[index] == EMPTY) {
+      keys[index] = key;
+      counts[index] = count;
+      if (++size * 2 > keys.length) {
+        resize();
+      }
+    } else {
+      counts[index] += count;
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  // Every slot of the table; empty slots have a count of 0.
+  public int slots() {
+    return keys.length;
+  }
+
+  public boolean isEmpty(int slot) {
+    return keys[slot] == EMPTY;
+  }
+
+  public long key(int slot) {
+    return keys[slot];
+  }
+
+  public long count(int slot) {
+    return keys[slot] == EMPTY ? 0 : counts[slot];
+  }
+
+  private void resize() {
+    long[] oldKeys = keys;
+    long[] oldCounts = counts;
+    keys = new long[oldKeys.length * 2];
+    counts = new long[oldKeys.length * 2];
+    Arrays.fill(keys, EMPTY);
+    int mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; ++i) {
+      if (oldKeys[i] != EMPTY) {
+        int index = spread(oldKeys[i]) & mask;
+        while (keys[index] != EMPTY) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = oldKeys[i];
+        counts[index] = oldCounts[i];
+      }
+    }
+  }
+
+  private static int spread(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+}
@@ -0,0 +1,173 @@
+package com.fransua.service;
+
+import java.util.Arrays;
+
+// Open-addressed value -> count histogram of long values. Prices have few distinct values, so
+// exact percentiles stay cheap. Values with many distinct values, like order totals, are
+// bucketed to their top significant bits instead: 2^(significantBits - 1) buckets per power
+// of two, and percentiles within a relative error of 2^(1 - significantBits). Count, sum, min
+// and max stay exact either way. Not thread-safe.
+public class LongHistogram {
+
+  private static final long EMPTY = Long.MIN_VALUE;
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final int significantBits;
+  private long[] values;
+  private long[] counts;
+  private int size;
+  private long totalCount;
+  private long sum;
+  private long min = Long.MAX_VALUE;
+  private long max = Long.MIN_VALUE;
+
+  public LongHistogram() {
+    this(Long.SIZE);
+  }
+
+  public LongHistogram(int significantBits) {
+    if (significantBits < 1 || significantBits > Long.SIZE) {
+      throw new IllegalArgumentException(
+          "Significant bits must be between 1 and " + Long.SIZE + ": " + significantBits);
+    }
+    this.significantBits = significantBits;
+    this.values = new long[INITIAL_CAPACITY];
+    this.counts = new long[INITIAL_CAPACITY];
+    Arrays.fill(values, EMPTY);
+  }
+
+  public void add(long value, long count) {
+    if (value == EMPTY) {
+      throw new IllegalArgumentException("Value is out of range: " + value);
+    }
+    addBucket(bucketOf(value), count);
+    totalCount += count;
+    sum += value * count;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  public void mergeFrom(LongHistogram other) {
+    if (other.significantBits != significantBits) {
+      throw new IllegalArgumentException("Histograms with " + significantBits + " and "
+          + other.significantBits + " significant bits can't be merged");
+    }
+    for (int i = 0; i < other.values.length; ++i) {
+      if (other.values[i] != EMPTY) {
+        addBucket(other.values[i], other.counts[i]);
+      }
+    }
+    totalCount += other.totalCount;
+    sum += other.sum;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  public long count() {
+    return totalCount;
+  }
+
+  public long sum() {
+    return sum;
+  }
+
+  public long min() {
+    return totalCount == 0 ? 0 : min;
+  }
+
+  public long max() {
+    return totalCount == 0 ? 0 : max;
+  }
+
+  // Distinct values, or buckets, held by the histogram.
+  public int bucketCount() {
+    return size;
+  }
+
+  // Smallest value with at least percentile % of the samples at or below it. With buckets,
+  // the bucket's value closest to zero, kept within min and max.
+  public long percentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    long[] sortedValues = new long[size];
+    int next = 0;
+    for (long value : values) {
+      if (value != EMPTY) {
+        sortedValues[next++] = value;
+      }
+    }
+    Arrays.sort(sortedValues);
+
+    long rank = Math.max(1, (long) Math.ceil(totalCount * percentile / 100));
+    long seen = 0;
+    for (long value : sortedValues) {
+      seen += counts[indexOf(value)];
+      if (seen >= rank) {
+        return Math.min(max, Math.max(min, value));
+      }
+    }
+    return max;
+  }
+
+  // Clears the bits of the magnitude below its top significantBits bits.
+  private long bucketOf(long value) {
+    long magnitude = Math.abs(value);
+    int shift = Long.SIZE - Long.numberOfLeadingZeros(magnitude) - significantBits;
+    if (shift <= 0) {
+      return value;
+    }
+    long bucket = magnitude >>> shift << shift;
+    return value < 0 ? -bucket : bucket;
+  }
+
+  private void addBucket(long value, long count) {
+    int mask = values.length - 1;
+    int index = spread(value) & mask;
+    while (values[index] != EMPTY && values[index] != value) {
+      index = (index + 1) & mask;
+    }
+    if (values[index] == EMPTY) {
+      values[index] = value;
+      counts[index] = count;
+      if (++size * 2 > values.length) {
+        resize();
+      }
+    } else {
+      counts[index] += count;
+    }
+  }
+
+  private int indexOf(long value) {
+    int mask = values.length - 1;
+    int index = spread(value) & mask;
+    while (values[index] != value) {
+      index = (index + 1) & mask;
+    }
+    return index;
+  }
+
+  private void resize() {
+    long[] oldValues = values;
+    long[] oldCounts = counts;
+    values = new long[oldValues.length * 2];
+    counts = new long[oldValues.length * 2];
+    Arrays.fill(values, EMPTY);
+    int mask = values.length - 1;
+    for (int i = 0; i < oldValues.length; ++i) {
+      if (oldValues[i] != EMPTY) {
+        int index = spread(oldValues[i]) & mask;
+        while (values[index] != EMPTY) {
+          index = (index + 1) & mask;
+        }
+        values[index] = oldValues[i];
+        counts[index] = oldCounts[i];
+      }
+    }
+  }
+
+  private static int spread(long value) {
+    long hash = value * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+}
@@ -0,0 +1,104 @@
+package com.fransua.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ObjLongConsumer;
+
+// Counts the orders that contain every value: values get a dictionary id, and a bitset over the
+// ids remembers which ones the current order has already counted. Only the bits set by an order
+// are cleared when the next one starts, so the work per order stays proportional to its values.
+// Like AttributeCounter it is not thread-safe.
+public class OrderCountCounter implements ValuePartialStatistic {
+
+  private final AttributeCounter valueIds = new AttributeCounter();
+  private final List<String> values = new ArrayList<>();
+  private long[] counts = new long[64];
+  private long[] countedIds = new long[1];
+  private int[] orderIds = new int[16];
+  private int orderIdCount;
+
+  @Override
+  public Set<OrderInput> orderInputs() {
+    return EnumSet.of(OrderInput.BOUNDARIES);
+  }
+
+  @Override
+  public void startOrder(long orderKey, Instant createdAt) {
+    for (int i = 0; i < orderIdCount; ++i) {
+      countedIds[orderIds[i] >>> 6] = 0;
+    }
+    orderIdCount = 0;
+  }
+
+  @Override
+  public void increment(String attributeName) {
+    count(valueId(attributeName));
+  }
+
+  // Any number of occurrences within the order counts once.
+  @Override
+  public void add(String attributeName, long count) {
+    if (count > 0) {
+      count(valueId(attributeName));
+    }
+  }
+
+  @Override
+  public void increment(char[] text, int offset, int length) {
+    int valueId = (int) valueIds.get(text, offset, length) - 1;
+    count(valueId >= 0 ? valueId : valueId(new String(text, offset, length)));
+  }
+
+  public void mergeFrom(OrderCountCounter other) {
+    other.forEach((attributeName, count) -> {
+      // valueId may grow counts, so the array is read after it.
+      int valueId = valueId(attributeName);
+      counts[valueId] += count;
+    });
+  }
+
+  public void forEach(ObjLongConsumer<String> action) {
+    for (int valueId = 0; valueId < values.size(); ++valueId) {
+      if (counts[valueId] != 0) {
+        action.accept(values.get(valueId), counts[valueId]);
+      }
+    }
+  }
+
+  private void count(int valueId) {
+    int word = valueId >>> 6;
+    long bit = 1L << valueId;
+    if ((countedIds[word] & bit) != 0) {
+      return;
+    }
+    countedIds[word] |= bit;
+    if (orderIdCount == orderIds.length) {
+      orderIds = Arrays.copyOf(orderIds, orderIds.length * 2);
+    }
+    orderIds[orderIdCount++] = valueId;
+    ++counts[valueId];
+  }
+
+  private int valueId(String attributeName) {
+    if (attributeName == null) {
+      throw new IllegalArgumentException("Attribute name can't be empty");
+    }
+    long id = valueIds.get(attributeName);
+    if (id != 0) {
+      return (int) id - 1;
+    }
+    valueIds.add(attributeName, values.size() + 1);
+    values.add(attributeName);
+    if (values.size() > counts.length) {
+      counts = Arrays.copyOf(counts, counts.length * 2);
+    }
+    if (values.size() > countedIds.length * Long.SIZE) {
+      countedIds = Arrays.copyOf(countedIds, countedIds.length * 2);
+    }
+    return values.size() - 1;
+  }
+}
@@ -0,0 +1,98 @@
+package com.fransua.service;
+
+import com.fransua.config.CountMode;
+import com.fransua.config.CountOptions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Orders per value instead of occurrences per value: exactly, with every value counted once
+// per order, or as HyperLogLog estimates of the distinct order ids, which also count an order
+// read twice once and keep a fixed amount of memory per value.
+public class OrderCountStatisticService implements StatisticService {
+
+  private final CountOptions options;
+  private final OrderCountCounter mergedCounter = new OrderCountCounter();
+  private final Map<String, HyperLogLog> mergedSketches = new HashMap<>();
+
+  public OrderCountStatisticService(CountOptions options) {
+    if (!options.perOrder()) {
+      throw new IllegalArgumentException("Occurrences are counted by the statistic engines");
+    }
+    this.options = options;
+  }
+
+  public boolean exact() {
+    return options.mode() == CountMode.ORDERS;
+  }
+
+  @Override
+  public PartialStatistic createPartial() {
+    return exact() ? new OrderCountCounter() : new OrderSketchCounter(options.precision());
+  }
+
+  @Override
+  public synchronized void mergePartial(PartialStatistic partial) {
+    if (partial instanceof OrderCountCounter counter) {
+      mergedCounter.mergeFrom(counter);
+    } else {
+      ((OrderSketchCounter) partial).forEach((attributeName, sketch) -> mergedSketches
+          .computeIfAbsent(attributeName, name -> new HyperLogLog(options.precision()))
+          .mergeFrom(sketch));
+    }
+  }
+
+  @Override
+  public synchronized Map<String, Long> getStatisticSortedByCountThenByName() {
+    List<Map.Entry<String, Long>> entries = new ArrayList<>();
+    if (exact()) {
+      mergedCounter.forEach((attributeName, count) ->
+          entries.add(Map.entry(attributeName, count)));
+    } else {
+      mergedSketches.forEach((attributeName, sketch) ->
+          entries.add(Map.entry(attributeName, sketch.estimate())));
+    }
+    entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+        .thenComparing(Map.Entry.comparingByKey()));
+    Map<String, Long> statistic = new LinkedHashMap<>();
+    for (Map.Entry<String, Long> entry : entries) {
+      statistic.put(entry.getKey(), entry.getValue());
+    }
+    return statistic;
+  }
+
+  @Override
+  public Map<String, String> getStatisticProperties() {
+    Map<String, String> properties = new LinkedHashMap<>();
+    properties.put("countMode", options.mode().optionValue());
+    if (!exact()) {
+      properties.put("precision", String.valueOf(options.precision()));
+      properties.put("relativeError", relativeError());
+    }
+    return properties;
+  }
+
+  // The standard error of every estimate, in orders. Small estimates have errors below one
+  // order, so it is written with decimals like the relative error.
+  @Override
+  public Map<String, String> getItemElements(String attributeName) {
+    if (exact()) {
+      return Map.of();
+    }
+    HyperLogLog sketch;
+    synchronized (this) {
+      sketch = mergedSketches.get(attributeName);
+    }
+    long estimate = sketch == null ? 0 : sketch.estimate();
+    return Map.of("standardError", String.format(Locale.ROOT, "%.2f",
+        estimate * HyperLogLog.relativeError(options.precision())));
+  }
+
+  private String relativeError() {
+    return String.format(Locale.ROOT, "%.4f", HyperLogLog.relativeError(options.precision()));
+  }
+}
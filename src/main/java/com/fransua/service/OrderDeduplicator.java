@@ -0,0 +1,27 @@
+package com.fransua.service;
+
+import java.util.UUID;
+
+// Remembers the Order.id values seen so far, as the two longs of the UUID. Shared by all
+// workers of a run, so implementations are thread-safe.
+public interface OrderDeduplicator {
+
+  // True the first time an id is seen, false for a duplicate.
+  boolean firstSeen(long mostSigBits, long leastSigBits);
+
+  long duplicates();
+
+  // Expected number of unique orders wrongly taken for duplicates; 0 for exact dedup.
+  default double expectedFalseDuplicates() {
+    return 0;
+  }
+
+  // Same as firstSeen for the text form of a UUID, without creating a UUID or String.
+  default boolean firstSeen(char[] text, int offset, int length) {
+    if (!UuidText.isCanonical(text, offset, length)) {
+      UUID id = UUID.fromString(new String(text, offset, length));
+      return firstSeen(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+    return firstSeen(UuidText.mostSigBits(text, offset), UuidText.leastSigBits(text, offset));
+  }
+}
@@ -0,0 +1,104 @@
+package com.fransua.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+// A Bloom filter of order ids: an id is possibly seen when all of its bits are already set and
+// certainly new otherwise. In front of OrderIdSet it only answers add; on its own it is the
+// approximate dedup in fixed memory, where up to expectedOrders distinct ids a unique order is
+// wrongly dropped with at most the configured false-positive rate and real duplicates are
+// always caught. Bits are set with CAS; the same id always takes the same of a few locks, so
+// two workers adding it at once can't both see it as new.
+public class OrderIdBloomFilter implements OrderDeduplicator {
+
+  private static final int LOCK_COUNT = 64;
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+  private final AtomicLong duplicates = new AtomicLong();
+  private final AtomicLong setBits = new AtomicLong();
+  private final DoubleAdder expectedFalseDuplicates = new DoubleAdder();
+  private final Object[] locks = new Object[LOCK_COUNT];
+
+  public OrderIdBloomFilter(long expectedOrders, double falsePositiveRate) {
+    long optimalBits = (long) Math.ceil(
+        -expectedOrders * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    long words = Math.max(1, (optimalBits + Long.SIZE - 1) / Long.SIZE);
+    if (words > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Bloom filter for " + expectedOrders
+          + " orders at false-positive rate " + falsePositiveRate + " is too large");
+    }
+    this.bits = new AtomicLongArray((int) words);
+    this.bitCount = words * Long.SIZE;
+    this.hashCount = Math.max(1,
+        (int) Math.round((double) bitCount / expectedOrders * Math.log(2)));
+    for (int i = 0; i < LOCK_COUNT; ++i) {
+      locks[i] = new Object();
+    }
+  }
+
+  // Every id taken for new had the false-positive rate of the current fill of missing a
+  // duplicate check; summed as p / (1 - p), that estimates the unique orders answered as seen.
+  @Override
+  public boolean firstSeen(long mostSigBits, long leastSigBits) {
+    double falsePositiveRate = Math.pow((double) setBits.get() / bitCount, hashCount);
+    boolean added = add(mostSigBits, leastSigBits);
+    if (added) {
+      expectedFalseDuplicates.add(falsePositiveRate / (1 - falsePositiveRate));
+    } else {
+      duplicates.incrementAndGet();
+    }
+    return added;
+  }
+
+  // Sets the bits of an id; true if one of them was not set, so the id is certainly new.
+  // Kirsch-Mitzenmacher: the k positions are h1 + i * h2 of two independent hashes.
+  public boolean add(long mostSigBits, long leastSigBits) {
+    long hash1 = mix(mostSigBits ^ mix(leastSigBits));
+    long hash2 = mix(leastSigBits + 0x9E3779B97F4A7C15L * mostSigBits) | 1;
+    boolean added = false;
+    synchronized (locks[(int) (hash1 >>> 58)]) {
+      for (int i = 0; i < hashCount; ++i) {
+        long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current = bits.get(word);
+        while ((current & mask) == 0) {
+          if (bits.compareAndSet(word, current, current | mask)) {
+            setBits.incrementAndGet();
+            added = true;
+            break;
+          }
+          current = bits.get(word);
+        }
+      }
+    }
+    return added;
+  }
+
+  @Override
+  public long duplicates() {
+    return duplicates.get();
+  }
+
+  @Override
+  public double expectedFalseDuplicates() {
+    return expectedFalseDuplicates.sum();
+  }
+
+  public int hashCount() {
+    return hashCount;
+  }
+
+  public long bitCount() {
+    return bitCount;
+  }
+
+  private static long mix(long value) {
+    value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+    value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return value ^ (value >>> 33);
+  }
+}
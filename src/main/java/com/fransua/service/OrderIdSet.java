@@ -0,0 +1,153 @@
+package com.fransua.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Exact set of order ids: open-addressed tables of two longs per UUID, so no UUID object is
+// kept. The ids are spread over independently locked segments, which keeps the workers from
+// contending on a single lock. The tables can live off-heap, outside of the GC's reach. An
+// optional Bloom filter pre-checks every id: a negative answer, the common case when most ids
+// are unique, inserts the id without comparing it along the probe sequence, and only positive
+// answers are looked up, so false positives never drop an order.
+public class OrderIdSet implements OrderDeduplicator {
+
+  private static final int SEGMENT_COUNT = 64;
+  private static final int MIN_SEGMENT_CAPACITY = 1024;
+  // A segment table has to fit into a single buffer of at most 2 GB.
+  private static final int MAX_SEGMENT_CAPACITY = 1 << 26;
+
+  private final Segment[] segments = new Segment[SEGMENT_COUNT];
+  private final AtomicLong duplicates = new AtomicLong();
+  private final OrderIdBloomFilter preCheck;
+
+  public OrderIdSet(long expectedOrders, boolean offHeap) {
+    this(expectedOrders, offHeap, null);
+  }
+
+  public OrderIdSet(long expectedOrders, boolean offHeap, OrderIdBloomFilter preCheck) {
+    this.preCheck = preCheck;
+    long segmentOrders = expectedOrders / SEGMENT_COUNT + 1;
+    int capacity = MIN_SEGMENT_CAPACITY;
+    while (capacity < segmentOrders * 2 && capacity < MAX_SEGMENT_CAPACITY) {
+      capacity <<= 1;
+    }
+    for (int i = 0; i < SEGMENT_COUNT; ++i) {
+      segments[i] = new Segment(capacity, offHeap);
+    }
+  }
+
+  @Override
+  public boolean firstSeen(long mostSigBits, long leastSigBits) {
+    long hash = hash(mostSigBits, leastSigBits);
+    Segment segment = segments[(int) (hash >>> 58)];
+    boolean added;
+    // The segment lock also covers the filter, so an id can't pass it twice before it is in
+    // the table.
+    synchronized (segment) {
+      boolean certainlyNew = preCheck != null && preCheck.add(mostSigBits, leastSigBits);
+      added = segment.add(mostSigBits, leastSigBits, hash, certainlyNew);
+    }
+    if (!added) {
+      duplicates.incrementAndGet();
+    }
+    return added;
+  }
+
+  @Override
+  public long duplicates() {
+    return duplicates.get();
+  }
+
+  public long size() {
+    long size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size;
+      }
+    }
+    return size;
+  }
+
+  private static long hash(long mostSigBits, long leastSigBits) {
+    long hash = (mostSigBits ^ Long.rotateLeft(leastSigBits, 32)) * 0x9E3779B97F4A7C15L;
+    return hash ^ (hash >>> 29);
+  }
+
+  // Slot i holds the id in entries 2i and 2i + 1; the nil UUID marks an empty slot and is
+  // tracked separately.
+  private static final class Segment {
+
+    private final boolean offHeap;
+    private LongBuffer table;
+    private int capacity;
+    private int size;
+    private boolean containsNil;
+
+    private Segment(int capacity, boolean offHeap) {
+      this.offHeap = offHeap;
+      this.capacity = capacity;
+      this.table = allocate(capacity, offHeap);
+    }
+
+    private boolean add(long mostSigBits, long leastSigBits, long hash, boolean certainlyNew) {
+      if (mostSigBits == 0 && leastSigBits == 0) {
+        boolean added = !containsNil;
+        containsNil = true;
+        return added;
+      }
+      int mask = capacity - 1;
+      int slot = (int) hash & mask;
+      while (true) {
+        long storedMostSigBits = table.get(2 * slot);
+        long storedLeastSigBits = table.get(2 * slot + 1);
+        if (storedMostSigBits == 0 && storedLeastSigBits == 0) {
+          table.put(2 * slot, mostSigBits);
+          table.put(2 * slot + 1, leastSigBits);
+          if (++size * 2 > capacity) {
+            resize();
+          }
+          return true;
+        }
+        if (!certainlyNew && storedMostSigBits == mostSigBits
+            && storedLeastSigBits == leastSigBits) {
+          return false;
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+
+    private void resize() {
+      if (capacity == MAX_SEGMENT_CAPACITY) {
+        throw new IllegalStateException("Too many distinct order ids to deduplicate exactly");
+      }
+      LongBuffer oldTable = table;
+      int oldCapacity = capacity;
+      capacity = oldCapacity * 2;
+      table = allocate(capacity, offHeap);
+      int mask = capacity - 1;
+      for (int oldSlot = 0; oldSlot < oldCapacity; ++oldSlot) {
+        long mostSigBits = oldTable.get(2 * oldSlot);
+        long leastSigBits = oldTable.get(2 * oldSlot + 1);
+        if (mostSigBits != 0 || leastSigBits != 0) {
+          int slot = (int) hash(mostSigBits, leastSigBits) & mask;
+          while (table.get(2 * slot) != 0 || table.get(2 * slot + 1) != 0) {
+            slot = (slot + 1) & mask;
+          }
+          table.put(2 * slot, mostSigBits);
+          table.put(2 * slot + 1, leastSigBits);
+        }
+      }
+    }
+
+    private static LongBuffer allocate(int capacity, boolean offHeap) {
+      if (offHeap) {
+        return ByteBuffer.allocateDirect(capacity * 2 * Long.BYTES)
+            .order(ByteOrder.nativeOrder())
+            .asLongBuffer();
+      }
+      return LongBuffer.allocate(capacity * 2);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.fransua.service;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// 64-bit keys of orders for sketches of distinct orders: a mix of the two longs of the
+// Order.id UUID, so the same id gets the same key in every worker, and a random key for orders
+// without an id, which are all distinct.
+public final class OrderKeys {
+
+  private OrderKeys() {
+  }
+
+  public static long of(long mostSigBits, long leastSigBits) {
+    return mix(mostSigBits ^ mix(leastSigBits));
+  }
+
+  public static long of(UUID id) {
+    return id == null ? random() : of(id.getMostSignificantBits(), id.getLeastSignificantBits());
+  }
+
+  // The text form of a UUID, without creating a UUID or String.
+  public static long of(char[] text, int offset, int length) {
+    if (!UuidText.isCanonical(text, offset, length)) {
+      return of(UUID.fromString(new String(text, offset, length)));
+    }
+    return of(UuidText.mostSigBits(text, offset), UuidText.leastSigBits(text, offset));
+  }
+
+  public static long random() {
+    return ThreadLocalRandom.current().nextLong();
+  }
+
+  // The MurmurHash3 finalizer.
+  private static long mix(long key) {
+    key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+    key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return key ^ (key >>> 33);
+  }
+}
@@ -0,0 +1,75 @@
+package com.fransua.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+// Estimates the distinct orders that contain every value with one HyperLogLog sketch of order
+// keys per value. Adding the key of an order twice changes nothing, so the same order read
+// from two files is counted once, and memory per value is fixed whatever the number of
+// orders. Like AttributeCounter it is not thread-safe.
+public class OrderSketchCounter implements ValuePartialStatistic {
+
+  private final int precision;
+  private final AttributeCounter valueIds = new AttributeCounter();
+  private final List<String> values = new ArrayList<>();
+  private final List<HyperLogLog> sketches = new ArrayList<>();
+  private long orderKey;
+
+  public OrderSketchCounter(int precision) {
+    this.precision = precision;
+  }
+
+  @Override
+  public Set<OrderInput> orderInputs() {
+    return EnumSet.of(OrderInput.KEY);
+  }
+
+  @Override
+  public void startOrder(long orderKey, Instant createdAt) {
+    this.orderKey = orderKey;
+  }
+
+  @Override
+  public void increment(String attributeName) {
+    sketches.get(valueId(attributeName)).add(orderKey);
+  }
+
+  // Any number of occurrences within the order adds the order once.
+  @Override
+  public void add(String attributeName, long count) {
+    if (count > 0) {
+      increment(attributeName);
+    }
+  }
+
+  @Override
+  public void increment(char[] text, int offset, int length) {
+    int valueId = (int) valueIds.get(text, offset, length) - 1;
+    sketches.get(valueId >= 0 ? valueId : valueId(new String(text, offset, length)))
+        .add(orderKey);
+  }
+
+  public void forEach(BiConsumer<String, HyperLogLog> action) {
+    for (int valueId = 0; valueId < values.size(); ++valueId) {
+      action.accept(values.get(valueId), sketches.get(valueId));
+    }
+  }
+
+  private int valueId(String attributeName) {
+    if (attributeName == null) {
+      throw new IllegalArgumentException("Attribute name can't be empty");
+    }
+    long id = valueIds.get(attributeName);
+    if (id != 0) {
+      return (int) id - 1;
+    }
+    valueIds.add(attributeName, values.size() + 1);
+    values.add(attributeName);
+    sketches.add(new HyperLogLog(precision));
+    return values.size() - 1;
+  }
+}
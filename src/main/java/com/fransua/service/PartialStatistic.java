@@ -0,0 +1,45 @@
+package com.fransua.service;
+
+import java.time.Instant;
+import java.util.Set;
+
+// The counts of one attribute gathered by one task, merged into its StatisticService. Single
+// values are counted through ValuePartialStatistic. Counters that need more than the values
+// name what they need from every order in orderInputs, and readers call the order callbacks
+// for them in document order: startOrder, then addIngredient for every ingredient and
+// endBurger for every burger, then endOrder. The callbacks do nothing by default.
+public interface PartialStatistic {
+
+  enum OrderInput {
+    // Only startOrder and endOrder around the values of every order.
+    BOUNDARIES,
+    // The createdAt of startOrder; null otherwise.
+    TIME,
+    // An orderKey that identifies the order (see OrderKeys); any key otherwise.
+    KEY,
+    // addIngredient and endBurger with the names of every ingredient and burger.
+    STRUCTURE,
+    // The unit prices of addIngredient; PriceStatisticService.MISSING_PRICE otherwise.
+    PRICES
+  }
+
+  default Set<OrderInput> orderInputs() {
+    return Set.of();
+  }
+
+  // createdAt is null when the order has none.
+  default void startOrder(long orderKey, Instant createdAt) {
+  }
+
+  // Unit prices are unscaled longs at PriceStatisticService.SCALE (cents).
+  default void addIngredient(String ingredientName, long unitPrice) {
+  }
+
+  // Closes the burger whose ingredients were added since the previous burger.
+  default void endBurger(String burgerName) {
+  }
+
+  // Closes the order started by the last startOrder.
+  default void endOrder() {
+  }
+}
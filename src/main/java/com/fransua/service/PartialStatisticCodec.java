@@ -0,0 +1,78 @@
+package com.fransua.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+// Compact binary form of an AttributeCounter: varint entry count, then every attribute value
+// as varint length + UTF-8 bytes followed by its varint count.
+public class PartialStatisticCodec {
+
+  private PartialStatisticCodec() {
+  }
+
+  public static void writeCounter(DataOutput output, AttributeCounter counter)
+      throws IOException {
+    writeVarLong(output, counter.size());
+    try {
+      counter.forEach((attributeName, count) -> {
+        try {
+          writeString(output, attributeName);
+          writeVarLong(output, count);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  public static AttributeCounter readCounter(DataInput input) throws IOException {
+    long size = readVarLong(input);
+    AttributeCounter counter = new AttributeCounter();
+    for (long i = 0; i < size; ++i) {
+      String attributeName = readString(input);
+      counter.add(attributeName, readVarLong(input));
+    }
+    return counter;
+  }
+
+  public static void writeString(DataOutput output, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarLong(output, bytes.length);
+    output.write(bytes);
+  }
+
+  public static String readString(DataInput input) throws IOException {
+    long length = readVarLong(input);
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("String length is too large: " + length);
+    }
+    byte[] bytes = new byte[(int) length];
+    input.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  public static void writeVarLong(DataOutput output, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      output.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    output.writeByte((int) value);
+  }
+
+  public static long readVarLong(DataInput input) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = input.readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+}
@@ -0,0 +1,78 @@
+package com.fransua.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Streaming k-way merge of partials of the same attribute: only the current entry of every
+// partial is held in memory. Counts of equal values are summed, so merging is exact and the
+// grouping of the partials doesn't matter.
+public class PartialStatisticMerger {
+
+  public interface EntryConsumer {
+
+    void accept(String attributeValue, long count) throws IOException;
+  }
+
+  private PartialStatisticMerger() {
+  }
+
+  // Returns the number of merged entries, which are passed in ascending order of their values.
+  public static long merge(List<Path> partialFiles, String attributeName,
+      EntryConsumer consumer) throws IOException {
+    List<StatisticPartialFile.Reader> readers = new ArrayList<>();
+    try {
+      PriorityQueue<StatisticPartialFile.Reader> queue = new PriorityQueue<>(
+          Math.max(1, partialFiles.size()),
+          Comparator.comparing(StatisticPartialFile.Reader::attributeValue));
+      for (Path partialFile : partialFiles) {
+        StatisticPartialFile.Reader reader = new StatisticPartialFile.Reader(partialFile);
+        readers.add(reader);
+        if (!reader.attributeName().equals(attributeName)) {
+          throw new IOException("Partial " + partialFile + " is for '" + reader.attributeName()
+              + "', not '" + attributeName + "'");
+        }
+        if (reader.next()) {
+          queue.add(reader);
+        }
+      }
+
+      long mergedEntries = 0;
+      while (!queue.isEmpty()) {
+        StatisticPartialFile.Reader reader = queue.poll();
+        String attributeValue = reader.attributeValue();
+        long count = reader.count();
+        advance(reader, queue);
+        while (!queue.isEmpty() && queue.peek().attributeValue().equals(attributeValue)) {
+          StatisticPartialFile.Reader sameValueReader = queue.poll();
+          count += sameValueReader.count();
+          advance(sameValueReader, queue);
+        }
+        if (count != 0) {
+          consumer.accept(attributeValue, count);
+          ++mergedEntries;
+        }
+      }
+      return mergedEntries;
+    } finally {
+      for (StatisticPartialFile.Reader reader : readers) {
+        reader.close();
+      }
+    }
+  }
+
+  private static void advance(StatisticPartialFile.Reader reader,
+      PriorityQueue<StatisticPartialFile.Reader> queue) throws IOException {
+    String previousValue = reader.attributeValue();
+    if (reader.next()) {
+      if (reader.attributeValue().compareTo(previousValue) <= 0) {
+        throw new IOException("Partial entries are not sorted: '" + reader.attributeValue()
+            + "' after '" + previousValue + "'");
+      }
+      queue.add(reader);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package com.fransua.service;
+
+import com.fransua.service.PriceStatisticService.Dimension;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// Revenue per ingredient or burger name in primitive arrays indexed by a dictionary id, plus
+// histograms of the per-item prices and of the order totals. Unit prices are exact; burger and
+// order totals have too many distinct values and are bucketed. Ingredients without a price, or
+// with fractions of a cent, are counted apart and left out of the prices, and so are the
+// burgers and orders they belong to; the total revenue still sums every known price.
+// Not thread-safe.
+public class PriceAccumulator implements PartialStatistic {
+
+  private static final int INITIAL_CAPACITY = 16;
+  // Totals within 0.1%.
+  private static final int TOTAL_SIGNIFICANT_BITS = 11;
+
+  private final Dimension dimension;
+  private final AttributeCounter nameIds = new AttributeCounter();
+  private final List<String> names = new ArrayList<>();
+  private long[] revenues = new long[INITIAL_CAPACITY];
+  private long[] counts = new long[INITIAL_CAPACITY];
+  private long[] minPrices = new long[INITIAL_CAPACITY];
+  private long[] maxPrices = new long[INITIAL_CAPACITY];
+  private final LongHistogram itemPrices;
+  private final LongHistogram orderRevenues = new LongHistogram(TOTAL_SIGNIFICANT_BITS);
+  private long orders;
+  private long revenue;
+  private long missingPrices;
+  private long rejectedPrices;
+  private long burgerRevenue;
+  private long orderRevenue;
+  private boolean burgerPriced = true;
+  private boolean orderPriced = true;
+
+  public PriceAccumulator(Dimension dimension) {
+    this.dimension = dimension;
+    this.itemPrices = dimension == Dimension.INGREDIENT
+        ? new LongHistogram() : new LongHistogram(TOTAL_SIGNIFICANT_BITS);
+  }
+
+  @Override
+  public Set<OrderInput> orderInputs() {
+    return EnumSet.of(OrderInput.STRUCTURE, OrderInput.PRICES);
+  }
+
+  @Override
+  public void addIngredient(String ingredientName, long unitPrice) {
+    if (unitPrice == PriceStatisticService.MISSING_PRICE
+        || unitPrice == PriceStatisticService.REJECTED_PRICE) {
+      if (unitPrice == PriceStatisticService.MISSING_PRICE) {
+        ++missingPrices;
+      } else {
+        ++rejectedPrices;
+      }
+      burgerPriced = false;
+      return;
+    }
+    if (dimension == Dimension.INGREDIENT) {
+      add(ingredientName, unitPrice, 1, unitPrice, unitPrice);
+      itemPrices.add(unitPrice, 1);
+    }
+    burgerRevenue += unitPrice;
+  }
+
+  @Override
+  public void endBurger(String burgerName) {
+    if (dimension == Dimension.BURGER && burgerPriced) {
+      add(burgerName, burgerRevenue, 1, burgerRevenue, burgerRevenue);
+      itemPrices.add(burgerRevenue, 1);
+    }
+    orderRevenue += burgerRevenue;
+    orderPriced &= burgerPriced;
+    burgerRevenue = 0;
+    burgerPriced = true;
+  }
+
+  @Override
+  public void endOrder() {
+    ++orders;
+    revenue += orderRevenue;
+    if (orderPriced) {
+      orderRevenues.add(orderRevenue, 1);
+    }
+    orderRevenue = 0;
+    orderPriced = true;
+  }
+
+  public void mergeFrom(PriceAccumulator other) {
+    for (int id = 0; id < other.names.size(); ++id) {
+      add(other.names.get(id), other.revenues[id], other.counts[id], other.minPrices[id],
+          other.maxPrices[id]);
+    }
+    itemPrices.mergeFrom(other.itemPrices);
+    orderRevenues.mergeFrom(other.orderRevenues);
+    orders += other.orders;
+    revenue += other.revenue;
+    missingPrices += other.missingPrices;
+    rejectedPrices += other.rejectedPrices;
+  }
+
+  public long orders() {
+    return orders;
+  }
+
+  public long revenue() {
+    return revenue;
+  }
+
+  // Ingredients without a price.
+  public long missingPrices() {
+    return missingPrices;
+  }
+
+  // Ingredients whose price has fractions of a cent.
+  public long rejectedPrices() {
+    return rejectedPrices;
+  }
+
+  public List<String> names() {
+    return names;
+  }
+
+  public long revenue(int id) {
+    return revenues[id];
+  }
+
+  public long count(int id) {
+    return counts[id];
+  }
+
+  public long minPrice(int id) {
+    return minPrices[id];
+  }
+
+  public long maxPrice(int id) {
+    return maxPrices[id];
+  }
+
+  public int idOf(String name) {
+    return (int) nameIds.get(name) - 1;
+  }
+
+  public LongHistogram itemPrices() {
+    return itemPrices;
+  }
+
+  public LongHistogram orderRevenues() {
+    return orderRevenues;
+  }
+
+  private void add(String name, long revenue, long count, long minPrice, long maxPrice) {
+    if (name == null) {
+      return;
+    }
+    int id = (int) nameIds.get(name) - 1;
+    if (id < 0) {
+      id = names.size();
+      nameIds.add(name, id + 1);
+      names.add(name);
+      if (id == revenues.length) {
+        revenues = Arrays.copyOf(revenues, id * 2);
+        counts = Arrays.copyOf(counts, id * 2);
+        minPrices = Arrays.copyOf(minPrices, id * 2);
+        maxPrices = Arrays.copyOf(maxPrices, id * 2);
+      }
+      minPrices[id] = minPrice;
+      maxPrices[id] = maxPrice;
+    } else {
+      minPrices[id] = Math.min(minPrices[id], minPrice);
+      maxPrices[id] = Math.max(maxPrices[id], maxPrice);
+    }
+    revenues[id] += revenue;
+    counts[id] += count;
+  }
+}
@@ -0,0 +1,146 @@
+package com.fransua.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Exact revenue analytics on unit prices held as unscaled longs (cents), so no BigDecimal or
+// String is created per ingredient. Sums match BigDecimal arithmetic on two-decimal prices;
+// only the reported means (half-even) and the percentiles of totals are rounded. Prices with
+// fractions of a cent are rejected and counted rather than rounded.
+public class PriceStatisticService implements StatisticService {
+
+  public static final int SCALE = 2;
+  // The unit price of an ingredient without a price.
+  public static final long MISSING_PRICE = Long.MIN_VALUE;
+  // The unit price of an ingredient whose price has fractions of a cent.
+  public static final long REJECTED_PRICE = Long.MIN_VALUE + 1;
+
+  public enum Dimension {
+    INGREDIENT, BURGER
+  }
+
+  private final PriceAccumulator mergedAccumulator;
+  private final Dimension dimension;
+
+  public PriceStatisticService(Dimension dimension) {
+    this.dimension = dimension;
+    this.mergedAccumulator = new PriceAccumulator(dimension);
+  }
+
+  public static Dimension dimensionOf(String attributeName) {
+    return switch (attributeName) {
+      case "ingredient-revenue" -> Dimension.INGREDIENT;
+      case "burger-revenue" -> Dimension.BURGER;
+      default -> throw new IllegalArgumentException(
+          "Attribute '" + attributeName + "' is not a revenue attribute");
+    };
+  }
+
+  // A price as unscaled cents: MISSING_PRICE for null and REJECTED_PRICE for prices with
+  // fractions of a cent or beyond the range of a long.
+  public static long unscaledPrice(BigDecimal price) {
+    if (price == null) {
+      return MISSING_PRICE;
+    }
+    try {
+      long unscaledPrice = price.setScale(SCALE).unscaledValue().longValueExact();
+      return unscaledPrice <= REJECTED_PRICE
+          ? REJECTED_PRICE : unscaledPrice;
+    } catch (ArithmeticException e) {
+      return REJECTED_PRICE;
+    }
+  }
+
+  @Override
+  public PartialStatistic createPartial() {
+    return new PriceAccumulator(dimension);
+  }
+
+  @Override
+  public synchronized void mergePartial(PartialStatistic partial) {
+    mergedAccumulator.mergeFrom((PriceAccumulator) partial);
+  }
+
+  // Occurrences per name, in the order of the report: by revenue, then by name.
+  @Override
+  public synchronized Map<String, Long> getStatisticSortedByCountThenByName() {
+    List<String> names = new ArrayList<>(mergedAccumulator.names());
+    names.sort(Comparator.comparingLong(
+            (String name) -> mergedAccumulator.revenue(mergedAccumulator.idOf(name)))
+        .reversed()
+        .thenComparing(Comparator.naturalOrder()));
+
+    Map<String, Long> statistic = new LinkedHashMap<>();
+    for (String name : names) {
+      statistic.put(name, mergedAccumulator.count(mergedAccumulator.idOf(name)));
+    }
+    return statistic;
+  }
+
+  @Override
+  public synchronized Map<String, String> getItemElements(String name) {
+    int id = mergedAccumulator.idOf(name);
+    Map<String, String> elements = new LinkedHashMap<>();
+    elements.put("revenue", format(mergedAccumulator.revenue(id)));
+    elements.put("min", format(mergedAccumulator.minPrice(id)));
+    elements.put("max", format(mergedAccumulator.maxPrice(id)));
+    elements.put("mean", mean(mergedAccumulator.revenue(id), mergedAccumulator.count(id)));
+    return elements;
+  }
+
+  @Override
+  public synchronized Map<String, String> getStatisticProperties() {
+    LongHistogram orderRevenues = mergedAccumulator.orderRevenues();
+    LongHistogram itemPrices = mergedAccumulator.itemPrices();
+    Map<String, String> properties = new LinkedHashMap<>();
+    properties.put("orders", String.valueOf(mergedAccumulator.orders()));
+    properties.put("revenue", format(mergedAccumulator.revenue()));
+    properties.put("missingPrices", String.valueOf(mergedAccumulator.missingPrices()));
+    properties.put("rejectedPrices", String.valueOf(mergedAccumulator.rejectedPrices()));
+    putHistogram(properties, "orderRevenue", orderRevenues);
+    putHistogram(properties, dimension == Dimension.INGREDIENT ? "unitPrice" : "burgerPrice",
+        itemPrices);
+    return properties;
+  }
+
+  public synchronized long getRevenue(String name) {
+    int id = mergedAccumulator.idOf(name);
+    return id < 0 ? 0 : mergedAccumulator.revenue(id);
+  }
+
+  public synchronized long getRejectedPrices() {
+    return mergedAccumulator.rejectedPrices();
+  }
+
+  public synchronized LongHistogram getOrderRevenues() {
+    return mergedAccumulator.orderRevenues();
+  }
+
+  private static void putHistogram(Map<String, String> properties, String prefix,
+      LongHistogram histogram) {
+    properties.put(prefix + "Min", format(histogram.min()));
+    properties.put(prefix + "Max", format(histogram.max()));
+    properties.put(prefix + "Mean", mean(histogram.sum(), histogram.count()));
+    properties.put(prefix + "P50", format(histogram.percentile(50)));
+    properties.put(prefix + "P90", format(histogram.percentile(90)));
+    properties.put(prefix + "P99", format(histogram.percentile(99)));
+  }
+
+  public static String format(long unscaledPrice) {
+    return BigDecimal.valueOf(unscaledPrice, SCALE).toPlainString();
+  }
+
+  private static String mean(long unscaledSum, long count) {
+    if (count == 0) {
+      return format(0);
+    }
+    return BigDecimal.valueOf(unscaledSum, SCALE)
+        .divide(BigDecimal.valueOf(count), SCALE, RoundingMode.HALF_EVEN)
+        .toPlainString();
+  }
+}
@@ -0,0 +1,25 @@
+package com.fransua.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
+// The entries a report writes, grouped by time bucket; the null bucket is written without a
+// <bucket>. Closing them releases what the service needed to stream them.
+public record ReportEntries(Map<String, ? extends Iterable<Map.Entry<String, Long>>> buckets,
+    Function<String, Map<String, String>> itemElements, Closeable resources)
+    implements Closeable {
+
+  public static ReportEntries of(ReportedStatistic statistic) {
+    return new ReportEntries(Collections.singletonMap(null, statistic.statistic().entrySet()),
+        statistic.itemElements(), () -> {
+        });
+  }
+
+  @Override
+  public void close() throws IOException {
+    resources.close();
+  }
+}
@@ -0,0 +1,10 @@
+package com.fransua.service;
+
+import java.util.Map;
+import java.util.function.Function;
+
+// A sorted statistic together with the extra elements of its items, taken at once so both
+// always describe the same items.
+public record ReportedStatistic(Map<String, Long> statistic,
+    Function<String, Map<String, String>> itemElements) {
+}
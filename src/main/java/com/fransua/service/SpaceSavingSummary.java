@@ -0,0 +1,173 @@
+package com.fransua.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Space-Saving top-K summary with a fixed number of counters. A monitored count never
+// undercounts and overcounts by at most its error, which is bounded by totalCount / capacity.
+public class SpaceSavingSummary {
+
+  public static final class Counter {
+
+    private String item;
+    private long count;
+    private long error;
+    private int heapIndex;
+
+    public String item() {
+      return item;
+    }
+
+    public long count() {
+      return count;
+    }
+
+    public long error() {
+      return error;
+    }
+  }
+
+  private final int capacity;
+  private final Map<String, Counter> counters;
+  private final Counter[] heap;
+  private int size;
+
+  public SpaceSavingSummary(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Space-Saving capacity must be positive");
+    }
+    this.capacity = capacity;
+    this.counters = new HashMap<>();
+    this.heap = new Counter[capacity];
+  }
+
+  public void add(String item, long count) {
+    add(item, count, 0);
+  }
+
+  private void add(String item, long count, long error) {
+    Counter counter = counters.get(item);
+    if (counter != null) {
+      counter.count += count;
+      counter.error += error;
+      siftDown(counter.heapIndex);
+      return;
+    }
+
+    if (size < capacity) {
+      counter = new Counter();
+      counter.item = item;
+      counter.count = count;
+      counter.error = error;
+      counter.heapIndex = size;
+      heap[size++] = counter;
+      counters.put(item, counter);
+      siftUp(counter.heapIndex);
+      return;
+    }
+
+    Counter minimum = heap[0];
+    counters.remove(minimum.item);
+    minimum.item = item;
+    minimum.error = minimum.count + error;
+    minimum.count += count;
+    counters.put(item, minimum);
+    siftDown(0);
+  }
+
+  public Counter find(String item) {
+    return counters.get(item);
+  }
+
+  // Items missing from a full summary may have been evicted with up to its minimum count,
+  // so that minimum is added to both the count and the error of items it does not monitor.
+  public void mergeFrom(SpaceSavingSummary other) {
+    long minimum = minimumCount();
+    long otherMinimum = other.minimumCount();
+    List<Counter> merged = new ArrayList<>(size + other.size);
+
+    for (int i = 0; i < size; ++i) {
+      Counter counter = heap[i];
+      Counter otherCounter = other.counters.get(counter.item);
+      merged.add(copy(counter.item,
+          counter.count + (otherCounter != null ? otherCounter.count : otherMinimum),
+          counter.error + (otherCounter != null ? otherCounter.error : otherMinimum)));
+    }
+    for (int i = 0; i < other.size; ++i) {
+      Counter otherCounter = other.heap[i];
+      if (!counters.containsKey(otherCounter.item)) {
+        merged.add(copy(otherCounter.item, otherCounter.count + minimum,
+            otherCounter.error + minimum));
+      }
+    }
+
+    merged.sort(Comparator.comparingLong(Counter::count).reversed());
+    counters.clear();
+    size = 0;
+    for (Counter counter : merged.subList(0, Math.min(capacity, merged.size()))) {
+      add(counter.item, counter.count, counter.error);
+    }
+  }
+
+  public void forEach(Consumer<Counter> action) {
+    for (int i = 0; i < size; ++i) {
+      action.accept(heap[i]);
+    }
+  }
+
+  public long minimumCount() {
+    return size < capacity ? 0 : heap[0].count;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  private static Counter copy(String item, long count, long error) {
+    Counter counter = new Counter();
+    counter.item = item;
+    counter.count = count;
+    counter.error = error;
+    return counter;
+  }
+
+  private void siftUp(int index) {
+    Counter counter = heap[index];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (heap[parent].count <= counter.count) {
+        break;
+      }
+      place(heap[parent], index);
+      index = parent;
+    }
+    place(counter, index);
+  }
+
+  private void siftDown(int index) {
+    Counter counter = heap[index];
+    int half = size >>> 1;
+    while (index < half) {
+      int child = 2 * index + 1;
+      int right = child + 1;
+      if (right < size && heap[right].count < heap[child].count) {
+        child = right;
+      }
+      if (counter.count <= heap[child].count) {
+        break;
+      }
+      place(heap[child], index);
+      index = child;
+    }
+    place(counter, index);
+  }
+
+  private void place(Counter counter, int index) {
+    heap[index] = counter;
+    counter.heapIndex = index;
+  }
+}
@@ -1,25 +1,66 @@
 package com.fransua.service;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 
-public class StatisticCalculatorService {
+public class StatisticCalculatorService implements ValueStatisticService {
 
-  private final Map<String, Integer> attributeCountStatistic = new ConcurrentHashMap<>();
+  private final AttributeCounter mergedCounter = new AttributeCounter();
+  private final Queue<AttributeCounter> threadCounters = new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<AttributeCounter> threadCounter = ThreadLocal.withInitial(() -> {
+    AttributeCounter counter = new AttributeCounter();
+    threadCounters.add(counter);
+    return counter;
+  });
 
+  @Override
+  public ValuePartialStatistic createPartial() {
+    return new AttributeCounter();
+  }
+
+  @Override
+  public synchronized void mergePartial(PartialStatistic partial) {
+    mergedCounter.mergeFrom((AttributeCounter) partial);
+  }
+
+  public synchronized void subtractPartial(AttributeCounter partial) {
+    partial.forEach((attributeName, count) -> mergedCounter.add(attributeName, -count));
+  }
+
+  @Override
   public void incrementAttributeCount(String attributeName) {
-    if (attributeName == null || attributeName.isBlank()) {
-      throw new IllegalArgumentException("Attribute name can't be empty");
+    threadCounter.get().increment(attributeName);
+  }
+
+  // Thread-local counters are read without locking, so the writers have to be finished
+  // (e.g. their futures completed) before the statistic is requested.
+  public AttributeCounter getAttributeCounter() {
+    AttributeCounter snapshot = new AttributeCounter();
+    synchronized (this) {
+      snapshot.mergeFrom(mergedCounter);
     }
-    attributeCountStatistic.merge(attributeName, 1, Integer::sum);
+    threadCounters.forEach(snapshot::mergeFrom);
+    return snapshot;
   }
 
-  public Map<String, Integer> getStatisticSortedByCountThenByName() {
-    return attributeCountStatistic.entrySet().stream()
-        .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+  @Override
+  public Map<String, Long> getStatisticSortedByCountThenByName() {
+    AttributeCounter snapshot = getAttributeCounter();
+
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(snapshot.size());
+    snapshot.forEach((attributeName, count) -> {
+      if (count != 0) {
+        entries.add(Map.entry(attributeName, count));
+      }
+    });
+    return entries.stream()
+        .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
             .thenComparing(Map.Entry.comparingByKey()))
         .collect(Collectors.toMap(
             Map.Entry::getKey,
@@ -0,0 +1,201 @@
+package com.fransua.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Mergeable exact statistic of one attribute: magic, version and attribute name, then the
+// entries sorted by value, each as a 1 byte + attribute value + varint count, and finally a 0
+// byte + the varint number of entries as a check. Sorted entries let any number of partials
+// be merged in one streaming pass (PartialStatisticMerger), and since the number of entries
+// isn't needed up front, a merge can be streamed into a partial again.
+public class StatisticPartialFile {
+
+  private static final int MAGIC = 0x4A535054;
+  private static final int VERSION = 1;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private StatisticPartialFile() {
+  }
+
+  public static void write(Path partialFile, String attributeName, AttributeCounter counter)
+      throws IOException {
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(counter.size());
+    counter.forEach((attributeValue, count) -> {
+      if (count != 0) {
+        entries.add(Map.entry(attributeValue, count));
+      }
+    });
+    entries.sort(Map.Entry.comparingByKey());
+
+    try (Writer writer = new Writer(partialFile, attributeName)) {
+      for (Map.Entry<String, Long> entry : entries) {
+        writer.write(entry.getKey(), entry.getValue());
+      }
+      writer.commit();
+    }
+  }
+
+  // Entries have to be written in ascending order of their values. The partial only replaces
+  // the target file on commit; a writer closed without commit leaves it untouched.
+  public static class Writer implements Closeable {
+
+    private final Path partialFile;
+    private final Path tmpFile;
+    private final DataOutputStream output;
+    private long writtenEntries;
+    private String lastAttributeValue;
+    private boolean committed;
+
+    public Writer(Path partialFile, String attributeName) throws IOException {
+      this(partialFile, attributeName, false);
+    }
+
+    // A compressed partial is the same stream, gzipped at the fastest level.
+    public Writer(Path partialFile, String attributeName, boolean compressed)
+        throws IOException {
+      this.partialFile = partialFile;
+      this.tmpFile = partialFile.resolveSibling(partialFile.getFileName() + ".tmp");
+      OutputStream stream = Files.newOutputStream(tmpFile);
+      if (compressed) {
+        stream = new GZIPOutputStream(stream, BUFFER_SIZE) {
+          {
+            def.setLevel(Deflater.BEST_SPEED);
+          }
+        };
+      }
+      this.output = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE));
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      PartialStatisticCodec.writeString(output, attributeName);
+    }
+
+    public void write(String attributeValue, long count) throws IOException {
+      if (lastAttributeValue != null && lastAttributeValue.compareTo(attributeValue) >= 0) {
+        throw new IllegalStateException("Partial entries must be sorted: '" + attributeValue
+            + "' after '" + lastAttributeValue + "'");
+      }
+      output.writeByte(1);
+      PartialStatisticCodec.writeString(output, attributeValue);
+      PartialStatisticCodec.writeVarLong(output, count);
+      lastAttributeValue = attributeValue;
+      ++writtenEntries;
+    }
+
+    public void commit() throws IOException {
+      output.writeByte(0);
+      PartialStatisticCodec.writeVarLong(output, writtenEntries);
+      output.close();
+      try {
+        Files.move(tmpFile, partialFile, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile, partialFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+      committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!committed) {
+        output.close();
+        Files.deleteIfExists(tmpFile);
+      }
+    }
+  }
+
+  // Reads the entries one at a time, in the order they were written.
+  public static class Reader implements Closeable {
+
+    private final DataInputStream input;
+    private final Path partialFile;
+    private final String attributeName;
+    private long readEntries;
+    private boolean finished;
+    private String attributeValue;
+    private long count;
+
+    public Reader(Path partialFile) throws IOException {
+      this.partialFile = partialFile;
+      this.input = new DataInputStream(open(partialFile));
+      try {
+        if (input.readInt() != MAGIC) {
+          throw new IOException(partialFile + " is not a statistic partial");
+        }
+        int version = input.readInt();
+        if (version != VERSION) {
+          throw new IOException("Partial version " + version + " of " + partialFile
+              + " is not supported");
+        }
+        this.attributeName = PartialStatisticCodec.readString(input);
+      } catch (IOException e) {
+        input.close();
+        throw e;
+      }
+    }
+
+    private static InputStream open(Path partialFile) throws IOException {
+      InputStream stream = new BufferedInputStream(Files.newInputStream(partialFile),
+          BUFFER_SIZE);
+      stream.mark(2);
+      boolean compressed = stream.read() == 0x1F && stream.read() == 0x8B;
+      stream.reset();
+      return compressed
+          ? new BufferedInputStream(new GZIPInputStream(stream, BUFFER_SIZE), BUFFER_SIZE)
+          : stream;
+    }
+
+    public String attributeName() {
+      return attributeName;
+    }
+
+    // Moves to the next entry; false once all entries have been read.
+    public boolean next() throws IOException {
+      if (finished) {
+        return false;
+      }
+      if (input.readByte() == 0) {
+        finished = true;
+        attributeValue = null;
+        long entryCount = PartialStatisticCodec.readVarLong(input);
+        if (entryCount != readEntries) {
+          throw new IOException("Partial " + partialFile + " is corrupt: " + readEntries
+              + " of " + entryCount + " entries read");
+        }
+        return false;
+      }
+      attributeValue = PartialStatisticCodec.readString(input);
+      count = PartialStatisticCodec.readVarLong(input);
+      ++readEntries;
+      return true;
+    }
+
+    public String attributeValue() {
+      return attributeValue;
+    }
+
+    public long count() {
+      return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+      input.close();
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.fransua.service;
+
+import java.io.IOException;
+import java.util.Map;
+
+public interface StatisticService {
+
+  PartialStatistic createPartial();
+
+  void mergePartial(PartialStatistic partial);
+
+  Map<String, Long> getStatisticSortedByCountThenByName();
+
+  default ReportedStatistic getReportedStatistic() {
+    return new ReportedStatistic(getStatisticSortedByCountThenByName(), this::getItemElements);
+  }
+
+  // Entries written to the report, to be closed once written: by default the sorted statistic,
+  // in memory.
+  default ReportEntries getReportEntries() throws IOException {
+    return ReportEntries.of(getReportedStatistic());
+  }
+
+  // Extra elements written inside the <item> of one reported name.
+  default Map<String, String> getItemElements(String name) {
+    return Map.of();
+  }
+
+  // Report-level properties written as attributes of the <statistic> element.
+  default Map<String, String> getStatisticProperties() {
+    return Map.of();
+  }
+
+  // Maximum overestimation of the reported count, or -1 when counts are exact.
+  default long getCountError(String attributeName) {
+    return -1;
+  }
+}
@@ -0,0 +1,81 @@
+package com.fransua.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Per-file partial statistics of previous runs, keyed by the absolute file path.
+public class StatisticStateStore {
+
+  private static final int MAGIC = 0x4A535053;
+  private static final int VERSION = 1;
+
+  private StatisticStateStore() {
+  }
+
+  public static Map<String, FileState> load(Path stateFile) {
+    Map<String, FileState> states = new LinkedHashMap<>();
+    if (!Files.exists(stateFile)) {
+      return states;
+    }
+
+    try (DataInputStream input = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(stateFile)))) {
+      if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+        System.err.println("Ignoring state file with unknown format: " + stateFile);
+        return states;
+      }
+      long fileCount = PartialStatisticCodec.readVarLong(input);
+      for (long i = 0; i < fileCount; ++i) {
+        FileIdentity identity = new FileIdentity(PartialStatisticCodec.readString(input),
+            input.readLong(), input.readLong(), input.readLong());
+        int processedOrders = input.readInt();
+        long attributeCount = PartialStatisticCodec.readVarLong(input);
+        Map<String, AttributeCounter> counters = new LinkedHashMap<>();
+        for (long j = 0; j < attributeCount; ++j) {
+          counters.put(PartialStatisticCodec.readString(input),
+              PartialStatisticCodec.readCounter(input));
+        }
+        states.put(identity.path(), new FileState(identity, processedOrders, counters));
+      }
+      return states;
+    } catch (IOException e) {
+      System.err.println("Ignoring unreadable state file " + stateFile + ": " + e);
+      return new LinkedHashMap<>();
+    }
+  }
+
+  public static void save(Path stateFile, Collection<FileState> states) throws IOException {
+    Files.createDirectories(stateFile.getParent());
+    Path tmpFile = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+    try (DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      PartialStatisticCodec.writeVarLong(output, states.size());
+      for (FileState state : states) {
+        FileIdentity identity = state.identity();
+        PartialStatisticCodec.writeString(output, identity.path());
+        output.writeLong(identity.size());
+        output.writeLong(identity.lastModified());
+        output.writeLong(identity.contentHash());
+        output.writeInt(state.processedOrders());
+        PartialStatisticCodec.writeVarLong(output, state.counters().size());
+        for (Map.Entry<String, AttributeCounter> entry : state.counters().entrySet()) {
+          PartialStatisticCodec.writeString(output, entry.getKey());
+          PartialStatisticCodec.writeCounter(output, entry.getValue());
+        }
+      }
+    }
+    Files.move(tmpFile, stateFile, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+}
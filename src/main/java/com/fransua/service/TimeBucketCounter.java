@@ -0,0 +1,149 @@
+package com.fransua.service;
+
+import com.fransua.config.TimeBucketOptions;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// Counts per (time bucket, value) in a dense table: values get a dictionary id, and every
+// bucket between the earliest and the latest one seen owns a row of counts indexed by id.
+// Orders may arrive in any order. Like AttributeCounter it is not thread-safe.
+public class TimeBucketCounter implements ValuePartialStatistic {
+
+  public static final long UNKNOWN_BUCKET = Long.MIN_VALUE;
+
+  @FunctionalInterface
+  public interface BucketCountConsumer {
+
+    void accept(long bucket, String attributeName, long count);
+  }
+
+  private static final int INITIAL_ROW_CAPACITY = 16;
+
+  private final TimeBucketOptions options;
+  private final AttributeCounter valueIds = new AttributeCounter();
+  private final List<String> values = new ArrayList<>();
+  private long firstBucket;
+  private long[][] rows = new long[0][];
+  private long[] unknownRow;
+  private long currentBucket = UNKNOWN_BUCKET;
+  private long[] currentRow;
+
+  public TimeBucketCounter(TimeBucketOptions options) {
+    this.options = options;
+  }
+
+  @Override
+  public Set<OrderInput> orderInputs() {
+    return EnumSet.of(OrderInput.TIME);
+  }
+
+  @Override
+  public void startOrder(long orderKey, Instant createdAt) {
+    long bucket = createdAt == null ? UNKNOWN_BUCKET : options.bucketOf(createdAt);
+    if (bucket != currentBucket) {
+      currentBucket = bucket;
+      currentRow = null;
+    }
+  }
+
+  @Override
+  public void increment(String attributeName) {
+    countInCurrentRow(valueId(attributeName), 1);
+  }
+
+  @Override
+  public void add(String attributeName, long count) {
+    countInCurrentRow(valueId(attributeName), count);
+  }
+
+  // Values seen before are looked up by their characters.
+  @Override
+  public void increment(char[] text, int offset, int length) {
+    int valueId = (int) valueIds.get(text, offset, length) - 1;
+    countInCurrentRow(valueId >= 0 ? valueId : valueId(new String(text, offset, length)), 1);
+  }
+
+  private void countInCurrentRow(int valueId, long count) {
+    if (currentRow == null || valueId >= currentRow.length) {
+      currentRow = row(currentBucket, valueId);
+    }
+    currentRow[valueId] += count;
+  }
+
+  public void add(long bucket, String attributeName, long count) {
+    int valueId = valueId(attributeName);
+    row(bucket, valueId)[valueId] += count;
+    currentRow = null;
+  }
+
+  public void mergeFrom(TimeBucketCounter other) {
+    other.forEach(this::add);
+  }
+
+  public void forEach(BucketCountConsumer action) {
+    for (int i = 0; i < rows.length; ++i) {
+      forEachCount(firstBucket + i, rows[i], action);
+    }
+    forEachCount(UNKNOWN_BUCKET, unknownRow, action);
+  }
+
+  private void forEachCount(long bucket, long[] row, BucketCountConsumer action) {
+    if (row == null) {
+      return;
+    }
+    for (int valueId = 0; valueId < row.length; ++valueId) {
+      if (row[valueId] != 0) {
+        action.accept(bucket, values.get(valueId), row[valueId]);
+      }
+    }
+  }
+
+  private int valueId(String attributeName) {
+    long id = valueIds.get(attributeName);
+    if (id == 0) {
+      valueIds.add(attributeName, values.size() + 1);
+      values.add(attributeName);
+      return values.size() - 1;
+    }
+    return (int) id - 1;
+  }
+
+  // Returns the row of the bucket, grown to hold valueId, extending the table as needed.
+  private long[] row(long bucket, int valueId) {
+    if (bucket == UNKNOWN_BUCKET) {
+      unknownRow = grow(unknownRow, valueId);
+      return unknownRow;
+    }
+    if (rows.length == 0) {
+      firstBucket = bucket;
+      rows = new long[1][];
+    } else if (bucket < firstBucket) {
+      // Leave room for further earlier buckets, as orders are not sorted by time.
+      int shift = Math.toIntExact(Math.max(firstBucket - bucket, rows.length));
+      long[][] newRows = new long[rows.length + shift][];
+      System.arraycopy(rows, 0, newRows, shift, rows.length);
+      rows = newRows;
+      firstBucket -= shift;
+    } else if (bucket - firstBucket >= rows.length) {
+      int length = Math.toIntExact(bucket - firstBucket + 1);
+      rows = Arrays.copyOf(rows, Math.max(length, rows.length * 2));
+    }
+    int index = (int) (bucket - firstBucket);
+    rows[index] = grow(rows[index], valueId);
+    return rows[index];
+  }
+
+  private long[] grow(long[] row, int valueId) {
+    if (row == null) {
+      return new long[Math.max(INITIAL_ROW_CAPACITY, values.size())];
+    }
+    if (valueId < row.length) {
+      return row;
+    }
+    return Arrays.copyOf(row, Math.max(valueId + 1, row.length * 2));
+  }
+}
@@ -0,0 +1,93 @@
+package com.fransua.service;
+
+import com.fransua.config.TimeBucketOptions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Exact counts split into time buckets of Order.createdAt. The flat statistic is the sum over
+// all buckets, so it equals the one of StatisticCalculatorService.
+public class TimeBucketStatisticService implements ValueStatisticService {
+
+  private final TimeBucketOptions options;
+  private final TimeBucketCounter mergedCounter;
+
+  public TimeBucketStatisticService(TimeBucketOptions options) {
+    this.options = options;
+    this.mergedCounter = new TimeBucketCounter(options);
+  }
+
+  @Override
+  public ValuePartialStatistic createPartial() {
+    return new TimeBucketCounter(options);
+  }
+
+  @Override
+  public synchronized void mergePartial(PartialStatistic partial) {
+    mergedCounter.mergeFrom((TimeBucketCounter) partial);
+  }
+
+  @Override
+  public synchronized void incrementAttributeCount(String attributeName) {
+    mergedCounter.add(TimeBucketCounter.UNKNOWN_BUCKET, attributeName, 1);
+  }
+
+  @Override
+  public Map<String, Long> getStatisticSortedByCountThenByName() {
+    AttributeCounter totals = new AttributeCounter();
+    synchronized (this) {
+      mergedCounter.forEach((bucket, attributeName, count) -> totals.add(attributeName, count));
+    }
+    return sortByCountThenByName(totals);
+  }
+
+  // Statistic per bucket label, in time order; orders without createdAt come last.
+  public Map<String, Map<String, Long>> getStatisticByBucket() {
+    Map<Long, AttributeCounter> buckets = new TreeMap<>();
+    synchronized (this) {
+      mergedCounter.forEach((bucket, attributeName, count) -> buckets
+          .computeIfAbsent(bucket, b -> new AttributeCounter())
+          .add(attributeName, count));
+    }
+
+    Map<String, Map<String, Long>> statistic = new LinkedHashMap<>();
+    AttributeCounter unknownBucket = buckets.remove(TimeBucketCounter.UNKNOWN_BUCKET);
+    buckets.forEach((bucket, counter) ->
+        statistic.put(options.bucketLabel(bucket), sortByCountThenByName(counter)));
+    if (unknownBucket != null) {
+      statistic.put("unknown", sortByCountThenByName(unknownBucket));
+    }
+    return statistic;
+  }
+
+  @Override
+  public ReportEntries getReportEntries() {
+    Map<String, Iterable<Map.Entry<String, Long>>> buckets = new LinkedHashMap<>();
+    getStatisticByBucket().forEach((bucket, statistic) -> buckets.put(bucket,
+        statistic.entrySet()));
+    return new ReportEntries(buckets, null, () -> {
+    });
+  }
+
+  @Override
+  public Map<String, String> getStatisticProperties() {
+    Map<String, String> properties = new LinkedHashMap<>();
+    properties.put("bucketWidth", options.width().toString());
+    properties.put("timeZone", options.zone().getId());
+    return properties;
+  }
+
+  private static Map<String, Long> sortByCountThenByName(AttributeCounter counter) {
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(counter.size());
+    counter.forEach((attributeName, count) -> entries.add(Map.entry(attributeName, count)));
+    entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+        .thenComparing(Map.Entry.comparingByKey()));
+
+    Map<String, Long> statistic = new LinkedHashMap<>();
+    entries.forEach(entry -> statistic.put(entry.getKey(), entry.getValue()));
+    return statistic;
+  }
+}
@@ -0,0 +1,35 @@
+package com.fransua.service;
+
+// Reads the two longs of the canonical text form of a UUID straight from characters.
+final class UuidText {
+
+  private UuidText() {
+  }
+
+  static boolean isCanonical(char[] text, int offset, int length) {
+    return length == 36 && text[offset + 8] == '-' && text[offset + 13] == '-'
+        && text[offset + 18] == '-' && text[offset + 23] == '-';
+  }
+
+  static long mostSigBits(char[] text, int offset) {
+    return parseHex(text, offset, 8) << 32
+        | parseHex(text, offset + 9, 4) << 16 | parseHex(text, offset + 14, 4);
+  }
+
+  static long leastSigBits(char[] text, int offset) {
+    return parseHex(text, offset + 19, 4) << 48 | parseHex(text, offset + 24, 12);
+  }
+
+  private static long parseHex(char[] text, int offset, int length) {
+    long value = 0;
+    for (int i = offset; i < offset + length; ++i) {
+      int digit = Character.digit(text[i], 16);
+      if (digit < 0) {
+        throw new IllegalArgumentException(
+            "Invalid UUID string: " + new String(text, offset, length));
+      }
+      value = value << 4 | digit;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,17 @@
+package com.fransua.service;
+
+// A partial statistic that counts single attribute values, one increment per occurrence. add
+// takes the count of many occurrences at once, e.g. from the columnar cache, and must not
+// cost more than one increment.
+public interface ValuePartialStatistic extends PartialStatistic {
+
+  void increment(String attributeName);
+
+  // A value given as characters, e.g. straight from the parser buffer. Counters that can look
+  // values up by their characters avoid creating a String per record.
+  default void increment(char[] text, int offset, int length) {
+    increment(new String(text, offset, length));
+  }
+
+  void add(String attributeName, long count);
+}
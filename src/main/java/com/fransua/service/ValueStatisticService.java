@@ -0,0 +1,10 @@
+package com.fransua.service;
+
+// A statistic of single attribute values, which can also be counted one value at a time.
+public interface ValueStatisticService extends StatisticService {
+
+  @Override
+  ValuePartialStatistic createPartial();
+
+  void incrementAttributeCount(String attributeName);
+}
@@ -1,89 +1,228 @@
 package com.fransua.service;
 
 import com.fransua.config.ApplicationConfig;
-import java.io.File;
+import com.fransua.config.ReportOptions;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import java.util.function.Function;
 
 public class XmlReporterService {
 
-  public static void createReport(Map<String, Integer> statistics, String attributeName) {
-    try {
-      Document document = createEmptyDocument();
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String LINE_SEPARATOR = System.lineSeparator();
 
-      fillDocument(statistics, document, attributeName);
+  public static void createReport(Map<String, Long> statistics, String attributeName) {
+    createReport(statistics, attributeName, ReportOptions.unlimited());
+  }
 
-      transformAndWrite(document, attributeName);
-    } catch (Exception e) {
-      throw new RuntimeException(e);
-    }
+  public static void createReport(Map<String, Long> statistics, String attributeName,
+      ReportOptions reportOptions) {
+    createReport(statistics, attributeName, reportOptions,
+        initializeStatisticFile(attributeName));
   }
 
-  private static void transformAndWrite(Document document, String attributeName)
-      throws TransformerException {
-    TransformerFactory transformerFactory = TransformerFactory.newInstance();
-    Transformer transformer = transformerFactory.newTransformer();
-    transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-    transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+  public static void createReport(Map<String, Long> statistics, String attributeName,
+      ReportOptions reportOptions, Path statisticFile) {
+    writeReport(Collections.singletonMap(null, statistics.entrySet()), Map.of(), null,
+        attributeName, reportOptions, statisticFile);
+  }
 
-    DOMSource source = new DOMSource(document);
-    File statisticFile = initializeStatisticFile(attributeName);
-    StreamResult result = new StreamResult(statisticFile);
+  public static void createReport(StatisticService statisticService, String attributeName,
+      ReportOptions reportOptions) {
+    createReport(statisticService, attributeName, reportOptions,
+        initializeStatisticFile(attributeName));
+  }
 
-    transformer.transform(source, result);
+  public static void createReport(StatisticService statisticService, String attributeName,
+      ReportOptions reportOptions, Path statisticFile) {
+    Map<String, String> properties = statisticService.getStatisticProperties();
+    try (ReportEntries entries = statisticService.getReportEntries()) {
+      writeReport(entries.buckets(), properties, entries.itemElements(), attributeName,
+          reportOptions, statisticFile);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
   }
 
-  private static File initializeStatisticFile(String attributeName) {
-    String directoryName = ApplicationConfig.statisticDirectoryName();
+  public static void writeReport(Iterable<Map.Entry<String, Long>> statistics,
+      Map<String, String> properties, Function<String, Map<String, String>> itemElements,
+      String attributeName, ReportOptions reportOptions, Writer writer) throws IOException {
+    writeReport(Collections.singletonMap(null, statistics), properties, itemElements,
+        attributeName, reportOptions, writer);
+  }
+
+  // Statistics are grouped by time bucket; the null bucket is written without a <bucket>.
+  private static void writeReport(
+      Map<String, ? extends Iterable<Map.Entry<String, Long>>> bucketStatistics,
+      Map<String, String> properties, Function<String, Map<String, String>> itemElements,
+      String attributeName, ReportOptions reportOptions, Path statisticFile) {
+    Path tmpFile = statisticFile.resolveSibling(statisticFile.getFileName() + ".tmp");
     try {
-      if (!Files.exists(Path.of(directoryName))) {
-        Files.createDirectory(Path.of(directoryName));
+      try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+          Writer writer = new BufferedWriter(
+              Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+        writeReport(bucketStatistics, properties, itemElements, attributeName, reportOptions,
+            writer);
       }
+      moveAtomically(tmpFile, statisticFile);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
-    String statisticFileName = ApplicationConfig.getStatisticFileNameFor(attributeName);
-    Path statisticFilePath = Path.of(directoryName, statisticFileName);
-    return statisticFilePath.toFile();
   }
 
-  private static void fillDocument(Map<String, Integer> statistics, Document document,
-      String attributeName) {
-    Element rootElement = document.createElement("statistic");
-    document.appendChild(rootElement);
+  // Readers of the report never observe a partially written file.
+  private static void moveAtomically(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  // Streams the same bytes the DOM + identity Transformer (indent-amount 2) used to produce,
+  // without materializing a Document.
+  private static void writeReport(
+      Map<String, ? extends Iterable<Map.Entry<String, Long>>> bucketStatistics,
+      Map<String, String> properties, Function<String, Map<String, String>> itemElements,
+      String attributeName, ReportOptions reportOptions, Writer writer) throws IOException {
+    writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+    writer.write(LINE_SEPARATOR);
+
+    // Composite keys such as burger-name,ingredient-name become <burgername_ingredientname>.
+    String clearAttributeName = attributeName.toLowerCase(Locale.ROOT).replaceAll("-", "")
+        .replace(',', '_');
+    boolean rootWritten = false;
+    for (Map.Entry<String, ? extends Iterable<Map.Entry<String, Long>>> bucket
+        : bucketStatistics.entrySet()) {
+      long itemIndex = 0;
+      for (Map.Entry<String, Long> statistic : bucket.getValue()) {
+        if (!reportOptions.accepts(itemIndex, statistic.getValue())) {
+          break;
+        }
+        if (!rootWritten) {
+          writeRootStart(writer, properties);
+          writer.write('>');
+          writer.write(LINE_SEPARATOR);
+          rootWritten = true;
+        }
+        ++itemIndex;
 
-    for (Map.Entry<String, Integer> statistic : statistics.entrySet()) {
-      Element item = document.createElement("item");
-      rootElement.appendChild(item);
+        writer.write("  <item>");
+        writer.write(LINE_SEPARATOR);
+        if (bucket.getKey() != null) {
+          writeElement(writer, "bucket", bucket.getKey());
+        }
+        writeElement(writer, clearAttributeName, statistic.getKey());
+        writeElement(writer, "count", statistic.getValue().toString());
+        if (itemElements != null) {
+          for (Map.Entry<String, String> element
+              : itemElements.apply(statistic.getKey()).entrySet()) {
+            writeElement(writer, element.getKey(), element.getValue());
+          }
+        }
+        writer.write("  </item>");
+        writer.write(LINE_SEPARATOR);
+      }
+    }
+
+    if (!rootWritten) {
+      writeRootStart(writer, properties);
+      writer.write("/>");
+    } else {
+      writer.write("</statistic>");
+    }
+    writer.write(LINE_SEPARATOR);
+  }
 
-      String clearAttributeName = attributeName.toLowerCase(Locale.ROOT).replaceAll("-", "");
-      Element attribute = document.createElement(clearAttributeName);
-      attribute.setTextContent(statistic.getKey());
-      item.appendChild(attribute);
+  private static void writeRootStart(Writer writer, Map<String, String> properties)
+      throws IOException {
+    writer.write("<statistic");
+    for (Map.Entry<String, String> property : properties.entrySet()) {
+      writer.write(' ');
+      writer.write(property.getKey());
+      writer.write("=\"");
+      writeEscapedText(writer, property.getValue(), true);
+      writer.write('"');
+    }
+  }
+
+  private static void writeElement(Writer writer, String elementName, String text)
+      throws IOException {
+    writer.write("    <");
+    writer.write(elementName);
+    if (text.isEmpty()) {
+      writer.write("/>");
+    } else {
+      writer.write('>');
+      writeEscapedText(writer, text, false);
+      writer.write("</");
+      writer.write(elementName);
+      writer.write('>');
+    }
+    writer.write(LINE_SEPARATOR);
+  }
 
-      Element count = document.createElement("count");
-      count.setTextContent(statistic.getValue().toString());
-      item.appendChild(count);
+  private static void writeEscapedText(Writer writer, String text, boolean attributeValue)
+      throws IOException {
+    int start = 0;
+    for (int i = 0; i < text.length(); ++i) {
+      char c = text.charAt(i);
+      String replacement;
+      int length = 1;
+      if (c == '&') {
+        replacement = "&amp;";
+      } else if (c == '<') {
+        replacement = "&lt;";
+      } else if (c == '>') {
+        replacement = "&gt;";
+      } else if (c == '"' && attributeValue) {
+        replacement = "&quot;";
+      } else if (c == '\n') {
+        replacement = LINE_SEPARATOR;
+      } else if ((c < 0x20 && c != '\t') || (c >= 0x7F && c <= 0x9F)) {
+        replacement = "&#" + (int) c + ";";
+      } else if (Character.isSurrogate(c)) {
+        if (!Character.isHighSurrogate(c) || i + 1 >= text.length()
+            || !Character.isLowSurrogate(text.charAt(i + 1))) {
+          throw new IOException("Invalid UTF-16 surrogate detected: " + Integer.toHexString(c));
+        }
+        replacement = "&#" + Character.toCodePoint(c, text.charAt(i + 1)) + ";";
+        length = 2;
+      } else {
+        continue;
+      }
+      writer.write(text, start, i - start);
+      writer.write(replacement);
+      i += length - 1;
+      start = i + 1;
     }
+    writer.write(text, start, text.length() - start);
   }
 
-  private static Document createEmptyDocument() throws ParserConfigurationException {
-    DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-    return documentBuilder.newDocument();
+  private static Path initializeStatisticFile(String attributeName) {
+    String directoryName = ApplicationConfig.statisticDirectoryName();
+    try {
+      if (!Files.exists(Path.of(directoryName))) {
+        Files.createDirectory(Path.of(directoryName));
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    String statisticFileName = ApplicationConfig.getStatisticFileNameFor(attributeName);
+    return Path.of(directoryName, statisticFileName);
   }
 }
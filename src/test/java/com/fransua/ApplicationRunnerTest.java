@@ -4,11 +4,19 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.SchedulerOptions;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import com.fransua.processor.ParallelFileWalker;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
@@ -68,4 +76,43 @@ public class ApplicationRunnerTest {
     assertTrue(foundNames.contains("order_b_1.json"));
     assertTrue(foundNames.contains("order_b_2.JSON"));
   }
+
+  @Test
+  public void testParallelFileWalker_FindsTheSameFilesAsWalk() throws IOException {
+    List<File> walkedFiles = new ArrayList<>();
+    try (ParallelFileWalker walker = new ParallelFileWalker(tmpDirectory, 3)) {
+      File file;
+      while ((file = walker.next()) != null) {
+        walkedFiles.add(file);
+      }
+    }
+
+    assertEquals(5, walkedFiles.size());
+    assertEquals(new HashSet<>(ApplicationRunner.findJsonFiles(tmpDirectory)),
+        new HashSet<>(walkedFiles));
+  }
+
+  @Test
+  public void testRun_ParallelWalkEqualsSortedRun() throws Exception {
+    Path inputDirectory = tmpDirectory.resolve("input");
+    new OrderDatasetGenerator(DatasetOptions.defaults().withOrderCount(600).withFileCount(150))
+        .generate(inputDirectory.resolve("small"));
+    new OrderDatasetGenerator(DatasetOptions.defaults().withOrderCount(4000).withFileCount(1))
+        .generate(inputDirectory.resolve("nested").resolve("large"));
+    List<String> attributeNames = ApplicationConfig.availableAttributeNames();
+    ApplicationConfig config = new ApplicationConfig(inputDirectory.toFile(), attributeNames,
+        ParsingMode.STREAMING);
+
+    Path sortedOutput = tmpDirectory.resolve("sorted");
+    new ApplicationRunner(config.withOutputDirectory(sortedOutput.toFile())).run();
+    Path walkedOutput = tmpDirectory.resolve("walked");
+    new ApplicationRunner(config.withOutputDirectory(walkedOutput.toFile())
+        .withSchedulerOptions(new SchedulerOptions(4, false, true))).run();
+
+    for (String attributeName : attributeNames) {
+      String fileName = ApplicationConfig.getStatisticFileNameFor(attributeName);
+      assertEquals(Files.readString(sortedOutput.resolve(fileName)),
+          Files.readString(walkedOutput.resolve(fileName)), attributeName);
+    }
+  }
 }
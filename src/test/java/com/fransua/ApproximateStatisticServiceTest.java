@@ -0,0 +1,118 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.ReportOptions;
+import com.fransua.config.StatisticOptions;
+import com.fransua.processor.JsonFileProcessor;
+import com.fransua.service.ApproximateStatisticService;
+import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.StatisticService;
+import com.fransua.service.ValuePartialStatistic;
+import com.fransua.service.ValueStatisticService;
+import com.fransua.service.XmlReporterService;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class ApproximateStatisticServiceTest {
+
+  private static final Path DATASET_DIRECTORY = Path.of("test_dataset");
+
+  @Test
+  public void testGetStatistic_TopKMatchesExactEngineOnDataset() throws Exception {
+    StatisticOptions options = StatisticOptions.approximate(100, 0.001, 0.01);
+    for (String attributeName : ApplicationConfig.availableAttributeNames()) {
+      StatisticService exactService = new StatisticCalculatorService();
+      StatisticService approximateService = new ApproximateStatisticService(options);
+      ApplicationConfig config = new ApplicationConfig(DATASET_DIRECTORY.toFile(),
+          List.of(attributeName), ParsingMode.STREAMING);
+
+      for (File file : ApplicationRunner.findJsonFiles(DATASET_DIRECTORY)) {
+        new JsonFileProcessor(config, file, Map.of(attributeName, exactService)).call();
+        new JsonFileProcessor(config, file, Map.of(attributeName, approximateService)).call();
+      }
+
+      Map<String, Long> exactStatistic = exactService.getStatisticSortedByCountThenByName();
+      Map<String, Long> approximateStatistic =
+          approximateService.getStatisticSortedByCountThenByName();
+      assertEquals(new ArrayList<>(exactStatistic.entrySet()),
+          new ArrayList<>(approximateStatistic.entrySet()));
+      for (String name : approximateStatistic.keySet()) {
+        assertEquals(0, approximateService.getCountError(name));
+      }
+    }
+  }
+
+  @Test
+  public void testGetStatistic_HeavyHittersWithinBoundsForSkewedStream() {
+    int capacity = 50;
+    ValueStatisticService approximateService =
+        new ApproximateStatisticService(StatisticOptions.approximate(capacity, 0.001, 0.01));
+    ValueStatisticService exactService = new StatisticCalculatorService();
+
+    Random random = new Random(42);
+    for (int p = 0; p < 8; ++p) {
+      ValuePartialStatistic approximatePartial = approximateService.createPartial();
+      ValuePartialStatistic exactPartial = exactService.createPartial();
+      for (int i = 0; i < 20_000; ++i) {
+        // roughly Zipf-distributed over 5,000 distinct values
+        int rank = (int) Math.floor(Math.pow(5_000, random.nextDouble()));
+        String attributeName = "Ingredient " + rank;
+        approximatePartial.increment(attributeName);
+        exactPartial.increment(attributeName);
+      }
+      approximateService.mergePartial(approximatePartial);
+      exactService.mergePartial(exactPartial);
+    }
+
+    Map<String, Long> exactStatistic = exactService.getStatisticSortedByCountThenByName();
+    Map<String, Long> approximateStatistic =
+        approximateService.getStatisticSortedByCountThenByName();
+
+    assertTrue(approximateStatistic.size() <= capacity);
+    List<String> exactTop = new ArrayList<>(exactStatistic.keySet()).subList(0, 5);
+    List<String> approximateTop = new ArrayList<>(approximateStatistic.keySet()).subList(0, 5);
+    assertEquals(exactTop, approximateTop);
+
+    for (Map.Entry<String, Long> entry : approximateStatistic.entrySet()) {
+      long exactCount = exactStatistic.get(entry.getKey());
+      long error = approximateService.getCountError(entry.getKey());
+      assertTrue(entry.getValue() >= exactCount);
+      assertTrue(entry.getValue() - error <= exactCount);
+    }
+  }
+
+  @Test
+  public void testCreateReport_WritesErrorBounds() throws Exception {
+    ValueStatisticService approximateService =
+        new ApproximateStatisticService(StatisticOptions.approximate(10, 0.01, 0.05));
+    approximateService.incrementAttributeCount("Brioche Bun");
+    approximateService.incrementAttributeCount("Brioche Bun");
+    approximateService.incrementAttributeCount("Sesame Bun");
+
+    Path reportFile = Files.createTempFile("approximate", ".xml");
+    try {
+      XmlReporterService.createReport(approximateService, "ingredient-name",
+          ReportOptions.unlimited(), reportFile);
+      String report = Files.readString(reportFile);
+
+      assertTrue(report.contains("<statistic engine=\"approximate\" capacity=\"10\""
+          + " epsilon=\"0.01\" delta=\"0.05\" totalCount=\"3\""));
+      assertTrue(report.contains("maxCountMinError=\"1\""));
+      assertTrue(report.contains("<ingredientname>Brioche Bun</ingredientname>"
+          + System.lineSeparator() + "    <count>2</count>"
+          + System.lineSeparator() + "    <error>0</error>"));
+    } finally {
+      Files.deleteIfExists(reportFile);
+    }
+  }
+}
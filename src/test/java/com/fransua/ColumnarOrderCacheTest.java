@@ -0,0 +1,148 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.CacheOptions;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.StatisticOptions;
+import com.fransua.config.TimeBucketOptions;
+import com.fransua.generator.DatasetFormat;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ColumnarOrderCacheTest {
+
+  private Path tmpDirectory;
+  private Path inputDirectory;
+  private int runs;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("columnar_cache_dir");
+    inputDirectory = tmpDirectory.resolve("input");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testRun_CachedRunsEqualParsedRuns() throws Exception {
+    new OrderDatasetGenerator(DatasetOptions.defaults().withOrderCount(2000).withFileCount(2))
+        .generate(inputDirectory);
+    new OrderDatasetGenerator(DatasetOptions.defaults().withOrderCount(1000).withFileCount(1)
+        .withFormat(DatasetFormat.NDJSON)).generate(inputDirectory.resolve("ndjson"));
+    List<String> attributeNames = new ArrayList<>(ApplicationConfig.availableAttributeNames());
+    attributeNames.addAll(ApplicationConfig.revenueAttributeNames());
+    ApplicationConfig config = new ApplicationConfig(inputDirectory.toFile(), attributeNames,
+        ParsingMode.STREAMING).withOutputDirectory(tmpDirectory.resolve("output").toFile());
+
+    Path expected = run(config);
+    ApplicationConfig cachedConfig = config.withCacheOptions(new CacheOptions(true));
+    assertSameReports(attributeNames, expected, run(cachedConfig));
+    assertCacheUse(0, 3);
+    assertSameReports(attributeNames, expected, run(cachedConfig));
+    assertCacheUse(3, 0);
+
+    ApplicationConfig bucketConfig = config.withTimeBucketOptions(
+        new TimeBucketOptions(Duration.ofHours(1), ZoneOffset.UTC));
+    ApplicationConfig cachedBucketConfig = bucketConfig.withCacheOptions(new CacheOptions(true));
+    assertSameReports(attributeNames, run(bucketConfig), run(cachedBucketConfig));
+    assertCacheUse(3, 0);
+  }
+
+  // With room for every value the summaries are exact, so bulk adds from the cache must give
+  // the same reports as one increment per parsed record.
+  @Test
+  public void testRun_CachedApproximateRunsEqualParsedRuns() throws Exception {
+    new OrderDatasetGenerator(DatasetOptions.defaults().withOrderCount(2000).withFileCount(2))
+        .generate(inputDirectory);
+    List<String> attributeNames = ApplicationConfig.availableAttributeNames();
+    ApplicationConfig config = new ApplicationConfig(inputDirectory.toFile(), attributeNames,
+        ParsingMode.STREAMING).withOutputDirectory(tmpDirectory.resolve("output").toFile())
+        .withStatisticOptions(StatisticOptions.approximate(1000, 0.001, 0.01));
+
+    Path expected = run(config);
+    ApplicationConfig cachedConfig = config.withCacheOptions(new CacheOptions(true));
+    assertSameReports(attributeNames, expected, run(cachedConfig));
+    assertCacheUse(0, 2);
+    assertSameReports(attributeNames, expected, run(cachedConfig));
+    assertCacheUse(2, 0);
+  }
+
+  @Test
+  public void testRun_ChangedAndRemovedFilesInvalidateTheirCache() throws Exception {
+    List<Path> files = new OrderDatasetGenerator(DatasetOptions.defaults().withOrderCount(1500)
+        .withFileCount(3)).generate(inputDirectory);
+    List<String> attributeNames = ApplicationConfig.availableAttributeNames();
+    ApplicationConfig config = new ApplicationConfig(inputDirectory.toFile(), attributeNames,
+        ParsingMode.STREAMING).withOutputDirectory(tmpDirectory.resolve("output").toFile())
+        .withCacheOptions(new CacheOptions(true));
+    run(config);
+
+    Path changedFile = files.get(0);
+    Files.writeString(changedFile, """
+        [{"createdAt": "2025-01-01T00:00:00Z",
+          "burgers": [{"name": "Changed", "ingredients": [{"name": "A", "unitPrice": "1.50"}]},
+                      {"name": 7, "ingredients": []}]}]
+        """);
+    Files.setLastModifiedTime(changedFile, FileTime.fromMillis(0));
+    Files.delete(files.get(1));
+
+    Path cached = run(config);
+    assertCacheUse(1, 0);
+    assertSameReports(attributeNames,
+        run(config.withCacheOptions(CacheOptions.disabled())), cached);
+    try (Stream<Path> pathStream = Files.list(config.cacheDirectory())) {
+      assertEquals(1, pathStream.count());
+    }
+  }
+
+  // Every run writes to the same output directory, which also decides the cache directory, and
+  // its reports are moved aside afterwards.
+  private Path run(ApplicationConfig config) throws Exception {
+    new ApplicationRunner(config).run();
+    Path reports = tmpDirectory.resolve("reports_" + runs++);
+    Files.move(config.outputDirectory().toPath(), reports);
+    return reports;
+  }
+
+  private void assertCacheUse(int hits, int builds) throws IOException {
+    Path summaryFile = tmpDirectory.resolve("reports_" + (runs - 1)).resolve("run_summary.json");
+    JsonNode summary = new ObjectMapper().readTree(summaryFile.toFile());
+    JsonNode cache = summary.get("columnarCache");
+    assertEquals(hits, cache == null ? 0 : cache.get("hits").asInt());
+    assertEquals(builds, cache == null ? 0 : cache.get("builds").asInt());
+  }
+
+  private static void assertSameReports(List<String> attributeNames, Path expectedDirectory,
+      Path actualDirectory) throws IOException {
+    for (String attributeName : attributeNames) {
+      String fileName = ApplicationConfig.getStatisticFileNameFor(attributeName);
+      assertEquals(Files.readString(expectedDirectory.resolve(fileName)),
+          Files.readString(actualDirectory.resolve(fileName)), attributeName);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package com.fransua;
+
+import static com.fransua.StatisticTestSupport.forEachOrder;
+import static com.fransua.StatisticTestSupport.readReport;
+import static com.fransua.StatisticTestSupport.sorted;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.CacheOptions;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.SchedulerOptions;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import com.fransua.model.Burger;
+import com.fransua.model.Ingredient;
+import com.fransua.processor.AttributeExtractor;
+import com.fransua.processor.AttributeExtractors;
+import com.fransua.processor.JsonFileProcessor;
+import com.fransua.service.CompositeStatisticService;
+import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.StatisticService;
+import java.io.File;
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CompositeStatisticServiceTest {
+
+  private static final List<String> ATTRIBUTE_NAMES = List.of("burger-name,ingredient-name",
+      "burger-name,price-band", "price-band");
+
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("composite_statistic_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testCompositeKeys_CountedPerIngredientWithoutMissingValues() throws Exception {
+    Path file = tmpDirectory.resolve("orders.json");
+    Files.writeString(file, """
+        [{"burgers": [{"name": "Classic", "ingredients": [{"name": "Bun", "unitPrice": 1.20},
+                        {"name": "Beef", "unitPrice": 5.50}, {"name": "Bun", "unitPrice": 1.80}]},
+                      {"ingredients": [{"name": "Bun", "unitPrice": 1.20}], "name": "Veggie"}]},
+         {"burgers": [{"name": "Classic", "ingredients": [{"name": "Beef"},
+                        {"unitPrice": 5.00}]},
+                      {"ingredients": [{"name": "Bun", "unitPrice": 1.00}]}]}]
+        """);
+
+    for (ParsingMode parsingMode : ParsingMode.values()) {
+      Map<String, StatisticService> services = new LinkedHashMap<>();
+      services.put("burger-name,ingredient-name",
+          new CompositeStatisticService(List.of("burger-name", "ingredient-name")));
+      services.put("price-band,burger-name",
+          new CompositeStatisticService(List.of("price-band", "burger-name")));
+      services.put("price-band", new StatisticCalculatorService());
+      new JsonFileProcessor(new ApplicationConfig(tmpDirectory.toFile(),
+          List.copyOf(services.keySet()), parsingMode), file.toFile(), services).call();
+
+      CompositeStatisticService burgerIngredients =
+          (CompositeStatisticService) services.get("burger-name,ingredient-name");
+      Map<String, Long> expected = new LinkedHashMap<>();
+      expected.put("Classic | Beef", 2L);
+      expected.put("Classic | Bun", 2L);
+      expected.put("Veggie | Bun", 1L);
+      assertEquals(expected, burgerIngredients.getStatisticSortedByCountThenByName());
+      assertEquals(Map.of("burgername", "Veggie", "ingredientname", "Bun"),
+          burgerIngredients.getReportedStatistic().itemElements().apply("Veggie | Bun"));
+
+      assertEquals(Map.of("[1, 2) | Classic", 2L, "[1, 2) | Veggie", 1L, "[5, 6) | Classic", 2L),
+          services.get("price-band,burger-name").getStatisticSortedByCountThenByName());
+
+      assertEquals(Map.of("[1, 2)", 4L, "[5, 6)", 2L),
+          services.get("price-band").getStatisticSortedByCountThenByName());
+    }
+  }
+
+  @Test
+  public void testCompositeKeys_SeparatorsInValuesKeepKeysApart() throws Exception {
+    Path file = tmpDirectory.resolve("orders.json");
+    Files.writeString(file, """
+        [{"burgers": [{"name": "a | b", "ingredients": [{"name": "c"}]},
+                      {"name": "a", "ingredients": [{"name": "b | c"}, {"name": "b \\\\| c"}]}]}]
+        """);
+
+    for (ParsingMode parsingMode : ParsingMode.values()) {
+      CompositeStatisticService burgerIngredients =
+          new CompositeStatisticService(List.of("burger-name", "ingredient-name"));
+      Map<String, StatisticService> services = Map.of("burger-name,ingredient-name",
+          burgerIngredients);
+      new JsonFileProcessor(new ApplicationConfig(tmpDirectory.toFile(),
+          List.copyOf(services.keySet()), parsingMode), file.toFile(), services).call();
+
+      assertEquals(Map.of("a \\| b | c", 1L, "a | b \\| c", 1L, "a | b \\\\\\| c", 1L),
+          burgerIngredients.getStatisticSortedByCountThenByName());
+      assertEquals(Map.of("burgername", "a", "ingredientname", "b | c"),
+          burgerIngredients.getReportedStatistic().itemElements().apply("a | b \\| c"));
+    }
+  }
+
+  @Test
+  public void testRun_CompositeKeysEqualStringKeyCountsInEveryMode() throws Exception {
+    Path inputDirectory = tmpDirectory.resolve("input");
+    List<Path> files = new OrderDatasetGenerator(DatasetOptions.defaults().withOrderCount(3000)
+        .withFileCount(4)).generate(inputDirectory);
+    Map<String, Map<String, Long>> expected = countKeysWithStrings(files);
+    ApplicationConfig config = new ApplicationConfig(inputDirectory.toFile(), ATTRIBUTE_NAMES,
+        ParsingMode.STREAMING).withSchedulerOptions(new SchedulerOptions(4, false, false));
+
+    List<ApplicationConfig> configs = List.of(config,
+        config.withSchedulerOptions(new SchedulerOptions(4, false, true)),
+        new ApplicationConfig(inputDirectory.toFile(), ATTRIBUTE_NAMES, ParsingMode.DATABIND),
+        config.withCacheOptions(new CacheOptions(true)),
+        config.withCacheOptions(new CacheOptions(true)));
+    Path output = tmpDirectory.resolve("output");
+    for (ApplicationConfig runConfig : configs) {
+      new ApplicationRunner(runConfig.withOutputDirectory(output.toFile())).run();
+      for (String attributeName : ATTRIBUTE_NAMES) {
+        assertTrue(expected.get(attributeName).size() > 1);
+        assertEquals(expected.get(attributeName), readReport(output, attributeName));
+      }
+    }
+  }
+
+  @Test
+  public void testResolve_RejectsUnknownRepeatedAndTooManyComponents() {
+    assertEquals(List.of("burger-name", "price-band"),
+        AttributeExtractors.resolve("burger-name,price-band").stream()
+            .map(AttributeExtractor::name)
+            .toList());
+    // Component names are case-sensitive like plain attribute names.
+    assertThrows(IllegalArgumentException.class,
+        () -> AttributeExtractors.resolve("Burger-Name,price-band"));
+    assertThrows(IllegalArgumentException.class,
+        () -> AttributeExtractors.resolve("burger-name,burger-size"));
+    assertThrows(IllegalArgumentException.class,
+        () -> AttributeExtractors.resolve("burger-name,burger-name"));
+    assertThrows(IllegalArgumentException.class,
+        () -> AttributeExtractors.resolve("burger-name,"));
+    assertThrows(IllegalArgumentException.class, () -> AttributeExtractors.resolve(
+        "burger-name,ingredient-name,ingredient-price,price-band"));
+  }
+
+  // The naive way: one concatenated String key per ingredient.
+  private static Map<String, Map<String, Long>> countKeysWithStrings(List<Path> files)
+      throws IOException {
+    Map<String, Long> burgerIngredients = new HashMap<>();
+    Map<String, Long> burgerPriceBands = new HashMap<>();
+    Map<String, Long> priceBands = new HashMap<>();
+    forEachOrder(files, order -> {
+      for (Burger burger : order.burgers()) {
+        for (Ingredient ingredient : burger.ingredients()) {
+          String priceBand = priceBand(ingredient);
+          burgerIngredients.merge(burger.name() + CompositeStatisticService.KEY_SEPARATOR
+              + ingredient.name(), 1L, Long::sum);
+          burgerPriceBands.merge(burger.name() + CompositeStatisticService.KEY_SEPARATOR
+              + priceBand, 1L, Long::sum);
+          priceBands.merge(priceBand, 1L, Long::sum);
+        }
+      }
+    });
+    return Map.of(ATTRIBUTE_NAMES.get(0), sorted(burgerIngredients), ATTRIBUTE_NAMES.get(1),
+        sorted(burgerPriceBands), ATTRIBUTE_NAMES.get(2), sorted(priceBands));
+  }
+
+  private static String priceBand(Ingredient ingredient) {
+    long units = ingredient.unitPrice().setScale(0, RoundingMode.FLOOR).longValueExact();
+    return "[" + units + ", " + (units + 1) + ")";
+  }
+}
@@ -0,0 +1,182 @@
+package com.fransua;
+
+import static com.fransua.StatisticTestSupport.forEachOrder;
+import static com.fransua.StatisticTestSupport.readReport;
+import static com.fransua.StatisticTestSupport.sorted;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.CacheOptions;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.ReportOptions;
+import com.fransua.config.SchedulerOptions;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import com.fransua.model.Burger;
+import com.fransua.model.Ingredient;
+import com.fransua.processor.JsonFileProcessor;
+import com.fransua.service.CooccurrenceStatisticService;
+import com.fransua.service.StatisticService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CooccurrenceStatisticServiceTest {
+
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("cooccurrence_statistic_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testPairs_CountedOncePerBasketWithSupportAndLift() throws Exception {
+    Path file = tmpDirectory.resolve("orders.json");
+    Files.writeString(file, """
+        [{"burgers": [{"name": "Classic", "ingredients": [{"name": "Bun"}, {"name": "Beef"},
+                        {"name": "Bun"}, {"name": "Cheese"}]},
+                      {"name": "Veggie", "ingredients": [{"name": "Bun"}, {"name": "Tofu"}]}]},
+         {"burgers": [{"name": "Classic", "ingredients": [{"name": "Bun"}, {"name": "Beef"}]},
+                      {"name": "Classic", "ingredients": []}]}]
+        """);
+
+    for (ParsingMode parsingMode : ParsingMode.values()) {
+      Map<String, StatisticService> services = new LinkedHashMap<>();
+      for (String attributeName : ApplicationConfig.pairAttributeNames()) {
+        services.put(attributeName, new CooccurrenceStatisticService(
+            CooccurrenceStatisticService.dimensionOf(attributeName), ReportOptions.unlimited()));
+      }
+      new JsonFileProcessor(new ApplicationConfig(tmpDirectory.toFile(),
+          ApplicationConfig.pairAttributeNames(), parsingMode), file.toFile(), services).call();
+
+      CooccurrenceStatisticService ingredientPairs =
+          (CooccurrenceStatisticService) services.get("ingredient-pair");
+      assertEquals(Map.of("baskets", "4", "pairs", "4"),
+          ingredientPairs.getStatisticProperties());
+      assertEquals(List.of("Beef + Bun", "Beef + Cheese", "Bun + Cheese", "Bun + Tofu"),
+          List.copyOf(ingredientPairs.getStatisticSortedByCountThenByName().keySet()));
+      assertEquals(2L, ingredientPairs.getStatisticSortedByCountThenByName().get("Beef + Bun"));
+      // Bun is in 3 of 4 burgers and Beef in 2, both together in 2.
+      assertEquals(Map.of("support", "0.5000", "lift", "1.3333"),
+          ingredientPairs.getReportedStatistic().itemElements().apply("Beef + Bun"));
+
+      CooccurrenceStatisticService burgerPairs =
+          (CooccurrenceStatisticService) services.get("burger-pair");
+      assertEquals(Map.of("Classic + Veggie", 1L),
+          burgerPairs.getStatisticSortedByCountThenByName());
+      assertEquals(Map.of("support", "0.5000", "lift", "1.0000"),
+          burgerPairs.getReportedStatistic().itemElements().apply("Classic + Veggie"));
+    }
+  }
+
+  @Test
+  public void testPairs_SeparatorsInNamesKeepPairsApart() throws Exception {
+    Path file = tmpDirectory.resolve("orders.json");
+    Files.writeString(file, """
+        [{"burgers": [{"name": "B", "ingredients": [{"name": "a + b"}, {"name": "c"}]},
+                      {"name": "B", "ingredients": [{"name": "a"}, {"name": "b + c"}]},
+                      {"name": "B", "ingredients": [{"name": "a !"}, {"name": "z"}]}]}]
+        """);
+    CooccurrenceStatisticService ingredientPairs = new CooccurrenceStatisticService(
+        CooccurrenceStatisticService.Dimension.INGREDIENT, ReportOptions.unlimited());
+    new JsonFileProcessor(new ApplicationConfig(tmpDirectory.toFile(),
+        List.of("ingredient-pair"), ParsingMode.STREAMING), file.toFile(),
+        Map.of("ingredient-pair", ingredientPairs)).call();
+
+    // Ties are sorted by the whole pair name, not by its first name.
+    assertEquals(List.of("a ! + z", "a + b \\+ c", "a \\+ b + c"),
+        List.copyOf(ingredientPairs.getStatisticSortedByCountThenByName().keySet()));
+    assertEquals(Map.of("support", "0.3333", "lift", "3.0000"),
+        ingredientPairs.getReportedStatistic().itemElements().apply("a \\+ b + c"));
+  }
+
+  @Test
+  public void testRun_PairsEqualStringPairCountsInEveryMode() throws Exception {
+    Path inputDirectory = tmpDirectory.resolve("input");
+    List<Path> files = new OrderDatasetGenerator(DatasetOptions.defaults().withOrderCount(3000)
+        .withFileCount(4)).generate(inputDirectory);
+    Map<String, Map<String, Long>> expected = countPairsWithStrings(files);
+    List<String> attributeNames = ApplicationConfig.pairAttributeNames();
+    ApplicationConfig config = new ApplicationConfig(inputDirectory.toFile(), attributeNames,
+        ParsingMode.STREAMING).withSchedulerOptions(new SchedulerOptions(4, false, false));
+
+    List<ApplicationConfig> configs = List.of(config,
+        config.withSchedulerOptions(new SchedulerOptions(4, false, true)),
+        new ApplicationConfig(inputDirectory.toFile(), attributeNames, ParsingMode.DATABIND),
+        config.withCacheOptions(new CacheOptions(true)));
+    Path output = tmpDirectory.resolve("output");
+    for (ApplicationConfig runConfig : configs) {
+      new ApplicationRunner(runConfig.withOutputDirectory(output.toFile())).run();
+      for (String attributeName : attributeNames) {
+        assertEquals(expected.get(attributeName), readReport(output, attributeName));
+      }
+    }
+
+    new ApplicationRunner(config.withOutputDirectory(output.toFile())
+        .withReportOptions(new ReportOptions(10, 5))).run();
+    for (String attributeName : attributeNames) {
+      Map<String, Long> expectedTop = new LinkedHashMap<>();
+      expected.get(attributeName).entrySet().stream()
+          .filter(entry -> entry.getValue() >= 5)
+          .limit(10)
+          .forEach(entry -> expectedTop.put(entry.getKey(), entry.getValue()));
+      assertTrue(expectedTop.size() > 1);
+      assertEquals(expectedTop, readReport(output, attributeName));
+    }
+  }
+
+  // The naive way: one String key per pair and basket.
+  private static Map<String, Map<String, Long>> countPairsWithStrings(List<Path> files)
+      throws IOException {
+    Map<String, Long> ingredientPairs = new HashMap<>();
+    Map<String, Long> burgerPairs = new HashMap<>();
+    forEachOrder(files, order -> {
+      TreeSet<String> burgerNames = new TreeSet<>();
+      for (Burger burger : order.burgers()) {
+        burgerNames.add(burger.name());
+        TreeSet<String> ingredientNames = new TreeSet<>();
+        burger.ingredients().stream()
+            .map(Ingredient::name)
+            .filter(Objects::nonNull)
+            .forEach(ingredientNames::add);
+        countPairs(ingredientNames, ingredientPairs);
+      }
+      countPairs(burgerNames, burgerPairs);
+    });
+    return Map.of("ingredient-pair", sorted(ingredientPairs), "burger-pair",
+        sorted(burgerPairs));
+  }
+
+  private static void countPairs(TreeSet<String> names, Map<String, Long> pairs) {
+    List<String> sortedNames = new ArrayList<>(names);
+    for (int i = 0; i < sortedNames.size(); ++i) {
+      for (int j = i + 1; j < sortedNames.size(); ++j) {
+        pairs.merge(sortedNames.get(i) + " + " + sortedNames.get(j), 1L, Long::sum);
+      }
+    }
+  }
+}
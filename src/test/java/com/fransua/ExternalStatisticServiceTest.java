@@ -0,0 +1,126 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.ReportOptions;
+import com.fransua.config.StatisticOptions;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import com.fransua.service.ExternalStatisticService;
+import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.ValuePartialStatistic;
+import com.fransua.service.XmlReporterService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ExternalStatisticServiceTest {
+
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("external_statistic_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testReport_TinyBudgetSpillsAndEqualsExactReport() throws Exception {
+    long memoryBudget = 64 * 1024;
+    Path spillRoot = tmpDirectory.resolve("spill");
+    ExternalStatisticService externalService =
+        new ExternalStatisticService(memoryBudget, 4, spillRoot.toFile());
+    StatisticCalculatorService exactService = new StatisticCalculatorService();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int thread = 0; thread < 4; ++thread) {
+      int seed = thread;
+      futures.add(executor.submit(() -> {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int task = 0; task < 5; ++task) {
+          ValuePartialStatistic externalPartial = externalService.createPartial();
+          ValuePartialStatistic exactPartial = exactService.createPartial();
+          for (int i = 0; i < 5_000; ++i) {
+            // Squaring skews the values, so the counts range from 1 to hundreds.
+            double sample = random.nextDouble();
+            String value = "value-" + (int) (sample * sample * 20_000);
+            externalPartial.increment(value);
+            exactPartial.increment(value);
+          }
+          externalService.mergePartial(externalPartial);
+          exactService.mergePartial(exactPartial);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    Path externalReport = tmpDirectory.resolve("external.xml");
+    Path exactReport = tmpDirectory.resolve("exact.xml");
+    XmlReporterService.createReport(externalService, "value", ReportOptions.unlimited(),
+        externalReport);
+    XmlReporterService.createReport(exactService, "value", ReportOptions.unlimited(),
+        exactReport);
+    assertEquals(Files.readString(exactReport), Files.readString(externalReport));
+    assertEquals(exactService.getStatisticSortedByCountThenByName(),
+        externalService.getStatisticSortedByCountThenByName());
+
+    assertTrue(externalService.spilledRuns() > 16, "runs: " + externalService.spilledRuns());
+    assertTrue(externalService.peakBufferedBytes() <= memoryBudget,
+        "peak: " + externalService.peakBufferedBytes());
+    externalService.close();
+    try (Stream<Path> pathStream = Files.list(spillRoot)) {
+      assertEquals(0, pathStream.count());
+    }
+  }
+
+  @Test
+  public void testRun_ExternalEngineEqualsExactEngine() throws Exception {
+    Path inputDirectory = tmpDirectory.resolve("input");
+    new OrderDatasetGenerator(DatasetOptions.defaults().withOrderCount(2000).withFileCount(3))
+        .generate(inputDirectory);
+    List<String> attributeNames = ApplicationConfig.availableAttributeNames();
+    ApplicationConfig config = new ApplicationConfig(inputDirectory.toFile(), attributeNames,
+        ParsingMode.STREAMING);
+
+    Path exactOutput = tmpDirectory.resolve("exact");
+    new ApplicationRunner(config.withOutputDirectory(exactOutput.toFile())).run();
+    Path externalOutput = tmpDirectory.resolve("external");
+    new ApplicationRunner(config.withOutputDirectory(externalOutput.toFile())
+        .withStatisticOptions(StatisticOptions.external(24 * 1024,
+            tmpDirectory.resolve("spill").toFile()))).run();
+
+    for (String attributeName : attributeNames) {
+      String fileName = ApplicationConfig.getStatisticFileNameFor(attributeName);
+      assertEquals(Files.readString(exactOutput.resolve(fileName)),
+          Files.readString(externalOutput.resolve(fileName)), attributeName);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.processor.FileTaskScheduler;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+public class FileTaskSchedulerTest {
+
+  @Test
+  public void testAwaitAll_FailFastCancelsRemainingTasks() throws Exception {
+    CountDownLatch blockingTaskStarted = new CountDownLatch(1);
+    CountDownLatch blockingTaskInterrupted = new CountDownLatch(1);
+    File blockingFile = new File("blocking.json");
+    File failingFile = new File("failing.json");
+
+    try (FileTaskScheduler scheduler = new FileTaskScheduler(Executors.newFixedThreadPool(2))) {
+      scheduler.submit(blockingFile, () -> {
+        blockingTaskStarted.countDown();
+        try {
+          Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+        } catch (InterruptedException e) {
+          blockingTaskInterrupted.countDown();
+        }
+        return 1;
+      });
+      scheduler.submit(failingFile, () -> {
+        blockingTaskStarted.await();
+        throw new IOException("Malformed json");
+      });
+
+      IOException exception = assertThrows(IOException.class, () -> scheduler.awaitAll(true));
+      assertTrue(exception.getMessage().contains("failing.json"));
+      assertTrue(blockingTaskInterrupted.await(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void testAwaitAll_WithoutFailFastSkipsFailedFiles() throws Exception {
+    File file = new File("orders.json");
+    File failingFile = new File("failing.json");
+
+    try (FileTaskScheduler scheduler = new FileTaskScheduler(Executors.newFixedThreadPool(2))) {
+      scheduler.submit(file, () -> 3);
+      scheduler.submit(file, () -> 4);
+      scheduler.submit(failingFile, () -> {
+        throw new IOException("Malformed json");
+      });
+
+      assertEquals(Map.of(file, 7), scheduler.awaitAll(false));
+    }
+  }
+
+  @Test
+  public void testAwaitAll_BatchReportsOrdersPerFile() throws Exception {
+    File file = new File("orders.json");
+    File batchedFile = new File("small.json");
+    File failingFile = new File("failing.json");
+
+    try (FileTaskScheduler scheduler = new FileTaskScheduler(Executors.newFixedThreadPool(2))) {
+      scheduler.submit(file, () -> 3);
+      scheduler.submitBatch(List.of(file, batchedFile), () -> Map.of(file, 1, batchedFile, 2));
+      scheduler.submitBatch(List.of(failingFile, new File("unparsed.json")), () -> {
+        throw new IOException("Malformed json");
+      });
+
+      assertEquals(Map.of(file, 4, batchedFile, 2), scheduler.awaitAll(false));
+    }
+  }
+
+  @Test
+  public void testClose_ReportsTasksIgnoringInterruptAfterTimeout() throws Exception {
+    CountDownLatch taskStarted = new CountDownLatch(1);
+    AtomicBoolean released = new AtomicBoolean();
+    File stuckFile = new File("stuck.json");
+
+    FileTaskScheduler scheduler = new FileTaskScheduler(Executors.newFixedThreadPool(2), null,
+        Duration.ofMillis(100));
+    scheduler.submit(stuckFile, () -> {
+      taskStarted.countDown();
+      while (!released.get()) {
+        Thread.onSpinWait();
+      }
+      return 1;
+    });
+    scheduler.submit(new File("queued.json"), () -> 2);
+    assertTrue(taskStarted.await(10, TimeUnit.SECONDS));
+
+    try {
+      IllegalStateException exception =
+          assertThrows(IllegalStateException.class, scheduler::close);
+      assertTrue(exception.getMessage().contains("stuck.json"), exception.getMessage());
+    } finally {
+      released.set(true);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.generator.DatasetFormat;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import com.fransua.processor.ByteRange;
+import com.fransua.processor.InputFiles;
+import com.fransua.processor.JsonFileProcessor;
+import com.fransua.processor.NewlineSplitter;
+import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.StatisticService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class InputFilesTest {
+
+  private static final DatasetOptions DATASET_OPTIONS =
+      DatasetOptions.defaults().withOrderCount(2000).withFileCount(2);
+
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("formats_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testIsInputFile_RecognizesFormats() {
+    assertTrue(InputFiles.isInputFile(Path.of("orders.JSON")));
+    assertTrue(InputFiles.isInputFile(Path.of("orders.json.gz")));
+    assertTrue(InputFiles.isInputFile(Path.of("orders.ndjson.zst")));
+    assertTrue(InputFiles.isInputFile(Path.of("orders.jsonl")));
+    assertFalse(InputFiles.isInputFile(Path.of("orders.gz")));
+    assertFalse(InputFiles.isInputFile(Path.of("orders.json.bak")));
+    assertTrue(InputFiles.isNewlineDelimited(new File("orders.ndjson.gz")));
+    assertFalse(InputFiles.isNewlineDelimited(new File("orders.json.gz")));
+  }
+
+  @Test
+  public void testRun_AllFormatsProduceSameReports() throws Exception {
+    ApplicationConfig referenceConfig = runFormat(DatasetFormat.JSON, ParsingMode.STREAMING);
+
+    for (DatasetFormat format : DatasetFormat.values()) {
+      for (ParsingMode parsingMode : ParsingMode.values()) {
+        ApplicationConfig config = runFormat(format, parsingMode);
+        assertEquals(format.compression(), InputFiles.compression(config.inputDirectory().toPath()
+            .resolve("orders_part_1." + format.extension()).toFile()));
+        for (String attributeName : config.attributeNames()) {
+          assertArrayEquals(Files.readAllBytes(referenceConfig.statisticFile(attributeName)),
+              Files.readAllBytes(config.statisticFile(attributeName)),
+              format + " " + parsingMode + " " + attributeName);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSplit_NewlineDelimitedRangesMatchWholeFile() throws Exception {
+    Path directory = tmpDirectory.resolve("ndjson");
+    File file = new OrderDatasetGenerator(DATASET_OPTIONS.withFileCount(1)
+        .withFormat(DatasetFormat.NDJSON)).generate(directory).get(0).toFile();
+    ApplicationConfig config = new ApplicationConfig(directory.toFile(), "ingredient-name");
+
+    List<ByteRange> ranges = NewlineSplitter.split(file, file.length() / 7);
+    assertTrue(ranges.size() > 1);
+    assertEquals(file.length(), ranges.stream().mapToLong(ByteRange::length).sum());
+
+    Map<String, StatisticService> wholeServices =
+        Map.of("ingredient-name", new StatisticCalculatorService());
+    Map<String, StatisticService> rangeServices =
+        Map.of("ingredient-name", new StatisticCalculatorService());
+    int wholeOrders = new JsonFileProcessor(config, file, wholeServices).call();
+    int rangeOrders = 0;
+    for (ByteRange range : ranges) {
+      rangeOrders += new JsonFileProcessor(config, file, range, rangeServices).call();
+    }
+
+    assertEquals(2000, wholeOrders);
+    assertEquals(wholeOrders, rangeOrders);
+    assertEquals(wholeServices.get("ingredient-name").getStatisticSortedByCountThenByName(),
+        rangeServices.get("ingredient-name").getStatisticSortedByCountThenByName());
+  }
+
+  private ApplicationConfig runFormat(DatasetFormat format, ParsingMode parsingMode)
+      throws Exception {
+    Path formatDirectory = tmpDirectory.resolve(format.optionValue());
+    if (!Files.exists(formatDirectory)) {
+      new OrderDatasetGenerator(DATASET_OPTIONS.withFormat(format)).generate(formatDirectory);
+    }
+    ApplicationConfig config = new ApplicationConfig(formatDirectory.toFile(),
+        ApplicationConfig.availableAttributeNames(), parsingMode)
+        .withOutputDirectory(tmpDirectory.resolve("statistic_" + format.optionValue() + "_"
+            + parsingMode.optionValue()).toFile());
+    new ApplicationRunner(config).run();
+    return config;
+  }
+}
@@ -0,0 +1,158 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.processor.ByteRange;
+import com.fransua.processor.JsonArraySplitter;
+import com.fransua.processor.JsonFileProcessor;
+import com.fransua.service.StatisticCalculatorService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JsonArraySplitterTest {
+
+  private static final Path DATASET_DIRECTORY = Path.of("test_dataset");
+
+  private Path tmpFile;
+
+  @BeforeEach
+  public void setUpTmpFile() throws IOException {
+    tmpFile = Files.createTempFile("orders", ".json");
+  }
+
+  @AfterEach
+  public void cleanupTmpFile() throws IOException {
+    Files.deleteIfExists(tmpFile);
+  }
+
+  @Test
+  public void testSplit_ParallelRangesMatchSequentialOnDataset() throws Exception {
+    for (String attributeName : ApplicationConfig.availableAttributeNames()) {
+      for (File file : ApplicationRunner.findJsonFiles(DATASET_DIRECTORY)) {
+        List<ByteRange> ranges = JsonArraySplitter.split(file, 1);
+        assertTrue(ranges.size() > 1);
+        assertSameStatistic(file, ranges, attributeName);
+      }
+    }
+  }
+
+  @Test
+  public void testSplit_IgnoresBracesAndEscapesInsideStrings() throws Exception {
+    Files.writeString(tmpFile, """
+        [
+          {"burgers": [{"name": "Brace }, { Burger", "ingredients": []}]},
+          {"burgers": [{"name": "Quote \\\\\\" }] Burger", "ingredients": []}]},
+          {"burgers": [{"name": "Backslash \\\\\\\\", "ingredients": []}]},
+          {"burgers": [{"name": "Brace }, { Burger", "ingredients": []}]}
+        ]
+        """);
+    File file = tmpFile.toFile();
+
+    List<ByteRange> ranges = JsonArraySplitter.split(file, 1);
+
+    assertEquals(4, ranges.size());
+    assertSameStatistic(file, ranges, "burger-name");
+  }
+
+  @Test
+  public void testSplit_RangesCoverAllObjectsForLargeChunks() throws Exception {
+    File file = DATASET_DIRECTORY.resolve("orders_part_3.json").toFile();
+
+    List<ByteRange> ranges = JsonArraySplitter.split(file, file.length());
+
+    assertEquals(1, ranges.size());
+    assertSameStatistic(file, ranges, "ingredient-name");
+  }
+
+  @Test
+  public void testSplit_KeepsElementsThatAreNotObjectsInTheirRange() throws Exception {
+    Files.writeString(tmpFile, """
+        [
+          {"burgers": [{"name": "Classic", "ingredients": []}]},
+          null,
+          {"burgers": [{"name": "Veggie", "ingredients": []}]},
+          42, "text", [{"burgers": [{"name": "Nested", "ingredients": []}]}], true,
+          {"burgers": [{"name": "Classic", "ingredients": []}]},
+          null
+        ]
+        """);
+    File file = tmpFile.toFile();
+
+    List<ByteRange> ranges = JsonArraySplitter.split(file, 1);
+
+    assertEquals(9, ranges.size());
+    assertSameStatistic(file, ranges, "burger-name");
+  }
+
+  @Test
+  public void testSplit_FallsBackForNonArrayRoot() throws Exception {
+    Files.writeString(tmpFile, """
+        {"burgers": [{"name": "Single", "ingredients": []}]}
+        {"burgers": [{"name": "Single", "ingredients": []}]}
+        """);
+
+    assertTrue(JsonArraySplitter.split(tmpFile.toFile(), 1).isEmpty());
+  }
+
+  @Test
+  public void testSplit_FailsLikeSequentialParserForTruncatedFile() throws Exception {
+    Files.writeString(tmpFile, """
+        [
+          {"burgers": [{"name": "Classic", "ingredients": []}]},
+          {"burgers": [{"name": "Classic", "ingredients": []}]},
+          {"burgers": [{"name": "Trunc""");
+    File file = tmpFile.toFile();
+    ApplicationConfig config = new ApplicationConfig(file.getParentFile(), "burger-name");
+
+    assertThrows(IOException.class, () -> new JsonFileProcessor(config, file,
+        Map.of("burger-name", new StatisticCalculatorService())).call());
+    assertThrows(IOException.class, () -> JsonArraySplitter.split(file, 1));
+    // Without an emitted range the file is left to the sequential parser.
+    assertTrue(JsonArraySplitter.split(file, file.length()).isEmpty());
+
+    Files.writeString(tmpFile, """
+        [{"burgers": []}, {"burgers": []}] {"burgers": []}
+        """);
+    assertThrows(IOException.class, () -> JsonArraySplitter.split(file, 1));
+  }
+
+  private static void assertSameStatistic(File file, List<ByteRange> ranges,
+      String attributeName) throws Exception {
+    ApplicationConfig config = new ApplicationConfig(file.getParentFile(), attributeName);
+
+    StatisticCalculatorService sequentialService = new StatisticCalculatorService();
+    int sequentialOrders = new JsonFileProcessor(config, file,
+        Map.of(attributeName, sequentialService)).call();
+
+    StatisticCalculatorService parallelService = new StatisticCalculatorService();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<Integer>> futures = new ArrayList<>();
+    for (ByteRange range : ranges) {
+      futures.add(executor.submit(new JsonFileProcessor(config, file, range,
+          Map.of(attributeName, parallelService))));
+    }
+    int parallelOrders = 0;
+    for (Future<Integer> future : futures) {
+      parallelOrders += future.get();
+    }
+    executor.shutdown();
+
+    assertEquals(sequentialOrders, parallelOrders);
+    assertEquals(sequentialService.getStatisticSortedByCountThenByName(),
+        parallelService.getStatisticSortedByCountThenByName());
+  }
+}
@@ -0,0 +1,108 @@
+package com.fransua;
+
+import static com.fransua.StatisticTestSupport.process;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.processor.JsonFileProcessor;
+import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.StatisticService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JsonFileProcessorTest {
+
+  private static final Path DATASET_DIRECTORY = Path.of("test_dataset");
+
+  private Path tmpFile;
+
+  @BeforeEach
+  public void setUpTmpFile() throws IOException {
+    tmpFile = Files.createTempFile("orders", ".json");
+  }
+
+  @AfterEach
+  public void cleanupTmpFile() throws IOException {
+    Files.deleteIfExists(tmpFile);
+  }
+
+  @Test
+  public void testCall_StreamingMatchesDatabindOnDataset() throws Exception {
+    List<File> jsonFiles = ApplicationRunner.findJsonFiles(DATASET_DIRECTORY);
+
+    for (String attributeName : ApplicationConfig.availableAttributeNames()) {
+      StatisticCalculatorService streamingService = new StatisticCalculatorService();
+      StatisticCalculatorService databindService = new StatisticCalculatorService();
+      int streamingOrders = 0;
+      int databindOrders = 0;
+
+      for (File file : jsonFiles) {
+        streamingOrders +=
+            process(file.toPath(), attributeName, ParsingMode.STREAMING, streamingService);
+        databindOrders +=
+            process(file.toPath(), attributeName, ParsingMode.DATABIND, databindService);
+      }
+
+      assertEquals(databindOrders, streamingOrders);
+      assertEquals(databindService.getStatisticSortedByCountThenByName(),
+          streamingService.getStatisticSortedByCountThenByName());
+    }
+  }
+
+  @Test
+  public void testCall_StreamingFormatsPricesLikeBigDecimal() throws Exception {
+    Files.writeString(tmpFile, """
+        [{"id": "57e8e771-d0c3-42b9-859e-321d04d74726", "burgers": [{"name": "Test",
+          "ingredients": [
+            {"name": "A", "unitPrice": 5.00},
+            {"name": "B", "unitPrice": 1.5E+1},
+            {"name": "C", "unitPrice": 0.0000001},
+            {"name": "D", "unitPrice": -0.00},
+            {"name": "E", "unitPrice": "2.50"},
+            {"name": "F", "unitPrice": 7}
+          ]}]}]
+        """);
+
+    StatisticCalculatorService streamingService = new StatisticCalculatorService();
+    StatisticCalculatorService databindService = new StatisticCalculatorService();
+    process(tmpFile, "ingredient-price", ParsingMode.STREAMING, streamingService);
+    process(tmpFile, "ingredient-price", ParsingMode.DATABIND, databindService);
+
+    Map<String, Long> statistic = streamingService.getStatisticSortedByCountThenByName();
+    assertEquals(databindService.getStatisticSortedByCountThenByName(), statistic);
+    assertEquals(6, statistic.size());
+  }
+
+  @Test
+  public void testCall_SinglePassMatchesPassPerAttribute() throws Exception {
+    List<String> attributeNames = ApplicationConfig.availableAttributeNames();
+    for (ParsingMode parsingMode : ParsingMode.values()) {
+      ApplicationConfig config = new ApplicationConfig(DATASET_DIRECTORY.toFile(),
+          attributeNames, parsingMode);
+      Map<String, StatisticService> statisticServices = new LinkedHashMap<>();
+      attributeNames.forEach(name -> statisticServices.put(name, new StatisticCalculatorService()));
+
+      for (File file : ApplicationRunner.findJsonFiles(DATASET_DIRECTORY)) {
+        new JsonFileProcessor(config, file, statisticServices).call();
+      }
+
+      for (String attributeName : attributeNames) {
+        StatisticCalculatorService expectedService = new StatisticCalculatorService();
+        for (File file : ApplicationRunner.findJsonFiles(DATASET_DIRECTORY)) {
+          process(file.toPath(), attributeName, parsingMode, expectedService);
+        }
+        assertEquals(expectedService.getStatisticSortedByCountThenByName(),
+            statisticServices.get(attributeName).getStatisticSortedByCountThenByName());
+      }
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.OutputFormat;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.ReportOptions;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import com.fransua.service.AttributeCounter;
+import com.fransua.service.StatisticPartialFile;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MergeRunnerTest {
+
+  private static final List<String> ATTRIBUTE_NAMES = ApplicationConfig.availableAttributeNames();
+  private static final ReportOptions PARTIAL_OUTPUT =
+      new ReportOptions(Long.MAX_VALUE, 0, OutputFormat.PARTIAL);
+
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("merge_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testMerge_ShardedRunsEqualSingleRun() throws Exception {
+    Path inputDirectory = tmpDirectory.resolve("input");
+    List<Path> files = new OrderDatasetGenerator(DatasetOptions.defaults()
+        .withOrderCount(3000).withFileCount(6)).generate(inputDirectory);
+    Path singleOutput = tmpDirectory.resolve("single");
+    new ApplicationRunner(new ApplicationConfig(inputDirectory.toFile(), ATTRIBUTE_NAMES,
+        ParsingMode.STREAMING).withOutputDirectory(singleOutput.toFile())).run();
+
+    List<Path> shardOutputs = new ArrayList<>();
+    for (int shard = 0; shard < 3; ++shard) {
+      Path shardInput = Files.createDirectories(tmpDirectory.resolve("shard_input_" + shard));
+      for (int i = shard; i < files.size(); i += 3) {
+        Files.copy(files.get(i), shardInput.resolve(files.get(i).getFileName()));
+      }
+      Path shardOutput = tmpDirectory.resolve("shard_output_" + shard);
+      new ApplicationRunner(new ApplicationConfig(shardInput.toFile(), ATTRIBUTE_NAMES,
+          ParsingMode.values()[shard % 2]).withOutputDirectory(shardOutput.toFile())
+          .withReportOptions(PARTIAL_OUTPUT)).run();
+      shardOutputs.add(shardOutput);
+    }
+
+    Path mergedOutput = tmpDirectory.resolve("merged");
+    new MergeRunner(shardOutputs, mergedOutput, ReportOptions.unlimited()).run();
+    assertSameReports(singleOutput, mergedOutput);
+
+    // ((0 + 1) + 2) gives the same result as (0 + 1 + 2).
+    Path nestedPartial = tmpDirectory.resolve("nested_partial");
+    new MergeRunner(shardOutputs.subList(0, 2), nestedPartial, PARTIAL_OUTPUT).run();
+    Path nestedOutput = tmpDirectory.resolve("nested");
+    new MergeRunner(List.of(nestedPartial, shardOutputs.get(2)), nestedOutput,
+        ReportOptions.unlimited()).run();
+    assertSameReports(singleOutput, nestedOutput);
+
+    Path topSingleOutput = tmpDirectory.resolve("top_single");
+    new ApplicationRunner(new ApplicationConfig(inputDirectory.toFile(), ATTRIBUTE_NAMES,
+        ParsingMode.STREAMING).withOutputDirectory(topSingleOutput.toFile())
+        .withReportOptions(new ReportOptions(5, 2))).run();
+    Path topMergedOutput = tmpDirectory.resolve("top_merged");
+    new MergeRunner(shardOutputs, topMergedOutput, new ReportOptions(5, 2)).run();
+    assertSameReports(topSingleOutput, topMergedOutput);
+  }
+
+  @Test
+  public void testMerge_SumsEqualValuesAndRejectsMixedAttributes() throws Exception {
+    AttributeCounter first = new AttributeCounter();
+    first.add("A", 2);
+    first.add("C", 1);
+    AttributeCounter second = new AttributeCounter();
+    second.add("B", 5);
+    second.add("C", 3);
+    Path firstPartial = tmpDirectory.resolve("first.partial");
+    Path secondPartial = tmpDirectory.resolve("second.partial");
+    StatisticPartialFile.write(firstPartial, "burger-name", first);
+    StatisticPartialFile.write(secondPartial, "burger-name", second);
+
+    Path output = tmpDirectory.resolve("output");
+    new MergeRunner(List.of(firstPartial, secondPartial), output, PARTIAL_OUTPUT).run();
+    List<String> entries = new ArrayList<>();
+    try (StatisticPartialFile.Reader reader = new StatisticPartialFile.Reader(
+        output.resolve(ApplicationConfig.getPartialFileNameFor("burger-name")))) {
+      while (reader.next()) {
+        entries.add(reader.attributeValue() + "=" + reader.count());
+      }
+    }
+    assertEquals(List.of("A=2", "B=5", "C=4"), entries);
+
+    Files.write(tmpDirectory.resolve("broken.partial"), new byte[]{1, 2, 3, 4});
+    assertThrows(IOException.class,
+        () -> new MergeRunner(List.of(tmpDirectory), output, PARTIAL_OUTPUT).run());
+  }
+
+  private static void assertSameReports(Path expectedDirectory, Path actualDirectory)
+      throws IOException {
+    for (String attributeName : ATTRIBUTE_NAMES) {
+      String fileName = ApplicationConfig.getStatisticFileNameFor(attributeName);
+      assertEquals(Files.readString(expectedDirectory.resolve(fileName)),
+          Files.readString(actualDirectory.resolve(fileName)), attributeName);
+    }
+  }
+}
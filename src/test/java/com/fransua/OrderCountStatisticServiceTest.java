@@ -0,0 +1,231 @@
+package com.fransua;
+
+import static com.fransua.StatisticTestSupport.forEachOrder;
+import static com.fransua.StatisticTestSupport.readReport;
+import static com.fransua.StatisticTestSupport.sorted;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.CacheOptions;
+import com.fransua.config.CountMode;
+import com.fransua.config.CountOptions;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.SchedulerOptions;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import com.fransua.model.Burger;
+import com.fransua.model.Ingredient;
+import com.fransua.processor.JsonFileProcessor;
+import com.fransua.service.HyperLogLog;
+import com.fransua.service.OrderCountStatisticService;
+import com.fransua.service.StatisticService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OrderCountStatisticServiceTest {
+
+  private static final List<String> ATTRIBUTE_NAMES = ApplicationConfig.availableAttributeNames();
+  private static final CountOptions ORDERS = new CountOptions(CountMode.ORDERS, 12);
+  private static final CountOptions DISTINCT_ORDERS =
+      new CountOptions(CountMode.DISTINCT_ORDERS, 12);
+
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("order_count_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testOrderCounts_CountEveryValueOncePerOrder() throws Exception {
+    Path file = tmpDirectory.resolve("orders.json");
+    Files.writeString(file, """
+        [{"burgers": [{"name": "Classic", "ingredients": [{"name": "Bun", "unitPrice": 1.20},
+                        {"name": "Beef", "unitPrice": 5.50}, {"name": "Bun", "unitPrice": 1.20}]},
+                      {"name": "Classic", "ingredients": [{"name": "Bun", "unitPrice": 1.20}]}],
+          "id": "7f1a2b3c-0000-4000-8000-000000000001"},
+         {"id": "7f1a2b3c-0000-4000-8000-000000000002",
+          "burgers": [{"name": "Veggie", "ingredients": [{"name": "Bun", "unitPrice": 1.20}]},
+                      {"name": "Classic", "ingredients": [{"name": "Beef", "unitPrice": 5.50}]}]},
+         {"id": "7f1a2b3c-0000-4000-8000-000000000001",
+          "burgers": [{"name": "Classic", "ingredients": [{"name": "Bun", "unitPrice": 1.20}]}]}]
+        """);
+
+    for (ParsingMode parsingMode : ParsingMode.values()) {
+      Map<CountMode, Map<String, Long>> statistics = new HashMap<>();
+      for (CountOptions countOptions : List.of(ORDERS, DISTINCT_ORDERS)) {
+        Map<String, StatisticService> services = new LinkedHashMap<>();
+        services.put("ingredient-name", new OrderCountStatisticService(countOptions));
+        services.put("burger-name", new OrderCountStatisticService(countOptions));
+        new JsonFileProcessor(new ApplicationConfig(tmpDirectory.toFile(),
+            List.copyOf(services.keySet()), parsingMode), file.toFile(), services).call();
+        statistics.put(countOptions.mode(),
+            services.get("ingredient-name").getStatisticSortedByCountThenByName());
+        assertEquals(countOptions.mode() == CountMode.ORDERS
+                ? Map.of("Classic", 3L, "Veggie", 1L) : Map.of("Classic", 2L, "Veggie", 1L),
+            services.get("burger-name").getStatisticSortedByCountThenByName(),
+            parsingMode + " " + countOptions.mode());
+      }
+
+      // The third order repeats the id of the first one, which only the sketches notice.
+      assertEquals(Map.of("Bun", 3L, "Beef", 2L), statistics.get(CountMode.ORDERS));
+      assertEquals(Map.of("Bun", 2L, "Beef", 2L), statistics.get(CountMode.DISTINCT_ORDERS));
+    }
+  }
+
+  @Test
+  public void testRun_OrderCountsEqualNaiveCountsInEveryMode() throws Exception {
+    Path inputDirectory = tmpDirectory.resolve("input");
+    List<Path> files = new OrderDatasetGenerator(DatasetOptions.defaults().withOrderCount(3000)
+        .withFileCount(4)).generate(inputDirectory);
+    Map<String, Map<String, Long>> expected = countOrdersWithSets(files);
+    ApplicationConfig config = new ApplicationConfig(inputDirectory.toFile(), ATTRIBUTE_NAMES,
+        ParsingMode.STREAMING).withSchedulerOptions(new SchedulerOptions(4, false, false))
+        .withCountOptions(ORDERS);
+
+    List<ApplicationConfig> configs = List.of(config,
+        config.withSchedulerOptions(new SchedulerOptions(4, false, true)),
+        new ApplicationConfig(inputDirectory.toFile(), ATTRIBUTE_NAMES, ParsingMode.DATABIND)
+            .withCountOptions(ORDERS),
+        config.withCacheOptions(new CacheOptions(true)),
+        config.withCacheOptions(new CacheOptions(true)));
+    Path output = tmpDirectory.resolve("output");
+    for (ApplicationConfig runConfig : configs) {
+      new ApplicationRunner(runConfig.withOutputDirectory(output.toFile())).run();
+      for (String attributeName : ATTRIBUTE_NAMES) {
+        assertEquals(expected.get(attributeName), readReport(output, attributeName));
+      }
+    }
+
+    // Values repeated within orders are counted once per order.
+    Path occurrencesOutput = tmpDirectory.resolve("occurrences");
+    new ApplicationRunner(new ApplicationConfig(inputDirectory.toFile(), ATTRIBUTE_NAMES,
+        ParsingMode.STREAMING).withOutputDirectory(occurrencesOutput.toFile())).run();
+    assertNotEquals(expected.get("ingredient-name"),
+        readReport(occurrencesOutput, "ingredient-name"));
+  }
+
+  @Test
+  public void testRun_DistinctOrderEstimatesStayWithinErrorAndIgnoreRepeatedFiles()
+      throws Exception {
+    Path inputDirectory = tmpDirectory.resolve("input");
+    List<Path> files = new OrderDatasetGenerator(DatasetOptions.defaults().withOrderCount(20_000)
+        .withFileCount(4)).generate(inputDirectory);
+    Map<String, Map<String, Long>> expected = countOrdersWithSets(files);
+    Path output = tmpDirectory.resolve("output");
+    ApplicationConfig config = new ApplicationConfig(inputDirectory.toFile(), ATTRIBUTE_NAMES,
+        ParsingMode.STREAMING).withSchedulerOptions(new SchedulerOptions(4, false, false))
+        .withCountOptions(DISTINCT_ORDERS).withOutputDirectory(output.toFile());
+    new ApplicationRunner(config).run();
+
+    double relativeError = HyperLogLog.relativeError(DISTINCT_ORDERS.precision());
+    Map<String, String> reports = new HashMap<>();
+    for (String attributeName : ATTRIBUTE_NAMES) {
+      Map<String, Long> estimates = readReport(output, attributeName);
+      assertEquals(expected.get(attributeName).keySet(), estimates.keySet());
+      expected.get(attributeName).forEach((value, orders) -> assertTrue(
+          Math.abs(estimates.get(value) - orders) <= 4 * relativeError * orders + 2,
+          attributeName + " " + value + ": " + estimates.get(value) + " for " + orders));
+      String fileName = ApplicationConfig.getStatisticFileNameFor(attributeName);
+      reports.put(attributeName, Files.readString(output.resolve(fileName)));
+      Matcher standardErrors = Pattern.compile("<standardError>([^<]*)</standardError>")
+          .matcher(reports.get(attributeName));
+      assertTrue(standardErrors.find());
+      do {
+        assertTrue(Double.parseDouble(standardErrors.group(1)) > 0, standardErrors.group());
+      } while (standardErrors.find());
+    }
+
+    // Orders read twice add the same keys again, so the sketches and reports don't change.
+    Files.copy(files.get(2), inputDirectory.resolve("orders_part_3_retry.json"));
+    for (ApplicationConfig runConfig : List.of(config,
+        config.withSchedulerOptions(new SchedulerOptions(4, false, true)),
+        new ApplicationConfig(inputDirectory.toFile(), ATTRIBUTE_NAMES, ParsingMode.DATABIND)
+            .withCountOptions(DISTINCT_ORDERS).withOutputDirectory(output.toFile()))) {
+      new ApplicationRunner(runConfig).run();
+      for (String attributeName : ATTRIBUTE_NAMES) {
+        String fileName = ApplicationConfig.getStatisticFileNameFor(attributeName);
+        assertEquals(reports.get(attributeName), Files.readString(output.resolve(fileName)));
+      }
+    }
+  }
+
+  @Test
+  public void testHyperLogLog_MergedSketchesEqualOneSketch() {
+    SplittableRandom random = new SplittableRandom(25);
+    HyperLogLog whole = new HyperLogLog(10);
+    HyperLogLog first = new HyperLogLog(10);
+    HyperLogLog second = new HyperLogLog(10);
+    int keys = 200_000;
+    for (int i = 0; i < keys; ++i) {
+      long key = random.nextLong();
+      whole.add(key);
+      (i % 3 == 0 ? first : second).add(key);
+    }
+    first.mergeFrom(second);
+
+    assertEquals(whole.estimate(), first.estimate());
+    assertTrue(Math.abs(whole.estimate() - keys) <= 4 * HyperLogLog.relativeError(10) * keys,
+        String.valueOf(whole.estimate()));
+    assertEquals(0, new HyperLogLog(10).estimate());
+    assertThrows(IllegalArgumentException.class, () -> first.mergeFrom(new HyperLogLog(11)));
+    assertThrows(IllegalArgumentException.class,
+        () -> new CountOptions(CountMode.DISTINCT_ORDERS, 19));
+    assertThrows(IllegalArgumentException.class,
+        () -> new OrderCountStatisticService(CountOptions.occurrences()));
+  }
+
+  // The naive way: a Set of the values of every order.
+  private static Map<String, Map<String, Long>> countOrdersWithSets(List<Path> files)
+      throws IOException {
+    List<Map<String, Long>> counts = List.of(new HashMap<>(), new HashMap<>(), new HashMap<>());
+    forEachOrder(files, order -> {
+      List<Set<String>> orderValues = List.of(new HashSet<>(), new HashSet<>(), new HashSet<>());
+      for (Burger burger : order.burgers()) {
+        orderValues.get(0).add(burger.name());
+        for (Ingredient ingredient : burger.ingredients()) {
+          orderValues.get(1).add(ingredient.name());
+          orderValues.get(2).add(ingredient.unitPrice().toString());
+        }
+      }
+      for (int i = 0; i < counts.size(); ++i) {
+        for (String value : orderValues.get(i)) {
+          counts.get(i).merge(value, 1L, Long::sum);
+        }
+      }
+    });
+    Map<String, Map<String, Long>> expected = new HashMap<>();
+    for (int i = 0; i < ATTRIBUTE_NAMES.size(); ++i) {
+      expected.put(ATTRIBUTE_NAMES.get(i), sorted(counts.get(i)));
+    }
+    return expected;
+  }
+}
@@ -0,0 +1,79 @@
+package com.fransua;
+
+import static com.fransua.StatisticTestSupport.process;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import com.fransua.service.StatisticCalculatorService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OrderDatasetGeneratorTest {
+
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("dataset_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testGenerate_SameSeedProducesSameFiles() throws IOException {
+    DatasetOptions options = DatasetOptions.defaults().withOrderCount(500).withFileCount(3);
+
+    List<Path> firstFiles = new OrderDatasetGenerator(options).generate(tmpDirectory.resolve("a"));
+    List<Path> secondFiles = new OrderDatasetGenerator(options).generate(tmpDirectory.resolve("b"));
+
+    assertEquals(3, firstFiles.size());
+    for (int i = 0; i < firstFiles.size(); ++i) {
+      assertArrayEquals(Files.readAllBytes(firstFiles.get(i)),
+          Files.readAllBytes(secondFiles.get(i)));
+    }
+  }
+
+  @Test
+  public void testGenerate_FilesParseInBothModes() throws Exception {
+    DatasetOptions options = DatasetOptions.defaults().withOrderCount(1001).withFileCount(4);
+    List<Path> files = new OrderDatasetGenerator(options).generate(tmpDirectory);
+
+    for (String attributeName : ApplicationConfig.availableAttributeNames()) {
+      StatisticCalculatorService streamingService = new StatisticCalculatorService();
+      StatisticCalculatorService databindService = new StatisticCalculatorService();
+      int streamingOrders = 0;
+      int databindOrders = 0;
+      for (Path file : files) {
+        streamingOrders += process(file, attributeName, ParsingMode.STREAMING, streamingService);
+        databindOrders += process(file, attributeName, ParsingMode.DATABIND, databindService);
+      }
+
+      assertEquals(1001, streamingOrders);
+      assertEquals(1001, databindOrders);
+      Map<String, Long> statistic = streamingService.getStatisticSortedByCountThenByName();
+      assertEquals(databindService.getStatisticSortedByCountThenByName(), statistic);
+      assertTrue(statistic.size() > 1);
+    }
+  }
+}
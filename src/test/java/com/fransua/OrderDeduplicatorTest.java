@@ -0,0 +1,164 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.DedupMode;
+import com.fransua.config.DedupOptions;
+import com.fransua.config.ParsingMode;
+import com.fransua.generator.DatasetFormat;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import com.fransua.service.OrderIdBloomFilter;
+import com.fransua.service.OrderIdSet;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OrderDeduplicatorTest {
+
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("order_dedup_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testOrderIdSet_CountsEveryDistinctIdOnceAcrossThreads() throws Exception {
+    for (int variant = 0; variant < 3; ++variant) {
+      // Starts small, so the segments have to grow while the threads add ids. The pre-check
+      // is far too small for the ids, so it answers "maybe seen" for most new ones.
+      OrderIdSet set = variant == 2
+          ? new OrderIdSet(1, false, new OrderIdBloomFilter(1_000, 0.1))
+          : new OrderIdSet(1, variant == 1);
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 4; ++thread) {
+        futures.add(executor.submit(() -> {
+          SplittableRandom random = new SplittableRandom(7);
+          int firstSeen = 0;
+          for (int i = 0; i < 100_000; ++i) {
+            if (set.firstSeen(random.nextLong(), random.nextLong())) {
+              ++firstSeen;
+            }
+          }
+          return firstSeen;
+        }));
+      }
+      int firstSeen = 0;
+      for (Future<Integer> future : futures) {
+        firstSeen += future.get();
+      }
+      executor.shutdown();
+
+      assertEquals(100_000, firstSeen);
+      assertEquals(100_000, set.size());
+      assertEquals(300_000, set.duplicates());
+      assertTrue(set.firstSeen(0, 0));
+      assertFalse(set.firstSeen(0, 0));
+    }
+  }
+
+  @Test
+  public void testFirstSeen_ParsesUuidText() {
+    OrderIdSet set = new OrderIdSet(16, false);
+    UUID id = UUID.fromString("123e4567-e89b-42d3-a456-426614174000");
+
+    assertTrue(set.firstSeen(id.getMostSignificantBits(), id.getLeastSignificantBits()));
+    char[] text = ("x" + id.toString().toUpperCase() + "x").toCharArray();
+    assertFalse(set.firstSeen(text, 1, 36));
+    assertEquals(1, set.duplicates());
+  }
+
+  @Test
+  public void testBloomFilter_StaysWithinFalsePositiveRate() {
+    OrderIdBloomFilter filter = new OrderIdBloomFilter(100_000, 0.01);
+    SplittableRandom random = new SplittableRandom(11);
+    for (int i = 0; i < 100_000; ++i) {
+      filter.firstSeen(random.nextLong(), random.nextLong());
+    }
+    long falsePositivesBefore = filter.duplicates();
+    for (int i = 0; i < 100_000; ++i) {
+      filter.firstSeen(random.nextLong(), random.nextLong());
+    }
+
+    assertTrue(falsePositivesBefore < 1_000, "false positives: " + falsePositivesBefore);
+    // Every id so far was unique, so all duplicates were false positives.
+    long falsePositives = filter.duplicates();
+    assertTrue(Math.abs(filter.expectedFalseDuplicates() - falsePositives)
+        < 0.1 * falsePositives, filter.expectedFalseDuplicates() + " vs " + falsePositives);
+    random = new SplittableRandom(11);
+    long duplicatesBefore = filter.duplicates();
+    for (int i = 0; i < 1_000; ++i) {
+      filter.firstSeen(random.nextLong(), random.nextLong());
+    }
+    assertEquals(duplicatesBefore + 1_000, filter.duplicates());
+  }
+
+  @Test
+  public void testRun_RetriedPartFilesDoNotInflateCounts() throws Exception {
+    Path originalDirectory = Files.createDirectory(tmpDirectory.resolve("original"));
+    List<Path> files = new OrderDatasetGenerator(DatasetOptions.defaults()
+        .withOrderCount(2000).withFileCount(2)).generate(originalDirectory);
+    Path retriedDirectory = Files.createDirectory(tmpDirectory.resolve("retried"));
+    for (Path file : files) {
+      Files.copy(file, retriedDirectory.resolve(file.getFileName()));
+    }
+    Files.copy(files.get(1), retriedDirectory.resolve("orders_part_2_retry.json"));
+    new OrderDatasetGenerator(DatasetOptions.defaults().withOrderCount(2000).withFileCount(2)
+        .withFormat(DatasetFormat.NDJSON)).generate(retriedDirectory);
+
+    List<String> attributeNames = ApplicationConfig.availableAttributeNames();
+    Path expectedOutput = tmpDirectory.resolve("expected");
+    new ApplicationRunner(new ApplicationConfig(originalDirectory.toFile(), attributeNames,
+        ParsingMode.STREAMING).withOutputDirectory(expectedOutput.toFile())).run();
+
+    for (ParsingMode parsingMode : ParsingMode.values()) {
+      for (DedupOptions dedupOptions : List.of(
+          new DedupOptions(DedupMode.EXACT, 100, 0.001, false),
+          new DedupOptions(DedupMode.EXACT, 100, 0.001, true),
+          new DedupOptions(DedupMode.BLOOM, 100, 0.5, false),
+          new DedupOptions(DedupMode.APPROXIMATE, 10_000, 0.000001, false))) {
+        Path output = tmpDirectory.resolve("output_" + parsingMode + "_" + dedupOptions.mode()
+            + "_" + dedupOptions.offHeap());
+        new ApplicationRunner(new ApplicationConfig(retriedDirectory.toFile(), attributeNames,
+            parsingMode).withOutputDirectory(output.toFile()).withDedupOptions(dedupOptions))
+            .run();
+
+        for (String attributeName : attributeNames) {
+          String fileName = ApplicationConfig.getStatisticFileNameFor(attributeName);
+          assertEquals(Files.readString(expectedOutput.resolve(fileName)),
+              Files.readString(output.resolve(fileName)), parsingMode + " " + dedupOptions);
+        }
+        String summary = Files.readString(output.resolve("run_summary.json"));
+        assertTrue(summary.contains("\"duplicateOrders\" : 3000"), summary);
+        assertTrue(summary.contains("\"expectedWronglyDroppedOrders\" : 0"), summary);
+      }
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.OrderFilter;
+import com.fransua.config.ParsingMode;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import com.fransua.metrics.RunMetrics;
+import com.fransua.model.Burger;
+import com.fransua.model.Order;
+import com.fransua.processor.JsonFileProcessor;
+import com.fransua.processor.OrderTokenExtractor;
+import com.fransua.service.AttributeCounter;
+import com.fransua.service.PartialStatistic;
+import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.StatisticService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OrderFilterTest {
+
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("order_filter_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testParse_CombinesClauses() {
+    OrderFilter filter = OrderFilter.parse("createdAt>=2025-01-01; createdAt<2025-01-02T00:00Z;"
+        + "createdAt<=2025-01-01T12:00:00+02:00; burger=A|B; ingredient=C");
+
+    assertEquals(Instant.parse("2025-01-01T00:00:00Z"), filter.createdFrom());
+    assertEquals(Instant.parse("2025-01-01T10:00:00.000000001Z"), filter.createdTo());
+    assertEquals(2, filter.nameClauses().size());
+    assertTrue(filter.acceptsTime(Instant.parse("2025-01-01T10:00:00Z")));
+    assertFalse(filter.acceptsTime(Instant.parse("2025-01-01T10:00:01Z")));
+    assertFalse(filter.acceptsTime(null));
+    assertThrows(IllegalArgumentException.class, () -> OrderFilter.parse("price>1"));
+    assertThrows(IllegalArgumentException.class, () -> OrderFilter.parse("createdAt>=soon"));
+    assertThrows(IllegalArgumentException.class, () -> OrderFilter.parse("burger=|"));
+  }
+
+  @Test
+  public void testProcess_MatchesFilteredReference() throws Exception {
+    List<Path> files = new OrderDatasetGenerator(
+        DatasetOptions.defaults().withOrderCount(3000).withFileCount(3)).generate(tmpDirectory);
+    Instant from = Instant.parse("2025-01-01T06:00:00Z");
+    Instant to = Instant.parse("2025-01-01T18:00:00Z");
+    OrderFilter filter = OrderFilter.parse("createdAt>=" + from + ";createdAt<" + to
+        + ";burger=Burger 1|Burger 3;ingredient=Ingredient 2");
+
+    Map<String, Long> expected = new HashMap<>();
+    long matchedOrders = 0;
+    long totalOrders = 0;
+    for (Path file : files) {
+      try (MappingIterator<Order> iterator =
+          ApplicationConfig.objectReader().readValues(file.toFile())) {
+        while (iterator.hasNext()) {
+          Order order = iterator.next();
+          ++totalOrders;
+          boolean burgerMatches = order.burgers().stream()
+              .anyMatch(burger -> List.of("Burger 1", "Burger 3").contains(burger.name()));
+          boolean ingredientMatches = order.burgers().stream()
+              .flatMap(burger -> burger.ingredients().stream())
+              .anyMatch(ingredient -> ingredient.name().equals("Ingredient 2"));
+          if (!order.createdAt().isBefore(from) && order.createdAt().isBefore(to)
+              && burgerMatches && ingredientMatches) {
+            ++matchedOrders;
+            for (Burger burger : order.burgers()) {
+              expected.merge(burger.name(), 1L, Long::sum);
+            }
+          }
+        }
+      }
+    }
+    assertTrue(matchedOrders > 0 && matchedOrders < totalOrders);
+
+    for (ParsingMode parsingMode : ParsingMode.values()) {
+      ApplicationConfig config = new ApplicationConfig(tmpDirectory.toFile(),
+          List.of("burger-name"), parsingMode).withOrderFilter(filter);
+      StatisticService service = new StatisticCalculatorService();
+      RunMetrics metrics = new RunMetrics();
+      for (Path file : files) {
+        new JsonFileProcessor(config, file.toFile(), null, Map.of("burger-name", service),
+            metrics).call();
+      }
+
+      assertEquals(expected, service.getStatisticSortedByCountThenByName(),
+          parsingMode.toString());
+      assertEquals(totalOrders, metrics.orders(), parsingMode.toString());
+      assertEquals(totalOrders - matchedOrders, metrics.rejectedOrders(),
+          parsingMode.toString());
+      if (parsingMode == ParsingMode.STREAMING) {
+        assertTrue(metrics.skippedBytes() > 0);
+      }
+    }
+  }
+
+  @Test
+  public void testExtract_SkipsRestOfOrderOutOfRange() throws Exception {
+    String json = """
+        [
+          {"createdAt": "2024-12-31T23:59:59Z", "id": "x",
+           "burgers": [{"name": "Old", "ingredients": [{"name": "A", "unitPrice": 1.00}]}]},
+          {"burgers": [{"name": "Late", "ingredients": [{"name": "A", "unitPrice": 1.00}]}],
+           "createdAt": "2025-01-01T00:00:00Z"},
+          {"burgers": [{"name": "Unknown", "ingredients": [{"name": "A", "unitPrice": 1.00}]}]}
+        ]
+        """;
+    AttributeCounter counter = new AttributeCounter();
+    OrderTokenExtractor extractor = new OrderTokenExtractor(
+        Map.<String, PartialStatistic>of("burger-name", counter),
+        OrderFilter.parse("createdAt>=2025-01-01"), null);
+
+    try (JsonParser parser = ApplicationConfig.jsonFactory().createParser(json)) {
+      assertEquals(3, extractor.extract(parser));
+    }
+    assertEquals(1, counter.get("Late"));
+    assertEquals(0, counter.get("Old"));
+    assertEquals(0, counter.get("Unknown"));
+    assertEquals(2, extractor.rejectedOrders());
+    assertEquals(json.indexOf("}]}]}") + "}]}]}".length()
+        - (json.indexOf("59Z\"") + "59Z\"".length()), extractor.skippedBytes());
+  }
+}
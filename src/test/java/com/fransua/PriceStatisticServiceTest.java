@@ -0,0 +1,223 @@
+package com.fransua;
+
+import static com.fransua.StatisticTestSupport.forEachOrder;
+import static com.fransua.StatisticTestSupport.process;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.config.ParsingMode;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import com.fransua.model.Burger;
+import com.fransua.model.Ingredient;
+import com.fransua.model.Order;
+import com.fransua.service.LongHistogram;
+import com.fransua.service.PriceStatisticService;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PriceStatisticServiceTest {
+
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("price_statistic_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testRevenue_MatchesBigDecimalOnTestDataset() throws Exception {
+    List<Path> files;
+    try (Stream<Path> pathStream = Files.list(Path.of("test_dataset"))) {
+      files = pathStream.sorted().toList();
+    }
+    assertMatchesBigDecimal(files);
+  }
+
+  @Test
+  public void testRevenue_MatchesBigDecimalOnGeneratedDataset() throws Exception {
+    assertMatchesBigDecimal(new OrderDatasetGenerator(
+        DatasetOptions.defaults().withOrderCount(3000).withFileCount(3)).generate(tmpDirectory));
+  }
+
+  @Test
+  public void testExtract_ReadsPlainIntegerAndStringPrices() throws Exception {
+    Path file = tmpDirectory.resolve("orders.json");
+    Files.writeString(file, """
+        [
+          {"burgers": [{"ingredients": [{"name": "A", "unitPrice": 1.5},
+                                        {"unitPrice": 2, "name": "B"}],
+                        "name": "X"}]},
+          {"burgers": [{"name": "Y", "ingredients": [{"name": "A", "unitPrice": "0.25"},
+                                                     {"name": "B", "unitPrice": 1.200},
+                                                     {"name": "C", "unitPrice": 3E-1}]}]}
+        ]
+        """);
+
+    for (ParsingMode parsingMode : ParsingMode.values()) {
+      PriceStatisticService ingredientService =
+          new PriceStatisticService(PriceStatisticService.Dimension.INGREDIENT);
+      PriceStatisticService burgerService =
+          new PriceStatisticService(PriceStatisticService.Dimension.BURGER);
+      process(file, "ingredient-revenue", parsingMode, ingredientService);
+      process(file, "burger-revenue", parsingMode, burgerService);
+
+      assertEquals(175, ingredientService.getRevenue("A"), parsingMode.toString());
+      assertEquals(320, ingredientService.getRevenue("B"), parsingMode.toString());
+      assertEquals(30, ingredientService.getRevenue("C"), parsingMode.toString());
+      assertEquals(Map.of("revenue", "3.20", "min", "1.20", "max", "2.00", "mean", "1.60"),
+          ingredientService.getItemElements("B"), parsingMode.toString());
+      assertEquals(350, burgerService.getRevenue("X"), parsingMode.toString());
+      assertEquals(175, burgerService.getRevenue("Y"), parsingMode.toString());
+      assertEquals("5.25", burgerService.getStatisticProperties().get("revenue"));
+    }
+  }
+
+  @Test
+  public void testExtract_SkipsMissingPricesAndRejectsPricesBelowOneCent() throws Exception {
+    Path file = tmpDirectory.resolve("orders.json");
+    Files.writeString(file, """
+        [
+          {"burgers": [{"name": "X", "ingredients": [{"name": "A", "unitPrice": 1.005},
+                                                     {"name": "B", "unitPrice": 2.00}]}]},
+          {"burgers": [{"name": "X", "ingredients": [{"name": "B", "unitPrice": 3},
+                                                     {"name": "C", "unitPrice": null}]},
+                       {"name": "Y", "ingredients": [{"name": "B", "unitPrice": 4}]}]},
+          {"burgers": [{"name": "X", "ingredients": [{"name": "B", "unitPrice": 1},
+                                                     {"name": "C"}]}]},
+          {"burgers": [{"name": "Y", "ingredients": [{"name": "B", "unitPrice": 5}]}]}
+        ]
+        """);
+
+    for (ParsingMode parsingMode : ParsingMode.values()) {
+      PriceStatisticService ingredientService =
+          new PriceStatisticService(PriceStatisticService.Dimension.INGREDIENT);
+      PriceStatisticService burgerService =
+          new PriceStatisticService(PriceStatisticService.Dimension.BURGER);
+      process(file, "ingredient-revenue", parsingMode, ingredientService);
+      process(file, "burger-revenue", parsingMode, burgerService);
+
+      assertEquals(Map.of("B", 5L), ingredientService.getStatisticSortedByCountThenByName(),
+          parsingMode.toString());
+      assertEquals(Map.of("revenue", "15.00", "min", "1.00", "max", "5.00", "mean", "3.00"),
+          ingredientService.getItemElements("B"), parsingMode.toString());
+      assertEquals(Map.of("Y", 2L), burgerService.getStatisticSortedByCountThenByName(),
+          parsingMode.toString());
+      assertEquals(1, ingredientService.getRejectedPrices(), parsingMode.toString());
+      for (PriceStatisticService service : List.of(ingredientService, burgerService)) {
+        Map<String, String> properties = service.getStatisticProperties();
+        assertEquals("4", properties.get("orders"), parsingMode.toString());
+        assertEquals("15.00", properties.get("revenue"), parsingMode.toString());
+        assertEquals("2", properties.get("missingPrices"), parsingMode.toString());
+        assertEquals("1", properties.get("rejectedPrices"), parsingMode.toString());
+        assertEquals("5.00", properties.get("orderRevenueMin"), parsingMode.toString());
+        assertEquals(1, service.getOrderRevenues().count(), parsingMode.toString());
+      }
+    }
+  }
+
+  @Test
+  public void testHistogram_BucketsTotalsWithinRelativeError() {
+    LongHistogram histogram = new LongHistogram(11);
+    LongHistogram other = new LongHistogram(11);
+    for (long value = 1; value <= 1_000_000; ++value) {
+      (value % 2 == 0 ? histogram : other).add(value, 1);
+    }
+    histogram.mergeFrom(other);
+
+    assertTrue(histogram.bucketCount() < 20_000, String.valueOf(histogram.bucketCount()));
+    assertEquals(1_000_000, histogram.count());
+    assertEquals(500_000_500_000L, histogram.sum());
+    assertEquals(1, histogram.min());
+    assertEquals(1_000_000, histogram.max());
+    for (int percentile : new int[] {1, 50, 90, 99, 100}) {
+      long expected = 10_000L * percentile;
+      long actual = histogram.percentile(percentile);
+      assertTrue(actual <= expected && expected - actual <= expected / 1024,
+          percentile + ": " + actual);
+    }
+    assertThrows(IllegalArgumentException.class,
+        () -> histogram.mergeFrom(new LongHistogram()));
+  }
+
+  private static void assertMatchesBigDecimal(List<Path> files) throws Exception {
+    Map<String, BigDecimal> ingredientRevenues = new HashMap<>();
+    Map<String, BigDecimal> burgerRevenues = new HashMap<>();
+    List<BigDecimal> orderRevenues = new ArrayList<>();
+    forEachOrder(files, order -> {
+      BigDecimal orderRevenue = BigDecimal.ZERO;
+      for (Burger burger : order.burgers()) {
+        BigDecimal burgerRevenue = BigDecimal.ZERO;
+        for (Ingredient ingredient : burger.ingredients()) {
+          ingredientRevenues.merge(ingredient.name(), ingredient.unitPrice(), BigDecimal::add);
+          burgerRevenue = burgerRevenue.add(ingredient.unitPrice());
+        }
+        burgerRevenues.merge(burger.name(), burgerRevenue, BigDecimal::add);
+        orderRevenue = orderRevenue.add(burgerRevenue);
+      }
+      orderRevenues.add(orderRevenue);
+    });
+    orderRevenues.sort(Comparator.naturalOrder());
+    BigDecimal totalRevenue = orderRevenues.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+
+    for (ParsingMode parsingMode : ParsingMode.values()) {
+      PriceStatisticService ingredientService =
+          new PriceStatisticService(PriceStatisticService.Dimension.INGREDIENT);
+      PriceStatisticService burgerService =
+          new PriceStatisticService(PriceStatisticService.Dimension.BURGER);
+      for (Path file : files) {
+        process(file, "ingredient-revenue", parsingMode, ingredientService);
+        process(file, "burger-revenue", parsingMode, burgerService);
+      }
+
+      assertRevenues(ingredientRevenues, ingredientService, parsingMode);
+      assertRevenues(burgerRevenues, burgerService, parsingMode);
+      LongHistogram histogram = burgerService.getOrderRevenues();
+      assertEquals(orderRevenues.size(), histogram.count(), parsingMode.toString());
+      assertEquals(unscaled(totalRevenue), histogram.sum(), parsingMode.toString());
+      assertEquals(unscaled(orderRevenues.get(0)), histogram.min(), parsingMode.toString());
+      assertEquals(unscaled(orderRevenues.get(orderRevenues.size() - 1)), histogram.max(),
+          parsingMode.toString());
+      // Order totals are bucketed to 11 significant bits.
+      long median = unscaled(orderRevenues.get((orderRevenues.size() + 1) / 2 - 1));
+      assertTrue(histogram.percentile(50) <= median
+          && median - histogram.percentile(50) <= median / 1024, parsingMode.toString());
+      assertEquals(totalRevenue.toPlainString(),
+          ingredientService.getStatisticProperties().get("revenue"));
+    }
+  }
+
+  private static void assertRevenues(Map<String, BigDecimal> expected,
+      PriceStatisticService service, ParsingMode parsingMode) {
+    assertEquals(expected.keySet(), service.getStatisticSortedByCountThenByName().keySet(),
+        parsingMode.toString());
+    expected.forEach((name, revenue) -> assertEquals(unscaled(revenue),
+        service.getRevenue(name), name + " " + parsingMode));
+  }
+
+  private static long unscaled(BigDecimal price) {
+    return price.setScale(PriceStatisticService.SCALE).unscaledValue().longValueExact();
+  }
+}
@@ -0,0 +1,42 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.config.RunFeature;
+import java.util.EnumSet;
+import org.junit.jupiter.api.Test;
+
+public class RunFeatureTest {
+
+  @Test
+  public void testValidate_NamesEveryConflictOfTheFirstFeature() {
+    IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+        () -> RunFeature.validate(EnumSet.of(RunFeature.PER_ORDER_COUNTS,
+            RunFeature.REVENUE_ATTRIBUTES, RunFeature.APPROXIMATE_ENGINE)));
+    assertEquals("Revenue attributes can't be combined with the approximate engine or per-order"
+        + " count modes", exception.getMessage());
+
+    exception = assertThrows(IllegalArgumentException.class, () -> RunFeature.validate(
+        EnumSet.of(RunFeature.PAIR_ATTRIBUTES, RunFeature.TIME_BUCKETS,
+            RunFeature.EXTERNAL_ENGINE)));
+    assertEquals("Pair attributes can't be combined with the external engine or time buckets",
+        exception.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> RunFeature.validate(
+        EnumSet.of(RunFeature.COLUMNAR_CACHE, RunFeature.DISTINCT_ORDER_COUNTS)));
+    assertDoesNotThrow(() -> RunFeature.validate(EnumSet.of(RunFeature.REVENUE_ATTRIBUTES,
+        RunFeature.COMPOSITE_ATTRIBUTES, RunFeature.FILTER, RunFeature.DEDUP,
+        RunFeature.PARALLEL_WALK, RunFeature.SERVER)));
+  }
+
+  @Test
+  public void testConflicts_AreSymmetric() {
+    for (RunFeature feature : RunFeature.values()) {
+      for (RunFeature other : feature.conflicts()) {
+        assertTrue(other.conflicts().contains(feature), feature + " " + other);
+      }
+    }
+  }
+}
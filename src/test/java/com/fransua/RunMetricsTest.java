@@ -0,0 +1,108 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.metrics.LatencyHistogram;
+import com.fransua.metrics.RunMetrics;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RunMetricsTest {
+
+  private static final Path DATASET_DIRECTORY = Path.of("test_dataset");
+
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("metrics_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testPercentileNanos_WithinFactorOfTwo() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long nanos = 1; nanos <= 1000; ++nanos) {
+      histogram.record(nanos);
+    }
+
+    assertEquals(1000, histogram.count());
+    assertEquals(500, histogram.meanNanos());
+    assertEquals(1000, histogram.maxNanos());
+    long median = histogram.percentileNanos(50);
+    assertTrue(median >= 500 && median < 1000, "median " + median);
+    assertEquals(1000, histogram.percentileNanos(99));
+  }
+
+  @Test
+  public void testRun_WritesSummaryNextToReports() throws Exception {
+    ApplicationConfig config = new ApplicationConfig(DATASET_DIRECTORY.toFile(),
+        ApplicationConfig.availableAttributeNames(), ParsingMode.STREAMING)
+        .withOutputDirectory(tmpDirectory.toFile());
+    new ApplicationRunner(config).run();
+
+    JsonNode summary = new ObjectMapper().readTree(config.summaryFile().toFile());
+    assertEquals(3, summary.get("files").asInt());
+    assertEquals(15, summary.get("orders").asInt());
+    assertEquals(3, summary.get("stages").get("parse").get("count").asInt());
+    assertEquals(3, summary.get("stages").get("queue_wait").get("count").asInt());
+    assertEquals(config.attributeNames().size(), summary.get("reports").size());
+    long bytes = 0;
+    for (JsonNode fileMetrics : summary.get("fileMetrics")) {
+      bytes += fileMetrics.get("bytes").asLong();
+    }
+    assertEquals(summary.get("bytes").asLong(), bytes);
+  }
+
+  @Test
+  public void testWriteSummary_NamesDoNotDependOnDefaultLocaleAndThreadsStayApart()
+      throws Exception {
+    RunMetrics metrics = new RunMetrics();
+    metrics.recordStage(RunMetrics.Stage.QUEUE_WAIT, 1000);
+    metrics.recordAllocation(100);
+    Thread worker = new Thread(() -> metrics.recordAllocation(200),
+        Thread.currentThread().getName());
+    worker.start();
+    worker.join();
+    Path summaryFile = tmpDirectory.resolve("run_summary.json");
+    Locale defaultLocale = Locale.getDefault();
+    Locale.setDefault(Locale.forLanguageTag("tr"));
+    try {
+      metrics.writeSummary(summaryFile);
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+
+    JsonNode summary = new ObjectMapper().readTree(summaryFile.toFile());
+    assertEquals(1, summary.get("stages").get("queue_wait").get("count").asInt());
+    // Both threads have the same name but are counted apart.
+    JsonNode allocatedBytes = summary.get("allocatedBytesByThread");
+    assertEquals(2, allocatedBytes.size());
+    long total = 0;
+    for (JsonNode bytes : allocatedBytes) {
+      total += bytes.asLong();
+    }
+    assertEquals(300, total);
+  }
+}
@@ -6,10 +6,15 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.fransua.service.AttributeCounter;
 import com.fransua.service.StatisticCalculatorService;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -30,7 +35,7 @@ public class StatisticCalculatorServiceTest {
     service.incrementAttributeCount(attributeName);
     service.incrementAttributeCount(attributeName);
 
-    Map<String, Integer> statistic = service.getStatisticSortedByCountThenByName();
+    Map<String, Long> statistic = service.getStatisticSortedByCountThenByName();
 
     assertEquals(1, statistic.size());
     assertEquals(2, statistic.get(attributeName));
@@ -45,7 +50,7 @@ public class StatisticCalculatorServiceTest {
     service.incrementAttributeCount(attributeName2);
     service.incrementAttributeCount(attributeName1);
 
-    Map<String, Integer> statistic = service.getStatisticSortedByCountThenByName();
+    Map<String, Long> statistic = service.getStatisticSortedByCountThenByName();
     assertEquals(2, statistic.size());
     assertEquals(2, statistic.get(attributeName1));
     assertEquals(1, statistic.get(attributeName2));
@@ -60,7 +65,7 @@ public class StatisticCalculatorServiceTest {
     assertThrows(IllegalArgumentException.class,
         () -> service.incrementAttributeCount("  ")); // tab
 
-    Map<String, Integer> statistic = service.getStatisticSortedByCountThenByName();
+    Map<String, Long> statistic = service.getStatisticSortedByCountThenByName();
 
     assertFalse(statistic.containsKey(null));
     assertFalse(statistic.containsKey(""));
@@ -78,7 +83,7 @@ public class StatisticCalculatorServiceTest {
     service.incrementAttributeCount("C");
     service.incrementAttributeCount("C");
 
-    Map<String, Integer> statistic = service.getStatisticSortedByCountThenByName();
+    Map<String, Long> statistic = service.getStatisticSortedByCountThenByName();
 
     String[] expectedList = new String[]{"B", "C", "A"};
     assertArrayEquals(expectedList, statistic.keySet().toArray());
@@ -97,7 +102,7 @@ public class StatisticCalculatorServiceTest {
     service.incrementAttributeCount("A");
     service.incrementAttributeCount("A");
 
-    Map<String, Integer> statistic = service.getStatisticSortedByCountThenByName();
+    Map<String, Long> statistic = service.getStatisticSortedByCountThenByName();
 
     String[] expectedList = new String[]{"A", "C", "B"};
     assertArrayEquals(expectedList, statistic.keySet().toArray());
@@ -109,7 +114,7 @@ public class StatisticCalculatorServiceTest {
 
   @Test
   public void testGetStatisticSortedByCountThenByName_EmptyStatic() {
-    Map<String, Integer> statistic = service.getStatisticSortedByCountThenByName();
+    Map<String, Long> statistic = service.getStatisticSortedByCountThenByName();
     assertTrue(statistic.isEmpty());
   }
 
@@ -133,8 +138,102 @@ public class StatisticCalculatorServiceTest {
     assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
 
     int expectedTotal = threadsNumber * incrementsPerThread;
-    Map<String, Integer> statistic = service.getStatisticSortedByCountThenByName();
+    Map<String, Long> statistic = service.getStatisticSortedByCountThenByName();
 
     assertEquals(expectedTotal, statistic.get(attributeName));
   }
+
+  @Test
+  public void testMergePartial_CountsExceedIntegerRange() {
+    String attributeName = "Brioche Bun";
+    AttributeCounter partial = new AttributeCounter();
+    partial.add(attributeName, Integer.MAX_VALUE);
+
+    service.mergePartial(partial);
+    service.mergePartial(partial);
+    service.incrementAttributeCount(attributeName);
+
+    Map<String, Long> statistic = service.getStatisticSortedByCountThenByName();
+
+    assertEquals(2L * Integer.MAX_VALUE + 1, statistic.get(attributeName));
+  }
+
+  @Test
+  public void testMergePartial_ThrowExceptionIfAttributeNullOrBlank() {
+    AttributeCounter partial = new AttributeCounter();
+
+    assertThrows(IllegalArgumentException.class, () -> partial.increment(null));
+    assertThrows(IllegalArgumentException.class, () -> partial.increment(" "));
+    assertTrue(partial.isEmpty());
+  }
+
+  @Test
+  public void testIncrementChars_CountsLikeStrings() {
+    // "Aa" and "BB" have the same String hash.
+    char[] buffer = "{Aa,BB, }".toCharArray();
+    AttributeCounter partial = new AttributeCounter();
+
+    partial.increment(buffer, 1, 2);
+    partial.increment("Aa");
+    partial.increment(buffer, 4, 2);
+    partial.increment(buffer, 1, 2);
+
+    assertEquals(3, partial.get("Aa"));
+    assertEquals(1, partial.get("BB"));
+    assertEquals(3, partial.get(buffer, 1, 2));
+    assertEquals(0, partial.get(buffer, 1, 1));
+    assertEquals(2, partial.size());
+    assertThrows(IllegalArgumentException.class, () -> partial.increment(buffer, 7, 1));
+    assertThrows(IllegalArgumentException.class, () -> partial.increment(buffer, 0, 0));
+    assertEquals(2, partial.size());
+  }
+
+  @Test
+  public void testMergePartial_ConcurrentStress() throws Exception {
+    int threadsNumber = 16;
+    int partialsPerThread = 50;
+    int incrementsPerPartial = 2_000;
+    String[] attributeNames = new String[200];
+    for (int i = 0; i < attributeNames.length; ++i) {
+      attributeNames[i] = "Ingredient " + i;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threadsNumber);
+    CountDownLatch startLatch = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < threadsNumber; ++i) {
+      int threadIndex = i;
+      futures.add(executor.submit(() -> {
+        startLatch.await();
+        for (int p = 0; p < partialsPerThread; ++p) {
+          AttributeCounter partial = new AttributeCounter();
+          for (int j = 0; j < incrementsPerPartial; ++j) {
+            // every second increment hits the same hot key
+            String attributeName = j % 2 == 0 ? "Brioche Bun"
+                : attributeNames[(threadIndex + j) % attributeNames.length];
+            partial.increment(attributeName);
+          }
+          service.mergePartial(partial);
+          service.incrementAttributeCount("Brioche Bun");
+        }
+        return null;
+      }));
+    }
+
+    startLatch.countDown();
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    Map<String, Long> statistic = service.getStatisticSortedByCountThenByName();
+
+    long totalIncrements = (long) threadsNumber * partialsPerThread * (incrementsPerPartial + 1);
+    assertEquals(totalIncrements, statistic.values().stream().mapToLong(Long::longValue).sum());
+    long expectedHotCount =
+        (long) threadsNumber * partialsPerThread * (incrementsPerPartial / 2 + 1);
+    assertEquals(expectedHotCount, statistic.get("Brioche Bun"));
+    assertEquals("Brioche Bun", statistic.keySet().iterator().next());
+    assertEquals(attributeNames.length + 1, statistic.size());
+  }
 }
@@ -0,0 +1,194 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.ServerOptions;
+import com.fransua.config.WatchOptions;
+import com.fransua.server.StatisticServer;
+import com.fransua.server.StatisticSnapshot;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StatisticServerTest {
+
+  private static final Path DATASET_DIRECTORY = Path.of("test_dataset");
+  private static final long TIMEOUT_MILLIS = 20_000;
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private final ObjectMapper mapper = new ObjectMapper();
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("server_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testServer_AnswersFromThePublishedSnapshot() throws Exception {
+    List<String> attributeNames = new ArrayList<>(ApplicationConfig.availableAttributeNames());
+    attributeNames.add("ingredient-revenue");
+    attributeNames.add("burger-pair");
+    ApplicationConfig config = new ApplicationConfig(DATASET_DIRECTORY.toFile(), attributeNames,
+        ParsingMode.STREAMING).withOutputDirectory(tmpDirectory.toFile())
+        .withServerOptions(new ServerOptions(true, 0));
+    ApplicationRunner runner = new ApplicationRunner(config);
+    runner.run();
+
+    try (StatisticServer server = new StatisticServer(config)) {
+      server.start();
+      assertEquals(503, get(server, "/attributes").statusCode());
+      server.publish(runner.statisticServices());
+
+      JsonNode attributes = readJson(get(server, "/attributes"));
+      assertEquals(1, attributes.get("version").asLong());
+      assertEquals(attributeNames.size(), attributes.get("attributes").size());
+      for (String attributeName : attributeNames) {
+        HttpResponse<byte[]> report = get(server, "/report/" + attributeName + "?format=xml");
+        assertEquals(200, report.statusCode());
+        assertEquals("1", report.headers().firstValue("X-Snapshot-Version").orElseThrow());
+        assertArrayEquals(Files.readAllBytes(config.statisticFile(attributeName)),
+            report.body());
+      }
+
+      Map<String, Long> burgers =
+          runner.statisticServices().get("burger-name").getStatisticSortedByCountThenByName();
+      JsonNode jsonReport = readJson(get(server, "/report/burger-name"));
+      assertEquals(burgers.size(), jsonReport.get("items").size());
+      JsonNode top = readJson(get(server, "/top/burger-name?n=3"));
+      assertEquals(3, top.get("items").size());
+      int rank = 0;
+      for (Map.Entry<String, Long> burger : burgers.entrySet()) {
+        JsonNode item = jsonReport.get("items").get(rank);
+        assertEquals(burger.getKey(), item.get("name").asText());
+        assertEquals(burger.getValue(), item.get("count").asLong());
+        if (rank < 3) {
+          assertEquals(item, top.get("items").get(rank));
+        }
+        JsonNode lookup = readJson(get(server, "/count/burger-name?name="
+            + URLEncoder.encode(burger.getKey(), StandardCharsets.UTF_8)));
+        assertEquals(burger.getValue(), lookup.get("count").asLong());
+        assertEquals(rank + 1, lookup.get("rank").asInt());
+        ++rank;
+      }
+
+      JsonNode revenueItem = readJson(get(server, "/top/ingredient-revenue?n=1"))
+          .get("items").get(0);
+      assertTrue(revenueItem.has("revenue"));
+      assertEquals(404, get(server, "/count/burger-name?name=Unknown").statusCode());
+      assertEquals(404, get(server, "/top/ingredient-pair").statusCode());
+      assertEquals(400, get(server, "/top/burger-name?format=csv").statusCode());
+      assertEquals(400, get(server, "/top/burger-name?n=-1").statusCode());
+    }
+  }
+
+  @Test
+  public void testServer_PublishesAfterEveryWatchReport() throws Exception {
+    Path inputDirectory = Files.createDirectory(tmpDirectory.resolve("input"));
+    Files.copy(DATASET_DIRECTORY.resolve("orders_part_1.json"),
+        inputDirectory.resolve("orders_part_1.json"));
+    ApplicationConfig config = new ApplicationConfig(inputDirectory.toFile(),
+        ApplicationConfig.availableAttributeNames(), ParsingMode.STREAMING)
+        .withOutputDirectory(tmpDirectory.resolve("watch_statistic").toFile())
+        .withWatchOptions(new WatchOptions(true, 50, 100))
+        .withServerOptions(new ServerOptions(true, 0));
+
+    try (StatisticServer server = new StatisticServer(config)) {
+      server.start();
+      Thread watcher = new Thread(() -> {
+        try {
+          new WatchModeRunner(config, server::publish).run();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      });
+      watcher.start();
+      try {
+        StatisticSnapshot first = awaitSnapshot(server, 0);
+        Files.copy(DATASET_DIRECTORY.resolve("orders_part_2.json"),
+            inputDirectory.resolve("orders_part_2.json"));
+        StatisticSnapshot second = awaitSnapshot(server, first.version());
+        assertTrue(second.version() > first.version());
+
+        ApplicationConfig fullConfig = new ApplicationConfig(inputDirectory.toFile(),
+            config.attributeNames(), config.parsingMode())
+            .withOutputDirectory(tmpDirectory.resolve("full_statistic").toFile());
+        new ApplicationRunner(fullConfig).run();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!reportsEqual(server, fullConfig)) {
+          assertTrue(System.currentTimeMillis() < deadline, "Snapshot was not updated");
+          Thread.sleep(50);
+        }
+      } finally {
+        watcher.interrupt();
+        watcher.join(TIMEOUT_MILLIS);
+      }
+    }
+  }
+
+  private StatisticSnapshot awaitSnapshot(StatisticServer server, long previousVersion)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (server.snapshot() == null || server.snapshot().version() <= previousVersion) {
+      assertTrue(System.currentTimeMillis() < deadline, "No snapshot was published");
+      Thread.sleep(50);
+    }
+    return server.snapshot();
+  }
+
+  private boolean reportsEqual(StatisticServer server, ApplicationConfig fullConfig)
+      throws Exception {
+    for (String attributeName : fullConfig.attributeNames()) {
+      byte[] expected = Files.readAllBytes(fullConfig.statisticFile(attributeName));
+      if (!Arrays.equals(expected,
+          get(server, "/report/" + attributeName + "?format=xml").body())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private HttpResponse<byte[]> get(StatisticServer server, String path) throws Exception {
+    return client.send(HttpRequest.newBuilder(
+            URI.create("http://localhost:" + server.port() + path)).build(),
+        HttpResponse.BodyHandlers.ofByteArray());
+  }
+
+  private JsonNode readJson(HttpResponse<byte[]> response) throws IOException {
+    assertEquals(200, response.statusCode());
+    return mapper.readTree(response.body());
+  }
+}
@@ -0,0 +1,133 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.IncrementalOptions;
+import com.fransua.config.ParsingMode;
+import com.fransua.service.AttributeCounter;
+import com.fransua.service.FileIdentity;
+import com.fransua.service.FileState;
+import com.fransua.service.StatisticStateStore;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StatisticStateStoreTest {
+
+  private static final Path DATASET_DIRECTORY = Path.of("test_dataset");
+
+  private Path tmpDirectory;
+  private Path inputDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("state_dir");
+    inputDirectory = Files.createDirectory(tmpDirectory.resolve("input"));
+    for (File file : ApplicationRunner.findJsonFiles(DATASET_DIRECTORY)) {
+      Files.copy(file.toPath(), inputDirectory.resolve(file.getName()));
+    }
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testSaveAndLoad_RoundTripsPartials() throws IOException {
+    AttributeCounter counter = new AttributeCounter();
+    counter.add("Brioche Bun", 3_000_000_000L);
+    counter.add("Grüße 🍔", 1);
+    FileIdentity identity = new FileIdentity("/data/orders.json", 10, 20, 30);
+    Path stateFile = tmpDirectory.resolve("state").resolve("state.bin");
+
+    StatisticStateStore.save(stateFile,
+        List.of(new FileState(identity, 7, Map.of("ingredient-name", counter))));
+    Map<String, FileState> states = StatisticStateStore.load(stateFile);
+
+    FileState state = states.get("/data/orders.json");
+    assertEquals(identity, state.identity());
+    assertEquals(7, state.processedOrders());
+    AttributeCounter loadedCounter = state.counters().get("ingredient-name");
+    assertEquals(2, loadedCounter.size());
+    assertEquals(3_000_000_000L, loadedCounter.get("Brioche Bun"));
+    assertEquals(1, loadedCounter.get("Grüße 🍔"));
+  }
+
+  @Test
+  public void testRun_IncrementalMatchesFullRecomputeAfterChanges() throws Exception {
+    assertIncrementalMatchesFull(false);
+
+    Path part1 = inputDirectory.resolve("orders_part_1.json");
+    Files.copy(part1, inputDirectory.resolve("orders_part_4.json"));
+    assertIncrementalMatchesFull(false);
+
+    Files.delete(inputDirectory.resolve("orders_part_2.json"));
+    assertIncrementalMatchesFull(false);
+
+    Files.writeString(part1, Files.readString(part1).replace("Brioche Bun", "Rye Bun"));
+    assertIncrementalMatchesFull(false);
+  }
+
+  @Test
+  public void testRun_ContentHashDetectsSameSizeAndModificationTime() throws Exception {
+    Path part3 = inputDirectory.resolve("orders_part_3.json");
+    runIncremental(false);
+
+    FileTime lastModified = Files.getLastModifiedTime(part3);
+    Files.writeString(part3, Files.readString(part3).replace("Brioche Bun", "Briochx Bun"));
+    Files.setLastModifiedTime(part3, lastModified);
+
+    runIncremental(false);
+    assertFalse(readReport("incremental").contains("Briochx Bun"));
+
+    runIncremental(true);
+    assertTrue(readReport("incremental").contains("Briochx Bun"));
+  }
+
+  private void assertIncrementalMatchesFull(boolean contentHash) throws Exception {
+    runIncremental(contentHash);
+    new ApplicationRunner(config("full")).run();
+
+    for (String attributeName : ApplicationConfig.availableAttributeNames()) {
+      String fileName = ApplicationConfig.getStatisticFileNameFor(attributeName);
+      assertArrayEquals(
+          Files.readAllBytes(tmpDirectory.resolve("full").resolve(fileName)),
+          Files.readAllBytes(tmpDirectory.resolve("incremental").resolve(fileName)));
+    }
+  }
+
+  private void runIncremental(boolean contentHash) throws Exception {
+    new ApplicationRunner(config("incremental")
+        .withIncrementalOptions(new IncrementalOptions(true, contentHash))).run();
+  }
+
+  private ApplicationConfig config(String outputName) {
+    return new ApplicationConfig(inputDirectory.toFile(),
+        ApplicationConfig.availableAttributeNames(),
+        ParsingMode.STREAMING)
+        .withOutputDirectory(tmpDirectory.resolve(outputName).toFile());
+  }
+
+  private String readReport(String outputName) throws IOException {
+    return Files.readString(tmpDirectory.resolve(outputName)
+        .resolve(ApplicationConfig.getStatisticFileNameFor("ingredient-name")));
+  }
+}
@@ -0,0 +1,75 @@
+package com.fransua;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.model.Order;
+import com.fransua.processor.JsonFileProcessor;
+import com.fransua.service.StatisticService;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+// Helpers shared by the tests that run files through a processor or compare written reports
+// with counts computed the naive way.
+final class StatisticTestSupport {
+
+  private StatisticTestSupport() {
+  }
+
+  // Runs one file through a JsonFileProcessor for one attribute and returns its order count.
+  static int process(Path file, String attributeName, ParsingMode parsingMode,
+      StatisticService service) throws Exception {
+    ApplicationConfig config = new ApplicationConfig(file.getParent().toFile(),
+        List.of(attributeName), parsingMode);
+    return new JsonFileProcessor(config, file.toFile(), Map.of(attributeName, service)).call();
+  }
+
+  // Reads the items of a written report in their order, by value name.
+  static Map<String, Long> readReport(Path outputDirectory, String attributeName)
+      throws Exception {
+    Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+        outputDirectory.resolve(ApplicationConfig.getStatisticFileNameFor(attributeName))
+            .toFile());
+    String elementName = attributeName.toLowerCase(Locale.ROOT).replace("-", "")
+        .replace(',', '_');
+    NodeList items = document.getElementsByTagName("item");
+    Map<String, Long> statistic = new LinkedHashMap<>();
+    for (int i = 0; i < items.getLength(); ++i) {
+      Element item = (Element) items.item(i);
+      statistic.put(item.getElementsByTagName(elementName).item(0).getTextContent(),
+          Long.parseLong(item.getElementsByTagName("count").item(0).getTextContent()));
+    }
+    return statistic;
+  }
+
+  // Reads every order of the files with databind, for the reference counts of the tests.
+  static void forEachOrder(List<Path> files, Consumer<Order> action) throws IOException {
+    for (Path file : files) {
+      try (MappingIterator<Order> iterator =
+          ApplicationConfig.objectReader().readValues(file.toFile())) {
+        while (iterator.hasNext()) {
+          action.accept(iterator.next());
+        }
+      }
+    }
+  }
+
+  // Orders counts like the reports: by count descending, then by name.
+  static Map<String, Long> sorted(Map<String, Long> counts) {
+    Map<String, Long> sortedCounts = new LinkedHashMap<>();
+    counts.entrySet().stream()
+        .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+            .thenComparing(Map.Entry.comparingByKey()))
+        .forEach(entry -> sortedCounts.put(entry.getKey(), entry.getValue()));
+    return sortedCounts;
+  }
+}
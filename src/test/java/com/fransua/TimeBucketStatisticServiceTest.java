@@ -0,0 +1,141 @@
+package com.fransua;
+
+import static com.fransua.StatisticTestSupport.forEachOrder;
+import static com.fransua.StatisticTestSupport.process;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fransua.config.ParsingMode;
+import com.fransua.config.TimeBucketOptions;
+import com.fransua.generator.DatasetOptions;
+import com.fransua.generator.OrderDatasetGenerator;
+import com.fransua.model.Burger;
+import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.TimeBucketStatisticService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TimeBucketStatisticServiceTest {
+
+  private static final TimeBucketOptions HOURS_UTC =
+      new TimeBucketOptions(Duration.ofHours(1), ZoneOffset.UTC);
+
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("time_bucket_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testGetStatisticByBucket_MatchesPerOrderReference() throws Exception {
+    List<Path> files = new OrderDatasetGenerator(
+        DatasetOptions.defaults().withOrderCount(3000).withFileCount(3)).generate(tmpDirectory);
+
+    Map<String, Map<String, Long>> expected = new HashMap<>();
+    forEachOrder(files, order -> {
+      String bucket = HOURS_UTC.bucketLabel(HOURS_UTC.bucketOf(order.createdAt()));
+      for (Burger burger : order.burgers()) {
+        expected.computeIfAbsent(bucket, b -> new HashMap<>())
+            .merge(burger.name(), 1L, Long::sum);
+      }
+    });
+
+    for (ParsingMode parsingMode : ParsingMode.values()) {
+      TimeBucketStatisticService bucketService = new TimeBucketStatisticService(HOURS_UTC);
+      StatisticCalculatorService flatService = new StatisticCalculatorService();
+      for (Path file : files) {
+        process(file, "burger-name", parsingMode, bucketService);
+        process(file, "burger-name", parsingMode, flatService);
+      }
+
+      Map<String, Map<String, Long>> statistic = bucketService.getStatisticByBucket();
+      assertEquals(expected, statistic);
+      assertEquals(List.copyOf(statistic.keySet()),
+          statistic.keySet().stream().sorted().toList());
+      assertEquals(flatService.getStatisticSortedByCountThenByName(),
+          bucketService.getStatisticSortedByCountThenByName());
+    }
+  }
+
+  @Test
+  public void testBucketOf_WeeksStartOnMondayInTheZone() {
+    TimeBucketOptions utcWeeks = new TimeBucketOptions(TimeBucketOptions.parseWidth("week"),
+        ZoneOffset.UTC);
+    // 2025-01-01 is a Wednesday.
+    assertEquals("2024-12-30T00:00Z", utcWeeks.bucketLabel(
+        utcWeeks.bucketOf(Instant.parse("2025-01-01T12:00:00Z"))));
+    assertEquals("2025-01-06T00:00Z", utcWeeks.bucketLabel(
+        utcWeeks.bucketOf(Instant.parse("2025-01-06T00:00:00Z"))));
+    assertEquals("1969-12-29T00:00Z", utcWeeks.bucketLabel(
+        utcWeeks.bucketOf(Instant.parse("1970-01-01T00:00:00Z"))));
+
+    // Sunday 23:30 UTC is already Monday in Berlin.
+    TimeBucketOptions berlinWeeks = new TimeBucketOptions(Duration.ofDays(7),
+        ZoneId.of("Europe/Berlin"));
+    assertEquals("2025-01-06T00:00+01:00", berlinWeeks.bucketLabel(
+        berlinWeeks.bucketOf(Instant.parse("2025-01-05T23:30:00Z"))));
+
+    TimeBucketOptions days = new TimeBucketOptions(Duration.ofDays(1), ZoneOffset.UTC);
+    assertEquals("2025-01-01T00:00Z", days.bucketLabel(
+        days.bucketOf(Instant.parse("2025-01-01T12:00:00Z"))));
+  }
+
+  @Test
+  public void testExtract_BucketsUnsortedOrdersWithFieldsInAnyOrder() throws Exception {
+    Path file = tmpDirectory.resolve("orders.json");
+    Files.writeString(file, """
+        [
+          {"burgers": [{"name": "Late", "ingredients": [{"name": "A", "unitPrice": 5.00}]}],
+           "createdAt": "2025-10-26T22:30:00Z"},
+          {"createdAt": "2025-10-25T21:30:00Z",
+           "burgers": [{"name": "Early", "ingredients": [{"name": "A", "unitPrice": 1.50}]}]},
+          {"burgers": [{"name": "Unknown", "ingredients": [{"name": "B", "unitPrice": 0.30}]}]},
+          {"createdAt": "2025-10-26T01:30:00+03:00",
+           "burgers": [{"name": "Early", "ingredients": [{"name": "A", "unitPrice": 5.00}]}]}
+        ]
+        """);
+    TimeBucketOptions days = new TimeBucketOptions(Duration.ofDays(1),
+        ZoneId.of("Europe/Kyiv"));
+
+    for (ParsingMode parsingMode : ParsingMode.values()) {
+      TimeBucketStatisticService burgerService = new TimeBucketStatisticService(days);
+      TimeBucketStatisticService priceService = new TimeBucketStatisticService(days);
+      process(file, "burger-name", parsingMode, burgerService);
+      process(file, "ingredient-price", parsingMode, priceService);
+
+      assertEquals(Map.of(
+              "2025-10-26T00:00+03:00", Map.of("Early", 2L),
+              "2025-10-27T00:00+02:00", Map.of("Late", 1L),
+              "unknown", Map.of("Unknown", 1L)),
+          burgerService.getStatisticByBucket(), parsingMode.toString());
+      assertEquals(Map.of(
+              "2025-10-26T00:00+03:00", Map.of("1.50", 1L, "5.00", 1L),
+              "2025-10-27T00:00+02:00", Map.of("5.00", 1L),
+              "unknown", Map.of("0.30", 1L)),
+          priceService.getStatisticByBucket(), parsingMode.toString());
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.WatchOptions;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class WatchModeRunnerTest {
+
+  private static final Path DATASET_DIRECTORY = Path.of("test_dataset");
+  private static final long TIMEOUT_MILLIS = 20_000;
+
+  private Path tmpDirectory;
+  private Path inputDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("watch_dir");
+    inputDirectory = Files.createDirectory(tmpDirectory.resolve("input"));
+    Files.copy(DATASET_DIRECTORY.resolve("orders_part_1.json"),
+        inputDirectory.resolve("orders_part_1.json"));
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testRun_ReportsFollowAddedAndDeletedFiles() throws Exception {
+    ApplicationConfig config = new ApplicationConfig(inputDirectory.toFile(),
+        ApplicationConfig.availableAttributeNames(), ParsingMode.STREAMING)
+        .withOutputDirectory(tmpDirectory.resolve("watch_statistic").toFile())
+        .withWatchOptions(new WatchOptions(true, 50, 100));
+    Thread watcher = new Thread(() -> {
+      try {
+        new WatchModeRunner(config).run();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    watcher.start();
+    try {
+      awaitReportsMatchFullRecompute(config);
+
+      Path nestedDirectory = Files.createDirectory(inputDirectory.resolve("nested"));
+      Files.copy(DATASET_DIRECTORY.resolve("orders_part_2.json"),
+          nestedDirectory.resolve("orders_part_2.json"));
+      Files.copy(DATASET_DIRECTORY.resolve("orders_part_3.json"),
+          inputDirectory.resolve("orders_part_3.json"));
+      awaitReportsMatchFullRecompute(config);
+
+      Files.delete(inputDirectory.resolve("orders_part_1.json"));
+      awaitReportsMatchFullRecompute(config);
+    } finally {
+      watcher.interrupt();
+      watcher.join(TIMEOUT_MILLIS);
+    }
+  }
+
+  private void awaitReportsMatchFullRecompute(ApplicationConfig config) throws Exception {
+    ApplicationConfig fullConfig = new ApplicationConfig(inputDirectory.toFile(),
+        config.attributeNames(), config.parsingMode())
+        .withOutputDirectory(tmpDirectory.resolve("full_statistic").toFile());
+    new ApplicationRunner(fullConfig).run();
+
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (!reportsEqual(config, fullConfig)) {
+      assertTrue(System.currentTimeMillis() < deadline, "Watch reports were not updated");
+      Thread.sleep(50);
+    }
+    for (String attributeName : config.attributeNames()) {
+      assertArrayEquals(Files.readAllBytes(fullConfig.statisticFile(attributeName)),
+          Files.readAllBytes(config.statisticFile(attributeName)));
+    }
+  }
+
+  private static boolean reportsEqual(ApplicationConfig config, ApplicationConfig fullConfig)
+      throws IOException {
+    for (String attributeName : config.attributeNames()) {
+      Path report = config.statisticFile(attributeName);
+      if (!Files.exists(report) || !Arrays.equals(Files.readAllBytes(report),
+          Files.readAllBytes(fullConfig.statisticFile(attributeName)))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
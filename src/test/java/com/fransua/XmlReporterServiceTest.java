@@ -0,0 +1,149 @@
+package com.fransua;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import com.fransua.config.ApplicationConfig;
+import com.fransua.config.ParsingMode;
+import com.fransua.config.ReportOptions;
+import com.fransua.processor.JsonFileProcessor;
+import com.fransua.service.StatisticCalculatorService;
+import com.fransua.service.StatisticService;
+import com.fransua.service.XmlReporterService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+public class XmlReporterServiceTest {
+
+  private static final Path DATASET_DIRECTORY = Path.of("test_dataset");
+  private static final Path STATISTIC_DIRECTORY = Path.of("statistic");
+
+  private Path tmpDirectory;
+
+  @BeforeEach
+  public void setUpTmpDirectory() throws IOException {
+    tmpDirectory = Files.createTempDirectory("report_dir");
+  }
+
+  @AfterEach
+  public void cleanupTmpDirectory() throws IOException {
+    try (Stream<Path> pathStream = Files.walk(tmpDirectory)) {
+      pathStream.sorted(Comparator.reverseOrder())
+          .map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testCreateReport_ByteIdenticalToCommittedReports() throws Exception {
+    List<String> attributeNames = ApplicationConfig.availableAttributeNames();
+    ApplicationConfig config = new ApplicationConfig(DATASET_DIRECTORY.toFile(), attributeNames,
+        ParsingMode.STREAMING);
+    Map<String, StatisticService> statisticServices = new LinkedHashMap<>();
+    attributeNames.forEach(name -> statisticServices.put(name, new StatisticCalculatorService()));
+    for (File file : ApplicationRunner.findJsonFiles(DATASET_DIRECTORY)) {
+      new JsonFileProcessor(config, file, statisticServices).call();
+    }
+
+    for (String attributeName : attributeNames) {
+      String fileName = ApplicationConfig.getStatisticFileNameFor(attributeName);
+      Path reportFile = tmpDirectory.resolve(fileName);
+      XmlReporterService.createReport(
+          statisticServices.get(attributeName).getStatisticSortedByCountThenByName(),
+          attributeName, ReportOptions.unlimited(), reportFile);
+
+      assertArrayEquals(Files.readAllBytes(STATISTIC_DIRECTORY.resolve(fileName)),
+          Files.readAllBytes(reportFile));
+    }
+  }
+
+  @Test
+  public void testCreateReport_EscapesLikeDomTransformer() throws Exception {
+    Map<String, Long> statistics = new LinkedHashMap<>();
+    statistics.put("Fish & Chips <Deluxe> \"Big\" 'One'", 3L);
+    statistics.put("Tab\tNew\nLine\rReturn\u0001\u007F\u0085", 2L);
+    statistics.put("Grüße €   🍔", 1L);
+
+    assertSameAsDom(statistics, "ingredient-name");
+    assertSameAsDom(new LinkedHashMap<>(), "burger-name");
+  }
+
+  @Test
+  public void testCreateReport_AppliesTopNAndMinCount() throws Exception {
+    Map<String, Long> statistics = new LinkedHashMap<>();
+    statistics.put("A", 5L);
+    statistics.put("B", 4L);
+    statistics.put("C", 2L);
+    statistics.put("D", 1L);
+
+    assertSameAsDom(statistics, new ReportOptions(2, 0), Map.of("A", 5L, "B", 4L));
+    assertSameAsDom(statistics, new ReportOptions(10, 2), Map.of("A", 5L, "B", 4L, "C", 2L));
+    assertSameAsDom(statistics, new ReportOptions(10, 6), Map.of());
+  }
+
+  private void assertSameAsDom(Map<String, Long> statistics, String attributeName)
+      throws Exception {
+    Path reportFile = tmpDirectory.resolve("stream.xml");
+    XmlReporterService.createReport(statistics, attributeName, ReportOptions.unlimited(),
+        reportFile);
+
+    Path domFile = tmpDirectory.resolve("dom.xml");
+    writeWithDom(statistics, attributeName, domFile);
+
+    assertArrayEquals(Files.readAllBytes(domFile), Files.readAllBytes(reportFile));
+  }
+
+  private void assertSameAsDom(Map<String, Long> statistics, ReportOptions reportOptions,
+      Map<String, Long> expectedItems) throws Exception {
+    Path reportFile = tmpDirectory.resolve("limited.xml");
+    XmlReporterService.createReport(statistics, "burger-name", reportOptions, reportFile);
+
+    Map<String, Long> expectedStatistics = new LinkedHashMap<>(statistics);
+    expectedStatistics.keySet().retainAll(expectedItems.keySet());
+    Path domFile = tmpDirectory.resolve("dom.xml");
+    writeWithDom(expectedStatistics, "burger-name", domFile);
+
+    assertArrayEquals(Files.readAllBytes(domFile), Files.readAllBytes(reportFile));
+  }
+
+  private static void writeWithDom(Map<String, Long> statistics, String attributeName,
+      Path file) throws Exception {
+    Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+    Element rootElement = document.createElement("statistic");
+    document.appendChild(rootElement);
+    for (Map.Entry<String, Long> statistic : statistics.entrySet()) {
+      Element item = document.createElement("item");
+      rootElement.appendChild(item);
+      Element attribute = document.createElement(
+          attributeName.toLowerCase(Locale.ROOT).replaceAll("-", ""));
+      attribute.setTextContent(statistic.getKey());
+      item.appendChild(attribute);
+      Element count = document.createElement("count");
+      count.setTextContent(statistic.getValue().toString());
+      item.appendChild(count);
+    }
+
+    Transformer transformer = TransformerFactory.newInstance().newTransformer();
+    transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+    transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+    transformer.transform(new DOMSource(document), new StreamResult(file.toFile()));
+  }
+}